@@ -0,0 +1,79 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the aggregation stage in isolation: counting pre-generated values from several threads at once.
+ * Contention is varied with the JMH thread count ({@code -t}) and the number of distinct values.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class AggregationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Counter {
+        @Param({"10", "100000"})
+        public int cardinality;
+
+        @Param({"SHARED", "SHARDED", "INTERNED", "OFF_HEAP", "APPROXIMATE"})
+        public String backend;
+
+        ValueCounter valueCounter;
+        String[] values;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            valueCounter = switch (backend) {
+                case "SHARED" -> new SharedCounts(new ConcurrentHashMap<>());
+                case "SHARDED" -> new ShardedCounts(new ConcurrentHashMap<>());
+                case "INTERNED" -> new InternedCounts(new ConcurrentHashMap<>());
+                case "OFF_HEAP" -> new OffHeapCounts(new ConcurrentHashMap<>(), 256L * 1024 * 1024, null);
+                default -> new ApproximateCounts(0.0001, 0.01, 1000);
+            };
+            values = new String[cardinality];
+            for (int i = 0; i < cardinality; i++) {
+                values[i] = "value-" + i;
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            valueCounter.complete();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int next(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+
+    @Benchmark
+    public void increment(Counter counter, Cursor cursor) {
+        counter.valueCounter.increment("attribute", counter.values[cursor.next(counter.cardinality)]);
+    }
+}
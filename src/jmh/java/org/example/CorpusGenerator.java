@@ -0,0 +1,100 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * The CorpusGenerator class writes deterministic JSON corpora for benchmarks.
+ * Every record has a "name" attribute drawn from a fixed number of distinct values, a "genre" attribute
+ * holding two comma-separated values out of ten, and a nested "details" object with filler fields.
+ */
+final class CorpusGenerator {
+    private static final String[] GENRES = {
+            "Romance", "Satire", "Tragedy", "Dystopian", "Political Fiction",
+            "Fantasy", "Mystery", "Horror", "Adventure", "Biography"
+    };
+
+    private CorpusGenerator() {
+    }
+
+    /**
+     * Creates a temporary directory with JSON files of the specified shape.
+     *
+     * @param files          The number of files
+     * @param recordsPerFile The number of records in every file
+     * @param cardinality    The number of distinct values of the "name" attribute
+     * @return The directory holding the generated files
+     * @throws IOException If the files cannot be written
+     */
+    static Path generate(int files, int recordsPerFile, int cardinality) throws IOException {
+        Path directory = Files.createTempDirectory("json-corpus");
+        SplittableRandom random = new SplittableRandom(42);
+        for (int file = 0; file < files; file++) {
+            writeFile(directory.resolve("corpus" + file + ".json"), recordsPerFile, cardinality, random);
+        }
+        return directory;
+    }
+
+    /**
+     * Creates a temporary directory with a skewed corpus: a few large files among many small ones.
+     *
+     * @param largeFiles          The number of large files
+     * @param recordsPerLargeFile The number of records in every large file
+     * @param smallFiles          The number of small files
+     * @param recordsPerSmallFile The number of records in every small file
+     * @param cardinality         The number of distinct values of the "name" attribute
+     * @return The directory holding the generated files
+     * @throws IOException If the files cannot be written
+     */
+    static Path generateSkewed(int largeFiles, int recordsPerLargeFile, int smallFiles, int recordsPerSmallFile,
+                               int cardinality) throws IOException {
+        Path directory = Files.createTempDirectory("json-corpus");
+        SplittableRandom random = new SplittableRandom(42);
+        for (int file = 0; file < largeFiles; file++) {
+            writeFile(directory.resolve("large" + file + ".json"), recordsPerLargeFile, cardinality, random);
+        }
+        for (int file = 0; file < smallFiles; file++) {
+            writeFile(directory.resolve("small" + file + ".json"), recordsPerSmallFile, cardinality, random);
+        }
+        return directory;
+    }
+
+    private static void writeFile(Path file, int records, int cardinality, SplittableRandom random)
+            throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("[\n");
+            for (int record = 0; record < records; record++) {
+                if (record > 0) {
+                    writer.write(",\n");
+                }
+                writer.write("  {\"id\": " + record
+                        + ", \"name\": \"name-" + random.nextInt(cardinality) + "\""
+                        + ", \"genre\": \"" + GENRES[random.nextInt(GENRES.length)]
+                        + ", " + GENRES[random.nextInt(GENRES.length)] + "\""
+                        + ", \"details\": {\"pages\": " + random.nextInt(1000)
+                        + ", \"publisher\": \"publisher-" + random.nextInt(100) + "\""
+                        + ", \"tags\": [\"a\", \"b\", \"c\"]}}");
+            }
+            writer.write("\n]");
+        }
+    }
+
+    /**
+     * Deletes a generated corpus directory.
+     *
+     * @param directory The directory to delete
+     * @throws IOException If a file cannot be deleted
+     */
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the executor strategies on a corpus read through a throttled filesystem,
+ * where every 64 KiB block of a file arrives only after a fixed latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorStrategyBenchmark {
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    @Param({"64"})
+    public int files;
+
+    @Param({"2000"})
+    public int recordsPerFile;
+
+    @Param({"0", "5"})
+    public long readLatencyMillis;
+
+    @Param({"FIXED", "VIRTUAL", "SPLIT"})
+    public ExecutorStrategy strategy;
+
+    private Path corpus;
+    private ExecutorService executorService;
+    private ExecutorService readExecutor;
+    private ProcessingOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = CorpusGenerator.generate(files, recordsPerFile, 1000);
+        executorService = strategy.createParseExecutor(Runtime.getRuntime().availableProcessors());
+        readExecutor = strategy.createReadExecutor();
+        options = ProcessingOptions.defaults()
+                .withReadExecutor(readExecutor)
+                .withMaxPendingFiles(files)
+                .withInputOpener(filePath ->
+                        new ThrottledInputStream(Files.newInputStream(filePath), readLatencyMillis, BLOCK_SIZE));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executorService.shutdownNow();
+        if (readExecutor != null) {
+            readExecutor.shutdownNow();
+        }
+        CorpusGenerator.delete(corpus);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Long>> parseThrottledCorpus() throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        JsonProcessor jsonProcessor = new JsonProcessor(executorService, List.of("name", "genre"),
+                attributeValueCounts, options);
+        jsonProcessor.processDirectory(corpus).join();
+        jsonProcessor.mergeShards();
+        return attributeValueCounts;
+    }
+}
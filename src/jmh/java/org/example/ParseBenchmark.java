@@ -0,0 +1,87 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parse stage: JsonProcessor over a generated corpus, including aggregation of matched values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    @Param({"8"})
+    public int files;
+
+    @Param({"20000"})
+    public int recordsPerFile;
+
+    @Param({"1000"})
+    public int cardinality;
+
+    @Param({"SHARED", "SHARDED"})
+    public AggregationMode aggregationMode;
+
+    @Param({"4"})
+    public int threads;
+
+    @Param({"GSON", "BYTES"})
+    public ParserEngine parserEngine;
+
+    @Param({"EXACT", "INTERNED"})
+    public CountingBackend countingBackend;
+
+    private Path corpus;
+    private ExecutorService executorService;
+    private ProcessingOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = CorpusGenerator.generate(files, recordsPerFile, cardinality);
+        executorService = Executors.newFixedThreadPool(threads);
+        options = ProcessingOptions.defaults()
+                .withAggregationMode(aggregationMode)
+                .withParserEngine(parserEngine)
+                .withCountingBackend(countingBackend);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executorService.shutdownNow();
+        CorpusGenerator.delete(corpus);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Long>> parseCorpus() throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        JsonProcessor jsonProcessor = new JsonProcessor(executorService, List.of("name", "genre"),
+                attributeValueCounts, options);
+        CompletableFuture.allOf(jsonProcessor.processJsonFiles(corpus)).join();
+        jsonProcessor.mergeShards();
+        return attributeValueCounts;
+    }
+}
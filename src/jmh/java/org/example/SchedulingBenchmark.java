@@ -0,0 +1,96 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time until every file of a skewed corpus is parsed, for each file order and executor strategy.
+ * The corpus holds a few large files among many small ones, and is read through a throttled filesystem,
+ * so the run time depends on how the files are spread over the workers rather than on the number of processors.
+ * Large files are not split, as with compressed files, so a large file started last runs alone at the end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SchedulingBenchmark {
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    @Param({"4"})
+    public int threads;
+
+    @Param({"3"})
+    public int largeFiles;
+
+    @Param({"80000"})
+    public int recordsPerLargeFile;
+
+    @Param({"600"})
+    public int smallFiles;
+
+    @Param({"600"})
+    public int recordsPerSmallFile;
+
+    @Param({"1"})
+    public long readLatencyMillis;
+
+    @Param({"WALK", "LARGEST_FIRST"})
+    public FileOrder fileOrder;
+
+    @Param({"FIXED", "WORK_STEALING"})
+    public ExecutorStrategy strategy;
+
+    private Path corpus;
+    private ExecutorService executorService;
+    private ProcessingOptions options;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = CorpusGenerator.generateSkewed(largeFiles, recordsPerLargeFile, smallFiles, recordsPerSmallFile,
+                1000);
+        executorService = strategy.createParseExecutor(threads);
+        options = ProcessingOptions.defaults()
+                .withFileOrder(fileOrder)
+                .withSplitThresholdBytes(Long.MAX_VALUE)
+                .withInputOpener(filePath ->
+                        new ThrottledInputStream(Files.newInputStream(filePath), readLatencyMillis, BLOCK_SIZE));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executorService.shutdownNow();
+        CorpusGenerator.delete(corpus);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, Long>> parseSkewedCorpus() throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        JsonProcessor jsonProcessor = new JsonProcessor(executorService, List.of("name", "genre"),
+                attributeValueCounts, options);
+        jsonProcessor.processDirectory(corpus).join();
+        jsonProcessor.mergeShards();
+        return attributeValueCounts;
+    }
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * An InputStream simulating slow storage, such as a network filesystem: every block of bytes,
+ * including the first one, is delivered only after a fixed latency.
+ */
+final class ThrottledInputStream extends FilterInputStream {
+    private final long latencyMillis;
+    private final int blockSize;
+    private int remainingInBlock;
+
+    /**
+     * Wraps a stream, delaying every block of the specified size.
+     *
+     * @param in            The wrapped stream
+     * @param latencyMillis The delay before every block
+     * @param blockSize     The number of bytes delivered per delay
+     */
+    ThrottledInputStream(InputStream in, long latencyMillis, int blockSize) {
+        super(in);
+        this.latencyMillis = latencyMillis;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (remainingInBlock == 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            remainingInBlock = blockSize;
+        }
+        int read = super.read(bytes, offset, Math.min(length, remainingInBlock));
+        if (read > 0) {
+            remainingInBlock -= read;
+        }
+        return read;
+    }
+}
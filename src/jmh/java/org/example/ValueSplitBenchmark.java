@@ -0,0 +1,65 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the extraction of the parts of one matched value: {@link ValueSplitter} against the former
+ * {@code split}/Stream/{@code trim} pipeline. Run with {@code -prof gc}; {@code gc.alloc.rate.norm}
+ * of {@code splitter} is 0 B/op for a value without delimiter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueSplitBenchmark {
+    @Param({"Romance", "Dystopian, Political Fiction"})
+    public String value;
+
+    private ValueCounter counter;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        counter = new ValueCounter() {
+            @Override
+            public void increment(String attributeName, String value) {
+                blackhole.consume(value);
+            }
+
+            @Override
+            public void add(String attributeName, String value, long count) {
+                blackhole.consume(value);
+            }
+        };
+    }
+
+    @Benchmark
+    public void splitter() {
+        ValueSplitter.split("genre", value, ValueDelimiter.COMMA, counter);
+    }
+
+    @Benchmark
+    public void splitStream() {
+        String[] values = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .toArray(String[]::new);
+        for (String part : values) {
+            counter.increment("genre", part);
+        }
+    }
+}
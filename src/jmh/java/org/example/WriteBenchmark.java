@@ -0,0 +1,83 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the write stage: sorting and writing one statistics file of a given number of distinct values
+ * in each output format, sorted in memory or by the external merge sort in chunks of the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriteBenchmark {
+    private static final String ATTRIBUTE = "benchmark";
+
+    @Param({"1000", "1000000"})
+    public int distinctValues;
+
+    @Param({"0", "100"})
+    public int topN;
+
+    @Param({"xml", "csv", "json", "binary", "binary-sorted"})
+    public String format;
+
+    @Param({"2147483647", "100000"})
+    public int sortChunkEntries;
+
+    private Map<String, Map<String, Long>> attributeValueCounts;
+    private ExecutorService executorService;
+    private XMLWriter xmlWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        Map<String, Long> counts = new HashMap<>();
+        for (int i = 0; i < distinctValues; i++) {
+            counts.put("value & <" + i + ">", (long) random.nextInt(1_000_000));
+        }
+        attributeValueCounts = Map.of(ATTRIBUTE, counts);
+        executorService = Executors.newSingleThreadExecutor();
+        xmlWriter = new XMLWriter(executorService, OutputOptions.defaults()
+                .withTopN(topN)
+                .withSortChunkEntries(sortChunkEntries)
+                .withSerializer(StatisticsSerializer.forName(format)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executorService.shutdownNow();
+        Files.deleteIfExists(Path.of("statistics_by_" + ATTRIBUTE + "."
+                + StatisticsSerializer.forName(format).fileExtension()));
+    }
+
+    @Benchmark
+    public List<StatisticsFileResult> writeStatistics() {
+        return xmlWriter.generateStatisticsFile(attributeValueCounts).join();
+    }
+}
@@ -0,0 +1,17 @@
+package org.example;
+
+/**
+ * The AggregationMode enum defines how matched attribute values are counted by {@link JsonProcessor}.
+ */
+public enum AggregationMode {
+    /**
+     * Every matched value is merged directly into the shared concurrent map of attribute value counts.
+     */
+    SHARED,
+
+    /**
+     * Every worker thread counts into its own private shard, and the shards are merged into the shared map
+     * once, after all files are processed.
+     */
+    SHARDED
+}
@@ -0,0 +1,119 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ApproximateCounts class counts attribute values in fixed memory.
+ * Every thread keeps a private Count-Min sketch and Space-Saving summary per attribute;
+ * {@link #complete()} merges them and publishes estimates for the most frequent values.
+ */
+class ApproximateCounts implements ValueCounter {
+    private static final Comparator<EstimatedCount> BY_COUNT_DESCENDING =
+            Comparator.comparingLong(EstimatedCount::count).reversed()
+                    .thenComparing(EstimatedCount::value);
+
+    private final double epsilon;
+    private final double delta;
+    private final int heavyHitters;
+    private final Map<String, List<EstimatedCount>> estimatedCounts = new ConcurrentHashMap<>();
+    private final ShardPool<Map<String, AttributeSketch>> shards = new ShardPool<>(HashMap::new);
+
+    /**
+     * Constructs an ApproximateCounts object with the specified error bounds.
+     *
+     * @param epsilon      The relative additive error of the Count-Min sketches
+     * @param delta        The probability of exceeding the sketch error
+     * @param heavyHitters The number of most frequent values tracked per attribute
+     */
+    ApproximateCounts(double epsilon, double delta, int heavyHitters) {
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.heavyHitters = heavyHitters;
+    }
+
+    @Override
+    public void increment(String attributeName, String value) {
+        shards.get()
+                .computeIfAbsent(attributeName, k -> new AttributeSketch(epsilon, delta, heavyHitters))
+                .add(value, 1);
+    }
+
+    @Override
+    public void add(String attributeName, String value, long count) {
+        shards.get()
+                .computeIfAbsent(attributeName, k -> new AttributeSketch(epsilon, delta, heavyHitters))
+                .add(value, count);
+    }
+
+    @Override
+    public void endTask() {
+        shards.release();
+    }
+
+    /**
+     * Merges the sketches of all threads and publishes the estimates of the most frequent values.
+     * Must only be called when no thread is counting into this object.
+     */
+    @Override
+    public void complete() {
+        Map<String, AttributeSketch> merged = new HashMap<>();
+        for (Map<String, AttributeSketch> shard : shards) {
+            shard.forEach((attributeName, sketch) -> merged.merge(attributeName, sketch, AttributeSketch::merge));
+            shard.clear();
+        }
+        merged.forEach((attributeName, sketch) -> estimatedCounts.put(attributeName, sketch.estimates()));
+    }
+
+    /**
+     * Retrieves the estimated counts of the most frequent values per attribute, ordered by count in descending order.
+     *
+     * @return The map of attribute names to estimated counts
+     */
+    Map<String, List<EstimatedCount>> getEstimatedCounts() {
+        return estimatedCounts;
+    }
+
+    /**
+     * The sketch and heavy-hitter summary of a single attribute.
+     */
+    private static final class AttributeSketch {
+        private final CountMinSketch sketch;
+        private final SpaceSaving summary;
+
+        private AttributeSketch(double epsilon, double delta, int heavyHitters) {
+            this.sketch = new CountMinSketch(epsilon, delta);
+            this.summary = new SpaceSaving(heavyHitters);
+        }
+
+        private void add(String value, long count) {
+            sketch.add(value, count);
+            summary.add(value, count);
+        }
+
+        private AttributeSketch merge(AttributeSketch other) {
+            sketch.merge(other.sketch);
+            summary.merge(other.summary);
+            return this;
+        }
+
+        /**
+         * Combines both structures: the summary bounds the true count from below by {@code count - error},
+         * and the smaller of the two counts bounds it from above.
+         */
+        private List<EstimatedCount> estimates() {
+            List<EstimatedCount> estimates = new ArrayList<>();
+            for (EstimatedCount tracked : summary.estimates()) {
+                long lowerBound = Math.max(0, tracked.count() - tracked.error());
+                long upperBound = Math.min(tracked.count(), sketch.estimate(tracked.value()));
+                estimates.add(new EstimatedCount(tracked.value(), upperBound, upperBound - lowerBound));
+            }
+            estimates.sort(BY_COUNT_DESCENDING);
+            return estimates;
+        }
+    }
+}
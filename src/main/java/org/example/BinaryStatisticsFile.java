@@ -0,0 +1,198 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The BinaryStatisticsFile class reads a statistics file written in the {@code binary} or {@code binary-sorted}
+ * output format. The file is memory-mapped, so records are decoded only when they are accessed,
+ * and a value of a file sorted by value is found by binary search without reading the other records.
+ * Files must be smaller than 2 GB.
+ */
+public final class BinaryStatisticsFile {
+    private final ByteBuffer buffer;
+    private final int flags;
+    private final int records;
+    private final long othersValues;
+    private final long othersCount;
+    private final int indexOffset;
+
+    private BinaryStatisticsFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        byte[] magic = new byte[BinaryStatisticsSerializer.MAGIC.length];
+        if (buffer.limit() < BinaryStatisticsSerializer.HEADER_BYTES + Long.BYTES) {
+            throw new IOException("Invalid binary statistics file: too short.");
+        }
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, BinaryStatisticsSerializer.MAGIC)) {
+            throw new IOException("Invalid binary statistics file: wrong magic bytes.");
+        }
+        if (buffer.get(magic.length) != BinaryStatisticsSerializer.VERSION) {
+            throw new IOException("Unsupported binary statistics file version: " + buffer.get(magic.length));
+        }
+        this.flags = buffer.get(magic.length + 1);
+        this.records = Math.toIntExact(buffer.getLong(magic.length + 2));
+        this.othersValues = buffer.getLong(magic.length + 2 + Long.BYTES);
+        this.othersCount = buffer.getLong(magic.length + 2 + 2 * Long.BYTES);
+        this.indexOffset = Math.toIntExact(buffer.getLong(buffer.limit() - Long.BYTES));
+        if (indexOffset + (long) records * Long.BYTES != buffer.limit() - Long.BYTES) {
+            throw new IOException("Invalid binary statistics file: corrupt index.");
+        }
+    }
+
+    /**
+     * Opens a binary statistics file.
+     *
+     * @param file The statistics file
+     * @return The opened file
+     * @throws IOException If the file cannot be read or is not a binary statistics file
+     */
+    public static BinaryStatisticsFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryStatisticsFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Retrieves the number of records.
+     *
+     * @return The number of values in the file
+     */
+    public int size() {
+        return records;
+    }
+
+    /**
+     * Tests if the records are ordered by value, which enables binary search.
+     *
+     * @return true if the file was written in the {@code binary-sorted} format
+     */
+    public boolean isSortedByValue() {
+        return (flags & BinaryStatisticsSerializer.SORTED_BY_VALUE) != 0;
+    }
+
+    /**
+     * Tests if the records carry the error bounds of estimated counts.
+     *
+     * @return true for estimated counts
+     */
+    public boolean hasErrors() {
+        return (flags & BinaryStatisticsSerializer.HAS_ERRORS) != 0;
+    }
+
+    /**
+     * Retrieves the value of a record.
+     *
+     * @param index The index of the record
+     * @return The value
+     */
+    public String value(int index) {
+        int offset = recordOffset(index);
+        byte[] value = new byte[buffer.getInt(offset)];
+        buffer.get(offset + Integer.BYTES, value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Retrieves the count of a record.
+     *
+     * @param index The index of the record
+     * @return The count
+     */
+    public long count(int index) {
+        int offset = recordOffset(index);
+        return buffer.getLong(offset + Integer.BYTES + buffer.getInt(offset));
+    }
+
+    /**
+     * Retrieves the error bound of the count of a record.
+     *
+     * @param index The index of the record
+     * @return The error, or 0 for exact counts
+     */
+    public long error(int index) {
+        if (!hasErrors()) {
+            return 0;
+        }
+        int offset = recordOffset(index);
+        return buffer.getLong(offset + Integer.BYTES + buffer.getInt(offset) + Long.BYTES);
+    }
+
+    /**
+     * Retrieves the number of values omitted by a top N limit.
+     *
+     * @return The number of omitted values
+     */
+    public long othersValues() {
+        return othersValues;
+    }
+
+    /**
+     * Retrieves the summed count of the values omitted by a top N limit.
+     *
+     * @return The summed count of omitted values
+     */
+    public long othersCount() {
+        return othersCount;
+    }
+
+    /**
+     * Finds the record of a value, by binary search if the file is sorted by value and by a scan otherwise.
+     *
+     * @param value The value
+     * @return The index of the record, or -1 if the value is not in the file
+     */
+    public int indexOf(String value) {
+        byte[] key = value.getBytes(StandardCharsets.UTF_8);
+        if (!isSortedByValue()) {
+            for (int i = 0; i < records; i++) {
+                if (compareValue(i, key) == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int low = 0;
+        int high = records - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareValue(middle, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int recordOffset(int index) {
+        if (index < 0 || index >= records) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return Math.toIntExact(buffer.getLong(indexOffset + index * Long.BYTES));
+    }
+
+    /**
+     * Compares the unsigned UTF-8 bytes of the value of a record with a key.
+     */
+    private int compareValue(int index, byte[] key) {
+        int offset = recordOffset(index);
+        int length = buffer.getInt(offset);
+        int start = offset + Integer.BYTES;
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int comparison = Byte.compareUnsigned(buffer.get(start + i), key[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+}
@@ -0,0 +1,164 @@
+package org.example;
+
+import org.example.TopEntriesSelector.TopEntries;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The BinaryStatisticsSerializer class writes a statistics file in a compact binary format,
+ * read by {@link BinaryStatisticsFile}. All numbers are big-endian.
+ * <ul>
+ *     <li>Header: the magic bytes {@code JXSB}, a version byte, a flags byte ({@link #SORTED_BY_VALUE},
+ *     {@link #HAS_ERRORS}), the number of records, and the number and summed count of omitted entries,
+ *     each as 8 bytes.</li>
+ *     <li>Records: the length of the UTF-8 encoded value as 4 bytes, the value, the count as 8 bytes
+ *     and, for estimated counts, the error as 8 bytes.</li>
+ *     <li>Index: the file offset of every record as 8 bytes, followed by the offset of the index as 8 bytes.</li>
+ * </ul>
+ * Records are ordered by count like the other formats, or by the unsigned bytes of their values,
+ * so a value can be looked up by binary search over the index.
+ */
+final class BinaryStatisticsSerializer implements StatisticsSerializer {
+    static final BinaryStatisticsSerializer BY_COUNT = new BinaryStatisticsSerializer(false);
+    static final BinaryStatisticsSerializer BY_VALUE = new BinaryStatisticsSerializer(true);
+
+    static final byte[] MAGIC = {'J', 'X', 'S', 'B'};
+    static final byte VERSION = 1;
+    static final int SORTED_BY_VALUE = 1;
+    static final int HAS_ERRORS = 2;
+    static final int HEADER_BYTES = MAGIC.length + 2 + 3 * Long.BYTES;
+
+    private final boolean sortedByValue;
+
+    private BinaryStatisticsSerializer(boolean sortedByValue) {
+        this.sortedByValue = sortedByValue;
+    }
+
+    @Override
+    public String name() {
+        return sortedByValue ? "binary-sorted" : "binary";
+    }
+
+    @Override
+    public String fileExtension() {
+        return "bin";
+    }
+
+    @Override
+    public long writeCounts(Path file, TopEntries sortedData, int bufferSizeBytes) throws IOException {
+        List<Map.Entry<String, Long>> entries = sortedData.entries();
+        try (StatisticsOutputBuffer output = new StatisticsOutputBuffer(file, bufferSizeBytes)) {
+            appendHeader(output, 0, entries.size(), sortedData.othersValues(), sortedData.othersCount());
+            long[] offsets = new long[entries.size()];
+            if (sortedByValue) {
+                List<EncodedRecord> records = new ArrayList<>(entries.size());
+                for (Map.Entry<String, Long> entry : entries) {
+                    records.add(new EncodedRecord(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue(), 0));
+                }
+                appendSorted(output, records, false, offsets);
+            } else {
+                appendByCount(output, entries.iterator(), offsets);
+            }
+            appendIndex(output, offsets);
+            return output.size();
+        }
+    }
+
+    /**
+     * Writes streamed entries in count order; the index keeps 8 bytes per record in memory until it is written.
+     * Records ordered by value have to be sorted in memory and are collected first.
+     */
+    @Override
+    public long writeCounts(Path file, Iterator<Map.Entry<String, Long>> entries, long entryCount,
+                            int bufferSizeBytes) throws IOException {
+        if (sortedByValue) {
+            return StatisticsSerializer.super.writeCounts(file, entries, entryCount, bufferSizeBytes);
+        }
+        try (StatisticsOutputBuffer output = new StatisticsOutputBuffer(file, bufferSizeBytes)) {
+            appendHeader(output, 0, entryCount, 0, 0);
+            long[] offsets = new long[Math.toIntExact(entryCount)];
+            appendByCount(output, entries, offsets);
+            appendIndex(output, offsets);
+            return output.size();
+        }
+    }
+
+    @Override
+    public long writeEstimates(Path file, List<EstimatedCount> estimates, int bufferSizeBytes) throws IOException {
+        try (StatisticsOutputBuffer output = new StatisticsOutputBuffer(file, bufferSizeBytes)) {
+            appendHeader(output, HAS_ERRORS, estimates.size(), 0, 0);
+            long[] offsets = new long[estimates.size()];
+            if (sortedByValue) {
+                List<EncodedRecord> records = new ArrayList<>(estimates.size());
+                for (EstimatedCount estimate : estimates) {
+                    records.add(new EncodedRecord(estimate.value().getBytes(StandardCharsets.UTF_8),
+                            estimate.count(), estimate.error()));
+                }
+                appendSorted(output, records, true, offsets);
+            } else {
+                for (int i = 0; i < offsets.length; i++) {
+                    EstimatedCount estimate = estimates.get(i);
+                    offsets[i] = output.size();
+                    output.appendBinary(StatisticsOutputBuffer.utf8Length(estimate.value()))
+                            .appendUtf8(estimate.value())
+                            .appendBinary(estimate.count())
+                            .appendBinary(estimate.error());
+                }
+            }
+            appendIndex(output, offsets);
+            return output.size();
+        }
+    }
+
+    private void appendHeader(StatisticsOutputBuffer output, int flags, long records, long othersValues,
+                              long othersCount) throws IOException {
+        output.append(MAGIC)
+                .append(new byte[]{VERSION, (byte) (sortedByValue ? flags | SORTED_BY_VALUE : flags)})
+                .appendBinary(records)
+                .appendBinary(othersValues)
+                .appendBinary(othersCount);
+    }
+
+    private static void appendByCount(StatisticsOutputBuffer output, Iterator<Map.Entry<String, Long>> entries,
+                                      long[] offsets) throws IOException {
+        for (int i = 0; i < offsets.length; i++) {
+            Map.Entry<String, Long> entry = entries.next();
+            offsets[i] = output.size();
+            output.appendBinary(StatisticsOutputBuffer.utf8Length(entry.getKey()))
+                    .appendUtf8(entry.getKey())
+                    .appendBinary(entry.getValue());
+        }
+    }
+
+    private static void appendSorted(StatisticsOutputBuffer output, List<EncodedRecord> records, boolean errors,
+                                     long[] offsets) throws IOException {
+        records.sort(Comparator.comparing(EncodedRecord::value, Arrays::compareUnsigned));
+        for (int i = 0; i < offsets.length; i++) {
+            EncodedRecord record = records.get(i);
+            offsets[i] = output.size();
+            output.appendBinary(record.value().length).append(record.value()).appendBinary(record.count());
+            if (errors) {
+                output.appendBinary(record.error());
+            }
+        }
+    }
+
+    private static void appendIndex(StatisticsOutputBuffer output, long[] offsets) throws IOException {
+        long indexOffset = output.size();
+        for (long offset : offsets) {
+            output.appendBinary(offset);
+        }
+        output.appendBinary(indexOffset);
+    }
+
+    private record EncodedRecord(byte[] value, long count, long error) {
+    }
+}
@@ -0,0 +1,502 @@
+package org.example;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ByteJsonParser class extracts attribute values from a JSON array of objects by scanning its raw UTF-8 bytes.
+ *
+ * <p>Keys are compared byte by byte against the encoded keys of a {@link PathMatcher}, and the values of other keys
+ * are skipped without being decoded, so Strings are only allocated for matched values. Values are reported the same
+ * way {@link JsonProcessor} reports them with Gson: a plain name matches strings and numbers of its key at any depth,
+ * directly or inside an array, while arrays nested directly in arrays are skipped; selectors match the paths they
+ * describe, and objects and arrays no selector can match are skipped wholesale.
+ * The encoding of skipped values is not validated.
+ *
+ * <p>A parser holds no state between calls and can be shared by threads.
+ */
+public class ByteJsonParser {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final PathMatcher pathMatcher;
+    private final int bufferSize;
+
+    /**
+     * Constructs a ByteJsonParser object matching the specified attribute names.
+     *
+     * @param attributeNames The attribute names or selectors to extract
+     * @throws IllegalArgumentException If a selector is malformed
+     */
+    public ByteJsonParser(List<String> attributeNames) {
+        this(attributeNames, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a ByteJsonParser object reading input in chunks of the specified size.
+     *
+     * @param attributeNames The attribute names to extract
+     * @param bufferSize     The initial read buffer size in bytes; it grows for longer tokens
+     */
+    ByteJsonParser(List<String> attributeNames, int bufferSize) {
+        this.pathMatcher = PathMatcher.compile(attributeNames);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Parses a JSON array of objects and passes every matched value to the consumer.
+     * The stream is read up to the end of the root array and is not closed.
+     *
+     * @param inputStream   The UTF-8 encoded JSON
+     * @param valueConsumer The consumer receiving matched values with their attribute names
+     * @return The number of top-level objects parsed
+     * @throws IOException If an I/O error occurs or the JSON is malformed
+     */
+    public long parse(InputStream inputStream, ValueConsumer valueConsumer) throws IOException {
+        return new Scanner(inputStream, valueConsumer).parseRoot();
+    }
+
+    /**
+     * Parses whitespace-separated JSON objects, such as the lines of newline-delimited JSON,
+     * and passes every matched value to the consumer. The stream is read to its end and is not closed.
+     *
+     * @param inputStream   The UTF-8 encoded JSON objects
+     * @param valueConsumer The consumer receiving matched values with their attribute names
+     * @return The number of objects parsed
+     * @throws IOException If an I/O error occurs or the JSON is malformed
+     */
+    public long parseObjects(InputStream inputStream, ValueConsumer valueConsumer) throws IOException {
+        return new Scanner(inputStream, valueConsumer).parseObjectSequence();
+    }
+
+    /**
+     * Receives the values of matched attributes.
+     */
+    @FunctionalInterface
+    public interface ValueConsumer {
+
+        /**
+         * Accepts a matched value.
+         *
+         * @param attributeName The attribute name, as passed to the parser
+         * @param value         The decoded string value, or the literal text of a number
+         */
+        void accept(String attributeName, String value);
+
+        /**
+         * Accepts a matched value without escape sequences as raw UTF-8 bytes, which are only valid during the call.
+         * By default the bytes are decoded and passed to {@link #accept(String, String)}.
+         *
+         * @param attributeName The attribute name, as passed to the parser
+         * @param utf8          The array holding the value
+         * @param start         The offset of the first byte of the value
+         * @param length        The number of bytes of the value
+         */
+        default void acceptBytes(String attributeName, byte[] utf8, int start, int length) {
+            accept(attributeName, new String(utf8, start, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * The state of a single parse: the read buffer and the position in it.
+     */
+    private final class Scanner {
+        private final InputStream inputStream;
+        private final ValueConsumer valueConsumer;
+        private byte[] buffer = new byte[bufferSize];
+        private int position;
+        private int limit;
+        private int mark = -1;
+        private long bufferOffset;
+
+        private Scanner(InputStream inputStream, ValueConsumer valueConsumer) {
+            this.inputStream = inputStream;
+            this.valueConsumer = valueConsumer;
+        }
+
+        private long parseRoot() throws IOException {
+            skipByteOrderMark();
+            if (peek() != '[') {
+                throw new IOException("Invalid JSON format: Expecting array at the root level.");
+            }
+            position++;
+            long records = 0;
+            if (peek() == ']') {
+                position++;
+                return records;
+            }
+            while (true) {
+                if (peek() != '{') {
+                    throw new IOException("Invalid JSON format: Expecting beginning of the object - {.");
+                }
+                position++;
+                parseObject(pathMatcher.start());
+                records++;
+                if (!nextElement(']')) {
+                    return records;
+                }
+            }
+        }
+
+        private long parseObjectSequence() throws IOException {
+            skipByteOrderMark();
+            long records = 0;
+            for (int b = peek(); b != -1; b = peek()) {
+                if (b != '{') {
+                    throw new IOException("Invalid JSON format: Expecting beginning of the object - {.");
+                }
+                position++;
+                parseObject(pathMatcher.start());
+                records++;
+            }
+            return records;
+        }
+
+        private void parseObject(PathMatcher.State state) throws IOException {
+            if (peek() == '}') {
+                position++;
+                return;
+            }
+            do {
+                expect('"');
+                PathMatcher.State child = readKey(state);
+                expect(':');
+                parseValue(child);
+            } while (nextElement('}'));
+        }
+
+        private void parseArray(PathMatcher.State elementState) throws IOException {
+            if (peek() == ']') {
+                position++;
+                return;
+            }
+            do {
+                parseValue(elementState);
+            } while (nextElement(']'));
+        }
+
+        /**
+         * Parses the value of an object member or an array element.
+         * Values below which no selector can match are skipped without being parsed.
+         *
+         * @param state The automaton state of the value
+         */
+        private void parseValue(PathMatcher.State state) throws IOException {
+            int b = peek();
+            int[] accepted = state.accepted();
+            switch (b) {
+                case '"' -> {
+                    position++;
+                    if (accepted.length == 0) {
+                        skipString();
+                    } else {
+                        readString(accepted);
+                    }
+                }
+                case '{' -> {
+                    position++;
+                    if (state.isDead()) {
+                        skipContainer();
+                    } else {
+                        parseObject(state);
+                    }
+                }
+                case '[' -> {
+                    position++;
+                    if (state.isDead()) {
+                        skipContainer();
+                    } else {
+                        parseArray(state.element());
+                    }
+                }
+                case 't' -> skipLiteral(TRUE);
+                case 'f' -> skipLiteral(FALSE);
+                case 'n' -> skipLiteral(NULL);
+                default -> {
+                    if (b != '-' && (b < '0' || b > '9')) {
+                        throw unexpected(b);
+                    }
+                    if (accepted.length == 0) {
+                        scanNumber();
+                    } else {
+                        mark = position;
+                        scanNumber();
+                        int start = mark;
+                        mark = -1;
+                        for (int attribute : accepted) {
+                            valueConsumer.acceptBytes(pathMatcher.attributeName(attribute), buffer, start,
+                                    position - start);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Consumes the separator after an element of an object or array.
+         *
+         * @param closing The closing bracket of the container
+         * @return true if another element follows, false if the container is closed
+         */
+        private boolean nextElement(char closing) throws IOException {
+            int b = peek();
+            if (b != ',' && b != closing) {
+                throw unexpected(b);
+            }
+            position++;
+            return b == ',';
+        }
+
+        /**
+         * Reads a key after its opening quote and advances the automaton with it.
+         *
+         * @param state The automaton state of the object
+         * @return The automaton state of the member value
+         */
+        private PathMatcher.State readKey(PathMatcher.State state) throws IOException {
+            boolean escaped = scanString(true);
+            int start = mark;
+            int length = position - 1 - start;
+            mark = -1;
+            return escaped ? state.key(decode(start, length)) : state.key(buffer, start, length);
+        }
+
+        /**
+         * Reads a matched string after its opening quote and passes it to the value consumer,
+         * as raw bytes unless it contains escape sequences.
+         */
+        private void readString(int[] accepted) throws IOException {
+            boolean escaped = scanString(true);
+            int start = mark;
+            mark = -1;
+            int length = position - 1 - start;
+            String decoded = escaped ? decode(start, length) : null;
+            for (int attribute : accepted) {
+                if (escaped) {
+                    valueConsumer.accept(pathMatcher.attributeName(attribute), decoded);
+                } else {
+                    valueConsumer.acceptBytes(pathMatcher.attributeName(attribute), buffer, start, length);
+                }
+            }
+        }
+
+        private void skipString() throws IOException {
+            scanString(false);
+        }
+
+        /**
+         * Moves past the closing quote of a string whose opening quote was consumed.
+         *
+         * @param keep true to keep the content in the buffer, starting at {@code mark}
+         * @return true if the string contains escape sequences
+         */
+        private boolean scanString(boolean keep) throws IOException {
+            if (keep) {
+                mark = position;
+            }
+            boolean escaped = false;
+            while (true) {
+                if (position == limit && !fill()) {
+                    throw new EOFException("Invalid JSON format: Unexpected end of file.");
+                }
+                byte[] bytes = buffer;
+                int end = limit;
+                int p = position;
+                while (p < end) {
+                    byte b = bytes[p++];
+                    if (b == '"') {
+                        position = p;
+                        return escaped;
+                    }
+                    if (b == '\\') {
+                        escaped = true;
+                        if (p == end) {
+                            position = p;
+                            if (!fill()) {
+                                throw new EOFException("Invalid JSON format: Unexpected end of file.");
+                            }
+                            bytes = buffer;
+                            end = limit;
+                            p = position;
+                        }
+                        p++;
+                    }
+                }
+                position = p;
+            }
+        }
+
+        /**
+         * Decodes a string containing escape sequences.
+         */
+        private String decode(int start, int length) throws IOException {
+            StringBuilder decoded = new StringBuilder(length);
+            int end = start + length;
+            int segmentStart = start;
+            int i = start;
+            while (i < end) {
+                if (buffer[i] != '\\') {
+                    i++;
+                    continue;
+                }
+                decoded.append(new String(buffer, segmentStart, i - segmentStart, StandardCharsets.UTF_8));
+                byte escape = buffer[i + 1];
+                i += 2;
+                switch (escape) {
+                    case '"', '\\', '/' -> decoded.append((char) escape);
+                    case 'b' -> decoded.append('\b');
+                    case 'f' -> decoded.append('\f');
+                    case 'n' -> decoded.append('\n');
+                    case 'r' -> decoded.append('\r');
+                    case 't' -> decoded.append('\t');
+                    case 'u' -> {
+                        if (i + 4 > end) {
+                            throw new IOException("Invalid JSON format: Invalid escape sequence.");
+                        }
+                        int codeUnit = 0;
+                        for (int digit = i; digit < i + 4; digit++) {
+                            int value = Character.digit(buffer[digit], 16);
+                            if (value < 0) {
+                                throw new IOException("Invalid JSON format: Invalid escape sequence at byte "
+                                        + (bufferOffset + i - 2) + ".");
+                            }
+                            codeUnit = codeUnit << 4 | value;
+                        }
+                        decoded.append((char) codeUnit);
+                        i += 4;
+                    }
+                    default -> throw new IOException("Invalid JSON format: Invalid escape sequence.");
+                }
+                segmentStart = i;
+            }
+            decoded.append(new String(buffer, segmentStart, end - segmentStart, StandardCharsets.UTF_8));
+            return decoded.toString();
+        }
+
+        /**
+         * Moves past the characters of a number.
+         */
+        private void scanNumber() throws IOException {
+            while (true) {
+                if (position == limit && !fill()) {
+                    return;
+                }
+                byte b = buffer[position];
+                if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+                    position++;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void skipLiteral(byte[] literal) throws IOException {
+            for (byte expected : literal) {
+                if (position == limit && !fill()) {
+                    throw new EOFException("Invalid JSON format: Unexpected end of file.");
+                }
+                if (buffer[position] != expected) {
+                    throw unexpected(buffer[position]);
+                }
+                position++;
+            }
+        }
+
+        /**
+         * Skips an object or array whose opening bracket was consumed, only tracking nesting and strings.
+         */
+        private void skipContainer() throws IOException {
+            int depth = 1;
+            while (depth > 0) {
+                if (position == limit && !fill()) {
+                    throw new EOFException("Invalid JSON format: Unexpected end of file.");
+                }
+                byte b = buffer[position++];
+                switch (b) {
+                    case '"' -> skipString();
+                    case '{', '[' -> depth++;
+                    case '}', ']' -> depth--;
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        private void skipByteOrderMark() throws IOException {
+            if (peek() == (BYTE_ORDER_MARK[0] & 0xFF)) {
+                skipLiteral(BYTE_ORDER_MARK);
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            int b = peek();
+            if (b != expected) {
+                throw unexpected(b);
+            }
+            position++;
+        }
+
+        /**
+         * Skips whitespace and returns the next byte without consuming it.
+         *
+         * @return The next byte as an unsigned value, or -1 at the end of the input
+         */
+        private int peek() throws IOException {
+            while (true) {
+                if (position == limit && !fill()) {
+                    return -1;
+                }
+                int b = buffer[position] & 0xFF;
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                    return b;
+                }
+                position++;
+            }
+        }
+
+        /**
+         * Reads more input into the buffer, keeping the bytes from {@code mark} on if it is set.
+         * The kept bytes are moved to the start of the buffer, which grows if they fill it.
+         *
+         * @return false at the end of the input
+         */
+        private boolean fill() throws IOException {
+            int keepFrom = mark >= 0 ? mark : position;
+            if (keepFrom > 0) {
+                System.arraycopy(buffer, keepFrom, buffer, 0, limit - keepFrom);
+                bufferOffset += keepFrom;
+                limit -= keepFrom;
+                position -= keepFrom;
+                if (mark >= 0) {
+                    mark = 0;
+                }
+            } else if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read;
+            do {
+                read = inputStream.read(buffer, limit, buffer.length - limit);
+            } while (read == 0);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+            return true;
+        }
+
+        private IOException unexpected(int b) {
+            if (b < 0) {
+                return new EOFException("Invalid JSON format: Unexpected end of file.");
+            }
+            return new IOException("Invalid JSON format: Unexpected character '" + (char) (b & 0xFF)
+                    + "' at byte " + (bufferOffset + position) + ".");
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+
+/**
+ * The Checkpoint class records the progress of a long run, so a run that dies can be resumed without counting
+ * the completed files again. Workers hand over the counts of every completed file without blocking;
+ * {@link #write()} appends the files completed since the last write, together with their summed counts,
+ * as one batch to the checkpoint file. Since every batch holds exactly the counts of its files,
+ * the checkpoint is a consistent view of the counts and the completed files after every write,
+ * and the workers never wait for it.
+ *
+ * <p>A checkpoint file starts with a magic number, the format version and the counting key of the run.
+ * Every batch is written as its length, the batch and the CRC-32 of the batch; a batch starts with the paths
+ * of its files, followed by every attribute with its values and counts. Strings are stored as length-prefixed
+ * UTF-8. A batch that was only partly written when the process died is dropped on resume.
+ */
+public final class Checkpoint implements Closeable {
+    private static final int MAGIC = 0x4A32434B;
+    private static final short VERSION = 1;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Set<String> completedFiles;
+    private final long resumedEnd;
+    private final long headerEnd;
+    private final Queue<CompletedFile> pending = new ConcurrentLinkedQueue<>();
+    private long writtenFiles;
+
+    private Checkpoint(Path file, FileChannel channel, Set<String> completedFiles, long headerEnd, long resumedEnd) {
+        this.file = file;
+        this.channel = channel;
+        this.completedFiles = completedFiles;
+        this.headerEnd = headerEnd;
+        this.resumedEnd = resumedEnd;
+        this.writtenFiles = completedFiles.size();
+    }
+
+    /**
+     * Creates a checkpoint file for a new run, replacing an existing file.
+     *
+     * @param file        The checkpoint file
+     * @param countingKey The description of the settings that affect the counts, such as the attribute names
+     * @return The checkpoint, which must be closed
+     * @throws IOException If the file cannot be written
+     */
+    public static Checkpoint create(Path file, String countingKey) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(header);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            writeString(out, countingKey);
+            channel.write(ByteBuffer.wrap(header.toByteArray()));
+            channel.force(false);
+            return new Checkpoint(file, channel, Set.of(), channel.position(), channel.position());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the checkpoint file of an earlier run to continue it, or creates it if it does not exist.
+     * A partly written batch at the end of the file is cut off.
+     *
+     * @param file        The checkpoint file
+     * @param countingKey The description of the settings that affect the counts, which must match the earlier run
+     * @return The checkpoint, which must be closed
+     * @throws IOException If the file cannot be read, is not a checkpoint or was written with other settings
+     */
+    public static Checkpoint resume(Path file, String countingKey) throws IOException {
+        if (!Files.exists(file)) {
+            return create(file, countingKey);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(channel.position(0)), STREAM_BUFFER_SIZE));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a checkpoint file: " + file);
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+            }
+            String key = readString(in);
+            if (!key.equals(countingKey)) {
+                throw new IOException("Checkpoint " + file + " was written with other settings.");
+            }
+            long headerEnd = Integer.BYTES + Short.BYTES + Integer.BYTES
+                    + key.getBytes(StandardCharsets.UTF_8).length;
+            Set<String> completedFiles = new HashSet<>();
+            long end = readBatches(in, headerEnd, channel.size(), batch -> {
+                int fileCount = batch.readInt();
+                for (int i = 0; i < fileCount; i++) {
+                    completedFiles.add(readString(batch));
+                }
+            });
+            channel.truncate(end);
+            channel.position(end);
+            return new Checkpoint(file, channel, Set.copyOf(completedFiles), headerEnd, end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a file was completed by the resumed run.
+     *
+     * @param filePath The path to the file
+     * @return true if the counts of the file are in the checkpoint
+     */
+    public boolean isCompleted(Path filePath) {
+        return !completedFiles.isEmpty() && completedFiles.contains(key(filePath));
+    }
+
+    /**
+     * Retrieves the number of files completed by the resumed run.
+     *
+     * @return The number of completed files found when the checkpoint was opened
+     */
+    public int getResumedFileCount() {
+        return completedFiles.size();
+    }
+
+    /**
+     * Passes the counts of the resumed run to the consumer.
+     *
+     * @param consumer The consumer receiving every attribute value with its count
+     * @throws IOException If the checkpoint cannot be read
+     */
+    public void replay(CountConsumer consumer) throws IOException {
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(reader.position(headerEnd)), STREAM_BUFFER_SIZE));
+            readBatches(in, headerEnd, resumedEnd, batch -> {
+                int fileCount = batch.readInt();
+                for (int i = 0; i < fileCount; i++) {
+                    readString(batch);
+                }
+                int attributeCount = batch.readInt();
+                for (int i = 0; i < attributeCount; i++) {
+                    String attributeName = readString(batch);
+                    long valueCount = batch.readLong();
+                    for (long j = 0; j < valueCount; j++) {
+                        consumer.accept(attributeName, readString(batch), batch.readLong());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Hands over the counts of a completed file; they are written by the next {@link #write()}.
+     * Can be called concurrently and does not block.
+     *
+     * @param filePath   The path to the completed file
+     * @param fileCounts The attribute value counts of the file, which must not be modified afterwards
+     */
+    public void fileCompleted(Path filePath, Map<String, Map<String, Long>> fileCounts) {
+        pending.add(new CompletedFile(key(filePath), fileCounts));
+    }
+
+    /**
+     * Appends the files completed since the last write and their counts to the checkpoint file
+     * and forces them to the storage device.
+     *
+     * @return The number of files in the checkpoint
+     * @throws IOException If the checkpoint cannot be written
+     */
+    public synchronized long write() throws IOException {
+        if (pending.isEmpty()) {
+            return writtenFiles;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Map<String, Map<String, Long>> batchCounts = new HashMap<>();
+        int fileCount = 0;
+        ByteArrayOutputStream paths = new ByteArrayOutputStream();
+        DataOutputStream pathOut = new DataOutputStream(paths);
+        for (CompletedFile completed = pending.poll(); completed != null; completed = pending.poll()) {
+            writeString(pathOut, completed.path());
+            fileCount++;
+            completed.counts().forEach((attributeName, valueCounts) -> {
+                Map<String, Long> target = batchCounts.computeIfAbsent(attributeName, k -> new HashMap<>());
+                valueCounts.forEach((value, count) -> target.merge(value, count, Long::sum));
+            });
+        }
+        out.writeInt(fileCount);
+        paths.writeTo(out);
+        out.writeInt(batchCounts.size());
+        for (Map.Entry<String, Map<String, Long>> attribute : batchCounts.entrySet()) {
+            writeString(out, attribute.getKey());
+            out.writeLong(attribute.getValue().size());
+            for (Map.Entry<String, Long> entry : attribute.getValue().entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+        byte[] batch = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(batch);
+        ByteBuffer buffer = ByteBuffer.allocate(batch.length + 2 * Integer.BYTES)
+                .putInt(batch.length)
+                .put(batch)
+                .putInt((int) crc.getValue())
+                .flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        writtenFiles += fileCount;
+        return writtenFiles;
+    }
+
+    /**
+     * Writes the pending files and closes the checkpoint file.
+     *
+     * @throws IOException If the checkpoint cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            write();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads batches until the end offset or until a batch is incomplete or corrupt.
+     *
+     * @return The offset after the last complete batch
+     */
+    private static long readBatches(DataInputStream in, long start, long end, BatchReader reader) throws IOException {
+        long position = start;
+        while (position + Integer.BYTES <= end) {
+            int length = in.readInt();
+            if (length < 0 || position + 2L * Integer.BYTES + length > end) {
+                break;
+            }
+            byte[] batch = in.readNBytes(length);
+            int checksum = in.readInt();
+            CRC32 crc = new CRC32();
+            crc.update(batch);
+            if (batch.length != length || (int) crc.getValue() != checksum) {
+                break;
+            }
+            reader.read(new DataInputStream(new ByteArrayInputStream(batch)));
+            position += 2L * Integer.BYTES + length;
+        }
+        return position;
+    }
+
+    private static String key(Path filePath) {
+        return filePath.toAbsolutePath().normalize().toString();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new EOFException("Negative string length: " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Unexpected end of checkpoint.");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Receives the counts of a resumed run.
+     */
+    @FunctionalInterface
+    public interface CountConsumer {
+
+        /**
+         * Accepts the count of an attribute value.
+         *
+         * @param attributeName The attribute name
+         * @param value         The value
+         * @param count         The count
+         */
+        void accept(String attributeName, String value, long count);
+    }
+
+    @FunctionalInterface
+    private interface BatchReader {
+        void read(DataInputStream batch) throws IOException;
+    }
+
+    private record CompletedFile(String path, Map<String, Map<String, Long>> counts) {
+    }
+}
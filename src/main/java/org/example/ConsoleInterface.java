@@ -1,16 +1,25 @@
 package org.example;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.management.JMException;
 
 /**
  * ConsoleInterface class provides a command-line interface for processing JSON files and generating XML statistics based on specified attributes.
@@ -19,44 +28,366 @@ import java.util.concurrent.TimeUnit;
 public class ConsoleInterface {
     private static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
     private static ExecutorService executorService = Executors.newFixedThreadPool(MAX_THREADS);
+    private static ExecutorService readExecutorService;
+    private static final int DEFAULT_SERVER_PORT = 8642;
+    private static final int DEFAULT_MAX_JOBS = 2;
+    private static final int DEFAULT_MAX_FINISHED_JOBS = 1000;
+    private static final long DEFAULT_CHECKPOINT_INTERVAL_SECONDS = 60;
+    private static final long DEFAULT_PROGRESS_INTERVAL_SECONDS = 10;
     private static final String USAGE_MESSAGE = """
-            Usage: mvn compile exec:java "-Dexec.args=<directory_path> <attribute_names>"
+            Usage: mvn compile exec:java "-Dexec.args=<directory_path> <attribute_names> [options]"
+               or: mvn compile exec:java "-Dexec.args=--serve [port] [--executor <strategy>] [--max-jobs <n>]"
+               or: mvn compile exec:java "-Dexec.args=--map <directory_path> <attribute_names> <partial_file> [--shard <i>/<n>] [options]"
+               or: mvn compile exec:java "-Dexec.args=--reduce <partial_files> [options]"
             "The <attribute_names> parameter should be a comma-separated list of attribute names, without any spaces.
+            Attribute names containing '.', '[' or '*' are selectors such as author.name, tags[*], items[*].sku or **.id.
+            Options:
+              --split-threshold <size>  Split JSON files of at least this size into parallel byte ranges (e.g. 64m)
+              --split-chunk <size>      Approximate size of one byte range of a split file (e.g. 8m)
+              --mmap-threshold <size>   Memory-map JSON files of at least this size instead of buffered reads (e.g. 16m)
+              --aggregation <mode>      sharded (default) or shared counting of attribute values
+              --counting <backend>      exact (default), interned (exact with value dictionaries), off-heap (exact in direct memory,
+                                        spilling sorted runs to disk) or approximate counting in fixed memory
+              --sketch-epsilon <e>      Relative error of approximate counts (default 0.0001)
+              --sketch-delta <d>        Probability of exceeding the approximate error (default 0.01)
+              --heavy-hitters <n>       Number of most frequent values tracked by approximate counting (default 1000)
+              --off-heap-memory <size>  Direct memory of off-heap counting before counts are spilled to disk (default 256m)
+              --spill-dir <dir>         Directory of the runs spilled by off-heap counting and external sorting
+                                        (default: temporary directory)
+              --cache <dir>             Cache per-file counts in this directory and skip unchanged files
+              --write-buffer <size>     Output buffer size of every statistics file (e.g. 1m)
+              --top <n>                 Write only the n values with the highest counts per attribute
+              --sort-chunk <n>          Sort attributes with more values in chunks of n values spilled to disk (default 1000000)
+              --output <dir>            Write the statistics files to this directory (default: working directory)
+              --output-format <format>  xml (default), csv, json, binary or binary-sorted (ordered by value) statistics files
+              --checkpoint <file>       Append the counts of completed files to this checkpoint file periodically
+              --checkpoint-interval <s> Seconds between checkpoint writes (default 60)
+              --resume                  Restore the counts of the checkpoint file and skip its completed files
+              --progress [s]            Print files/s, MB/s and the estimated remaining time every s seconds (default 10)
+              --metrics <file>          Expose run metrics via JMX and write a JSON summary to this file
+              --recursive               Process JSON files in subdirectories as well
+              --include <globs>         Comma-separated glob patterns of processed files (default *.json, *.ndjson, *.jsonl, also .gz and .zst)
+              --exclude <globs>         Comma-separated glob patterns of skipped files and directories
+              --max-pending-files <n>   Maximum number of files queued for parsing while walking the directory
+              --executor <strategy>     fixed (default), virtual, split or work-stealing threads for reading and parsing files
+              --max-buffered-reads <n>  Maximum number of files or ranges read into memory ahead of parsing by --executor split
+              --file-order <order>      walk (default) or largest-first, which sizes all files first and submits the largest first
+              --format <format>         auto (default), array or ndjson layout of the records in every file
+              --parser <engine>         gson (default) or bytes, which skips unrequested values without decoding
+              --delimiters <list>       Comma-separated attribute=delimiter pairs, where the delimiter splitting several
+                                        values is comma (default), semicolon, pipe or none (e.g. genre=semicolon,title=none)
+              --serve [port]            Keep the JVM warm and accept jobs over HTTP on 127.0.0.1 (default port 8642)
+              --max-jobs <n>            Number of jobs the server runs at the same time (default 2)
+              --max-finished-jobs <n>   Number of finished jobs the server keeps listing (default 1000)
+              --shard <i>/<n>           Process only the files whose relative path hashes to shard i of n (e.g. 0/4)
+            --map counts one shard into a partial counts file; --reduce merges the comma-separated partial counts files,
+            or all *.partial files of the given directories, and writes the statistics files.
             """;
 
     /**
      * Starts the processing of JSON files and generation of XML statistics based on provided command-line arguments.
+     * With "--serve [port]" as the first argument, a statistics server is started instead.
+     * Errors are reported on System.out, and the executors are shut down either way.
      *
-     * @param args Command-line arguments: <directory_path> <attribute_names>
+     * @param args Command-line arguments: <directory_path> <attribute_names> [options], or --serve [port] [options]
      */
     public static void start(String[] args) {
 
         try {
-            if (args.length != 2) {
+            if (args.length >= 1 && args[0].equals("--serve")) {
+                serve(parseFlags(args));
+                return;
+            }
+            if (args.length >= 1 && (args[0].equals("--map") || args[0].equals("--reduce"))) {
+                mapOrReduce(args);
+                return;
+            }
+
+            if (args.length < 2) {
                 throw new IllegalArgumentException(USAGE_MESSAGE);
             }
 
-            Path directoryPath = Path.of(args[0]);
-            String attributeNamesArg = args[1];
+            Map<String, String> flags = parseFlags(Arrays.copyOfRange(args, 2, args.length));
+            configureExecutors(parseEnum(ExecutorStrategy.class, flags.getOrDefault("executor", "fixed")));
+            runAggregation(Path.of(args[0]), parseAttributes(args[1]), flags);
+        } catch (IllegalArgumentException | IOException | UncheckedIOException | InterruptedException e) {
+            System.out.println(e.getMessage());
+        } finally {
+            try {
+                shutdownExecutorService();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
-            if (!Files.exists(directoryPath) || !Files.isDirectory(directoryPath)) {
-                throw new IllegalArgumentException("Invalid directory path.");
+    /**
+     * Runs the map command, which counts one shard into a partial counts file,
+     * or the reduce command, which merges partial counts files into the statistics files.
+     *
+     * @param args Command-line arguments: --map <directory_path> <attribute_names> <partial_file> [options],
+     *             or --reduce <partial_files> [options]
+     * @throws IOException If an I/O error occurs while processing, merging or writing files
+     */
+    private static void mapOrReduce(String[] args) throws IOException {
+        boolean map = args[0].equals("--map");
+        int positionalArgs = map ? 4 : 2;
+        if (args.length < positionalArgs) {
+            throw new IllegalArgumentException(USAGE_MESSAGE);
+        }
+        Map<String, String> flags = parseFlags(Arrays.copyOfRange(args, positionalArgs, args.length));
+        configureExecutors(parseEnum(ExecutorStrategy.class, flags.getOrDefault("executor", "fixed")));
+        if (map) {
+            runMap(Path.of(args[1]), parseAttributes(args[2]), Path.of(args[3]), flags);
+        } else {
+            runReduce(findPartialCounts(args[1]), flags);
+        }
+    }
+
+    /**
+     * Counts the attribute values of the JSON files of one shard of a directory and writes them
+     * to a partial counts file. Without a "shard" flag, all files are counted as shard 0/1.
+     *
+     * @param directoryPath  The directory containing JSON files
+     * @param attributeNames The attribute names to count
+     * @param partialFile    The partial counts file to write
+     * @param flags          The parsed command-line flags
+     * @throws IOException If an I/O error occurs while processing files or writing the partial counts
+     */
+    static void runMap(Path directoryPath, List<String> attributeNames, Path partialFile, Map<String, String> flags)
+            throws IOException {
+        if (!Files.isDirectory(directoryPath)) {
+            throw new IllegalArgumentException("Invalid directory path.");
+        }
+        if (attributeNames.isEmpty() || attributeNames.stream().anyMatch(String::isEmpty)) {
+            throw new IllegalArgumentException("Attribute list is empty.");
+        }
+        ProcessingOptions options = parseProcessingOptions(flags).withReadExecutor(readExecutorService);
+        if (options.getCountingBackend() == CountingBackend.APPROXIMATE) {
+            throw new IllegalArgumentException("Partial counts require exact counting.");
+        }
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        JsonProcessor jsonProcessor = new JsonProcessor(executorService, attributeNames, attributeValueCounts, options);
+        try {
+            jsonProcessor.processDirectory(directoryPath).join();
+        } catch (CompletionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } finally {
+            if (jsonProcessor.getCheckpoint() != null) {
+                jsonProcessor.getCheckpoint().close();
             }
+        }
+        jsonProcessor.mergeShards();
+        PartialCounts.write(partialFile, jsonProcessor.countingKey(), options.getShardIndex(), options.getShardCount(),
+                attributeNames, attributeValueCounts);
+    }
 
-            if (attributeNamesArg.isEmpty()) {
-                throw new IllegalArgumentException("Attribute list is empty.");
+    /**
+     * Merges partial counts files and writes one statistics file per attribute.
+     * Every attribute is written as soon as it is merged, while the next attribute is being merged.
+     * Missing shards are reported to System.err.
+     *
+     * @param partialFiles The partial counts files
+     * @param flags        The parsed command-line flags
+     * @return The results of the written statistics files
+     * @throws IOException If the partial counts cannot be merged or a statistics file cannot be written
+     */
+    static List<StatisticsFileResult> runReduce(List<Path> partialFiles, Map<String, String> flags)
+            throws IOException {
+        XMLWriter xmlWriter = new XMLWriter(executorService, parseOutputOptions(flags));
+        try (PartialCounts.Merger merger = PartialCounts.open(partialFiles)) {
+            if (!merger.getMissingShards().isEmpty()) {
+                System.err.println("Partial counts of shards " + merger.getMissingShards() + " are missing.");
+            }
+            Map<String, CompletableFuture<Map<String, Long>>> pendingCounts = new LinkedHashMap<>();
+            merger.getAttributeNames().forEach(name -> pendingCounts.put(name, new CompletableFuture<>()));
+            CompletableFuture<List<StatisticsFileResult>> writes =
+                    xmlWriter.generateStatisticsFileWhenReady(pendingCounts);
+            try {
+                merger.mergeEach((name, counts) -> pendingCounts.get(name).complete(counts));
+            } catch (IOException e) {
+                pendingCounts.values().forEach(counts -> counts.completeExceptionally(e));
+                throw e;
             }
+            return joinWrites(writes);
+        }
+    }
 
-            List<String> attributeNames = parseAttributes(attributeNamesArg);
-            Map<String, Map<String, Integer>> attributeValueCounts = new ConcurrentHashMap<>();
+    /**
+     * Resolves the comma-separated partial counts files of the reduce command.
+     * A directory stands for all its files ending in ".partial", in name order.
+     *
+     * @param partialFiles The command-line value
+     * @return The partial counts files
+     * @throws IOException If a directory cannot be listed
+     */
+    private static List<Path> findPartialCounts(String partialFiles) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String name : partialFiles.split(",")) {
+            Path path = Path.of(name.trim());
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> entries = Files.list(path)) {
+                    entries.filter(entry -> entry.getFileName().toString().endsWith(".partial"))
+                            .sorted()
+                            .forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No partial counts files found: " + partialFiles);
+        }
+        return files;
+    }
 
-            processJson(directoryPath, attributeNames, attributeValueCounts);
-            writeXML(attributeValueCounts);
+    /**
+     * Runs a statistics server on the loopback interface until it receives a shutdown request.
+     * Every job reuses the warm executors configured here.
+     *
+     * @param flags The parsed command-line flags, including "serve" with the optional port
+     * @throws IOException          If the server cannot be started
+     * @throws InterruptedException If interrupted while waiting for the shutdown
+     */
+    private static void serve(Map<String, String> flags) throws IOException, InterruptedException {
+        String port = flags.get("serve");
+        configureExecutors(parseEnum(ExecutorStrategy.class, flags.getOrDefault("executor", "fixed")));
+        StatisticsServer server = new StatisticsServer(
+                port.equals("true") ? DEFAULT_SERVER_PORT : parseInt(port),
+                parseInt(flags.getOrDefault("max-jobs", String.valueOf(DEFAULT_MAX_JOBS))),
+                parseInt(flags.getOrDefault("max-finished-jobs", String.valueOf(DEFAULT_MAX_FINISHED_JOBS))),
+                ConsoleInterface::runAggregation);
+        server.start();
+        System.out.println("Statistics server listening on http://127.0.0.1:" + server.getPort());
+        server.awaitShutdown();
+    }
 
-            shutdownExecutorService();
-        } catch (IllegalArgumentException | IOException | InterruptedException e){
-            System.out.println(e.getMessage());
+    /**
+     * Counts the attribute values of all JSON files in a directory and writes one statistics file per attribute.
+     * Every call uses its own counts, so calls may run concurrently on the shared executors.
+     *
+     * @param directoryPath  The directory containing JSON files
+     * @param attributeNames The attribute names to count
+     * @param flags          The parsed command-line flags
+     * @return The results of the written statistics files
+     * @throws IOException If an I/O error occurs while processing or writing files
+     */
+    static List<StatisticsFileResult> runAggregation(Path directoryPath, List<String> attributeNames, Map<String, String> flags)
+            throws IOException {
+        if (!Files.exists(directoryPath) || !Files.isDirectory(directoryPath)) {
+            throw new IllegalArgumentException("Invalid directory path.");
+        }
+
+        if (attributeNames.isEmpty() || attributeNames.stream().anyMatch(String::isEmpty)) {
+            throw new IllegalArgumentException("Attribute list is empty.");
+        }
+
+        ProcessingMetrics metrics = createMetrics(flags);
+        try {
+            ProcessingProgress progress = flags.containsKey("progress") ? new ProcessingProgress() : null;
+            ProcessingOptions options = parseProcessingOptions(flags)
+                    .withReadExecutor(readExecutorService)
+                    .withMetrics(metrics)
+                    .withProgress(progress);
+            OutputOptions outputOptions = parseOutputOptions(flags).withMetrics(metrics);
+            Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+
+            JsonProcessor jsonProcessor = new JsonProcessor(executorService, attributeNames, attributeValueCounts,
+                    options);
+            List<StatisticsFileResult> results;
+            ScheduledExecutorService reporter = startReports(jsonProcessor, directoryPath, flags);
+            try {
+                results = writeXML(jsonProcessor, jsonProcessor.processDirectory(directoryPath), outputOptions);
+            } finally {
+                if (reporter != null) {
+                    reporter.shutdown();
+                }
+                if (jsonProcessor.getCheckpoint() != null) {
+                    jsonProcessor.getCheckpoint().close();
+                }
+                if (progress != null) {
+                    System.err.println(progress.format());
+                }
+            }
+
+            if (metrics != null) {
+                metrics.writeSummary(Path.of(flags.get("metrics")));
+            }
+            return results;
+        } finally {
+            if (metrics != null) {
+                metrics.unregisterMBean();
+            }
+        }
+    }
+
+    /**
+     * Starts the periodic checkpoint writes and progress lines requested by the flags on a daemon scheduler.
+     * For the progress line, the input is scanned on the scheduler as well to find the totals.
+     * Shutting the scheduler down stops the periodic tasks without interrupting a running checkpoint write.
+     *
+     * @param jsonProcessor The JsonProcessor whose checkpoint and progress are reported
+     * @param directoryPath The directory being processed
+     * @param flags         The parsed command-line flags
+     * @return The scheduler, or null if neither checkpoints nor progress are requested
+     */
+    private static ScheduledExecutorService startReports(JsonProcessor jsonProcessor, Path directoryPath,
+                                                          Map<String, String> flags) {
+        Checkpoint checkpoint = jsonProcessor.getCheckpoint();
+        ProcessingProgress progress = jsonProcessor.getOptions().getProgress();
+        if (checkpoint == null && progress == null) {
+            return null;
+        }
+        ScheduledExecutorService reporter = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "progress-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (checkpoint != null) {
+            if (checkpoint.getResumedFileCount() > 0) {
+                System.err.println("Resuming after " + checkpoint.getResumedFileCount() + " completed files.");
+            }
+            long interval = parseSeconds(flags, "checkpoint-interval", DEFAULT_CHECKPOINT_INTERVAL_SECONDS);
+            reporter.scheduleWithFixedDelay(() -> {
+                try {
+                    checkpoint.write();
+                } catch (IOException e) {
+                    System.err.println("Checkpoint failed: " + e.getMessage());
+                }
+            }, interval, interval, TimeUnit.SECONDS);
+        }
+        if (progress != null) {
+            reporter.execute(() -> {
+                try {
+                    jsonProcessor.walkJsonFiles(directoryPath, filePath -> progress.recordFileFound(
+                            Files.exists(filePath) ? Files.size(filePath) : 0));
+                    progress.recordScanComplete();
+                } catch (IOException e) {
+                    System.err.println("Progress totals unavailable: " + e.getMessage());
+                }
+            });
+            long interval = parseSeconds(flags, "progress", DEFAULT_PROGRESS_INTERVAL_SECONDS);
+            reporter.scheduleAtFixedRate(() -> System.err.println(progress.format()), interval, interval,
+                    TimeUnit.SECONDS);
         }
+        return reporter;
+    }
+
+    /**
+     * Parses a positive number of seconds given by a flag, which may also be given without a value.
+     *
+     * @param flags          The parsed command-line flags
+     * @param flag           The flag name
+     * @param defaultSeconds The seconds if the flag has no value
+     * @return The number of seconds
+     */
+    private static long parseSeconds(Map<String, String> flags, String flag, long defaultSeconds) {
+        String value = flags.getOrDefault(flag, "true");
+        long seconds = value.equals("true") ? defaultSeconds : parseInt(value);
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("Invalid interval: " + value);
+        }
+        return seconds;
     }
 
     /**
@@ -70,42 +401,326 @@ public class ConsoleInterface {
     }
 
     /**
-     * Processes JSON files based on the provided attribute names and counts the occurrences of attribute values.
+     * Parses the optional command-line flags given as "--name value" pairs.
+     * A flag not followed by a value, such as "--recursive", is mapped to "true".
+     *
+     * @param flagArgs The command-line arguments following the attribute names
+     * @return Map of flag names, without the leading dashes, to their values
+     */
+    private static Map<String, String> parseFlags(String[] flagArgs) {
+        Map<String, String> flags = new HashMap<>();
+        for (int i = 0; i < flagArgs.length; i++) {
+            String flag = flagArgs[i];
+            if (!flag.startsWith("--")) {
+                throw new IllegalArgumentException("Invalid option: " + flag + "\n" + USAGE_MESSAGE);
+            }
+            boolean hasValue = i + 1 < flagArgs.length && !flagArgs[i + 1].startsWith("--");
+            flags.put(flag.substring(2), hasValue ? flagArgs[++i] : "true");
+        }
+        return flags;
+    }
+
+    /**
+     * Replaces the default fixed thread pool with the executors of the given strategy.
+     *
+     * @param strategy The executor strategy
+     */
+    private static void configureExecutors(ExecutorStrategy strategy) {
+        if (strategy == ExecutorStrategy.FIXED) {
+            return;
+        }
+        if (strategy.usesVirtualThreads() && !ExecutorStrategy.isVirtualThreadSupported()) {
+            System.err.println("Virtual threads require Java 21, using a cached thread pool instead.");
+        }
+        executorService.shutdown();
+        executorService = strategy.createParseExecutor(MAX_THREADS);
+        readExecutorService = strategy.createReadExecutor();
+    }
+
+    /**
+     * Creates run metrics registered via JMX if a metrics summary file is requested.
      *
-     * @param attributeNames       The list of attribute names to be processed.
-     * @param attributeValueCounts A ConcurrentHashMap to store the counts of attribute values.
-     * @throws IOException          If an I/O error occurs while processing JSON files.
+     * @param flags The parsed command-line flags
+     * @return The metrics, or null if metrics are disabled
      */
-    private static void processJson(
-            Path directoryPath,
-            List<String> attributeNames,
-            Map<String, Map<String, Integer>> attributeValueCounts
+    private static ProcessingMetrics createMetrics(Map<String, String> flags) {
+        if (!flags.containsKey("metrics")) {
+            return null;
+        }
+        ProcessingMetrics metrics = new ProcessingMetrics();
+        metrics.monitorExecutor(executorService);
+        try {
+            metrics.registerMBean();
+        } catch (JMException e) {
+            System.err.println("Metrics are not available via JMX: " + e.getMessage());
+        }
+        return metrics;
+    }
+
+    /**
+     * Builds the JSON processing options from the command-line flags.
+     *
+     * @param flags The parsed command-line flags
+     * @return The processing options
+     */
+    private static ProcessingOptions parseProcessingOptions(Map<String, String> flags) {
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withAggregationMode(parseEnum(AggregationMode.class, flags.getOrDefault("aggregation", "sharded")))
+                .withCountingBackend(parseEnum(CountingBackend.class, flags.getOrDefault("counting", "exact")))
+                .withParserEngine(parseEnum(ParserEngine.class, flags.getOrDefault("parser", "gson")))
+                .withInputFormat(parseEnum(InputFormat.class, flags.getOrDefault("format", "auto")))
+                .withFileOrder(parseEnum(FileOrder.class, flags.getOrDefault("file-order", "walk")));
+        if (flags.containsKey("sketch-epsilon") || flags.containsKey("sketch-delta")) {
+            options = options.withSketchErrorBounds(
+                    parseDouble(flags.getOrDefault("sketch-epsilon", String.valueOf(options.getSketchEpsilon()))),
+                    parseDouble(flags.getOrDefault("sketch-delta", String.valueOf(options.getSketchDelta()))));
+        }
+        if (flags.containsKey("heavy-hitters")) {
+            options = options.withHeavyHitters(parseInt(flags.get("heavy-hitters")));
+        }
+        if (flags.containsKey("off-heap-memory")) {
+            options = options.withOffHeapMemoryBytes(parseSize(flags.get("off-heap-memory")));
+        }
+        if (flags.containsKey("spill-dir")) {
+            options = options.withSpillDirectory(Path.of(flags.get("spill-dir")));
+        }
+        if (flags.containsKey("resume") && !flags.containsKey("checkpoint")) {
+            throw new IllegalArgumentException("--resume requires --checkpoint <file>.\n" + USAGE_MESSAGE);
+        }
+        if (flags.containsKey("checkpoint")) {
+            options = options.withCheckpoint(Path.of(flags.get("checkpoint")),
+                    Boolean.parseBoolean(flags.getOrDefault("resume", "false")));
+        }
+        if (flags.containsKey("cache")) {
+            options = options.withCacheDirectory(Path.of(flags.get("cache")));
+        }
+        if (flags.containsKey("split-threshold")) {
+            options = options.withSplitThresholdBytes(parseSize(flags.get("split-threshold")));
+        }
+        if (flags.containsKey("split-chunk")) {
+            options = options.withSplitChunkBytes(parseSize(flags.get("split-chunk")));
+        }
+        if (flags.containsKey("mmap-threshold")) {
+            options = options.withMmapThresholdBytes(parseSize(flags.get("mmap-threshold")));
+        }
+        if (flags.containsKey("recursive")) {
+            options = options.withRecursive(Boolean.parseBoolean(flags.get("recursive")));
+        }
+        if (flags.containsKey("include") || flags.containsKey("exclude")) {
+            options = options.withFileGlobs(parseGlobs(flags.get("include")), parseGlobs(flags.get("exclude")));
+        }
+        if (flags.containsKey("max-pending-files")) {
+            options = options.withMaxPendingFiles(parseInt(flags.get("max-pending-files")));
+        }
+        if (flags.containsKey("max-buffered-reads")) {
+            options = options.withMaxBufferedReads(parseInt(flags.get("max-buffered-reads")));
+        }
+        if (flags.containsKey("shard")) {
+            String[] shard = flags.get("shard").split("/", 2);
+            if (shard.length != 2) {
+                throw new IllegalArgumentException("Invalid shard: " + flags.get("shard") + "\n" + USAGE_MESSAGE);
+            }
+            options = options.withShard(parseInt(shard[0]), parseInt(shard[1]));
+        }
+        if (flags.containsKey("delimiters")) {
+            for (String pair : flags.get("delimiters").split(",")) {
+                String[] attributeAndDelimiter = pair.split("=", 2);
+                if (attributeAndDelimiter.length != 2 || attributeAndDelimiter[0].isBlank()) {
+                    throw new IllegalArgumentException("Invalid delimiter: " + pair + "\n" + USAGE_MESSAGE);
+                }
+                options = options.withDelimiter(attributeAndDelimiter[0].trim(),
+                        parseEnum(ValueDelimiter.class, attributeAndDelimiter[1]));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Builds the statistics output options from the command-line flags.
+     *
+     * @param flags The parsed command-line flags
+     * @return The output options
+     */
+    private static OutputOptions parseOutputOptions(Map<String, String> flags) {
+        OutputOptions options = OutputOptions.defaults();
+        if (flags.containsKey("write-buffer")) {
+            long bufferSize = parseSize(flags.get("write-buffer"));
+            if (bufferSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid size: " + flags.get("write-buffer"));
+            }
+            options = options.withBufferSizeBytes((int) bufferSize);
+        }
+        if (flags.containsKey("top")) {
+            options = options.withTopN(parseInt(flags.get("top")));
+        }
+        if (flags.containsKey("output")) {
+            options = options.withOutputDirectory(Path.of(flags.get("output")));
+        }
+        if (flags.containsKey("sort-chunk")) {
+            options = options.withSortChunkEntries(parseInt(flags.get("sort-chunk")));
+        }
+        if (flags.containsKey("spill-dir")) {
+            options = options.withSpillDirectory(Path.of(flags.get("spill-dir")));
+        }
+        if (flags.containsKey("output-format")) {
+            try {
+                options = options.withSerializer(StatisticsSerializer.forName(flags.get("output-format")));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(e.getMessage() + "\n" + USAGE_MESSAGE);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Parses a comma-separated list of glob patterns.
+     *
+     * @param globs The command-line value, or null if the flag is absent
+     * @return The list of glob patterns
+     */
+    private static List<String> parseGlobs(String globs) {
+        if (globs == null) {
+            return List.of();
+        }
+        return Arrays.stream(globs.split(","))
+                .map(String::trim)
+                .filter(glob -> !glob.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Parses an enum constant given in any case on the command line.
+     *
+     * @param enumType The enum class
+     * @param value    The command-line value
+     * @param <E>      The enum type
+     * @return The matching enum constant
+     */
+    private static <E extends Enum<E>> E parseEnum(Class<E> enumType, String value) {
+        try {
+            return Enum.valueOf(enumType, value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value: " + value + "\n" + USAGE_MESSAGE);
+        }
+    }
+
+    /**
+     * Parses an integer command-line value.
+     *
+     * @param value The command-line value
+     * @return The parsed integer
+     */
+    private static int parseInt(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value);
+        }
+    }
+
+    /**
+     * Parses a decimal command-line value.
+     *
+     * @param value The command-line value
+     * @return The parsed number
+     */
+    private static double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value);
+        }
+    }
+
+    /**
+     * Parses a size in bytes with an optional k, m or g suffix.
+     *
+     * @param size The size string, e.g. "512", "64k", "8m" or "2g"
+     * @return The size in bytes
+     */
+    static long parseSize(String size) {
+        String normalized = size.trim().toLowerCase(Locale.ROOT);
+        long multiplier = switch (normalized.isEmpty() ? ' ' : normalized.charAt(normalized.length() - 1)) {
+            case 'k' -> 1024L;
+            case 'm' -> 1024L * 1024;
+            case 'g' -> 1024L * 1024 * 1024;
+            default -> 1L;
+        };
+        String digits = multiplier == 1L ? normalized : normalized.substring(0, normalized.length() - 1);
+        try {
+            return Math.multiplyExact(Long.parseLong(digits), multiplier);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+    }
+
+    /**
+     * Generates statistics files in the configured output format from the counts of the attribute values.
+     * With exact counting, every attribute is written as soon as its shards are merged;
+     * approximate counts are written with their error bounds once all estimates are published.
+     * Waits until all files are written.
+     *
+     * @param jsonProcessor The JsonProcessor holding the counts of attribute values.
+     * @param parsing       The CompletableFuture completed when all files are parsed.
+     * @param outputOptions The statistics output options.
+     * @return The results of the written statistics files.
+     * @throws IOException If a statistics file cannot be written.
+     */
+    private static List<StatisticsFileResult> writeXML(
+            JsonProcessor jsonProcessor,
+            CompletableFuture<Void> parsing,
+            OutputOptions outputOptions
     ) throws IOException {
-        JsonProcessor jsonProcessor = new JsonProcessor(executorService, attributeNames, attributeValueCounts);
-        CompletableFuture<Void>[] completableFutures = jsonProcessor.processJsonFiles(directoryPath);
-        CompletableFuture<Void> allOf = CompletableFuture.allOf(completableFutures);
-        allOf.join();
+        XMLWriter xmlWriter = new XMLWriter(executorService, outputOptions);
+        CompletableFuture<List<StatisticsFileResult>> writes;
+        if (jsonProcessor.getOptions().getCountingBackend() == CountingBackend.APPROXIMATE) {
+            writes = parsing.thenCompose(ignored -> {
+                jsonProcessor.mergeShards();
+                return xmlWriter.generateEstimatedStatisticsFile(jsonProcessor.getEstimatedCounts());
+            });
+        } else if (jsonProcessor.getOptions().getCountingBackend() == CountingBackend.OFF_HEAP) {
+            writes = xmlWriter.generateStatisticsFileFromStreams(jsonProcessor.streamCountsWhenDone(parsing));
+        } else {
+            writes = xmlWriter.generateStatisticsFileWhenReady(jsonProcessor.mergeShardsWhenDone(parsing));
+        }
+        return joinWrites(writes);
     }
 
     /**
-     * Generates XML statistics file based on the provided attribute names and their occurrence counts.
+     * Waits until all statistics files are written.
      *
-     * @param attributeValueCounts A ConcurrentHashMap containing the counts of attribute values.
+     * @param writes The CompletableFuture of the writes
+     * @return The results of the written statistics files
+     * @throws IOException If a statistics file cannot be written
      */
-    private static void writeXML(Map<String, Map<String, Integer>> attributeValueCounts) {
-        XMLWriter xmlWriter = new XMLWriter(executorService);
-        xmlWriter.generateStatisticsFile(attributeValueCounts);
+    private static List<StatisticsFileResult> joinWrites(CompletableFuture<List<StatisticsFileResult>> writes)
+            throws IOException {
+        try {
+            return writes.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
     }
 
     /**
-     * Initiates shutdown of the ExecutorService.
+     * Initiates shutdown of the ExecutorService and of the read executor, if any.
      *
      * @throws InterruptedException If interrupted while waiting for termination after shutdown
      */
     public static void shutdownExecutorService() throws InterruptedException {
         executorService.shutdown();
+        if (readExecutorService != null) {
+            readExecutorService.shutdown();
+        }
         if (!executorService.awaitTermination(2, TimeUnit.SECONDS)) {
             executorService.shutdownNow();
         }
+        if (readExecutorService != null && !readExecutorService.awaitTermination(2, TimeUnit.SECONDS)) {
+            readExecutorService.shutdownNow();
+        }
     }
 }
@@ -0,0 +1,207 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * The CountCache class persists the attribute value counts of single JSON files, so unchanged files
+ * do not have to be parsed again by the next run.
+ * An entry is valid while the path, size and modification time of the file and the counting key match.
+ * The size and modification time are taken before the file is parsed, so a file changed while it is parsed
+ * is not stored with the fingerprint of its new content.
+ *
+ * <p>Entries are binary files: a magic number and format version, the file fingerprint and the counting key,
+ * followed by every attribute with its values and counts. Strings are stored as length-prefixed UTF-8.
+ */
+public class CountCache {
+    private static final int MAGIC = 0x4A324343;
+    private static final short VERSION = 1;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final Path cacheDirectory;
+    private final String countingKey;
+
+    /**
+     * Constructs a CountCache object storing entries in the specified directory.
+     *
+     * @param cacheDirectory The directory holding cache entries; created if it does not exist
+     * @param countingKey    A description of everything besides the file content that affects the counts,
+     *                       such as the requested attribute names
+     * @throws IOException If the cache directory cannot be created
+     */
+    public CountCache(Path cacheDirectory, String countingKey) throws IOException {
+        this.cacheDirectory = Files.createDirectories(cacheDirectory);
+        this.countingKey = countingKey;
+    }
+
+    /**
+     * Reads the fingerprint of the file, to be taken before the file is parsed and passed to
+     * {@link #store(Path, Fingerprint, Map)}.
+     *
+     * @param filePath The path to the JSON file
+     * @return The fingerprint, or null if the attributes of the file cannot be read
+     */
+    public Fingerprint fingerprint(Path filePath) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            return new Fingerprint(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads the cached counts of the file.
+     *
+     * @param filePath The path to the JSON file
+     * @return The cached map of attribute value counts, or null if there is no valid entry for the file
+     */
+    public Map<String, Map<String, Long>> load(Path filePath) {
+        Path entryPath = entryPath(filePath);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(entryPath), STREAM_BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                return null;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            if (!readString(in).equals(normalize(filePath))
+                    || in.readLong() != attributes.size()
+                    || in.readLong() != attributes.lastModifiedTime().toMillis()
+                    || !readString(in).equals(countingKey)) {
+                return null;
+            }
+            int attributeCount = in.readInt();
+            Map<String, Map<String, Long>> counts = new HashMap<>(attributeCount * 2);
+            for (int i = 0; i < attributeCount; i++) {
+                String attributeName = readString(in);
+                int valueCount = in.readInt();
+                Map<String, Long> valueCounts = new HashMap<>(valueCount * 2);
+                for (int j = 0; j < valueCount; j++) {
+                    valueCounts.put(readString(in), in.readLong());
+                }
+                counts.put(attributeName, valueCounts);
+            }
+            return counts;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable cache entry: " + entryPath + ", " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the counts of the file, replacing any previous entry.
+     * Nothing is stored if the file no longer matches the fingerprint taken before it was parsed,
+     * because the counts may then mix the old and the new content.
+     * Failures are logged to System.err and otherwise ignored.
+     *
+     * @param filePath    The path to the JSON file
+     * @param fingerprint The fingerprint of the file taken before it was parsed, or null if it could not be read
+     * @param counts      The attribute value counts of the file
+     */
+    public void store(Path filePath, Fingerprint fingerprint, Map<String, Map<String, Long>> counts) {
+        if (fingerprint == null || !fingerprint.equals(fingerprint(filePath))) {
+            return;
+        }
+        Path entryPath = entryPath(filePath);
+        Path tempPath = entryPath.resolveSibling(entryPath.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempPath), STREAM_BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                writeString(out, normalize(filePath));
+                out.writeLong(fingerprint.size());
+                out.writeLong(fingerprint.lastModifiedMillis());
+                writeString(out, countingKey);
+                out.writeInt(counts.size());
+                for (Map.Entry<String, Map<String, Long>> attribute : counts.entrySet()) {
+                    writeString(out, attribute.getKey());
+                    out.writeInt(attribute.getValue().size());
+                    for (Map.Entry<String, Long> valueCount : attribute.getValue().entrySet()) {
+                        writeString(out, valueCount.getKey());
+                        out.writeLong(valueCount.getValue());
+                    }
+                }
+            }
+            try {
+                Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, entryPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing cache entry for file: " + filePath + ", " + e.getMessage());
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException ignored) {
+                // the stale temporary file is overwritten by the next attempt
+            }
+        }
+    }
+
+    /**
+     * Resolves the entry file of a JSON file; its name is a digest of the file path and the counting key.
+     *
+     * @param filePath The path to the JSON file
+     * @return The path to the cache entry
+     */
+    private Path entryPath(Path filePath) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(normalize(filePath).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(countingKey.getBytes(StandardCharsets.UTF_8));
+            return cacheDirectory.resolve(HexFormat.of().formatHex(digest.digest()) + ".counts");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The Fingerprint record holds the size and modification time identifying the content of a JSON file.
+     *
+     * @param size               The size of the file in bytes
+     * @param lastModifiedMillis The modification time of the file in milliseconds since the epoch
+     */
+    public record Fingerprint(long size, long lastModifiedMillis) {
+    }
+
+    private static String normalize(Path filePath) {
+        return filePath.toAbsolutePath().normalize().toString();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new EOFException("Negative string length: " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Unexpected end of cache entry.");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
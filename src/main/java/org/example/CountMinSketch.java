@@ -0,0 +1,100 @@
+package org.example;
+
+/**
+ * The CountMinSketch class estimates value frequencies in fixed memory.
+ * With probability {@code 1 - delta} an estimate exceeds the true count by at most {@code epsilon * total}.
+ * Instances are not thread-safe.
+ */
+class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final long[] cells;
+    private long total;
+
+    /**
+     * Constructs a sketch sized for the specified error bounds.
+     *
+     * @param epsilon The relative additive error, between 0 and 1
+     * @param delta   The probability of exceeding the error, between 0 and 1
+     */
+    CountMinSketch(double epsilon, double delta) {
+        this((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+    }
+
+    private CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Sketch dimensions must be positive.");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.cells = new long[Math.multiplyExact(width, depth)];
+    }
+
+    /**
+     * Counts occurrences of the value.
+     *
+     * @param value The value
+     * @param count The number of occurrences
+     */
+    void add(String value, long count) {
+        int hash1 = mix(value.hashCode());
+        int hash2 = mix(hash1 ^ 0x5bd1e995);
+        for (int row = 0; row < depth; row++) {
+            cells[row * width + index(hash1 + row * hash2)] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * Estimates the count of the value.
+     *
+     * @param value The value
+     * @return The estimated count, never lower than the true count
+     */
+    long estimate(String value) {
+        int hash1 = mix(value.hashCode());
+        int hash2 = mix(hash1 ^ 0x5bd1e995);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells[row * width + index(hash1 + row * hash2)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds the counts of another sketch with the same dimensions to this sketch.
+     *
+     * @param other The sketch to merge
+     */
+    void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Sketch dimensions do not match.");
+        }
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] += other.cells[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Retrieves the number of counted occurrences.
+     *
+     * @return The total count
+     */
+    long total() {
+        return total;
+    }
+
+    private int index(int hash) {
+        return (hash & Integer.MAX_VALUE) % width;
+    }
+
+    private static int mix(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
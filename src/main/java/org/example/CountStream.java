@@ -0,0 +1,36 @@
+package org.example;
+
+import java.io.IOException;
+
+/**
+ * The CountStream interface passes the final counts of one attribute to a consumer one value at a time,
+ * for counting backends that do not hold their counts in a map, such as {@link CountingBackend#OFF_HEAP}.
+ * A stream can only be consumed once.
+ */
+@FunctionalInterface
+interface CountStream {
+
+    /**
+     * Passes every distinct value with its total count to the consumer, in no particular order.
+     *
+     * @param consumer The consumer receiving the counts
+     * @throws IOException If the counts cannot be read or consumed
+     */
+    void forEach(CountConsumer consumer) throws IOException;
+
+    /**
+     * Receives the counts of a CountStream.
+     */
+    @FunctionalInterface
+    interface CountConsumer {
+
+        /**
+         * Accepts a distinct value with its total count.
+         *
+         * @param value The value
+         * @param count The total count
+         * @throws IOException If the count cannot be consumed
+         */
+        void accept(String value, long count) throws IOException;
+    }
+}
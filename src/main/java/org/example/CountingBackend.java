@@ -0,0 +1,29 @@
+package org.example;
+
+/**
+ * The CountingBackend enum defines how {@link JsonProcessor} keeps the counts of attribute values.
+ */
+public enum CountingBackend {
+    /**
+     * Every distinct value is counted exactly; memory grows with the number of distinct values.
+     */
+    EXACT,
+
+    /**
+     * Every distinct value is counted exactly in per-thread dictionaries that map values to integer IDs
+     * and count in primitive arrays, so repeated values are counted without allocating Strings.
+     */
+    INTERNED,
+
+    /**
+     * Every distinct value is counted exactly in per-thread hash tables in direct memory outside the Java heap;
+     * when the tables reach their memory limit, they are spilled to disk as sorted runs and merged at the end.
+     */
+    OFF_HEAP,
+
+    /**
+     * Values are counted in fixed-size Count-Min sketches, and only the most frequent values are tracked
+     * by a Space-Saving summary; memory does not depend on the number of distinct values.
+     */
+    APPROXIMATE
+}
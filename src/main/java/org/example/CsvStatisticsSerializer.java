@@ -0,0 +1,95 @@
+package org.example;
+
+import org.example.TopEntriesSelector.TopEntries;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The CsvStatisticsSerializer class writes a statistics file as comma-separated values with a header row
+ * and one row per value. Values containing a comma, a double quote or a line break are quoted as in RFC 4180.
+ * The summary of entries omitted by a top N limit has no row, since CSV has no place for it.
+ */
+final class CsvStatisticsSerializer implements StatisticsSerializer {
+    static final CsvStatisticsSerializer INSTANCE = new CsvStatisticsSerializer();
+
+    private static final byte[] COUNTS_HEADER = "value,count\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ESTIMATES_HEADER = "value,count,error\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SEPARATOR = {','};
+    private static final byte[] LINE_END = {'\n'};
+    private static final byte[] QUOTE = {'"'};
+
+    private CsvStatisticsSerializer() {
+    }
+
+    @Override
+    public String name() {
+        return "csv";
+    }
+
+    @Override
+    public String fileExtension() {
+        return "csv";
+    }
+
+    @Override
+    public long writeCounts(Path file, TopEntries sortedData, int bufferSizeBytes) throws IOException {
+        return writeCounts(file, sortedData.entries().iterator(), sortedData.entries().size(), bufferSizeBytes);
+    }
+
+    @Override
+    public long writeCounts(Path file, Iterator<Map.Entry<String, Long>> entries, long entryCount,
+                            int bufferSizeBytes) throws IOException {
+        try (StatisticsOutputBuffer output = new StatisticsOutputBuffer(file, bufferSizeBytes)) {
+            output.append(COUNTS_HEADER);
+            while (entries.hasNext()) {
+                Map.Entry<String, Long> entry = entries.next();
+                appendField(output, entry.getKey())
+                        .append(SEPARATOR)
+                        .append(entry.getValue())
+                        .append(LINE_END);
+            }
+            return output.size();
+        }
+    }
+
+    @Override
+    public long writeEstimates(Path file, List<EstimatedCount> estimates, int bufferSizeBytes) throws IOException {
+        try (StatisticsOutputBuffer output = new StatisticsOutputBuffer(file, bufferSizeBytes)) {
+            output.append(ESTIMATES_HEADER);
+            for (EstimatedCount estimate : estimates) {
+                appendField(output, estimate.value())
+                        .append(SEPARATOR)
+                        .append(estimate.count())
+                        .append(SEPARATOR)
+                        .append(estimate.error())
+                        .append(LINE_END);
+            }
+            return output.size();
+        }
+    }
+
+    /**
+     * Appends a value, quoting it and doubling its quotes only if needed.
+     */
+    private static StatisticsOutputBuffer appendField(StatisticsOutputBuffer output, String value) throws IOException {
+        if (!needsQuotes(value)) {
+            return output.appendUtf8(value);
+        }
+        return output.append(QUOTE).appendUtf8(value.replace("\"", "\"\"")).append(QUOTE);
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package org.example;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The Decompression class recognizes gzip and zstd input by its magic bytes and wraps it
+ * in a streaming decompressor, so compressed files are parsed in place.
+ *
+ * <p>Gzip files made of BGZF blocks, whose headers record the compressed size of every block,
+ * are decompressed in parallel with {@link ParallelGzipInputStream}; other gzip files, including
+ * plain multi-member files, are decompressed sequentially.
+ */
+final class Decompression {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int HEADER_SIZE = 18;
+    private static final int PARALLEL_BLOCKS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    private Decompression() {
+    }
+
+    /**
+     * Checks whether the file starts with the magic bytes of gzip or zstd.
+     *
+     * @param filePath The path to the file
+     * @return true if the file is compressed
+     * @throws IOException If the file cannot be read
+     */
+    static boolean isCompressed(Path filePath) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(filePath)) {
+            byte[] header = inputStream.readNBytes(4);
+            return isGzip(header, header.length) || isZstd(header, header.length);
+        }
+    }
+
+    /**
+     * Wraps the stream in a decompressor if it starts with the magic bytes of gzip or zstd.
+     *
+     * @param inputStream The raw file content
+     * @param executor    The executor decompressing BGZF blocks in parallel
+     * @return The decompressed content, or the raw content if it is not compressed
+     * @throws IOException If the header cannot be read
+     */
+    static InputStream decompress(InputStream inputStream, Executor executor) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(inputStream, HEADER_SIZE);
+        byte[] header = pushback.readNBytes(HEADER_SIZE);
+        pushback.unread(header);
+        if (isGzip(header, header.length)) {
+            return isBgzf(header, header.length)
+                    ? new ParallelGzipInputStream(new BufferedInputStream(pushback, BUFFER_SIZE), executor,
+                            PARALLEL_BLOCKS)
+                    : new GZIPInputStream(pushback, BUFFER_SIZE);
+        }
+        if (isZstd(header, header.length)) {
+            return new ZstdInputStream(new BufferedInputStream(pushback, BUFFER_SIZE));
+        }
+        return pushback;
+    }
+
+    private static boolean isGzip(byte[] header, int length) {
+        return length >= 2 && header[0] == (byte) 0x1F && header[1] == (byte) 0x8B;
+    }
+
+    private static boolean isZstd(byte[] header, int length) {
+        return length >= 4 && header[0] == (byte) 0x28 && header[1] == (byte) 0xB5
+                && header[2] == (byte) 0x2F && header[3] == (byte) 0xFD;
+    }
+
+    /**
+     * Checks for the extra field of a BGZF block header: subfield "BC" holding the block size.
+     */
+    private static boolean isBgzf(byte[] header, int length) {
+        return length >= HEADER_SIZE && (header[3] & 0x04) != 0
+                && header[12] == 'B' && header[13] == 'C' && header[14] == 2 && header[15] == 0;
+    }
+}
@@ -0,0 +1,11 @@
+package org.example;
+
+/**
+ * An approximate count of an attribute value. The true count lies between {@code count - error} and {@code count}.
+ *
+ * @param value The attribute value
+ * @param count The estimated count, never lower than the true count
+ * @param error The maximum overestimation of the count
+ */
+public record EstimatedCount(String value, long count, long error) {
+}
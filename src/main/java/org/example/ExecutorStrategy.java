@@ -0,0 +1,113 @@
+package org.example;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The ExecutorStrategy enum defines the threads {@link JsonProcessor} reads and parses files on.
+ *
+ * <p>Virtual threads require Java 21. On older runtimes the virtual strategies fall back to a cached pool
+ * of platform threads, which blocks in the same way but costs a platform thread per blocked read.
+ */
+public enum ExecutorStrategy {
+    /**
+     * A fixed pool of platform threads, one per processor, reads and parses every file.
+     */
+    FIXED,
+
+    /**
+     * Every file is read and parsed on its own virtual thread.
+     * Suits corpora on slow or network filesystems, where most time is spent waiting for reads.
+     */
+    VIRTUAL,
+
+    /**
+     * Files are read into memory on virtual threads and parsed on a fixed pool of platform threads,
+     * so slow reads neither idle the processors nor oversubscribe them with parsing.
+     * Reads only run ahead of parsing by {@link ProcessingOptions#getMaxBufferedReads()} files or byte ranges.
+     */
+    SPLIT,
+
+    /**
+     * A work-stealing pool of platform threads, one per processor, reads and parses every file.
+     * The byte ranges of a split file are queued on the worker that split it, and idle workers take them over,
+     * so the ranges of a large file spread over all processors while the other files are still queued.
+     */
+    WORK_STEALING;
+
+    private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates the executor parsing files and aggregating matched values.
+     *
+     * @param threads The number of platform threads of a fixed or work-stealing pool
+     * @return The parse executor
+     */
+    public ExecutorService createParseExecutor(int threads) {
+        return switch (this) {
+            case VIRTUAL -> newVirtualThreadPerTaskExecutor();
+            case WORK_STEALING -> Executors.newWorkStealingPool(threads);
+            default -> Executors.newFixedThreadPool(threads);
+        };
+    }
+
+    /**
+     * Creates the executor reading files before they are parsed.
+     *
+     * @return The read executor, or null if files are read by the parse executor
+     */
+    public ExecutorService createReadExecutor() {
+        return this == SPLIT ? newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    /**
+     * Checks whether this strategy runs tasks on virtual threads.
+     *
+     * @return true for the virtual and split strategies
+     */
+    public boolean usesVirtualThreads() {
+        return this == VIRTUAL || this == SPLIT;
+    }
+
+    /**
+     * Checks whether the runtime supports virtual threads.
+     *
+     * @return true if virtual threads are available
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task, or a cached thread pool before Java 21.
+     *
+     * @return The executor
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            return Executors.newCachedThreadPool();
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create a virtual thread executor.", e);
+        }
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()}, so the project still builds and runs on Java 17.
+     *
+     * @return The method handle, or null if the runtime has no virtual threads
+     */
+    private static MethodHandle findVirtualThreadPerTaskExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * The ExternalCountSorter class orders the counts of one attribute by {@link TopEntriesSelector#BY_COUNT_DESCENDING}
+ * with an external merge sort, so the sorted entries never have to be held in memory at once.
+ * Entries are collected in chunks of a bounded size; every full chunk is sorted and spilled to a run file,
+ * and {@link #sorted()} streams a k-way merge of the runs and the last chunk.
+ *
+ * <p>A sorter holds at most one chunk of entries, plus the read buffers of the runs while merging.
+ * Closing the sorter deletes its runs.
+ */
+final class ExternalCountSorter implements Closeable {
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private final int chunkEntries;
+    private final Path spillDirectory;
+    private final List<Path> runFiles = new ArrayList<>();
+    private final List<RunReader> readers = new ArrayList<>();
+    private List<Map.Entry<String, Long>> chunk = new ArrayList<>();
+    private long size;
+
+    /**
+     * Constructs an ExternalCountSorter.
+     *
+     * @param chunkEntries   The maximum number of entries sorted in memory at once
+     * @param spillDirectory The directory of the runs, or null for the temporary directory
+     */
+    ExternalCountSorter(int chunkEntries, Path spillDirectory) {
+        if (chunkEntries <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        this.chunkEntries = chunkEntries;
+        this.spillDirectory = spillDirectory != null ? spillDirectory : Path.of(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * Adds the count of a value; every value must be added once.
+     *
+     * @param value The value
+     * @param count The count of the value
+     * @throws IOException If a full chunk cannot be spilled
+     */
+    void add(String value, long count) throws IOException {
+        chunk.add(Map.entry(value, count));
+        size++;
+        if (chunk.size() == chunkEntries) {
+            spill();
+        }
+    }
+
+    /**
+     * Retrieves the number of added entries.
+     *
+     * @return The number of entries
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the number of runs spilled so far.
+     *
+     * @return The number of run files
+     */
+    int runCount() {
+        return runFiles.size();
+    }
+
+    /**
+     * Streams all added entries in sorted order. No more entries may be added.
+     * Read failures are thrown as {@link UncheckedIOException} by the iterator.
+     *
+     * @return An iterator over the sorted entries
+     * @throws IOException If a run cannot be opened
+     */
+    Iterator<Map.Entry<String, Long>> sorted() throws IOException {
+        chunk.sort(TopEntriesSelector.BY_COUNT_DESCENDING);
+        if (runFiles.isEmpty()) {
+            return chunk.iterator();
+        }
+        PriorityQueue<Source> queue = new PriorityQueue<>(runFiles.size() + 1,
+                (a, b) -> TopEntriesSelector.BY_COUNT_DESCENDING.compare(a.current, b.current));
+        for (Path runFile : runFiles) {
+            RunReader reader = new RunReader(runFile);
+            readers.add(reader);
+            if (reader.advance()) {
+                queue.add(reader);
+            }
+        }
+        Source lastChunk = new ChunkSource(chunk.iterator());
+        if (lastChunk.advance()) {
+            queue.add(lastChunk);
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !queue.isEmpty();
+            }
+
+            @Override
+            public Map.Entry<String, Long> next() {
+                Source smallest = queue.poll();
+                if (smallest == null) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<String, Long> entry = smallest.current;
+                try {
+                    if (smallest.advance()) {
+                        queue.add(smallest);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Closes the runs being merged and deletes all runs.
+     *
+     * @throws IOException If a run cannot be closed or deleted
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (RunReader reader : readers) {
+            try {
+                reader.in.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        for (Path runFile : runFiles) {
+            try {
+                Files.deleteIfExists(runFile);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Sorts the current chunk and writes it to a new run file.
+     */
+    private void spill() throws IOException {
+        chunk.sort(TopEntriesSelector.BY_COUNT_DESCENDING);
+        Files.createDirectories(spillDirectory);
+        Path runFile = Files.createTempFile(spillDirectory, "statistics-", ".run");
+        runFiles.add(runFile);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(runFile), STREAM_BUFFER_SIZE))) {
+            out.writeInt(chunk.size());
+            for (Map.Entry<String, Long> entry : chunk) {
+                byte[] value = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(value.length);
+                out.write(value);
+                out.writeLong(entry.getValue());
+            }
+        }
+        chunk = new ArrayList<>();
+    }
+
+    /**
+     * A sorted source of entries being merged.
+     */
+    private abstract static class Source {
+        Map.Entry<String, Long> current;
+
+        /**
+         * Moves to the next entry.
+         *
+         * @return false if the source has no more entries
+         */
+        abstract boolean advance() throws IOException;
+    }
+
+    private static final class ChunkSource extends Source {
+        private final Iterator<Map.Entry<String, Long>> entries;
+
+        private ChunkSource(Iterator<Map.Entry<String, Long>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        boolean advance() {
+            if (!entries.hasNext()) {
+                return false;
+            }
+            current = entries.next();
+            return true;
+        }
+    }
+
+    private static final class RunReader extends Source {
+        private final DataInputStream in;
+        private int remaining;
+
+        private RunReader(Path runFile) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(runFile), STREAM_BUFFER_SIZE));
+            this.remaining = in.readInt();
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                in.close();
+                return false;
+            }
+            remaining--;
+            byte[] value = new byte[in.readInt()];
+            in.readFully(value);
+            current = Map.entry(new String(value, StandardCharsets.UTF_8), in.readLong());
+            return true;
+        }
+    }
+}
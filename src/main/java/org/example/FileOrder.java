@@ -0,0 +1,20 @@
+package org.example;
+
+/**
+ * The FileOrder enum defines the order in which {@link JsonProcessor} submits the files of a directory.
+ */
+public enum FileOrder {
+    /**
+     * Every file is submitted as soon as the walk finds it, in the order of the filesystem.
+     * Parsing starts right away and the found files are never held in memory.
+     */
+    WALK,
+
+    /**
+     * The whole directory is walked and every file is sized first; the files are then submitted
+     * from the largest to the smallest (longest processing time first). A large file found last by the walk
+     * can no longer start when the other workers are already idle, which shortens the total run time
+     * of corpora with a few large files among many small ones. Holds the paths and sizes of all files in memory.
+     */
+    LARGEST_FIRST
+}
@@ -0,0 +1,22 @@
+package org.example;
+
+import java.nio.file.Path;
+
+/**
+ * A byte range of a file, from {@code start} inclusive to {@code end} exclusive.
+ *
+ * @param file  The file the range belongs to
+ * @param start The offset of the first byte of the range
+ * @param end   The offset just past the last byte of the range
+ */
+public record FileRange(Path file, long start, long end) {
+
+    /**
+     * Retrieves the number of bytes in the range.
+     *
+     * @return The length of the range
+     */
+    public long length() {
+        return end - start;
+    }
+}
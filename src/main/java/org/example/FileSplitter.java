@@ -0,0 +1,21 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Cuts a file into byte ranges of whole records that can be parsed independently.
+ */
+@FunctionalInterface
+public interface FileSplitter {
+
+    /**
+     * Scans the file and passes every range to the consumer as soon as it is found.
+     *
+     * @param filePath      The path to the file
+     * @param rangeConsumer The consumer receiving ranges in file order
+     * @throws IOException If an I/O error occurs or the file has an unexpected layout
+     */
+    void split(Path filePath, Consumer<FileRange> rangeConsumer) throws IOException;
+}
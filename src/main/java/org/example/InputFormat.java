@@ -0,0 +1,70 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The InputFormat enum defines the layout of the records in a JSON file.
+ */
+public enum InputFormat {
+    /**
+     * The format of every file follows from its extension: ".ndjson" and ".jsonl" files are {@link #NDJSON},
+     * all other files are {@link #ARRAY}, with or without a ".gz" or ".zst" suffix.
+     */
+    AUTO,
+
+    /**
+     * The records are the objects of an array at the root level.
+     */
+    ARRAY,
+
+    /**
+     * Newline-delimited JSON: every line holds one object. Large files are split at line boundaries.
+     */
+    NDJSON;
+
+    private static final String[] BASE_EXTENSIONS = {".json", ".ndjson", ".jsonl"};
+    private static final String[] COMPRESSION_EXTENSIONS = {"", ".gz", ".zst"};
+
+    /**
+     * Resolves the format of a single file.
+     *
+     * @param filePath The path to the file
+     * @return {@link #ARRAY} or {@link #NDJSON}
+     */
+    public InputFormat resolve(Path filePath) {
+        if (this != AUTO) {
+            return this;
+        }
+        String fileName = stripCompressionExtension(filePath.getFileName().toString().toLowerCase(Locale.ROOT));
+        return fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl") ? NDJSON : ARRAY;
+    }
+
+    /**
+     * Checks whether the file name has the extension of a plain or compressed input file:
+     * ".json", ".ndjson" or ".jsonl", optionally followed by ".gz" or ".zst".
+     *
+     * @param filePath The path to the file
+     * @return true if the file is an input file, ignoring case
+     */
+    static boolean hasInputExtension(Path filePath) {
+        String fileName = filePath.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String baseExtension : BASE_EXTENSIONS) {
+            for (String compressionExtension : COMPRESSION_EXTENSIONS) {
+                if (fileName.endsWith(baseExtension + compressionExtension)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String stripCompressionExtension(String fileName) {
+        for (String compressionExtension : COMPRESSION_EXTENSIONS) {
+            if (!compressionExtension.isEmpty() && fileName.endsWith(compressionExtension)) {
+                return fileName.substring(0, fileName.length() - compressionExtension.length());
+            }
+        }
+        return fileName;
+    }
+}
@@ -0,0 +1,28 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Opens the bytes of an input file for parsing.
+ * Benchmarks replace it to simulate slow storage.
+ */
+@FunctionalInterface
+interface InputOpener {
+
+    /**
+     * Reads files from their filesystem.
+     */
+    InputOpener FILES = Files::newInputStream;
+
+    /**
+     * Opens the file for reading from its first byte.
+     *
+     * @param filePath The path to the file
+     * @return The input stream, to be closed by the caller
+     * @throws IOException If the file cannot be opened
+     */
+    InputStream open(Path filePath) throws IOException;
+}
@@ -0,0 +1,149 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The InternedCounts class counts attribute values exactly in per-thread shards, where every attribute has a
+ * {@link ValueDictionary} assigning IDs to its distinct values and a primitive array of counts indexed by ID.
+ *
+ * <p>Values given as UTF-8 byte ranges are counted without allocating anything once they are known, which makes
+ * counting repetitive, low-cardinality values nearly allocation-free. Values are decoded to Strings only
+ * when {@link #complete()} merges the shards into the map of attribute value counts, once per distinct value
+ * and shard.
+ */
+class InternedCounts implements ValueCounter {
+    private final Map<String, Map<String, Long>> attributeValueCounts;
+    private final ShardPool<Shard> shards = new ShardPool<>(Shard::new);
+
+    /**
+     * Constructs an InternedCounts object merging its shards into the specified map.
+     *
+     * @param attributeValueCounts The map to store counts of attribute values
+     */
+    InternedCounts(Map<String, Map<String, Long>> attributeValueCounts) {
+        this.attributeValueCounts = attributeValueCounts;
+    }
+
+    @Override
+    public void increment(String attributeName, String value) {
+        add(attributeName, value, 1);
+    }
+
+    @Override
+    public void add(String attributeName, String value, long count) {
+        Shard shard = shards.get();
+        int length = shard.encode(value, 0, value.length());
+        shard.counts(attributeName).add(shard.scratch, 0, length, count);
+    }
+
+    @Override
+    public void increment(String attributeName, String value, int start, int end) {
+        Shard shard = shards.get();
+        int length = shard.encode(value, start, end);
+        shard.counts(attributeName).add(shard.scratch, 0, length, 1);
+    }
+
+    @Override
+    public void increment(String attributeName, byte[] utf8, int start, int length) {
+        shards.get().counts(attributeName).add(utf8, start, length, 1);
+    }
+
+    @Override
+    public void endTask() {
+        shards.release();
+    }
+
+    /**
+     * Adds the counts of all shards to the map of attribute value counts and empties the shards.
+     * Must only be called when no thread is counting into this object.
+     */
+    @Override
+    public void complete() {
+        for (Shard shard : shards) {
+            shard.attributes.keySet().forEach(attributeName -> complete(shard, attributeName));
+        }
+    }
+
+    /**
+     * Adds the counts of one attribute of all shards to the map of attribute value counts
+     * and empties them in the shards. Attributes may be completed concurrently.
+     *
+     * @param attributeName The attribute name
+     */
+    @Override
+    public void complete(String attributeName) {
+        attributeValueCounts.computeIfAbsent(attributeName, k -> new ConcurrentHashMap<>());
+        for (Shard shard : shards) {
+            complete(shard, attributeName);
+        }
+    }
+
+    private void complete(Shard shard, String attributeName) {
+        AttributeCounts counts = shard.attributes.get(attributeName);
+        if (counts == null || counts.dictionary.size() == 0) {
+            return;
+        }
+        Map<String, Long> targetCounts = attributeValueCounts.computeIfAbsent(attributeName, k -> new ConcurrentHashMap<>());
+        for (int id = 0; id < counts.dictionary.size(); id++) {
+            targetCounts.merge(counts.dictionary.value(id), counts.counts[id], Long::sum);
+        }
+        counts.clear();
+    }
+
+    /**
+     * The dictionaries and counts of one task at a time.
+     */
+    private static final class Shard {
+        private final Map<String, AttributeCounts> attributes = new HashMap<>();
+        private byte[] scratch = new byte[64];
+
+        private AttributeCounts counts(String attributeName) {
+            AttributeCounts counts = attributes.get(attributeName);
+            if (counts == null) {
+                counts = new AttributeCounts();
+                attributes.put(attributeName, counts);
+            }
+            return counts;
+        }
+
+        /**
+         * Encodes the part of a String between two indexes as UTF-8 into the scratch buffer.
+         * Unpaired surrogates are encoded as '?'.
+         *
+         * @param value The String holding the value
+         * @param start The index of the first character of the value
+         * @param end   The index after the last character of the value
+         * @return The number of bytes written
+         */
+        private int encode(String value, int start, int end) {
+            if (scratch.length < (end - start) * 3) {
+                scratch = new byte[(end - start) * 3];
+            }
+            return ValueDictionary.encode(value, start, end, scratch);
+        }
+    }
+
+    /**
+     * The dictionary of the distinct values of one attribute and their counts.
+     */
+    private static final class AttributeCounts {
+        private ValueDictionary dictionary = new ValueDictionary();
+        private long[] counts = new long[16];
+
+        private void add(byte[] bytes, int start, int length, long count) {
+            int id = dictionary.intern(bytes, start, length);
+            if (id == counts.length) {
+                counts = Arrays.copyOf(counts, id * 2);
+            }
+            counts[id] += count;
+        }
+
+        private void clear() {
+            dictionary = new ValueDictionary();
+            counts = new long[16];
+        }
+    }
+}
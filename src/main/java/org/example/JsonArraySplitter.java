@@ -0,0 +1,135 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * The JsonArraySplitter class cuts a JSON file with an array at the root level into byte ranges
+ * that start and end on the boundaries of top-level objects of that array.
+ * The scan only tracks nesting depth and string literals, so it is much cheaper than parsing the file.
+ * It still checks the structure of the root array itself, the commas between its objects and that nothing
+ * follows it, so a file is rejected the same way as by the sequential parser.
+ */
+public class JsonArraySplitter implements FileSplitter {
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+
+    private final long chunkSize;
+
+    /**
+     * Constructs a JsonArraySplitter object producing ranges of approximately the specified size.
+     *
+     * @param chunkSize The minimum size in bytes of each range, except the last one
+     */
+    public JsonArraySplitter(long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Scans the file and passes every range to the consumer as soon as it is found.
+     * Each range contains one or more complete top-level objects separated by commas.
+     *
+     * @param filePath      The path to the JSON file
+     * @param rangeConsumer The consumer receiving ranges in file order
+     * @throws IOException If an I/O error occurs or the root of the file is not an array of objects
+     */
+    @Override
+    public void split(Path filePath, Consumer<FileRange> rangeConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            long position = 0;
+            int depth = 0;
+            boolean inString = false;
+            boolean escaped = false;
+            boolean rootClosed = false;
+            boolean expectingObject = true;
+            boolean afterComma = false;
+            long rangeStart = -1;
+            long lastObjectEnd = -1;
+
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (inString) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (b == '\\') {
+                            escaped = true;
+                        } else if (b == '"') {
+                            inString = false;
+                        }
+                    } else if (depth == 0) {
+                        if (!isWhitespace(b) && !isByteOrderMark(b, position)) {
+                            if (rootClosed) {
+                                throw new IOException("Invalid JSON format: Unexpected content after the root array.");
+                            }
+                            if (b != '[') {
+                                throw new IOException("Invalid JSON format: Expecting array at the root level.");
+                            }
+                            depth = 1;
+                        }
+                    } else if (depth == 1) {
+                        if (!isWhitespace(b)) {
+                            if (b == '{' && expectingObject) {
+                                if (rangeStart < 0) {
+                                    rangeStart = position;
+                                }
+                                depth++;
+                                expectingObject = false;
+                                afterComma = false;
+                            } else if (b == ']' && !afterComma) {
+                                depth = 0;
+                                rootClosed = true;
+                            } else if (b == ',' && !expectingObject) {
+                                expectingObject = true;
+                                afterComma = true;
+                            } else if (expectingObject) {
+                                throw new IOException("Invalid JSON format: Expecting beginning of the object - {.");
+                            } else {
+                                throw new IOException("Invalid JSON format: Expecting , or ] after an object.");
+                            }
+                        }
+                    } else {
+                        switch (b) {
+                            case '"' -> inString = true;
+                            case '{', '[' -> depth++;
+                            case '}', ']' -> {
+                                depth--;
+                                if (depth == 1) {
+                                    lastObjectEnd = position + 1;
+                                    if (lastObjectEnd - rangeStart >= chunkSize) {
+                                        rangeConsumer.accept(new FileRange(filePath, rangeStart, lastObjectEnd));
+                                        rangeStart = -1;
+                                    }
+                                }
+                            }
+                            default -> {
+                            }
+                        }
+                    }
+                    position++;
+                }
+                buffer.clear();
+            }
+
+            if (depth != 0 || inString) {
+                throw new IOException("Invalid JSON format: Unexpected end of file.");
+            }
+            if (rangeStart >= 0) {
+                rangeConsumer.accept(new FileRange(filePath, rangeStart, lastObjectEnd));
+            }
+        }
+    }
+
+    private static boolean isByteOrderMark(byte b, long position) {
+        return position < 3 && (b == (byte) 0xEF || b == (byte) 0xBB || b == (byte) 0xBF);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
@@ -0,0 +1,135 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * The JsonFileWalker class finds the input files of a directory, optionally recursively, and passes each file
+ * to a consumer as soon as it is visited, so no list of files is ever materialized.
+ *
+ * <p>Without include patterns every file ending in ".json", ".ndjson" or ".jsonl" is accepted,
+ * optionally followed by ".gz" or ".zst". Glob patterns containing a '/' are matched
+ * against the path relative to the walked directory, other patterns against the file name only.
+ * Directories matching an exclude pattern are skipped with all their contents.
+ */
+public class JsonFileWalker {
+    private final boolean recursive;
+    private final List<String> includeGlobs;
+    private final List<String> excludeGlobs;
+
+    /**
+     * Constructs a JsonFileWalker object with the specified traversal settings.
+     *
+     * @param recursive    true to descend into subdirectories
+     * @param includeGlobs The glob patterns of accepted files; empty to accept plain and compressed JSON files
+     * @param excludeGlobs The glob patterns of rejected files and directories
+     */
+    public JsonFileWalker(boolean recursive, List<String> includeGlobs, List<String> excludeGlobs) {
+        this.recursive = recursive;
+        this.includeGlobs = List.copyOf(includeGlobs);
+        this.excludeGlobs = List.copyOf(excludeGlobs);
+    }
+
+    /**
+     * Walks the directory and passes every accepted regular file to the consumer.
+     * Subdirectories that cannot be read are reported to System.err and skipped.
+     *
+     * @param dirPath      The directory to walk
+     * @param fileConsumer The consumer receiving accepted files; it may block to throttle the walk
+     * @throws IOException If the directory cannot be read or the consumer fails
+     */
+    public void walk(Path dirPath, FileConsumer fileConsumer) throws IOException {
+        FileSystem fileSystem = dirPath.getFileSystem();
+        List<Glob> includes = includeGlobs.stream().map(glob -> new Glob(fileSystem, glob)).toList();
+        List<Glob> excludes = excludeGlobs.stream().map(glob -> new Glob(fileSystem, glob)).toList();
+        int maxDepth = recursive ? Integer.MAX_VALUE : 1;
+
+        if (!Files.isDirectory(dirPath)) {
+            throw new IOException("Not a directory: " + dirPath);
+        }
+        Files.walkFileTree(dirPath, EnumSet.noneOf(FileVisitOption.class), maxDepth,
+                new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        if (!dir.equals(dirPath) && matchesAny(excludes, dirPath, dir)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                        if (attrs.isRegularFile() && isIncluded(includes, dirPath, file)
+                                && !matchesAny(excludes, dirPath, file)) {
+                            fileConsumer.accept(file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                        if (file.equals(dirPath)) {
+                            throw e;
+                        }
+                        System.err.println("Skipping unreadable path: " + file + ", " + e.getMessage());
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    private static boolean isIncluded(List<Glob> includes, Path root, Path file) {
+        return includes.isEmpty() ? InputFormat.hasInputExtension(file) : matchesAny(includes, root, file);
+    }
+
+    private static boolean matchesAny(List<Glob> globs, Path root, Path path) {
+        for (Glob glob : globs) {
+            if (glob.matches(root, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Receives the files found by the walk.
+     */
+    @FunctionalInterface
+    public interface FileConsumer {
+
+        /**
+         * Accepts a file found by the walk.
+         *
+         * @param filePath The path to the file
+         * @throws IOException If the file cannot be accepted; the walk is aborted
+         */
+        void accept(Path filePath) throws IOException;
+    }
+
+    /**
+     * A compiled glob pattern matched against the file name or the relative path.
+     */
+    private static final class Glob {
+        private final PathMatcher matcher;
+        private final boolean matchesRelativePath;
+
+        private Glob(FileSystem fileSystem, String pattern) {
+            this.matcher = fileSystem.getPathMatcher("glob:" + pattern);
+            this.matchesRelativePath = pattern.contains("/");
+        }
+
+        private boolean matches(Path root, Path path) {
+            return matchesRelativePath
+                    ? matcher.matches(root.relativize(path))
+                    : matcher.matches(path.getFileName());
+        }
+    }
+}
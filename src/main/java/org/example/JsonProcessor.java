@@ -3,18 +3,35 @@ package org.example;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
 import java.util.concurrent.ExecutorService;
-import java.util.stream.Stream;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
 
 
 /**
@@ -23,8 +40,19 @@ import java.util.stream.Stream;
  */
 public class JsonProcessor {
     private final ExecutorService executorService;
-    private final Map<String, Map<String, Integer>> attributeValueCounts;
+    private final Map<String, Map<String, Long>> attributeValueCounts;
     private final List<String> attributeNames;
+    private final Map<String, ValueDelimiter> attributeDelimiters;
+    private final PathMatcher pathMatcher;
+    private final ProcessingOptions options;
+    private final ValueCounter backend;
+    private final ValueCounter valueCounter;
+    private final CountCache countCache;
+    private final Semaphore bufferedReads;
+    private final Checkpoint checkpoint;
+    private final ProcessingMetrics metrics;
+    private final ProcessingProgress progress;
+    private final ByteJsonParser byteParser;
 
     /**
      * Constructs a JsonProcessor object with the specified ExecutorService, attribute names, and attribute value counts.
@@ -34,11 +62,136 @@ public class JsonProcessor {
      * @param attributeValueCounts  The map to store counts of attribute values
      */
     public JsonProcessor(ExecutorService executorService, List<String> attributeNames,
-                         Map<String, Map<String, Integer>> attributeValueCounts
+                         Map<String, Map<String, Long>> attributeValueCounts
+    ) {
+        this(executorService, attributeNames, attributeValueCounts, ProcessingOptions.defaults());
+    }
+
+    /**
+     * Constructs a JsonProcessor object with the specified ExecutorService, attribute names, attribute value counts
+     * and processing options.
+     *
+     * @param executorService       The ExecutorService for concurrent processing
+     * @param attributeNames        The list of attribute names to extract from JSON files
+     * @param attributeValueCounts  The map to store counts of attribute values
+     * @param options               The processing options
+     */
+    public JsonProcessor(ExecutorService executorService, List<String> attributeNames,
+                         Map<String, Map<String, Long>> attributeValueCounts, ProcessingOptions options
     ) {
         this.executorService = executorService;
         this.attributeNames = attributeNames;
+        this.pathMatcher = PathMatcher.compile(attributeNames);
+        this.attributeDelimiters = new HashMap<>();
+        for (String attributeName : attributeNames) {
+            attributeDelimiters.put(attributeName, options.getDelimiter(attributeName));
+        }
         this.attributeValueCounts = attributeValueCounts;
+        this.options = options;
+        this.metrics = options.getMetrics();
+        this.backend = createValueCounter();
+        this.valueCounter = metrics == null ? backend : new MeteredValueCounter(backend, metrics);
+        this.countCache = createCountCache();
+        this.bufferedReads = new Semaphore(options.getMaxBufferedReads());
+        this.progress = options.getProgress();
+        this.checkpoint = createCheckpoint();
+        this.byteParser = options.getParserEngine() == ParserEngine.BYTES
+                ? new ByteJsonParser(attributeNames)
+                : null;
+    }
+
+    /**
+     * Opens the count cache configured by the processing options.
+     *
+     * @return The count cache, or null if caching is disabled or the cache directory cannot be created
+     */
+    private CountCache createCountCache() {
+        if (options.getCacheDirectory() == null) {
+            return null;
+        }
+        try {
+            return new CountCache(options.getCacheDirectory(), countingKey());
+        } catch (IOException e) {
+            System.err.println("Count cache disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the checkpoint configured by the processing options. When resuming, the counts of the checkpoint
+     * are restored into the counting backend.
+     *
+     * @return The checkpoint, or null if checkpointing is disabled
+     * @throws UncheckedIOException If the checkpoint file cannot be opened or does not match the settings
+     */
+    private Checkpoint createCheckpoint() {
+        Path checkpointFile = options.getCheckpointFile();
+        if (checkpointFile == null) {
+            return null;
+        }
+        try {
+            if (!options.isResume()) {
+                return Checkpoint.create(checkpointFile, countingKey());
+            }
+            Checkpoint resumed = Checkpoint.resume(checkpointFile, countingKey());
+            try {
+                resumed.replay(valueCounter::add);
+                valueCounter.endTask();
+            } catch (IOException e) {
+                resumed.close();
+                throw e;
+            }
+            return resumed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open checkpoint " + checkpointFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Describes the settings besides the file content that affect per-file counts,
+     * so cache entries written with other settings are not reused and partial counts are only merged
+     * with partial counts of the same settings.
+     *
+     * @return The counting key
+     */
+    String countingKey() {
+        StringBuilder key = new StringBuilder("attributes=").append(String.join(",", new TreeSet<>(
+                attributeNames.stream().map(PathMatcher::escapeName).toList())));
+        new TreeMap<>(attributeDelimiters).forEach((attributeName, delimiter) -> {
+            if (delimiter != ValueDelimiter.COMMA) {
+                key.append(';').append(PathMatcher.escapeName(attributeName)).append('=').append(delimiter);
+            }
+        });
+        if (attributeNames.stream().anyMatch(PathMatcher::isSelector)) {
+            // names with '.', '[' or '*' used to match literal keys
+            key.append(";selectors");
+        }
+        if (options.getInputFormat() != InputFormat.AUTO) {
+            key.append(";format=").append(options.getInputFormat());
+        }
+        return key.toString();
+    }
+
+    /**
+     * Creates the counting backend selected by the processing options.
+     *
+     * @return The value counter
+     */
+    private ValueCounter createValueCounter() {
+        if (options.getCountingBackend() == CountingBackend.APPROXIMATE) {
+            return new ApproximateCounts(options.getSketchEpsilon(), options.getSketchDelta(),
+                    options.getHeavyHitters());
+        }
+        if (options.getCountingBackend() == CountingBackend.INTERNED) {
+            return new InternedCounts(attributeValueCounts);
+        }
+        if (options.getCountingBackend() == CountingBackend.OFF_HEAP) {
+            return new OffHeapCounts(attributeValueCounts, options.getOffHeapMemoryBytes(),
+                    options.getSpillDirectory());
+        }
+        return options.getAggregationMode() == AggregationMode.SHARDED
+                ? new ShardedCounts(attributeValueCounts)
+                : new SharedCounts(attributeValueCounts);
     }
 
     /**
@@ -55,7 +208,7 @@ public class JsonProcessor {
      *
      * @return The map of attribute value counts
      */
-    public Map<String, Map<String, Integer>> getAttributeValueCounts() {
+    public Map<String, Map<String, Long>> getAttributeValueCounts() {
         return attributeValueCounts;
     }
 
@@ -68,8 +221,49 @@ public class JsonProcessor {
         return attributeNames;
     }
 
+    /**
+     * Retrieves the estimated counts of the most frequent values per attribute.
+     * The map is only filled by the {@link CountingBackend#APPROXIMATE} backend, after {@link #mergeShards()}.
+     *
+     * @return The map of attribute names to estimated counts, ordered by count in descending order
+     */
+    public Map<String, List<EstimatedCount>> getEstimatedCounts() {
+        return backend instanceof ApproximateCounts approximateCounts
+                ? approximateCounts.getEstimatedCounts()
+                : Map.of();
+    }
+
+    /**
+     * Retrieves the processing options.
+     *
+     * @return The processing options
+     */
+    public ProcessingOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Retrieves the counting backend the parse tasks count into.
+     *
+     * @return The value counter
+     */
+    ValueCounter getValueCounter() {
+        return valueCounter;
+    }
+
+    /**
+     * Retrieves the checkpoint the counts of completed files are recorded in.
+     *
+     * @return The checkpoint, or null if checkpointing is disabled
+     */
+    Checkpoint getCheckpoint() {
+        return checkpoint;
+    }
+
     /**
      * Processes JSON files in the specified directory, extracting attribute values and updating counts concurrently.
+     * Every file found by the walk is submitted at once, in the {@link ProcessingOptions#getFileOrder() file order},
+     * so prefer {@link #processDirectory(Path)} for large inputs.
      *
      * @param dirPath The path to the directory containing JSON files
      * @return An array of CompletableFutures representing the asynchronous tasks for processing JSON files.
@@ -77,140 +271,822 @@ public class JsonProcessor {
      */
     public CompletableFuture<Void>[] processJsonFiles(Path dirPath) throws IOException {
         List<CompletableFuture<Void>> futures = new ArrayList<>();
+        forEachJsonFile(dirPath, filePath -> {
+            futures.add(runAsyncParseJson(filePath));
+            if (metrics != null) {
+                metrics.sampleExecutorQueueDepth();
+            }
+        });
+        return futures.toArray(new CompletableFuture[0]);
+    }
 
-        try (Stream<Path> pathStream = Files.list(dirPath)) {
-            pathStream
-                    .filter(filePath -> Files.isRegularFile(filePath) && filePath.toString().toLowerCase().endsWith(".json"))
-                    .forEach(filePath -> futures.add(runAsyncParseJson(filePath)));
+    /**
+     * Walks the specified directory and parses every JSON file as soon as it is found.
+     * At most {@link ProcessingOptions#getMaxPendingFiles()} files are queued or being parsed at any time;
+     * the walk blocks the calling thread until a pending file completes, so memory does not grow
+     * with the number of files. This method returns once every file has been submitted.
+     * With {@link FileOrder#LARGEST_FIRST} the whole directory is walked and sized before the first file
+     * is submitted.
+     *
+     * @param dirPath The path to the directory containing JSON files
+     * @return A CompletableFuture completed once every submitted file has been processed
+     * @throws IOException If an I/O error occurs while walking the directory or the walk is interrupted
+     */
+    public CompletableFuture<Void> processDirectory(Path dirPath) throws IOException {
+        Semaphore pendingPermits = new Semaphore(options.getMaxPendingFiles());
+        AtomicLong pendingFiles = new AtomicLong(1);
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        Runnable completeFile = () -> {
+            if (pendingFiles.decrementAndGet() == 0) {
+                completion.complete(null);
+            }
+        };
+
+        try {
+            forEachJsonFile(dirPath, filePath -> {
+                try {
+                    pendingPermits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while walking " + dirPath);
+                }
+                pendingFiles.incrementAndGet();
+                runAsyncParseJson(filePath).whenComplete((ignored, ex) -> {
+                    pendingPermits.release();
+                    completeFile.run();
+                });
+                if (metrics != null) {
+                    metrics.sampleExecutorQueueDepth();
+                }
+            });
+        } finally {
+            completeFile.run();
+        }
+        return completion;
+    }
+
+    /**
+     * Passes the JSON files of the specified directory to the consumer in the file order of the processing options.
+     * For {@link FileOrder#LARGEST_FIRST} every file found by the walk is sized, and the files are passed on
+     * by size in descending order once the walk is complete; equal sizes keep the order of the walk.
+     *
+     * @param dirPath      The path to the directory containing JSON files
+     * @param fileConsumer The consumer receiving every JSON file found
+     * @throws IOException If an I/O error occurs while walking the directory
+     */
+    private void forEachJsonFile(Path dirPath, JsonFileWalker.FileConsumer fileConsumer) throws IOException {
+        if (options.getFileOrder() == FileOrder.WALK) {
+            walkJsonFiles(dirPath, fileConsumer);
+            return;
+        }
+        List<SizedFile> files = new ArrayList<>();
+        walkJsonFiles(dirPath, filePath -> files.add(new SizedFile(filePath, fileSize(filePath))));
+        files.sort(Comparator.comparingLong(SizedFile::size).reversed());
+        for (SizedFile file : files) {
+            fileConsumer.accept(file.path());
+        }
+    }
+
+    /**
+     * Walks the specified directory with the traversal settings of the processing options.
+     * Files of another shard and files completed by a resumed checkpoint are skipped.
+     *
+     * @param dirPath      The path to the directory containing JSON files
+     * @param fileConsumer The consumer receiving every JSON file found
+     * @throws IOException If an I/O error occurs while walking the directory
+     */
+    void walkJsonFiles(Path dirPath, JsonFileWalker.FileConsumer fileConsumer) throws IOException {
+        JsonFileWalker walker = new JsonFileWalker(options.isRecursive(), options.getIncludeGlobs(),
+                options.getExcludeGlobs());
+        int shardCount = options.getShardCount();
+        boolean skipCompleted = checkpoint != null && checkpoint.getResumedFileCount() > 0;
+        try {
+            if (shardCount == 1 && !skipCompleted) {
+                walker.walk(dirPath, fileConsumer);
+            } else {
+                walker.walk(dirPath, filePath -> {
+                    boolean inShard = shardCount == 1
+                            || shardOf(dirPath.relativize(filePath), shardCount) == options.getShardIndex();
+                    if (inShard && !(skipCompleted && checkpoint.isCompleted(filePath))) {
+                        fileConsumer.accept(filePath);
+                    }
+                });
+            }
+        } catch (InterruptedIOException e) {
+            throw e;
         } catch (IOException e) {
             throw new IOException("An error occurred while getting the file list: " + e.getMessage(), e);
         }
+    }
 
-        return futures.toArray(new CompletableFuture[0]);
+    /**
+     * Assigns a file to a shard by the CRC-32 of its relative path, with '/' as the separator on every platform.
+     *
+     * @param relativePath The path of the file relative to the input directory
+     * @param shardCount   The number of shards
+     * @return The index of the shard
+     */
+    static int shardOf(Path relativePath, int shardCount) {
+        StringBuilder path = new StringBuilder();
+        for (Path name : relativePath) {
+            if (!path.isEmpty()) {
+                path.append('/');
+            }
+            path.append(name);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(path.toString().getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount);
+    }
+
+    /**
+     * Merges the per-thread count shards into the attribute value counts map, or into the estimated counts
+     * of the approximate backend.
+     * This must be called once all CompletableFutures returned by {@link #processJsonFiles(Path)}
+     * or {@link #processDirectory(Path)} complete;
+     * in {@link AggregationMode#SHARED} mode with exact counting it does nothing.
+     */
+    public void mergeShards() {
+        valueCounter.complete();
+    }
+
+    /**
+     * Merges the per-thread count shards of every attribute separately once the parsing completes.
+     * Every attribute is merged by its own task on the executor service, so the counts of one attribute
+     * can be sorted and written while the others are still being merged.
+     * Attributes without any matched value complete with an empty map.
+     *
+     * @param parsing The CompletableFuture returned by {@link #processDirectory(Path)}
+     *                or {@link #processJsonFiles(Path)}
+     * @return A map of attribute names to CompletableFutures of their final counts
+     * @throws IllegalStateException If the approximate counting backend is used
+     */
+    public Map<String, CompletableFuture<Map<String, Long>>> mergeShardsWhenDone(CompletableFuture<Void> parsing) {
+        if (options.getCountingBackend() == CountingBackend.APPROXIMATE) {
+            throw new IllegalStateException("Approximate counts are merged by mergeShards().");
+        }
+        Map<String, CompletableFuture<Map<String, Long>>> mergedCounts = new LinkedHashMap<>();
+        for (String attributeName : attributeNames) {
+            mergedCounts.computeIfAbsent(attributeName, name -> parsing.thenApplyAsync(ignored -> {
+                valueCounter.complete(name);
+                return attributeValueCounts.computeIfAbsent(name, k -> new ConcurrentHashMap<>());
+            }, executorService));
+        }
+        return mergedCounts;
+    }
+
+    /**
+     * Streams the final counts of every attribute of the {@link CountingBackend#OFF_HEAP} backend once the parsing
+     * completes. The counts are merged from the spilled runs and the tables while the stream is consumed,
+     * without being collected in the map of attribute value counts. Every stream can be consumed once.
+     *
+     * @param parsing The CompletableFuture returned by {@link #processDirectory(Path)}
+     *                or {@link #processJsonFiles(Path)}
+     * @return A map of attribute names to CompletableFutures of the streams of their final counts
+     * @throws IllegalStateException If another counting backend is used
+     */
+    Map<String, CompletableFuture<CountStream>> streamCountsWhenDone(CompletableFuture<Void> parsing) {
+        if (!(backend instanceof OffHeapCounts offHeapCounts)) {
+            throw new IllegalStateException("Only off-heap counts are streamed.");
+        }
+        Map<String, CompletableFuture<CountStream>> streams = new LinkedHashMap<>();
+        for (String attributeName : attributeNames) {
+            streams.computeIfAbsent(attributeName, name -> parsing.thenApply(ignored -> offHeapCounts.stream(name)));
+        }
+        return streams;
     }
 
     /**
      * Runs asynchronous parsing of a single JSON file using the executor service.
+     * With a count cache, unchanged files are loaded from the cache instead of being parsed.
      * Any IOException thrown during parsing is caught and logged to System.err.
      *
      * @param filePath The path to the JSON file to be parsed
      * @return A CompletableFuture representing the asynchronous parsing task
      */
     private CompletableFuture<Void> runAsyncParseJson(Path filePath) {
+        CompletableFuture<Boolean> parsing = countCache == null && checkpoint == null
+                ? runAsyncParseJson(filePath, valueCounter).thenApply(ignored -> false)
+                : runAsyncCachedParseJson(filePath);
+        return parsing.handle((fromCache, ex) -> {
+            if (metrics != null) {
+                metrics.recordFileCompleted(filePath, Boolean.TRUE.equals(fromCache), ex != null);
+            }
+            if (progress != null) {
+                progress.recordFileCompleted(fileSize(filePath));
+            }
+            if (ex != null) {
+                System.err.println("Error parsing file: " + filePath + ", " + rootCause(ex).getMessage());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs asynchronous parsing of a single JSON file into the specified counter.
+     * Files at or above the split threshold are parsed in parallel byte ranges.
+     * With a read executor, an uncompressed file below the mapping threshold is read into memory
+     * on the read executor before it is parsed, once fewer than {@link ProcessingOptions#getMaxBufferedReads()}
+     * reads are waiting to be parsed. Compressed and larger files are streamed on the executor service instead.
+     * Every parse task ends its counting with {@link ValueCounter#endTask()}.
+     *
+     * @param filePath The path to the JSON file to be parsed
+     * @param counter  The counter receiving matched values
+     * @return A CompletableFuture completed exceptionally if the file cannot be parsed
+     */
+    private CompletableFuture<Void> runAsyncParseJson(Path filePath, ValueCounter counter) {
+        if (isSplittable(filePath)) {
+            return runAsyncSplitParseJson(filePath, counter);
+        }
+        if (options.getReadExecutor() != null && isBufferable(filePath)) {
+            return CompletableFuture.supplyAsync(() -> {
+                        bufferedReads.acquireUninterruptibly();
+                        try {
+                            return readContent(filePath);
+                        } catch (RuntimeException e) {
+                            bufferedReads.release();
+                            throw e;
+                        }
+                    }, options.getReadExecutor())
+                    .thenAcceptAsync(content -> {
+                        try {
+                            parseContent(filePath, content, counter);
+                        } finally {
+                            counter.endTask();
+                            bufferedReads.release();
+                        }
+                    }, executorService);
+        }
         return CompletableFuture.runAsync(() -> {
             try {
-                parseJson(filePath);
+                parseJson(filePath, counter);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                counter.endTask();
+            }
+        }, executorService);
+    }
+
+    /**
+     * Loads the counts of a single JSON file from the count cache, or parses the file into a private map
+     * and stores that map in the cache under the fingerprint the file had before parsing.
+     * Either way the counts are then added to the counting backend and handed over to the checkpoint.
+     * Counts of files that fail to parse are added, but neither cached nor checkpointed,
+     * so a resumed run parses them again.
+     *
+     * @param filePath The path to the JSON file to be parsed
+     * @return A CompletableFuture completed with true if the counts were loaded from the cache,
+     *         or exceptionally if the file cannot be parsed
+     */
+    private CompletableFuture<Boolean> runAsyncCachedParseJson(Path filePath) {
+        return CompletableFuture.supplyAsync(() -> {
+                    if (countCache == null) {
+                        return null;
+                    }
+                    long startNanos = System.nanoTime();
+                    Map<String, Map<String, Long>> cachedCounts = countCache.load(filePath);
+                    if (metrics != null) {
+                        metrics.recordParsed(filePath, 0, 0, System.nanoTime() - startNanos);
+                    }
+                    return cachedCounts;
+                }, executorService)
+                .thenCompose(cachedCounts -> {
+                    if (cachedCounts != null) {
+                        addCounts(cachedCounts);
+                        if (checkpoint != null) {
+                            checkpoint.fileCompleted(filePath, cachedCounts);
+                        }
+                        return CompletableFuture.completedFuture(true);
+                    }
+                    CountCache.Fingerprint fingerprint = countCache == null ? null : countCache.fingerprint(filePath);
+                    Map<String, Map<String, Long>> fileCounts = new ConcurrentHashMap<>();
+                    return runAsyncParseJson(filePath, new SharedCounts(fileCounts))
+                            .whenCompleteAsync((ignored, ex) -> {
+                                if (ex == null && countCache != null) {
+                                    countCache.store(filePath, fingerprint, fileCounts);
+                                }
+                                addCounts(fileCounts);
+                                if (ex == null && checkpoint != null) {
+                                    checkpoint.fileCompleted(filePath, fileCounts);
+                                }
+                            }, executorService)
+                            .thenApply(ignored -> false);
+                });
+    }
+
+    /**
+     * Adds the attribute value counts of a single file to the counting backend.
+     *
+     * @param fileCounts The attribute value counts of the file
+     */
+    private void addCounts(Map<String, Map<String, Long>> fileCounts) {
+        fileCounts.forEach((attributeName, valueCounts) ->
+                valueCounts.forEach((value, count) -> valueCounter.add(attributeName, value, count)));
+        valueCounter.endTask();
+    }
+
+    /**
+     * Retrieves the size of a file for the progress tracker and the file order.
+     *
+     * @param filePath The path to the file
+     * @return The size in bytes, or 0 if it cannot be read
+     */
+    private static long fileSize(Path filePath) {
+        try {
+            return Files.size(filePath);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Unwraps the exception thrown by an asynchronous parsing task.
+     *
+     * @param throwable The exception completing a CompletableFuture
+     * @return The underlying cause
+     */
+    private static Throwable rootCause(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * Checks whether the file is large enough to be split into byte ranges.
+     *
+     * @param filePath The path to the JSON file
+     * @return true if the file size reaches the split threshold and the file is not compressed
+     */
+    private boolean isSplittable(Path filePath) {
+        try {
+            return Files.size(filePath) >= options.getSplitThresholdBytes() && !Decompression.isCompressed(filePath);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether the file may be read into memory as a whole before it is parsed.
+     * Compressed files may grow beyond any bound when decompressed, and files at the mapping threshold
+     * are read from memory-mapped windows, so both are streamed instead.
+     *
+     * @param filePath The path to the JSON file
+     * @return true if the file is not compressed and smaller than the mapping threshold
+     */
+    private boolean isBufferable(Path filePath) {
+        try {
+            return !Decompression.isCompressed(filePath) && Files.size(filePath) < options.getMmapThresholdBytes();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Scans a large JSON file for top-level object boundaries, or line boundaries of NDJSON, on the executor
+     * service and parses every byte range found by its own task, as soon as the range is found.
+     *
+     * @param filePath The path to the JSON file to be parsed
+     * @param counter  The counter receiving matched values
+     * @return A CompletableFuture completed when all byte ranges of the file are parsed,
+     *         exceptionally if the scan or any range fails
+     */
+    private CompletableFuture<Void> runAsyncSplitParseJson(Path filePath, ValueCounter counter) {
+        FileSplitter splitter = options.getInputFormat().resolve(filePath) == InputFormat.NDJSON
+                ? new NdjsonSplitter(options.getSplitChunkBytes())
+                : new JsonArraySplitter(options.getSplitChunkBytes());
+        ExecutorService scanExecutor = options.getReadExecutor() != null ? options.getReadExecutor() : executorService;
+        return CompletableFuture.supplyAsync(() -> {
+            long startNanos = System.nanoTime();
+            List<CompletableFuture<Void>> rangeFutures = new ArrayList<>();
+            try {
+                splitter.split(filePath, range -> rangeFutures.add(runAsyncParseRange(range, counter)));
             } catch (IOException e) {
-                System.err.println("Error parsing file: " + filePath + ", " + e.getMessage());
+                rangeFutures.add(CompletableFuture.failedFuture(new UncheckedIOException(e)));
             }
-        }, executorService).exceptionally(ex -> null);
+            if (metrics != null) {
+                metrics.recordParsed(filePath, 0, 0, System.nanoTime() - startNanos);
+                metrics.sampleExecutorQueueDepth();
+            }
+            return rangeFutures;
+        }, scanExecutor).thenCompose(rangeFutures ->
+                CompletableFuture.allOf(rangeFutures.toArray(new CompletableFuture[0]))
+        );
+    }
+
+    /**
+     * Runs asynchronous parsing of a single byte range of a JSON file using the executor service.
+     * With a read executor, the calling scan waits until fewer than {@link ProcessingOptions#getMaxBufferedReads()}
+     * reads are waiting to be parsed, so the ranges of a large file are not all read into memory at once.
+     *
+     * @param range   The byte range holding complete top-level objects
+     * @param counter The counter receiving matched values
+     * @return A CompletableFuture completed exceptionally if the range cannot be parsed
+     */
+    private CompletableFuture<Void> runAsyncParseRange(FileRange range, ValueCounter counter) {
+        if (options.getReadExecutor() != null) {
+            // the scan runs on the read executor, never on the parse executor that releases the permits
+            bufferedReads.acquireUninterruptibly();
+            return CompletableFuture.supplyAsync(() -> readContent(range), options.getReadExecutor())
+                    .thenAcceptAsync(content -> {
+                        try {
+                            parseRange(range, content, counter);
+                        } finally {
+                            counter.endTask();
+                        }
+                    }, executorService)
+                    .whenComplete((ignored, ex) -> bufferedReads.release());
+        }
+        return CompletableFuture.runAsync(() -> {
+            long startNanos = System.nanoTime();
+            try (InputStream rangeStream = openRange(range)) {
+                parseRange(range, rangeStream, counter, startNanos);
+            } catch (IOException e) {
+                throw rangeException(range, e);
+            } finally {
+                counter.endTask();
+            }
+        }, executorService);
+    }
+
+    /**
+     * Reads a whole JSON file into memory.
+     *
+     * @param filePath The path to the JSON file
+     * @return The content of the file
+     */
+    private FileContent readContent(Path filePath) {
+        long startNanos = System.nanoTime();
+        try (InputStream inputStream = openFile(filePath)) {
+            return new FileContent(inputStream.readAllBytes(), startNanos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a byte range of a JSON file into memory.
+     *
+     * @param range The byte range holding complete top-level objects
+     * @return The content of the range
+     */
+    private FileContent readContent(FileRange range) {
+        long startNanos = System.nanoTime();
+        try (InputStream rangeStream = openRange(range)) {
+            return new FileContent(rangeStream.readAllBytes(), startNanos);
+        } catch (IOException e) {
+            throw rangeException(range, e);
+        }
+    }
+
+    /**
+     * Parses a JSON file read into memory.
+     *
+     * @param filePath The path to the JSON file
+     * @param content  The content of the file
+     * @param counter  The counter receiving matched values
+     */
+    private void parseContent(Path filePath, FileContent content, ValueCounter counter) {
+        try {
+            long records = parseStream(new ByteArrayInputStream(content.bytes()),
+                    options.getInputFormat().resolve(filePath), counter);
+            if (metrics != null) {
+                metrics.recordParsed(filePath, content.bytes().length, records,
+                        System.nanoTime() - content.startNanos());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses a byte range of a JSON file read into memory.
+     *
+     * @param range   The byte range holding complete top-level objects
+     * @param content The content of the range
+     * @param counter The counter receiving matched values
+     */
+    private void parseRange(FileRange range, FileContent content, ValueCounter counter) {
+        try {
+            parseRange(range, new ByteArrayInputStream(content.bytes()), counter, content.startNanos());
+        } catch (IOException e) {
+            throw rangeException(range, e);
+        }
+    }
+
+    /**
+     * Wraps an exception raised while reading or parsing a byte range, naming the range in the message.
+     *
+     * @param range The byte range
+     * @param e     The exception
+     * @return The exception to throw from an asynchronous task
+     */
+    private static UncheckedIOException rangeException(FileRange range, IOException e) {
+        return new UncheckedIOException(new IOException(
+                e.getMessage() + " (in the range starting at byte " + range.start() + ")", e));
+    }
+
+    /**
+     * Parses a byte range of a JSON file by wrapping its objects into an array, or a range of NDJSON lines as is.
+     *
+     * @param range       The byte range holding complete top-level objects
+     * @param rangeStream The bytes of the range
+     * @param counter     The counter receiving matched values
+     * @param startNanos  The time reading the range started
+     * @throws IOException If an I/O error occurs while parsing the range
+     */
+    private void parseRange(FileRange range, InputStream rangeStream, ValueCounter counter, long startNanos)
+            throws IOException {
+        InputFormat format = options.getInputFormat().resolve(range.file());
+        InputStream recordStream = format == InputFormat.NDJSON
+                ? rangeStream
+                : new SequenceInputStream(Collections.enumeration(List.of(
+                        new ByteArrayInputStream(new byte[]{'['}),
+                        rangeStream,
+                        new ByteArrayInputStream(new byte[]{']'}))));
+        try (recordStream) {
+            long records = parseStream(recordStream, format, counter);
+            if (metrics != null) {
+                metrics.recordParsed(range.file(), range.length(), records, System.nanoTime() - startNanos);
+            }
+        }
     }
 
     /**
      * Parses a JSON file, extracting attribute values and updating counts.
      *
      * @param filePath The path to the JSON file
+     * @param counter  The counter receiving matched values
      * @throws IOException If an I/O error occurs while parsing the JSON file
      */
-    private void parseJson(Path filePath) throws IOException {
-        try (JsonReader reader = new JsonReader(Files.newBufferedReader(filePath))) {
-            processJsonElement(reader);
+    private void parseJson(Path filePath, ValueCounter counter) throws IOException {
+        long startNanos = System.nanoTime();
+        try (InputStream inputStream = openFile(filePath)) {
+            long records = parseStream(inputStream, options.getInputFormat().resolve(filePath), counter);
+            if (metrics != null) {
+                metrics.recordParsed(filePath, Files.size(filePath), records, System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    /**
+     * Opens a whole JSON file, memory-mapped if it reaches the mapping threshold,
+     * and decompresses it if it is gzip or zstd compressed.
+     *
+     * @param filePath The path to the JSON file
+     * @return The input stream, to be closed by the caller
+     * @throws IOException If the file cannot be opened
+     */
+    private InputStream openFile(Path filePath) throws IOException {
+        InputStream inputStream = options.getInputOpener() == InputOpener.FILES
+                && Files.size(filePath) >= options.getMmapThresholdBytes()
+                ? new MappedFileInputStream(new FileRange(filePath, 0, Files.size(filePath)))
+                : options.getInputOpener().open(filePath);
+        try {
+            return Decompression.decompress(inputStream, executorService);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a byte range of a JSON file, memory-mapped if the file reaches the mapping threshold.
+     *
+     * @param range The byte range
+     * @return The input stream, to be closed by the caller
+     * @throws IOException If the file cannot be opened
+     */
+    private InputStream openRange(FileRange range) throws IOException {
+        if (Files.size(range.file()) >= options.getMmapThresholdBytes()) {
+            return new MappedFileInputStream(range);
+        }
+        return new FileRangeInputStream(range);
+    }
+
+    /**
+     * Parses a JSON array of objects, or NDJSON objects, with the configured parser engine.
+     *
+     * @param inputStream The UTF-8 encoded JSON, closed by the caller
+     * @param format      The resolved format of the input
+     * @param counter     The counter receiving matched values
+     * @return The number of top-level objects processed
+     * @throws IOException If an I/O error occurs or the JSON is malformed
+     */
+    private long parseStream(InputStream inputStream, InputFormat format, ValueCounter counter) throws IOException {
+        boolean ndjson = format == InputFormat.NDJSON;
+        if (byteParser != null) {
+            ByteJsonParser.ValueConsumer valueConsumer = new CountingConsumer(counter);
+            return ndjson
+                    ? byteParser.parseObjects(inputStream, valueConsumer)
+                    : byteParser.parse(inputStream, valueConsumer);
         }
+        JsonReader reader = new JsonReader(newReader(inputStream));
+        return ndjson ? processJsonObjects(reader, counter) : processJsonElement(reader, counter);
+    }
+
+    /**
+     * Decodes JSON bytes as UTF-8, failing on malformed input.
+     *
+     * @param inputStream The JSON bytes
+     * @return The reader
+     */
+    private static Reader newReader(InputStream inputStream) {
+        return new InputStreamReader(inputStream, StandardCharsets.UTF_8.newDecoder());
     }
 
     /**
      * Processes a JSON element, which could be an object or an array.
      *
-     * @param reader The JsonReader to read JSON elements
+     * @param reader  The JsonReader to read JSON elements
+     * @param counter The counter receiving matched values
+     * @return The number of top-level objects processed
      * @throws IOException If an I/O error occurs while processing the JSON element
      */
-    private void processJsonElement(JsonReader reader) throws IOException {
+    private long processJsonElement(JsonReader reader, ValueCounter counter) throws IOException {
         if (reader.peek() != JsonToken.BEGIN_ARRAY) {
             throw new IOException("Invalid JSON format: Expecting array at the root level.");
         }
+        long records = 0;
         reader.beginArray();
         while (reader.hasNext()) {
             if (reader.peek() != JsonToken.BEGIN_OBJECT) {
                 throw new IOException("Invalid JSON format: Expecting beginning of the object - {.");
             }
-            processJsonObject(reader);
+            processJsonObject(reader, counter);
+            records++;
         }
         reader.endArray();
+        return records;
+    }
+
+    /**
+     * Processes a sequence of JSON objects at the root level, such as the lines of NDJSON.
+     *
+     * @param reader  The JsonReader to read JSON objects; it is switched to lenient mode to allow several root values
+     * @param counter The counter receiving matched values
+     * @return The number of objects processed, 0 for blank input
+     * @throws IOException If an I/O error occurs while processing the JSON objects
+     */
+    private long processJsonObjects(JsonReader reader, ValueCounter counter) throws IOException {
+        reader.setLenient(true);
+        try {
+            reader.peek();
+        } catch (EOFException e) {
+            return 0;
+        }
+        long records = 0;
+        while (reader.peek() != JsonToken.END_DOCUMENT) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                throw new IOException("Invalid JSON format: Expecting beginning of the object - {.");
+            }
+            processJsonObject(reader, counter);
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Processes a top-level JSON object, extracting attribute values and updating counts.
+     *
+     * @param reader  The JsonReader to read JSON objects
+     * @param counter The counter receiving matched values
+     * @throws IOException If an I/O error occurs while processing the JSON object
+     */
+    private void processJsonObject(JsonReader reader, ValueCounter counter) throws IOException {
+        processJsonObject(reader, pathMatcher.start(), counter);
     }
 
     /**
-     * Processes a JSON object, extracting attribute values and updating counts.
+     * Processes a JSON object, advancing the selector automaton with every key.
      *
-     * @param reader The JsonReader to read JSON objects
+     * @param reader  The JsonReader to read JSON objects
+     * @param state   The automaton state of the object
+     * @param counter The counter receiving matched values
      * @throws IOException If an I/O error occurs while processing the JSON object
      */
-    private void processJsonObject(JsonReader reader) throws IOException {
+    private void processJsonObject(JsonReader reader, PathMatcher.State state, ValueCounter counter)
+            throws IOException {
         reader.beginObject();
         while (reader.hasNext()) {
-            String key = reader.nextName();
-            switch (reader.peek()) {
-                case STRING, NUMBER -> {
-                    String value = reader.nextString();
-                    processValue(key, value);
-                }
-                case BEGIN_OBJECT -> processJsonObject(reader);
-                case BEGIN_ARRAY -> processJsonArray(reader, key);
-                default -> reader.skipValue();
-            }
+            processJsonValue(reader, state.key(reader.nextName()), counter);
         }
         reader.endObject();
     }
 
     /**
-     * Processes a JSON array, extracting attribute values and updating counts.
+     * Processes a JSON value, counting strings and numbers matched by the state and skipping values
+     * below which no selector can match.
      *
-     * @param reader    The JsonReader to read JSON arrays
-     * @param parentKey The key of the parent JSON object
-     * @throws IOException If an I/O error occurs while processing the JSON array
+     * @param reader  The JsonReader to read JSON values
+     * @param state   The automaton state of the value
+     * @param counter The counter receiving matched values
+     * @throws IOException If an I/O error occurs while processing the JSON value
      */
-    private void processJsonArray(JsonReader reader, String parentKey) throws IOException {
-        reader.beginArray();
-        while (reader.hasNext()) {
-            switch (reader.peek()) {
-                case STRING, NUMBER -> {
-                    String value = reader.nextString();
-                    processValue(parentKey, value);
+    private void processJsonValue(JsonReader reader, PathMatcher.State state, ValueCounter counter)
+            throws IOException {
+        if (state.isDead()) {
+            reader.skipValue();
+            return;
+        }
+        switch (reader.peek()) {
+            case STRING, NUMBER -> {
+                int[] accepted = state.accepted();
+                if (accepted.length == 0) {
+                    reader.skipValue();
+                    return;
+                }
+                String value = reader.nextString();
+                for (int attribute : accepted) {
+                    processValue(pathMatcher.attributeName(attribute), value, counter);
                 }
-                case BEGIN_OBJECT -> processJsonObject(reader);
-                default -> reader.skipValue();
             }
+            case BEGIN_OBJECT -> processJsonObject(reader, state, counter);
+            case BEGIN_ARRAY -> {
+                PathMatcher.State elementState = state.element();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    processJsonValue(reader, elementState, counter);
+                }
+                reader.endArray();
+            }
+            default -> reader.skipValue();
         }
-        reader.endArray();
     }
 
     /**
      * Processes a JSON attribute value, updating counts if it matches one of the specified attributes.
+     * The value is split at the delimiter of the attribute, and every part is trimmed.
      *
-     * @param key   The attribute key
-     * @param value The attribute value
+     * @param key     The attribute key
+     * @param value   The attribute value
+     * @param counter The counter receiving matched values
      */
-    private void processValue(String key, String value) {
-        if (!attributeNames.contains(key) || value.isEmpty()) {
+    private void processValue(String key, String value, ValueCounter counter) {
+        ValueDelimiter delimiter = attributeDelimiters.get(key);
+        if (delimiter == null || value.isEmpty()) {
             return;
         }
-        String[] arrayOfValues = parseValues(value);
-        for (String valueFromArray : arrayOfValues) {
-            attributeValueCounts.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
-                    .merge(valueFromArray, 1, Integer::sum);
-        }
+        ValueSplitter.split(key, value, delimiter, counter);
     }
 
     /**
-     * Parses a string containing multiple attribute values separated by commas.
+     * Processes an attribute value given as UTF-8 bytes, splitting and trimming it the same way
+     * as {@link #processValue(String, String, ValueCounter)} without decoding it.
      *
-     * @param values The string containing attribute values
-     * @return An array of parsed attribute values
+     * @param key     The attribute key
+     * @param utf8    The array holding the value
+     * @param start   The offset of the first byte of the value
+     * @param length  The number of bytes of the value
+     * @param counter The counter receiving matched values
      */
-    private String[] parseValues(String values){
-        return Arrays.stream(values.split(","))
-                .map(String::trim)
-                .toArray(String[]::new);
+    private void processValue(String key, byte[] utf8, int start, int length, ValueCounter counter) {
+        ValueDelimiter delimiter = attributeDelimiters.get(key);
+        if (delimiter == null || length == 0) {
+            return;
+        }
+        ValueSplitter.split(key, utf8, start, length, delimiter, counter);
     }
-}
 
+    /**
+     * Passes the values matched by the byte parser to {@link #processValue}, keeping unescaped values as bytes.
+     */
+    private final class CountingConsumer implements ByteJsonParser.ValueConsumer {
+        private final ValueCounter counter;
+
+        private CountingConsumer(ValueCounter counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public void accept(String attributeName, String value) {
+            processValue(attributeName, value, counter);
+        }
 
+        @Override
+        public void acceptBytes(String attributeName, byte[] utf8, int start, int length) {
+            processValue(attributeName, utf8, start, length, counter);
+        }
+    }
+
+    /**
+     * The bytes of a file or byte range read ahead of parsing.
+     *
+     * @param bytes      The content
+     * @param startNanos The time reading started
+     */
+    private record FileContent(byte[] bytes, long startNanos) {
+    }
+
+    /**
+     * A file found by the walk with its size, for ordering the files by size.
+     *
+     * @param path The path to the file
+     * @param size The size in bytes
+     */
+    private record SizedFile(Path path, long size) {
+    }
+}
@@ -0,0 +1,151 @@
+package org.example;
+
+import org.example.TopEntriesSelector.TopEntries;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JsonStatisticsSerializer class writes a statistics file as a JSON object whose {@code statistics} array
+ * holds one {@code {"value": ..., "count": ...}} object per value, followed by an {@code others} object
+ * with the number and summed count of the entries omitted by a top N limit, if any.
+ */
+final class JsonStatisticsSerializer implements StatisticsSerializer {
+    static final JsonStatisticsSerializer INSTANCE = new JsonStatisticsSerializer();
+
+    private static final byte[] STATISTICS_START = "{\n  \"statistics\": [".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ITEM_SEPARATOR = {','};
+    private static final byte[] ITEM_START = "\n    {\"value\": \"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VALUE_END_COUNT_START = "\", \"count\": ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR_START = ", \"error\": ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ITEM_END = {'}'};
+    private static final byte[] STATISTICS_END = "\n  ]".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OTHERS_START = ",\n  \"others\": {\"values\": ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OTHERS_COUNT_START = ", \"count\": ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OBJECT_END = "}".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DOCUMENT_END = "\n}\n".getBytes(StandardCharsets.US_ASCII);
+
+    private JsonStatisticsSerializer() {
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public String fileExtension() {
+        return "json";
+    }
+
+    @Override
+    public long writeCounts(Path file, TopEntries sortedData, int bufferSizeBytes) throws IOException {
+        return writeCounts(file, sortedData.entries().iterator(), sortedData.othersValues(), sortedData.othersCount(),
+                bufferSizeBytes);
+    }
+
+    @Override
+    public long writeCounts(Path file, Iterator<Map.Entry<String, Long>> entries, long entryCount,
+                            int bufferSizeBytes) throws IOException {
+        return writeCounts(file, entries, 0, 0, bufferSizeBytes);
+    }
+
+    private static long writeCounts(Path file, Iterator<Map.Entry<String, Long>> entries, long othersValues,
+                                    long othersCount, int bufferSizeBytes) throws IOException {
+        try (StatisticsOutputBuffer output = new StatisticsOutputBuffer(file, bufferSizeBytes)) {
+            output.append(STATISTICS_START);
+            boolean first = true;
+            while (entries.hasNext()) {
+                Map.Entry<String, Long> entry = entries.next();
+                if (!first) {
+                    output.append(ITEM_SEPARATOR);
+                }
+                first = false;
+                output.append(ITEM_START)
+                        .appendUtf8(escape(entry.getKey()))
+                        .append(VALUE_END_COUNT_START)
+                        .append(entry.getValue())
+                        .append(ITEM_END);
+            }
+            output.append(STATISTICS_END);
+            if (othersValues > 0) {
+                output.append(OTHERS_START)
+                        .append(othersValues)
+                        .append(OTHERS_COUNT_START)
+                        .append(othersCount)
+                        .append(OBJECT_END);
+            }
+            output.append(DOCUMENT_END);
+            return output.size();
+        }
+    }
+
+    /**
+     * Writes the estimated counts, every object with an {@code error} member.
+     */
+    @Override
+    public long writeEstimates(Path file, List<EstimatedCount> estimates, int bufferSizeBytes) throws IOException {
+        try (StatisticsOutputBuffer output = new StatisticsOutputBuffer(file, bufferSizeBytes)) {
+            output.append(STATISTICS_START);
+            boolean first = true;
+            for (EstimatedCount estimate : estimates) {
+                if (!first) {
+                    output.append(ITEM_SEPARATOR);
+                }
+                first = false;
+                output.append(ITEM_START)
+                        .appendUtf8(escape(estimate.value()))
+                        .append(VALUE_END_COUNT_START)
+                        .append(estimate.count())
+                        .append(ERROR_START)
+                        .append(estimate.error())
+                        .append(ITEM_END);
+            }
+            output.append(STATISTICS_END).append(DOCUMENT_END);
+            return output.size();
+        }
+    }
+
+    /**
+     * Escapes quotes, backslashes and control characters of a JSON string.
+     *
+     * @param value The value
+     * @return The escaped value, or the value itself if nothing needs escaping
+     */
+    private static String escape(String value) {
+        int i = 0;
+        while (i < value.length() && !needsEscape(value.charAt(i))) {
+            i++;
+        }
+        if (i == value.length()) {
+            return value;
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c == '"' || c == '\\' || c < 0x20;
+    }
+}
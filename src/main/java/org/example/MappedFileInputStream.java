@@ -0,0 +1,100 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An InputStream reading the bytes of a {@link FileRange} from memory-mapped windows of the file.
+ * Reads copy straight from the page cache without system calls. Ranges larger than one window,
+ * such as files beyond the 2 GB limit of a single mapping, are mapped window by window.
+ */
+class MappedFileInputStream extends InputStream {
+    private static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long end;
+    private final long windowSize;
+    private long windowEnd;
+    private MappedByteBuffer window;
+
+    /**
+     * Maps the first window of the range.
+     *
+     * @param range The range to read
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    MappedFileInputStream(FileRange range) throws IOException {
+        this(range, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Maps the first window of the range, using windows of the specified size.
+     *
+     * @param range      The range to read
+     * @param windowSize The maximum number of bytes mapped at a time
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    MappedFileInputStream(FileRange range, long windowSize) throws IOException {
+        this.channel = FileChannel.open(range.file(), StandardOpenOption.READ);
+        this.end = range.end();
+        this.windowSize = windowSize;
+        this.windowEnd = range.start();
+        try {
+            mapNextWindow();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!window.hasRemaining() && !mapNextWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!window.hasRemaining() && !mapNextWindow()) {
+            return -1;
+        }
+        int toRead = Math.min(length, window.remaining());
+        window.get(bytes, offset, toRead);
+        return toRead;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, window.remaining() + (end - windowEnd));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Maps the window following the current one.
+     *
+     * @return false if the range is exhausted
+     * @throws IOException If the window cannot be mapped
+     */
+    private boolean mapNextWindow() throws IOException {
+        if (windowEnd >= end && window != null) {
+            return false;
+        }
+        long start = windowEnd;
+        long size = Math.min(windowSize, end - start);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowEnd = start + size;
+        return size > 0;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+/**
+ * The MeteredValueCounter class counts matched values per attribute in {@link ProcessingMetrics}
+ * before passing them on to another counting backend.
+ */
+class MeteredValueCounter implements ValueCounter {
+    private final ValueCounter delegate;
+    private final ProcessingMetrics metrics;
+
+    /**
+     * Constructs a MeteredValueCounter object wrapping the specified backend.
+     *
+     * @param delegate The counting backend
+     * @param metrics  The metrics receiving matched value counts
+     */
+    MeteredValueCounter(ValueCounter delegate, ProcessingMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void increment(String attributeName, String value) {
+        metrics.recordMatchedValues(attributeName, 1);
+        delegate.increment(attributeName, value);
+    }
+
+    @Override
+    public void add(String attributeName, String value, long count) {
+        metrics.recordMatchedValues(attributeName, count);
+        delegate.add(attributeName, value, count);
+    }
+
+    @Override
+    public void increment(String attributeName, String value, int start, int end) {
+        metrics.recordMatchedValues(attributeName, 1);
+        delegate.increment(attributeName, value, start, end);
+    }
+
+    @Override
+    public void increment(String attributeName, byte[] utf8, int start, int length) {
+        metrics.recordMatchedValues(attributeName, 1);
+        delegate.increment(attributeName, utf8, start, length);
+    }
+
+    @Override
+    public void endTask() {
+        delegate.endTask();
+    }
+
+    @Override
+    public void complete() {
+        delegate.complete();
+    }
+
+    @Override
+    public void complete(String attributeName) {
+        delegate.complete(attributeName);
+    }
+}
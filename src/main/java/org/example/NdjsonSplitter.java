@@ -0,0 +1,65 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * The NdjsonSplitter class cuts a newline-delimited JSON file into byte ranges ending on line boundaries.
+ * Valid JSON never contains a raw newline inside a string, so only the bytes around every cut are read:
+ * a range ends after the first newline at or past its target size.
+ */
+public class NdjsonSplitter implements FileSplitter {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final long chunkSize;
+
+    /**
+     * Constructs an NdjsonSplitter object producing ranges of approximately the specified size.
+     *
+     * @param chunkSize The minimum size in bytes of each range, except the last one
+     */
+    public NdjsonSplitter(long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void split(Path filePath, Consumer<FileRange> rangeConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            long start = 0;
+            while (start < size) {
+                long end = start + chunkSize >= size ? size : findLineEnd(channel, buffer, start + chunkSize - 1, size);
+                rangeConsumer.accept(new FileRange(filePath, start, end));
+                start = end;
+            }
+        }
+    }
+
+    /**
+     * Finds the offset just past the first newline at or after the specified position.
+     *
+     * @return The end of the line, or the file size if no newline follows
+     */
+    private static long findLineEnd(FileChannel channel, ByteBuffer buffer, long from, long size) throws IOException {
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
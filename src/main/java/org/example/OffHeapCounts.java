@@ -0,0 +1,679 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The OffHeapCounts class counts attribute values exactly in direct memory, outside the Java heap.
+ * Every thread has an open-addressing hash table per attribute whose slots point into an arena holding
+ * the UTF-8 bytes and the count of every distinct value, so counting creates no heap objects per value
+ * and the garbage collector never traces the counts.
+ *
+ * <p>All tables share a memory limit, of which every shard may use an equal share, but at least
+ * {@value #MIN_SHARE_BYTES} bytes. When a table cannot grow within the share of its shard, the shard spills all
+ * its tables to disk as runs sorted by value and starts over with small tables, so every run holds a good part
+ * of a share rather than a few values. The limit can be exceeded briefly when a new shard lowers the share,
+ * until the shards above the new share spill at their next growth.
+ *
+ * <p>{@link #stream(String)} merges the runs and the tables of an attribute with a k-way merge and passes
+ * the counts on one value at a time, so a statistics file is written without holding the counts on the heap.
+ * {@link #complete(String)} adds the merged counts to the map of attribute value counts instead, for callers
+ * that need the map.
+ */
+class OffHeapCounts implements ValueCounter {
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int INITIAL_ARENA_BYTES = 16 * 1024;
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_MERGE_FAN_IN = 64;
+    private static final long MIN_SHARE_BYTES = 64 * 1024;
+
+    private final Map<String, Map<String, Long>> attributeValueCounts;
+    private final long memoryLimitBytes;
+    private final Path spillDirectory;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicInteger spilledRuns = new AtomicInteger();
+    private final Map<String, Queue<Path>> runs = new ConcurrentHashMap<>();
+    private final ShardPool<Shard> shards = new ShardPool<>(Shard::new);
+
+    /**
+     * Constructs an OffHeapCounts object merging its counts into the specified map.
+     *
+     * @param attributeValueCounts The map to store counts of attribute values
+     * @param memoryLimitBytes     The direct memory all tables may use together before they are spilled
+     * @param spillDirectory       The directory of the spilled runs, or null for the temporary directory
+     */
+    OffHeapCounts(Map<String, Map<String, Long>> attributeValueCounts, long memoryLimitBytes, Path spillDirectory) {
+        this.attributeValueCounts = attributeValueCounts;
+        this.memoryLimitBytes = memoryLimitBytes;
+        this.spillDirectory = spillDirectory != null ? spillDirectory : Path.of(System.getProperty("java.io.tmpdir"));
+    }
+
+    @Override
+    public void increment(String attributeName, String value) {
+        add(attributeName, value, 1);
+    }
+
+    @Override
+    public void add(String attributeName, String value, long count) {
+        Shard shard = shards.get();
+        int length = shard.encode(value, 0, value.length());
+        shard.add(attributeName, shard.scratch, 0, length, count);
+    }
+
+    @Override
+    public void increment(String attributeName, String value, int start, int end) {
+        Shard shard = shards.get();
+        int length = shard.encode(value, start, end);
+        shard.add(attributeName, shard.scratch, 0, length, 1);
+    }
+
+    @Override
+    public void increment(String attributeName, byte[] utf8, int start, int length) {
+        shards.get().add(attributeName, utf8, start, length, 1);
+    }
+
+    @Override
+    public void endTask() {
+        shards.release();
+    }
+
+    /**
+     * Merges the counts of all attributes into the map of attribute value counts.
+     * Must only be called when no thread is counting into this object.
+     */
+    @Override
+    public void complete() {
+        List<String> attributeNames = new ArrayList<>(runs.keySet());
+        for (Shard shard : shards) {
+            attributeNames.addAll(shard.tables.keySet());
+        }
+        attributeNames.stream().distinct().forEach(this::complete);
+    }
+
+    /**
+     * Streams the merged counts of one attribute from the runs and tables, decoding one value at a time.
+     * Consuming the stream deletes the runs and releases the tables, like {@link #complete(String)}.
+     *
+     * @param attributeName The attribute name
+     * @return The stream of the counts, in the unsigned byte order of the values
+     */
+    CountStream stream(String attributeName) {
+        return consumer -> mergeSorted(attributeName, (utf8, length, count) ->
+                consumer.accept(new String(utf8, 0, length, StandardCharsets.UTF_8), count));
+    }
+
+    /**
+     * Merges the runs and tables of one attribute into the map of attribute value counts, then deletes the runs
+     * and releases the tables. Attributes may be completed concurrently.
+     *
+     * @param attributeName The attribute name
+     * @throws UncheckedIOException If a run cannot be read
+     */
+    @Override
+    public void complete(String attributeName) {
+        Map<String, Long> targetCounts = attributeValueCounts.computeIfAbsent(attributeName,
+                k -> new ConcurrentHashMap<>());
+        try {
+            mergeSorted(attributeName, (utf8, length, count) ->
+                    targetCounts.merge(new String(utf8, 0, length, StandardCharsets.UTF_8), count, Long::sum));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot merge spilled counts of " + attributeName + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retrieves the direct memory currently reserved by the tables.
+     *
+     * @return The reserved bytes
+     */
+    long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    /**
+     * Retrieves the number of runs spilled so far, not counting runs written by intermediate merges.
+     *
+     * @return The number of spilled runs
+     */
+    int getSpilledRunCount() {
+        return spilledRuns.get();
+    }
+
+    /**
+     * Merges the runs and tables of one attribute and passes every distinct value with its total count
+     * to the consumer, in the unsigned byte order of the values. The runs are deleted and the tables released.
+     * If there are more runs than can be opened at once, groups of runs are first merged into longer runs.
+     *
+     * @param attributeName The attribute name
+     * @param consumer      The consumer receiving the merged counts
+     * @throws IOException If a run cannot be read
+     */
+    void mergeSorted(String attributeName, SortedCountConsumer consumer) throws IOException {
+        List<Path> runFiles = new ArrayList<>();
+        Queue<Path> attributeRuns = runs.remove(attributeName);
+        if (attributeRuns != null) {
+            runFiles.addAll(attributeRuns);
+        }
+        try {
+            while (runFiles.size() > MAX_MERGE_FAN_IN) {
+                List<Path> group = new ArrayList<>(runFiles.subList(0, MAX_MERGE_FAN_IN));
+                runFiles.subList(0, MAX_MERGE_FAN_IN).clear();
+                runFiles.add(mergeRuns(group));
+            }
+            List<Cursor> cursors = new ArrayList<>();
+            for (Path runFile : runFiles) {
+                cursors.add(new RunCursor(runFile));
+            }
+            for (Shard shard : shards) {
+                Table table = shard.tables.get(attributeName);
+                if (table != null && table.size > 0) {
+                    cursors.add(new TableCursor(table));
+                }
+            }
+            merge(cursors, consumer);
+        } finally {
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+            for (Shard shard : shards) {
+                Table table = shard.tables.get(attributeName);
+                if (table != null) {
+                    table.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges runs into a new run and deletes them.
+     *
+     * @param runFiles The runs
+     * @return The merged run
+     */
+    private Path mergeRuns(List<Path> runFiles) throws IOException {
+        Path mergedFile = Files.createTempFile(spillDirectory, "counts-", ".run");
+        try {
+            List<Cursor> cursors = new ArrayList<>();
+            for (Path runFile : runFiles) {
+                cursors.add(new RunCursor(runFile));
+            }
+            try (RunWriter writer = new RunWriter(mergedFile)) {
+                merge(cursors, writer::write);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(mergedFile);
+            throw e;
+        } finally {
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+        }
+        return mergedFile;
+    }
+
+    /**
+     * Merges sorted cursors with a k-way merge, summing the counts of equal values, and closes them.
+     */
+    private static void merge(List<Cursor> cursors, SortedCountConsumer consumer) throws IOException {
+        try {
+            PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(cursors.size(), 1),
+                    (a, b) -> Arrays.compareUnsigned(a.value, 0, a.length, b.value, 0, b.length));
+            for (Cursor cursor : cursors) {
+                if (cursor.next()) {
+                    queue.add(cursor);
+                }
+            }
+            byte[] value = new byte[64];
+            while (!queue.isEmpty()) {
+                Cursor smallest = queue.poll();
+                int length = smallest.length;
+                if (value.length < length) {
+                    value = new byte[Math.max(length, value.length * 2)];
+                }
+                System.arraycopy(smallest.value, 0, value, 0, length);
+                long count = smallest.count;
+                advance(smallest, queue);
+                while (!queue.isEmpty()
+                        && Arrays.equals(queue.peek().value, 0, queue.peek().length, value, 0, length)) {
+                    Cursor equal = queue.poll();
+                    count += equal.count;
+                    advance(equal, queue);
+                }
+                consumer.accept(value, length, count);
+            }
+        } finally {
+            for (Cursor cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    private static void advance(Cursor cursor, PriorityQueue<Cursor> queue) throws IOException {
+        if (cursor.next()) {
+            queue.add(cursor);
+        } else {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Reserves direct memory for a table of a shard within the share of the shard.
+     *
+     * @param shard The shard of the table
+     * @param bytes The number of bytes
+     * @param force true to reserve the memory even beyond the share
+     * @return true if the memory is reserved
+     */
+    private boolean reserve(Shard shard, long bytes, boolean force) {
+        long share = Math.max(memoryLimitBytes / Math.max(shards.size(), 1), MIN_SHARE_BYTES);
+        if (!force && shard.reservedBytes + bytes > share) {
+            return false;
+        }
+        shard.reservedBytes += bytes;
+        reservedBytes.addAndGet(bytes);
+        return true;
+    }
+
+    /**
+     * Returns direct memory of a table of a shard to the limit.
+     *
+     * @param shard The shard of the table
+     * @param bytes The number of bytes
+     */
+    private void unreserve(Shard shard, long bytes) {
+        shard.reservedBytes -= bytes;
+        reservedBytes.addAndGet(-bytes);
+    }
+
+    /**
+     * Receives merged counts in the order of their values.
+     */
+    @FunctionalInterface
+    interface SortedCountConsumer {
+
+        /**
+         * Accepts a distinct value with its total count.
+         *
+         * @param utf8   The array holding the UTF-8 encoded value, only valid during the call
+         * @param length The number of bytes of the value
+         * @param count  The total count
+         * @throws IOException If the counts cannot be consumed
+         */
+        void accept(byte[] utf8, int length, long count) throws IOException;
+    }
+
+    /**
+     * The tables of one task at a time.
+     */
+    private final class Shard {
+        private final Map<String, Table> tables = new HashMap<>();
+        private byte[] scratch = new byte[64];
+        private long reservedBytes;
+
+        private void add(String attributeName, byte[] bytes, int start, int length, long count) {
+            Table table = tables.get(attributeName);
+            if (table == null) {
+                table = new Table(this);
+                tables.put(attributeName, table);
+            }
+            if (!table.add(bytes, start, length, count, false)) {
+                spill();
+                table.add(bytes, start, length, count, true);
+            }
+        }
+
+        /**
+         * Writes every table of this shard as a sorted run and shrinks the tables to their initial size.
+         */
+        private void spill() {
+            for (Map.Entry<String, Table> entry : tables.entrySet()) {
+                Table table = entry.getValue();
+                if (table.size > 0) {
+                    try {
+                        runs.computeIfAbsent(entry.getKey(), k -> new ConcurrentLinkedQueue<>())
+                                .add(table.writeRun());
+                        spilledRuns.incrementAndGet();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot spill counts of " + entry.getKey() + ": "
+                                + e.getMessage(), e);
+                    }
+                }
+                table.release();
+            }
+        }
+
+        private int encode(String value, int start, int end) {
+            if (scratch.length < (end - start) * 3) {
+                scratch = new byte[(end - start) * 3];
+            }
+            return ValueDictionary.encode(value, start, end, scratch);
+        }
+    }
+
+    /**
+     * An open-addressing hash table in direct memory. Every slot holds the arena offset of a record plus one,
+     * or 0 if it is empty; a record holds the hash, the length and the count of a value, followed by its bytes.
+     */
+    private final class Table {
+        private final Shard shard;
+        private ByteBuffer slots;
+        private ByteBuffer arena;
+        private int slotMask;
+        private int arenaPosition;
+        private int size;
+        private long reserved;
+
+        private Table(Shard shard) {
+            this.shard = shard;
+        }
+
+        private boolean add(byte[] bytes, int start, int length, long count, boolean force) {
+            if (slots == null && !allocate(INITIAL_SLOTS, Math.max(INITIAL_ARENA_BYTES, RECORD_HEADER_BYTES + length),
+                    force)) {
+                return false;
+            }
+            int hash = ValueDictionary.hash(bytes, start, length);
+            int slot = hash & slotMask;
+            for (long reference = slots.getLong(slot * Long.BYTES); reference != 0;
+                 reference = slots.getLong(slot * Long.BYTES)) {
+                int offset = (int) (reference - 1);
+                if (arena.getInt(offset) == hash && arena.getInt(offset + Integer.BYTES) == length
+                        && equalBytes(offset + RECORD_HEADER_BYTES, bytes, start, length)) {
+                    int countOffset = offset + 2 * Integer.BYTES;
+                    arena.putLong(countOffset, arena.getLong(countOffset) + count);
+                    return true;
+                }
+                slot = (slot + 1) & slotMask;
+            }
+            if ((size + 1) * 4L > (slotMask + 1) * 3L) {
+                if (!growSlots(force)) {
+                    return false;
+                }
+                return add(bytes, start, length, count, force);
+            }
+            if (arenaPosition + RECORD_HEADER_BYTES + length > arena.capacity() && !growArena(length, force)) {
+                return false;
+            }
+            int offset = arenaPosition;
+            arena.putInt(offset, hash);
+            arena.putInt(offset + Integer.BYTES, length);
+            arena.putLong(offset + 2 * Integer.BYTES, count);
+            arena.put(offset + RECORD_HEADER_BYTES, bytes, start, length);
+            arenaPosition += RECORD_HEADER_BYTES + length;
+            slots.putLong(slot * Long.BYTES, offset + 1L);
+            size++;
+            return true;
+        }
+
+        private boolean equalBytes(int offset, byte[] bytes, int start, int length) {
+            for (int i = 0; i < length; i++) {
+                if (arena.get(offset + i) != bytes[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean allocate(int slotCount, int arenaBytes, boolean force) {
+            if (!reserve(shard, (long) slotCount * Long.BYTES + arenaBytes, force)) {
+                return false;
+            }
+            slots = ByteBuffer.allocateDirect(slotCount * Long.BYTES);
+            arena = ByteBuffer.allocateDirect(arenaBytes);
+            slotMask = slotCount - 1;
+            reserved = (long) slotCount * Long.BYTES + arenaBytes;
+            return true;
+        }
+
+        private boolean growSlots(boolean force) {
+            int slotCount = (slotMask + 1) * 2;
+            if (slotCount > Integer.MAX_VALUE / Long.BYTES || !reserve(shard, (long) slotCount * Long.BYTES, force)) {
+                return false;
+            }
+            ByteBuffer newSlots = ByteBuffer.allocateDirect(slotCount * Long.BYTES);
+            int newMask = slotCount - 1;
+            for (int i = 0; i <= slotMask; i++) {
+                long reference = slots.getLong(i * Long.BYTES);
+                if (reference != 0) {
+                    int slot = arena.getInt((int) (reference - 1)) & newMask;
+                    while (newSlots.getLong(slot * Long.BYTES) != 0) {
+                        slot = (slot + 1) & newMask;
+                    }
+                    newSlots.putLong(slot * Long.BYTES, reference);
+                }
+            }
+            unreserve(shard, (long) (slotMask + 1) * Long.BYTES);
+            reserved += (long) slotCount * Long.BYTES - (long) (slotMask + 1) * Long.BYTES;
+            slots = newSlots;
+            slotMask = newMask;
+            return true;
+        }
+
+        private boolean growArena(int length, boolean force) {
+            long needed = (long) arenaPosition + RECORD_HEADER_BYTES + length;
+            long capacity = Math.max(needed, Math.min(arena.capacity() * 2L, Integer.MAX_VALUE - 8));
+            if (needed > Integer.MAX_VALUE - 8 || !reserve(shard, capacity, force)) {
+                return false;
+            }
+            ByteBuffer newArena = ByteBuffer.allocateDirect((int) capacity);
+            newArena.put(0, arena, 0, arenaPosition);
+            unreserve(shard, arena.capacity());
+            reserved += capacity - arena.capacity();
+            arena = newArena;
+            return true;
+        }
+
+        /**
+         * Writes the records ordered by the unsigned bytes of their values to a new run file.
+         *
+         * @return The run file
+         */
+        private Path writeRun() throws IOException {
+            int[] offsets = sortedOffsets();
+            Files.createDirectories(spillDirectory);
+            Path runFile = Files.createTempFile(spillDirectory, "counts-", ".run");
+            try (RunWriter writer = new RunWriter(runFile)) {
+                byte[] value = new byte[64];
+                for (int offset : offsets) {
+                    int length = arena.getInt(offset + Integer.BYTES);
+                    if (value.length < length) {
+                        value = new byte[Math.max(length, value.length * 2)];
+                    }
+                    arena.get(offset + RECORD_HEADER_BYTES, value, 0, length);
+                    writer.write(value, length, arena.getLong(offset + 2 * Integer.BYTES));
+                }
+            } catch (IOException e) {
+                Files.deleteIfExists(runFile);
+                throw e;
+            }
+            return runFile;
+        }
+
+        /**
+         * Sorts the arena offsets of all records by the unsigned bytes of their values with a bottom-up merge sort.
+         */
+        private int[] sortedOffsets() {
+            int[] offsets = new int[size];
+            for (int i = 0, offset = 0; i < size; i++) {
+                offsets[i] = offset;
+                offset += RECORD_HEADER_BYTES + arena.getInt(offset + Integer.BYTES);
+            }
+            int[] buffer = new int[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int low = 0; low < size; low += 2 * width) {
+                    int middle = Math.min(low + width, size);
+                    int high = Math.min(low + 2 * width, size);
+                    int left = low;
+                    int right = middle;
+                    for (int i = low; i < high; i++) {
+                        if (left < middle && (right >= high || compare(offsets[left], offsets[right]) <= 0)) {
+                            buffer[i] = offsets[left++];
+                        } else {
+                            buffer[i] = offsets[right++];
+                        }
+                    }
+                }
+                int[] swap = offsets;
+                offsets = buffer;
+                buffer = swap;
+            }
+            return offsets;
+        }
+
+        private int compare(int first, int second) {
+            int firstLength = arena.getInt(first + Integer.BYTES);
+            int secondLength = arena.getInt(second + Integer.BYTES);
+            for (int i = 0; i < Math.min(firstLength, secondLength); i++) {
+                int comparison = Byte.compareUnsigned(arena.get(first + RECORD_HEADER_BYTES + i),
+                        arena.get(second + RECORD_HEADER_BYTES + i));
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return Integer.compare(firstLength, secondLength);
+        }
+
+        /**
+         * Drops the records and returns the memory of the table to the limit; the table is allocated again
+         * by the next value.
+         */
+        private void release() {
+            unreserve(shard, reserved);
+            reserved = 0;
+            slots = null;
+            arena = null;
+            slotMask = 0;
+            arenaPosition = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * Writes a run: every value with its count, followed by an empty value marking the end.
+     */
+    private static final class RunWriter implements Closeable {
+        private final DataOutputStream out;
+
+        private RunWriter(Path runFile) throws IOException {
+            this.out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(runFile), STREAM_BUFFER_SIZE));
+        }
+
+        private void write(byte[] value, int length, long count) throws IOException {
+            out.writeInt(length);
+            out.write(value, 0, length);
+            out.writeLong(count);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.writeInt(-1);
+            out.close();
+        }
+    }
+
+    /**
+     * A source of merged counts ordered by value: a run file or a table.
+     */
+    private abstract static class Cursor {
+        byte[] value = new byte[64];
+        int length;
+        long count;
+
+        /**
+         * Advances to the next value.
+         *
+         * @return false if there are no more values
+         */
+        abstract boolean next() throws IOException;
+
+        void close() throws IOException {
+        }
+
+        void ensureCapacity(int length) {
+            if (value.length < length) {
+                value = new byte[Math.max(length, value.length * 2)];
+            }
+        }
+    }
+
+    /**
+     * Reads a run; the file is opened by the first call of {@link #next()}, so any number of cursors can be created
+     * before they are merged.
+     */
+    private static final class RunCursor extends Cursor {
+        private final Path runFile;
+        private DataInputStream in;
+
+        private RunCursor(Path runFile) {
+            this.runFile = runFile;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (in == null) {
+                in = new DataInputStream(new BufferedInputStream(Files.newInputStream(runFile), STREAM_BUFFER_SIZE));
+            }
+            length = in.readInt();
+            if (length < 0) {
+                return false;
+            }
+            ensureCapacity(length);
+            in.readFully(value, 0, length);
+            count = in.readLong();
+            return true;
+        }
+
+        @Override
+        void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    private static final class TableCursor extends Cursor {
+        private final ByteBuffer arena;
+        private final int[] offsets;
+        private int index;
+
+        private TableCursor(Table table) {
+            this.arena = table.arena;
+            this.offsets = table.sortedOffsets();
+        }
+
+        @Override
+        boolean next() {
+            if (index == offsets.length) {
+                return false;
+            }
+            int offset = offsets[index++];
+            length = arena.getInt(offset + Integer.BYTES);
+            ensureCapacity(length);
+            arena.get(offset + RECORD_HEADER_BYTES, value, 0, length);
+            count = arena.getLong(offset + 2 * Integer.BYTES);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The OutputOptions class holds the tuning settings used by {@link XMLWriter}.
+ * Instances are immutable; every {@code with...} method returns a modified copy.
+ */
+public final class OutputOptions {
+    private static final int DEFAULT_BUFFER_SIZE_BYTES = 1024 * 1024;
+    private static final int MIN_BUFFER_SIZE_BYTES = 32;
+    private static final int DEFAULT_SORT_CHUNK_ENTRIES = 1_000_000;
+
+    private int bufferSizeBytes = DEFAULT_BUFFER_SIZE_BYTES;
+    private int topN;
+    private ProcessingMetrics metrics;
+    private Path outputDirectory = Path.of("");
+    private StatisticsSerializer serializer = StatisticsSerializer.xml();
+    private int sortChunkEntries = DEFAULT_SORT_CHUNK_ENTRIES;
+    private Path spillDirectory;
+
+    private OutputOptions() {
+    }
+
+    private OutputOptions(OutputOptions other) {
+        this.bufferSizeBytes = other.bufferSizeBytes;
+        this.topN = other.topN;
+        this.metrics = other.metrics;
+        this.outputDirectory = other.outputDirectory;
+        this.serializer = other.serializer;
+        this.sortChunkEntries = other.sortChunkEntries;
+        this.spillDirectory = other.spillDirectory;
+    }
+
+    /**
+     * Creates options with the default settings.
+     *
+     * @return The default output options
+     */
+    public static OutputOptions defaults() {
+        return new OutputOptions();
+    }
+
+    /**
+     * Retrieves the size of the output buffer of every statistics file.
+     *
+     * @return The buffer size in bytes
+     */
+    public int getBufferSizeBytes() {
+        return bufferSizeBytes;
+    }
+
+    /**
+     * Retrieves the maximum number of entries written per attribute.
+     *
+     * @return The number of entries with the highest counts to write, or 0 to write all entries
+     */
+    public int getTopN() {
+        return topN;
+    }
+
+    /**
+     * Retrieves the metrics recording the write stage.
+     *
+     * @return The metrics, or null if metrics are disabled
+     */
+    public ProcessingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retrieves the directory the statistics files are written to.
+     *
+     * @return The output directory; the empty path denotes the current working directory
+     */
+    public Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * Retrieves the serializer writing the statistics files.
+     *
+     * @return The serializer, XML by default
+     */
+    public StatisticsSerializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Retrieves the number of entries sorted in memory at once. Attributes with more distinct values are sorted
+     * by an external merge sort that spills sorted chunks to disk, unless only the top N entries are written.
+     *
+     * @return The number of entries per chunk
+     */
+    public int getSortChunkEntries() {
+        return sortChunkEntries;
+    }
+
+    /**
+     * Retrieves the directory the sorted chunks of the external merge sort are spilled to.
+     *
+     * @return The spill directory, or null for the temporary directory
+     */
+    public Path getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Returns a copy of these options with the given output buffer size.
+     *
+     * @param bufferSizeBytes The size in bytes of the output buffer of every statistics file
+     * @return The modified copy
+     */
+    public OutputOptions withBufferSizeBytes(int bufferSizeBytes) {
+        if (bufferSizeBytes < MIN_BUFFER_SIZE_BYTES) {
+            throw new IllegalArgumentException("Buffer size must be at least " + MIN_BUFFER_SIZE_BYTES + " bytes.");
+        }
+        OutputOptions copy = new OutputOptions(this);
+        copy.bufferSizeBytes = bufferSizeBytes;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options writing only the entries with the highest counts per attribute.
+     *
+     * @param topN The number of entries to write, or 0 to write all entries
+     * @return The modified copy
+     */
+    public OutputOptions withTopN(int topN) {
+        if (topN < 0) {
+            throw new IllegalArgumentException("Top N must not be negative.");
+        }
+        OutputOptions copy = new OutputOptions(this);
+        copy.topN = topN;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options recording the write stage in the given metrics.
+     *
+     * @param metrics The metrics, or null to disable metrics
+     * @return The modified copy
+     */
+    public OutputOptions withMetrics(ProcessingMetrics metrics) {
+        OutputOptions copy = new OutputOptions(this);
+        copy.metrics = metrics;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options writing the statistics files to the given directory.
+     * The directory is created if it does not exist.
+     *
+     * @param outputDirectory The output directory
+     * @return The modified copy
+     */
+    public OutputOptions withOutputDirectory(Path outputDirectory) {
+        OutputOptions copy = new OutputOptions(this);
+        copy.outputDirectory = outputDirectory;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options writing the statistics files with the given serializer.
+     *
+     * @param serializer The serializer, for example one returned by {@link StatisticsSerializer#forName(String)}
+     * @return The modified copy
+     */
+    public OutputOptions withSerializer(StatisticsSerializer serializer) {
+        OutputOptions copy = new OutputOptions(this);
+        copy.serializer = Objects.requireNonNull(serializer);
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options sorting at most the given number of entries in memory at once.
+     * Use {@link Integer#MAX_VALUE} to always sort in memory.
+     *
+     * @param sortChunkEntries The number of entries per sorted chunk
+     * @return The modified copy
+     */
+    public OutputOptions withSortChunkEntries(int sortChunkEntries) {
+        if (sortChunkEntries <= 0) {
+            throw new IllegalArgumentException("Sort chunk size must be positive.");
+        }
+        OutputOptions copy = new OutputOptions(this);
+        copy.sortChunkEntries = sortChunkEntries;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options spilling the sorted chunks of the external merge sort to the given directory.
+     * The directory is created if it does not exist.
+     *
+     * @param spillDirectory The spill directory, or null for the temporary directory
+     * @return The modified copy
+     */
+    public OutputOptions withSpillDirectory(Path spillDirectory) {
+        OutputOptions copy = new OutputOptions(this);
+        copy.spillDirectory = spillDirectory;
+        return copy;
+    }
+}
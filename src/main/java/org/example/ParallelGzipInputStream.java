@@ -0,0 +1,217 @@
+package org.example;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * An InputStream decompressing a BGZF file, a gzip file made of independent members of at most 64 KiB
+ * whose headers record their compressed size. The compressed blocks are read sequentially, inflated
+ * in parallel on an executor, and returned in order.
+ *
+ * <p>A block that no executor thread has started yet is inflated by the reading thread itself,
+ * so the stream makes progress even when every executor thread is busy.
+ */
+class ParallelGzipInputStream extends InputStream {
+    private static final byte[] EMPTY = new byte[0];
+    private static final int FIXED_HEADER_SIZE = 12;
+    private static final int TRAILER_SIZE = 8;
+    private static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+    private final Executor executor;
+    private final int maxPendingBlocks;
+    private final Queue<FutureTask<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private boolean inputExhausted;
+    private byte[] block = EMPTY;
+    private int position;
+
+    /**
+     * Constructs a ParallelGzipInputStream object reading blocks ahead of the consumer.
+     *
+     * @param inputStream      The compressed BGZF content
+     * @param executor         The executor inflating blocks
+     * @param maxPendingBlocks The maximum number of blocks read ahead
+     */
+    ParallelGzipInputStream(InputStream inputStream, Executor executor, int maxPendingBlocks) {
+        this.inputStream = inputStream;
+        this.executor = executor;
+        this.maxPendingBlocks = maxPendingBlocks;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == block.length && !nextBlock()) {
+            return -1;
+        }
+        return block[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (position == block.length && !nextBlock()) {
+            return -1;
+        }
+        int toRead = Math.min(length, block.length - position);
+        System.arraycopy(block, position, bytes, offset, toRead);
+        position += toRead;
+        return toRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pendingBlocks.forEach(task -> task.cancel(false));
+        pendingBlocks.clear();
+        inputStream.close();
+    }
+
+    /**
+     * Moves to the next non-empty inflated block.
+     *
+     * @return false at the end of the input
+     * @throws IOException If a block is malformed or cannot be read
+     */
+    private boolean nextBlock() throws IOException {
+        do {
+            readAhead();
+            FutureTask<byte[]> task = pendingBlocks.poll();
+            if (task == null) {
+                return false;
+            }
+            task.run();
+            block = await(task);
+            position = 0;
+        } while (block.length == 0);
+        readAhead();
+        return true;
+    }
+
+    /**
+     * Reads compressed blocks and submits them for inflation until the read-ahead limit is reached.
+     */
+    private void readAhead() throws IOException {
+        while (!inputExhausted && pendingBlocks.size() < maxPendingBlocks) {
+            byte[] compressed = readCompressedBlock();
+            if (compressed == null) {
+                inputExhausted = true;
+                return;
+            }
+            FutureTask<byte[]> task = new FutureTask<>(() -> inflate(compressed));
+            pendingBlocks.add(task);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // The reading thread inflates the block when it gets to it.
+            }
+        }
+    }
+
+    /**
+     * Reads the next gzip member: its header, its deflate data and its trailer.
+     *
+     * @return The deflate data followed by the trailer, or null at the end of the input
+     */
+    private byte[] readCompressedBlock() throws IOException {
+        byte[] header = inputStream.readNBytes(FIXED_HEADER_SIZE);
+        if (header.length == 0) {
+            return null;
+        }
+        if (header.length < FIXED_HEADER_SIZE) {
+            throw new EOFException("Unexpected end of BGZF file.");
+        }
+        if (header[0] != (byte) 0x1F || header[1] != (byte) 0x8B || header[2] != 8 || (header[3] & 0x04) == 0) {
+            throw new IOException("Not a BGZF block: every gzip member must have a BC extra field.");
+        }
+        int extraLength = unsignedShort(header, 10);
+        byte[] extra = readFully(extraLength);
+        int blockSize = -1;
+        for (int i = 0; i + 4 <= extraLength; i += 4 + unsignedShort(extra, i + 2)) {
+            if (extra[i] == 'B' && extra[i + 1] == 'C' && unsignedShort(extra, i + 2) == 2 && i + 6 <= extraLength) {
+                blockSize = unsignedShort(extra, i + 4) + 1;
+            }
+        }
+        int dataLength = blockSize - FIXED_HEADER_SIZE - extraLength;
+        if (blockSize < 0 || dataLength < TRAILER_SIZE) {
+            throw new IOException("Not a BGZF block: every gzip member must have a BC extra field.");
+        }
+        return readFully(dataLength);
+    }
+
+    /**
+     * Inflates the deflate data of a block and checks it against the CRC-32 and size of its trailer.
+     */
+    private static byte[] inflate(byte[] compressed) throws IOException {
+        int trailer = compressed.length - TRAILER_SIZE;
+        long declaredSize = unsignedInt(compressed, trailer + 4);
+        if (declaredSize > MAX_BLOCK_SIZE) {
+            throw new IOException("Corrupt BGZF block: size exceeds 64 KiB.");
+        }
+        int size = (int) declaredSize;
+        byte[] inflated = new byte[size];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed, 0, trailer);
+            int inflatedLength = 0;
+            while (inflatedLength < size && !inflater.finished()) {
+                int count = inflater.inflate(inflated, inflatedLength, size - inflatedLength);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflatedLength += count;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(inflated, 0, inflatedLength);
+            if (inflatedLength != size || crc.getValue() != unsignedInt(compressed, trailer)) {
+                throw new IOException("Corrupt BGZF block: checksum or size mismatch.");
+            }
+            return inflated;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt BGZF block: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] await(FutureTask<byte[]> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while inflating a BGZF block.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private byte[] readFully(int length) throws IOException {
+        byte[] bytes = inputStream.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException("Unexpected end of BGZF file.");
+        }
+        return bytes;
+    }
+
+    private static int unsignedShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static long unsignedInt(byte[] bytes, int offset) {
+        return (unsignedShort(bytes, offset) | (long) unsignedShort(bytes, offset + 2) << 16);
+    }
+}
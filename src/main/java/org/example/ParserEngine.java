@@ -0,0 +1,16 @@
+package org.example;
+
+/**
+ * The ParserEngine enum defines how {@link JsonProcessor} reads JSON files.
+ */
+public enum ParserEngine {
+    /**
+     * Gson's streaming JsonReader decodes every key and value into a String.
+     */
+    GSON,
+
+    /**
+     * {@link ByteJsonParser} scans the raw UTF-8 bytes and only decodes the values of requested attributes.
+     */
+    BYTES
+}
@@ -0,0 +1,318 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+
+/**
+ * The PartialCounts class writes and merges partial-counts files. A partial-counts file holds the exact
+ * attribute value counts of one shard of the input files, so shards counted by separate processes or machines
+ * can be combined into the final statistics.
+ *
+ * <p>A file starts with a magic number and the format version, the counting key of the run, the shard index
+ * and the number of shards, and the attribute names ordered by name. Then follows every attribute with its number
+ * of values and its values and counts, ordered by value, so any number of files is merged by a k-way merge
+ * that reads every file once from start to end. Strings are stored as length-prefixed UTF-8.
+ */
+public final class PartialCounts {
+    private static final int MAGIC = 0x4A325043;
+    private static final short VERSION = 1;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    private PartialCounts() {
+    }
+
+    /**
+     * Writes the counts of one shard to a partial-counts file, replacing it atomically if it exists.
+     *
+     * @param file           The partial-counts file
+     * @param countingKey    The description of the settings that affect the counts, such as the attribute names
+     * @param shardIndex     The index of the counted shard
+     * @param shardCount     The number of shards
+     * @param attributeNames The counted attribute names; attributes without counts are written without values
+     * @param counts         The map of attribute names to their value counts
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(Path file, String countingKey, int shardIndex, int shardCount,
+                             List<String> attributeNames, Map<String, Map<String, Long>> counts) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile), STREAM_BUFFER_SIZE))) {
+                List<String> sortedNames = List.copyOf(new TreeSet<>(attributeNames));
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                writeString(out, countingKey);
+                out.writeInt(shardIndex);
+                out.writeInt(shardCount);
+                out.writeInt(sortedNames.size());
+                for (String attributeName : sortedNames) {
+                    writeString(out, attributeName);
+                }
+                for (String attributeName : sortedNames) {
+                    List<Map.Entry<String, Long>> entries = new ArrayList<>(
+                            counts.getOrDefault(attributeName, Map.of()).entrySet());
+                    entries.sort(Map.Entry.comparingByKey());
+                    out.writeLong(entries.size());
+                    for (Map.Entry<String, Long> entry : entries) {
+                        writeString(out, entry.getKey());
+                        out.writeLong(entry.getValue());
+                    }
+                }
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Opens partial-counts files for merging and checks that they were counted with the same settings
+     * and that no shard occurs twice.
+     *
+     * @param files The partial-counts files
+     * @return The merger, which must be closed
+     * @throws IOException If a file cannot be read, is not a partial-counts file or does not match the others
+     */
+    public static Merger open(List<Path> files) throws IOException {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No partial counts to merge.");
+        }
+        List<Partial> partials = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                partials.add(new Partial(file));
+            }
+            Partial first = partials.get(0);
+            BitSet shards = new BitSet();
+            for (Partial partial : partials) {
+                if (!partial.countingKey.equals(first.countingKey) || partial.shardCount != first.shardCount
+                        || !partial.attributeNames.equals(first.attributeNames)) {
+                    throw new IOException("Partial counts " + partial.file + " were counted with other settings than "
+                            + first.file + ".");
+                }
+                if (shards.get(partial.shardIndex)) {
+                    throw new IOException("Shard " + partial.shardIndex + "/" + partial.shardCount
+                            + " occurs more than once, in " + partial.file + ".");
+                }
+                shards.set(partial.shardIndex);
+            }
+            return new Merger(partials, shards);
+        } catch (IOException | RuntimeException e) {
+            for (Partial partial : partials) {
+                partial.close();
+            }
+            throw e;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new EOFException("Negative string length: " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Unexpected end of partial counts.");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Merges opened partial-counts files attribute by attribute.
+     */
+    public static final class Merger implements Closeable {
+        private final List<Partial> partials;
+        private final BitSet shards;
+
+        private Merger(List<Partial> partials, BitSet shards) {
+            this.partials = partials;
+            this.shards = shards;
+        }
+
+        /**
+         * Retrieves the attribute names of the partial counts.
+         *
+         * @return The attribute names, ordered by name
+         */
+        public List<String> getAttributeNames() {
+            return partials.get(0).attributeNames;
+        }
+
+        /**
+         * Retrieves the shards for which no partial counts are merged.
+         *
+         * @return The indexes of the missing shards; empty if the partial counts cover all input files
+         */
+        public List<Integer> getMissingShards() {
+            List<Integer> missing = new ArrayList<>();
+            for (int shard = shards.nextClearBit(0); shard < partials.get(0).shardCount;
+                 shard = shards.nextClearBit(shard + 1)) {
+                missing.add(shard);
+            }
+            return missing;
+        }
+
+        /**
+         * Merges the counts of every attribute, in the order of {@link #getAttributeNames()}, and passes them
+         * to the consumer as soon as the attribute is merged. Can be called once.
+         *
+         * @param consumer The consumer receiving every attribute name with its merged value counts
+         * @throws IOException If a file cannot be read or is corrupt
+         */
+        public void mergeEach(BiConsumer<String, Map<String, Long>> consumer) throws IOException {
+            for (String attributeName : getAttributeNames()) {
+                PriorityQueue<Partial> queue = new PriorityQueue<>(partials.size(),
+                        (a, b) -> a.value.compareTo(b.value));
+                long valueCount = 0;
+                for (Partial partial : partials) {
+                    valueCount += partial.beginAttribute();
+                    if (partial.next()) {
+                        queue.add(partial);
+                    }
+                }
+                Map<String, Long> counts = new HashMap<>((int) Math.min(valueCount * 4 / 3 + 1, 1 << 30));
+                while (!queue.isEmpty()) {
+                    Partial smallest = queue.poll();
+                    String value = smallest.value;
+                    long count = smallest.count;
+                    advance(smallest, queue);
+                    while (!queue.isEmpty() && queue.peek().value.equals(value)) {
+                        Partial equal = queue.poll();
+                        count += equal.count;
+                        advance(equal, queue);
+                    }
+                    counts.put(value, count);
+                }
+                consumer.accept(attributeName, counts);
+            }
+        }
+
+        private static void advance(Partial partial, PriorityQueue<Partial> queue) throws IOException {
+            if (partial.next()) {
+                queue.add(partial);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (Partial partial : partials) {
+                try {
+                    partial.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * A partial-counts file being read: its header and the current entry of the current attribute.
+     */
+    private static final class Partial implements Closeable {
+        private final Path file;
+        private final DataInputStream in;
+        private final String countingKey;
+        private final int shardIndex;
+        private final int shardCount;
+        private final List<String> attributeNames;
+        private long remainingValues;
+        private String value;
+        private long count;
+
+        private Partial(Path file) throws IOException {
+            this.file = file;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), STREAM_BUFFER_SIZE));
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not a partial counts file: " + file);
+                }
+                short version = in.readShort();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported partial counts version " + version + ": " + file);
+                }
+                this.countingKey = readString(in);
+                this.shardIndex = in.readInt();
+                this.shardCount = in.readInt();
+                if (shardCount <= 0 || shardIndex < 0 || shardIndex >= shardCount) {
+                    throw new IOException("Invalid shard " + shardIndex + "/" + shardCount + ": " + file);
+                }
+                int attributeCount = in.readInt();
+                List<String> names = new ArrayList<>();
+                for (int i = 0; i < attributeCount; i++) {
+                    names.add(readString(in));
+                }
+                this.attributeNames = List.copyOf(names);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Starts reading the values of the next attribute.
+         *
+         * @return The number of values of the attribute
+         */
+        private long beginAttribute() throws IOException {
+            remainingValues = in.readLong();
+            value = null;
+            return remainingValues;
+        }
+
+        /**
+         * Reads the next entry of the current attribute.
+         *
+         * @return false if the attribute has no more entries
+         */
+        private boolean next() throws IOException {
+            if (remainingValues == 0) {
+                return false;
+            }
+            remainingValues--;
+            String previous = value;
+            value = readString(in);
+            count = in.readLong();
+            if (previous != null && previous.compareTo(value) >= 0) {
+                throw new IOException("Corrupt partial counts, values are not sorted: " + file);
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
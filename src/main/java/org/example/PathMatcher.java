@@ -0,0 +1,377 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The PathMatcher class compiles attribute selectors into a deterministic automaton that is advanced
+ * key by key and array element by array element while a JSON record is streamed.
+ *
+ * <p>Selectors are evaluated relative to every top-level record:
+ * <ul>
+ *     <li>{@code genre}, a plain name, matches the key at any depth, as before selectors existed:
+ *     arrays nested directly in arrays are not searched.</li>
+ *     <li>{@code author.name} matches the member {@code name} of the top-level member {@code author}.</li>
+ *     <li>{@code *} matches any key, for example {@code author.*}.</li>
+ *     <li>{@code [*]} matches every element of an array, for example {@code tags[*]} or {@code items[*].sku}.</li>
+ *     <li>{@code **} matches any number of keys and array elements, including none, for example {@code **.id}.</li>
+ * </ul>
+ * A matched string or number is counted; a matched array counts its string and number elements.
+ * A state from which no selector can match anymore is dead, so the parser skips the value wholesale.
+ *
+ * <p>The automaton is built completely when it is compiled, so a matcher is immutable and can be shared by threads.
+ */
+final class PathMatcher {
+    private static final int[] NONE = new int[0];
+    private static final String ESCAPED_CHARACTERS = "%*[]\"/\\:<>?|,;=";
+
+    private final List<String> attributeNames;
+    private final State start;
+
+    private PathMatcher(List<String> attributeNames, State start) {
+        this.attributeNames = attributeNames;
+        this.start = start;
+    }
+
+    /**
+     * Compiles the selectors of the attribute names. Duplicate names are matched once.
+     *
+     * @param attributeNames The attribute names, each a plain name or a selector
+     * @return The matcher
+     * @throws IllegalArgumentException If a selector is malformed
+     */
+    static PathMatcher compile(List<String> attributeNames) {
+        List<String> distinctNames = List.copyOf(new LinkedHashSet<>(attributeNames));
+        List<Segment[]> selectors = distinctNames.stream().map(PathMatcher::parse).toList();
+        return new PathMatcher(distinctNames, new Compiler(selectors).compile());
+    }
+
+    /**
+     * Tests if an attribute name is a selector rather than a plain name matching at any depth.
+     *
+     * @param attributeName The attribute name
+     * @return true for selectors
+     */
+    static boolean isSelector(String attributeName) {
+        return attributeName.indexOf('.') >= 0 || attributeName.indexOf('[') >= 0 || attributeName.indexOf('*') >= 0;
+    }
+
+    /**
+     * Percent-encodes the characters of an attribute name that are not allowed in file names on every platform,
+     * such as {@code *}, {@code [} and {@code ]} of selectors, or that separate the parts of a counting key.
+     * Plain names without such characters are returned unchanged.
+     *
+     * @param attributeName The attribute name
+     * @return The escaped name, for example {@code tags%5B%2A%5D} for {@code tags[*]}
+     */
+    static String escapeName(String attributeName) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < attributeName.length(); i++) {
+            char c = attributeName.charAt(i);
+            if (c < 0x20 || ESCAPED_CHARACTERS.indexOf(c) >= 0) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(attributeName.length() + 8).append(attributeName, 0, i);
+                }
+                escaped.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xF, 16)));
+            } else if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped == null ? attributeName : escaped.toString();
+    }
+
+    /**
+     * Retrieves the state of a top-level record.
+     *
+     * @return The start state
+     */
+    State start() {
+        return start;
+    }
+
+    /**
+     * Retrieves an attribute name by its index, as reported by {@link State#accepted()}.
+     *
+     * @param attribute The index of the attribute
+     * @return The attribute name
+     */
+    String attributeName(int attribute) {
+        return attributeNames.get(attribute);
+    }
+
+    /**
+     * Parses a selector into its segments. A plain name becomes {@code **.name} without searching
+     * arrays nested directly in arrays.
+     */
+    private static Segment[] parse(String selector) {
+        if (!isSelector(selector)) {
+            return new Segment[]{new Segment(SegmentKind.PLAIN_DESCENDANTS, null), new Segment(SegmentKind.KEY, selector)};
+        }
+        List<Segment> segments = new ArrayList<>();
+        for (String part : selector.split("\\.", -1)) {
+            int bracket = part.indexOf('[');
+            String key = bracket < 0 ? part : part.substring(0, bracket);
+            if (key.equals("**")) {
+                segments.add(new Segment(SegmentKind.DESCENDANTS, null));
+            } else if (key.equals("*")) {
+                segments.add(new Segment(SegmentKind.ANY_KEY, null));
+            } else if (!key.isEmpty()) {
+                if (key.contains("*")) {
+                    throw invalidSelector(selector);
+                }
+                segments.add(new Segment(SegmentKind.KEY, key));
+            } else if (bracket != 0 || segments.isEmpty()) {
+                throw invalidSelector(selector);
+            }
+            for (String rest = bracket < 0 ? "" : part.substring(bracket); !rest.isEmpty(); rest = rest.substring(3)) {
+                if (!rest.startsWith("[*]")) {
+                    throw invalidSelector(selector);
+                }
+                segments.add(new Segment(SegmentKind.ELEMENTS, null));
+            }
+        }
+        return segments.toArray(Segment[]::new);
+    }
+
+    private static IllegalArgumentException invalidSelector(String selector) {
+        return new IllegalArgumentException("Invalid selector: " + selector);
+    }
+
+    private enum SegmentKind {
+        KEY, ANY_KEY, ELEMENTS, DESCENDANTS, PLAIN_DESCENDANTS
+    }
+
+    private record Segment(SegmentKind kind, String key) {
+    }
+
+    /**
+     * A state of the automaton: the set of selectors that can still match at or below the current value.
+     */
+    static final class State {
+        private final int[] accepted;
+        private final boolean dead;
+        private Map<String, State> keyTransitions = Map.of();
+        private byte[][] encodedKeys = new byte[0][];
+        private State[] encodedKeyStates = new State[0];
+        private State otherKey;
+        private State element;
+
+        private State(int[] accepted, boolean dead) {
+            this.accepted = accepted;
+            this.dead = dead;
+        }
+
+        /**
+         * Advances into the value of an object member.
+         *
+         * @param key The key of the member
+         * @return The state of the member value
+         */
+        State key(String key) {
+            State next = keyTransitions.get(key);
+            return next == null ? otherKey : next;
+        }
+
+        /**
+         * Advances into the value of an object member whose key is given as unescaped UTF-8 bytes.
+         *
+         * @param utf8   The array holding the key
+         * @param start  The offset of the first byte of the key
+         * @param length The number of bytes of the key
+         * @return The state of the member value
+         */
+        State key(byte[] utf8, int start, int length) {
+            for (int i = 0; i < encodedKeys.length; i++) {
+                byte[] key = encodedKeys[i];
+                if (key.length == length && Arrays.equals(utf8, start, start + length, key, 0, length)) {
+                    return encodedKeyStates[i];
+                }
+            }
+            return otherKey;
+        }
+
+        /**
+         * Advances into an element of an array.
+         *
+         * @return The state of the array elements
+         */
+        State element() {
+            return element;
+        }
+
+        /**
+         * Retrieves the attributes matching a string or number in this state.
+         *
+         * @return The indexes of the matched attributes, empty if none matches
+         */
+        int[] accepted() {
+            return accepted;
+        }
+
+        /**
+         * Tests if no selector can match at or below the current value, so the value can be skipped.
+         *
+         * @return true for the dead state
+         */
+        boolean isDead() {
+            return dead;
+        }
+    }
+
+    /**
+     * Builds the automaton by subset construction over the positions of all selectors.
+     */
+    private static final class Compiler {
+        private final List<Segment[]> selectors;
+        private final int[] offsets;
+        private final Set<String> keys = new LinkedHashSet<>();
+        private final Map<Key, State> states = new HashMap<>();
+        private final Deque<Key> pending = new ArrayDeque<>();
+
+        private Compiler(List<Segment[]> selectors) {
+            this.selectors = selectors;
+            this.offsets = new int[selectors.size() + 1];
+            for (int i = 0; i < selectors.size(); i++) {
+                offsets[i + 1] = offsets[i] + selectors.get(i).length + 1;
+                for (Segment segment : selectors.get(i)) {
+                    if (segment.kind() == SegmentKind.KEY) {
+                        keys.add(segment.key());
+                    }
+                }
+            }
+        }
+
+        private State compile() {
+            BitSet initial = new BitSet();
+            for (int i = 0; i < selectors.size(); i++) {
+                initial.set(offsets[i]);
+            }
+            State start = state(new Key(closure(initial), false));
+            while (!pending.isEmpty()) {
+                Key key = pending.poll();
+                State state = states.get(key);
+                Map<String, State> keyTransitions = new HashMap<>();
+                List<byte[]> encodedKeys = new ArrayList<>();
+                List<State> encodedKeyStates = new ArrayList<>();
+                State otherKey = state(step(key, null, false));
+                for (String name : keys) {
+                    State next = state(step(key, name, false));
+                    if (next != otherKey) {
+                        keyTransitions.put(name, next);
+                        encodedKeys.add(name.getBytes(StandardCharsets.UTF_8));
+                        encodedKeyStates.add(next);
+                    }
+                }
+                state.keyTransitions = Map.copyOf(keyTransitions);
+                state.encodedKeys = encodedKeys.toArray(byte[][]::new);
+                state.encodedKeyStates = encodedKeyStates.toArray(State[]::new);
+                state.otherKey = otherKey;
+                state.element = state(step(key, null, true));
+            }
+            return start;
+        }
+
+        private State state(Key key) {
+            State state = states.get(key);
+            if (state == null) {
+                List<Integer> accepted = new ArrayList<>();
+                for (int i = 0; i < selectors.size(); i++) {
+                    if (key.positions().get(offsets[i] + selectors.get(i).length)) {
+                        accepted.add(i);
+                    }
+                }
+                state = new State(accepted.isEmpty() ? NONE : accepted.stream().mapToInt(Integer::intValue).toArray(),
+                        key.positions().isEmpty());
+                states.put(key, state);
+                pending.add(key);
+            }
+            return state;
+        }
+
+        /**
+         * Computes the positions after a key or an array element.
+         *
+         * @param from    The current positions
+         * @param name    The key, or null for a key matching no KEY segment or for an element
+         * @param element true for an array element
+         */
+        private Key step(Key from, String name, boolean element) {
+            BitSet next = new BitSet();
+            BitSet positions = from.positions();
+            for (int selector = 0; selector < selectors.size(); selector++) {
+                Segment[] segments = selectors.get(selector);
+                for (int index = 0; index <= segments.length; index++) {
+                    int position = offsets[selector] + index;
+                    if (!positions.get(position)) {
+                        continue;
+                    }
+                    if (index == segments.length) {
+                        // a matched member that is an array counts its elements, but not those of nested arrays
+                        if (element && !from.viaElement()) {
+                            next.set(position);
+                        }
+                        continue;
+                    }
+                    Segment segment = segments[index];
+                    switch (segment.kind()) {
+                        case KEY -> {
+                            if (!element && segment.key().equals(name)) {
+                                next.set(position + 1);
+                            }
+                        }
+                        case ANY_KEY -> {
+                            if (!element) {
+                                next.set(position + 1);
+                            }
+                        }
+                        case ELEMENTS -> {
+                            if (element) {
+                                next.set(position + 1);
+                            }
+                        }
+                        case DESCENDANTS -> next.set(position);
+                        case PLAIN_DESCENDANTS -> {
+                            if (!element || !from.viaElement()) {
+                                next.set(position);
+                            }
+                        }
+                    }
+                }
+            }
+            return new Key(closure(next), element);
+        }
+
+        /**
+         * Adds the positions following descendant segments, which also match no key at all.
+         */
+        private BitSet closure(BitSet positions) {
+            for (int selector = 0; selector < selectors.size(); selector++) {
+                Segment[] segments = selectors.get(selector);
+                for (int index = 0; index < segments.length; index++) {
+                    SegmentKind kind = segments[index].kind();
+                    if (positions.get(offsets[selector] + index)
+                            && (kind == SegmentKind.DESCENDANTS || kind == SegmentKind.PLAIN_DESCENDANTS)) {
+                        positions.set(offsets[selector] + index + 1);
+                    }
+                }
+            }
+            return positions;
+        }
+    }
+
+    /**
+     * The identity of a state: the positions in the selectors and whether it was entered as an array element.
+     */
+    private record Key(BitSet positions, boolean viaElement) {
+    }
+}
@@ -0,0 +1,320 @@
+package org.example;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The ProcessingMetrics class collects per-stage statistics of a run: files, bytes and records read,
+ * matched values per attribute, parse latencies, executor queue depth and statistics file writes.
+ * All recording methods are thread-safe. The metrics can be registered as an MXBean and written as a JSON summary.
+ */
+public class ProcessingMetrics implements ProcessingMetricsMXBean {
+    private static final String OBJECT_NAME = "org.example:type=ProcessingMetrics";
+    private static final int LATENCY_BUCKETS = 20;
+    private static final AtomicLong NEXT_JOB = new AtomicLong(1);
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder filesProcessed = new LongAdder();
+    private final LongAdder filesFromCache = new LongAdder();
+    private final LongAdder filesFailed = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder recordsParsed = new LongAdder();
+    private final LongAdder statisticsFilesWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder[] parseLatencyBuckets = new LongAdder[LATENCY_BUCKETS];
+    private final Map<String, LongAdder> matchedValues = new ConcurrentHashMap<>();
+    private final Map<Path, FileStatistics> fileStatistics = new ConcurrentHashMap<>();
+    private final Map<String, WriteStatistics> writeStatistics = new ConcurrentHashMap<>();
+    private final AtomicInteger maxExecutorQueueDepth = new AtomicInteger();
+    private volatile ThreadPoolExecutor monitoredExecutor;
+    private ObjectName objectName;
+
+    /**
+     * Constructs an empty ProcessingMetrics object.
+     */
+    public ProcessingMetrics() {
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            parseLatencyBuckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Monitors the queue depth of the executor, if it is a ThreadPoolExecutor.
+     *
+     * @param executorService The executor running parse and write tasks
+     */
+    public void monitorExecutor(ExecutorService executorService) {
+        monitoredExecutor = executorService instanceof ThreadPoolExecutor threadPoolExecutor
+                ? threadPoolExecutor
+                : null;
+    }
+
+    /**
+     * Records the current executor queue depth, typically right after a task is submitted.
+     */
+    public void sampleExecutorQueueDepth() {
+        maxExecutorQueueDepth.accumulateAndGet(getExecutorQueueDepth(), Math::max);
+    }
+
+    /**
+     * Records a processed part of a JSON file: the whole file, one of its byte ranges, or its cache entry.
+     *
+     * @param filePath     The path to the JSON file
+     * @param bytes        The number of JSON bytes parsed
+     * @param records      The number of top-level records parsed
+     * @param elapsedNanos The time the task spent on this part
+     */
+    public void recordParsed(Path filePath, long bytes, long records, long elapsedNanos) {
+        bytesRead.add(bytes);
+        recordsParsed.add(records);
+        FileStatistics statistics = fileStatistics.computeIfAbsent(filePath, k -> new FileStatistics());
+        statistics.bytes.add(bytes);
+        statistics.records.add(records);
+        statistics.elapsedNanos.add(elapsedNanos);
+    }
+
+    /**
+     * Records the completion of a JSON file and adds its parse latency, the summed time of all its parts,
+     * to the latency histogram.
+     *
+     * @param filePath  The path to the JSON file
+     * @param fromCache true if the counts were loaded from the count cache
+     * @param failed    true if the file could not be parsed completely
+     */
+    public void recordFileCompleted(Path filePath, boolean fromCache, boolean failed) {
+        filesProcessed.increment();
+        if (fromCache) {
+            filesFromCache.increment();
+        }
+        if (failed) {
+            filesFailed.increment();
+        }
+        FileStatistics statistics = fileStatistics.computeIfAbsent(filePath, k -> new FileStatistics());
+        statistics.fromCache = fromCache;
+        statistics.failed = failed;
+        long millis = TimeUnit.NANOSECONDS.toMillis(statistics.elapsedNanos.sum());
+        int bucket = millis <= 1 ? 0 : Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis - 1));
+        parseLatencyBuckets[bucket].increment();
+    }
+
+    /**
+     * Records matched values of an attribute.
+     *
+     * @param attributeName The attribute name
+     * @param count         The number of matched values
+     */
+    public void recordMatchedValues(String attributeName, long count) {
+        matchedValues.computeIfAbsent(attributeName, k -> new LongAdder()).add(count);
+    }
+
+    /**
+     * Records a written statistics file.
+     *
+     * @param fileName     The name of the statistics file
+     * @param bytes        The number of bytes written
+     * @param elapsedNanos The time spent sorting and writing the file
+     */
+    public void recordStatisticsWritten(String fileName, long bytes, long elapsedNanos) {
+        statisticsFilesWritten.increment();
+        bytesWritten.add(bytes);
+        writeStatistics.put(fileName, new WriteStatistics(bytes, elapsedNanos));
+    }
+
+    @Override
+    public long getFilesProcessed() {
+        return filesProcessed.sum();
+    }
+
+    @Override
+    public long getFilesFromCache() {
+        return filesFromCache.sum();
+    }
+
+    @Override
+    public long getFilesFailed() {
+        return filesFailed.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getRecordsParsed() {
+        return recordsParsed.sum();
+    }
+
+    @Override
+    public Map<String, Long> getMatchedValues() {
+        Map<String, Long> values = new TreeMap<>();
+        matchedValues.forEach((attributeName, count) -> values.put(attributeName, count.sum()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getParseLatencyHistogram() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            String bound = i == LATENCY_BUCKETS - 1 ? "+Inf" : (1L << i) + "ms";
+            histogram.put("le_" + bound, parseLatencyBuckets[i].sum());
+        }
+        return histogram;
+    }
+
+    @Override
+    public int getExecutorQueueDepth() {
+        ThreadPoolExecutor executor = monitoredExecutor;
+        return executor == null ? -1 : executor.getQueue().size();
+    }
+
+    @Override
+    public int getMaxExecutorQueueDepth() {
+        return maxExecutorQueueDepth.get();
+    }
+
+    @Override
+    public long getStatisticsFilesWritten() {
+        return statisticsFilesWritten.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under a name of their own,
+     * {@code org.example:type=ProcessingMetrics,job=<n>} with a number counting up from 1 per JVM,
+     * so the metrics of concurrent runs do not replace each other.
+     *
+     * @return The name the metrics are registered under
+     * @throws JMException If the registration fails
+     */
+    public synchronized ObjectName registerMBean() throws JMException {
+        if (objectName == null) {
+            ObjectName name = new ObjectName(OBJECT_NAME + ",job=" + NEXT_JOB.getAndIncrement());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+        }
+        return objectName;
+    }
+
+    /**
+     * Unregisters these metrics from the platform MBean server at the end of a run, if they are registered.
+     * Failures are logged to System.err and otherwise ignored.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.println("Metrics could not be removed from JMX: " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    /**
+     * Writes a JSON summary of these metrics.
+     *
+     * @param filePath The path to the summary file
+     * @throws IOException If an I/O error occurs while writing the file
+     */
+    public void writeSummary(Path filePath) throws IOException {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        try (Writer writer = Files.newBufferedWriter(filePath)) {
+            gson.toJson(toJson(), writer);
+        }
+    }
+
+    /**
+     * Builds a JSON summary of these metrics.
+     *
+     * @return The summary
+     */
+    public JsonObject toJson() {
+        JsonObject summary = new JsonObject();
+        summary.addProperty("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        summary.addProperty("filesProcessed", getFilesProcessed());
+        summary.addProperty("filesFromCache", getFilesFromCache());
+        summary.addProperty("filesFailed", getFilesFailed());
+        summary.addProperty("bytesRead", getBytesRead());
+        summary.addProperty("recordsParsed", getRecordsParsed());
+        summary.addProperty("maxExecutorQueueDepth", getMaxExecutorQueueDepth());
+
+        JsonObject matched = new JsonObject();
+        getMatchedValues().forEach(matched::addProperty);
+        summary.add("matchedValues", matched);
+
+        JsonObject histogram = new JsonObject();
+        getParseLatencyHistogram().forEach(histogram::addProperty);
+        summary.add("parseLatencyHistogram", histogram);
+
+        JsonArray files = new JsonArray();
+        new TreeMap<>(fileStatistics).forEach((filePath, statistics) -> {
+            JsonObject file = new JsonObject();
+            file.addProperty("file", filePath.toString());
+            file.addProperty("bytes", statistics.bytes.sum());
+            file.addProperty("records", statistics.records.sum());
+            file.addProperty("parseMillis", TimeUnit.NANOSECONDS.toMillis(statistics.elapsedNanos.sum()));
+            file.addProperty("fromCache", statistics.fromCache);
+            file.addProperty("failed", statistics.failed);
+            files.add(file);
+        });
+        summary.add("files", files);
+
+        JsonArray writes = new JsonArray();
+        new TreeMap<>(writeStatistics).forEach((fileName, statistics) -> {
+            JsonObject write = new JsonObject();
+            write.addProperty("file", fileName);
+            write.addProperty("bytes", statistics.bytes());
+            write.addProperty("writeMillis", TimeUnit.NANOSECONDS.toMillis(statistics.elapsedNanos()));
+            write.addProperty("bytesPerSecond", statistics.bytesPerSecond());
+            writes.add(write);
+        });
+        summary.add("statisticsFiles", writes);
+        return summary;
+    }
+
+    /**
+     * Per-file parse statistics; byte ranges of a split file add up in one instance.
+     */
+    private static final class FileStatistics {
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder records = new LongAdder();
+        private final LongAdder elapsedNanos = new LongAdder();
+        private volatile boolean fromCache;
+        private volatile boolean failed;
+    }
+
+    /**
+     * Statistics of one written statistics file.
+     */
+    private record WriteStatistics(long bytes, long elapsedNanos) {
+        private long bytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : (long) (bytes * 1e9 / elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link ProcessingMetrics}, registered with the platform MBean server.
+ */
+public interface ProcessingMetricsMXBean {
+
+    /**
+     * @return The number of JSON files parsed or loaded from the count cache
+     */
+    long getFilesProcessed();
+
+    /**
+     * @return The number of JSON files loaded from the count cache
+     */
+    long getFilesFromCache();
+
+    /**
+     * @return The number of JSON files that failed to parse
+     */
+    long getFilesFailed();
+
+    /**
+     * @return The number of bytes of JSON read
+     */
+    long getBytesRead();
+
+    /**
+     * @return The number of top-level records parsed
+     */
+    long getRecordsParsed();
+
+    /**
+     * @return The number of matched values per attribute
+     */
+    Map<String, Long> getMatchedValues();
+
+    /**
+     * @return The number of files per parse latency bucket, keyed by the bucket's upper bound
+     */
+    Map<String, Long> getParseLatencyHistogram();
+
+    /**
+     * @return The number of tasks waiting in the executor queue, or -1 if the executor is not monitored
+     */
+    int getExecutorQueueDepth();
+
+    /**
+     * @return The highest executor queue depth observed when files were submitted
+     */
+    int getMaxExecutorQueueDepth();
+
+    /**
+     * @return The number of statistics files written
+     */
+    long getStatisticsFilesWritten();
+
+    /**
+     * @return The number of bytes of statistics files written
+     */
+    long getBytesWritten();
+}
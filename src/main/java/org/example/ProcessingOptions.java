@@ -0,0 +1,704 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * The ProcessingOptions class holds the tuning settings used by {@link JsonProcessor}.
+ * Instances are immutable; every {@code with...} method returns a modified copy.
+ */
+public final class ProcessingOptions {
+    private static final long DEFAULT_SPLIT_THRESHOLD_BYTES = 64L * 1024 * 1024;
+    private static final long DEFAULT_SPLIT_CHUNK_BYTES = 8L * 1024 * 1024;
+    private static final long DEFAULT_MMAP_THRESHOLD_BYTES = 16L * 1024 * 1024;
+    private static final double DEFAULT_SKETCH_EPSILON = 0.0001;
+    private static final double DEFAULT_SKETCH_DELTA = 0.01;
+    private static final int DEFAULT_HEAVY_HITTERS = 1000;
+    private static final long DEFAULT_OFF_HEAP_MEMORY_BYTES = 256L * 1024 * 1024;
+    private static final int DEFAULT_MAX_PENDING_FILES = 4 * Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_MAX_BUFFERED_READS = 2 * Runtime.getRuntime().availableProcessors();
+
+    private long splitThresholdBytes = DEFAULT_SPLIT_THRESHOLD_BYTES;
+    private long splitChunkBytes = DEFAULT_SPLIT_CHUNK_BYTES;
+    private AggregationMode aggregationMode = AggregationMode.SHARED;
+    private CountingBackend countingBackend = CountingBackend.EXACT;
+    private double sketchEpsilon = DEFAULT_SKETCH_EPSILON;
+    private double sketchDelta = DEFAULT_SKETCH_DELTA;
+    private int heavyHitters = DEFAULT_HEAVY_HITTERS;
+    private long offHeapMemoryBytes = DEFAULT_OFF_HEAP_MEMORY_BYTES;
+    private Path spillDirectory;
+    private Path cacheDirectory;
+    private ProcessingMetrics metrics;
+    private ProcessingProgress progress;
+    private Path checkpointFile;
+    private boolean resume;
+    private boolean recursive;
+    private List<String> includeGlobs = List.of();
+    private List<String> excludeGlobs = List.of();
+    private int maxPendingFiles = DEFAULT_MAX_PENDING_FILES;
+    private FileOrder fileOrder = FileOrder.WALK;
+    private ExecutorService readExecutor;
+    private int maxBufferedReads = DEFAULT_MAX_BUFFERED_READS;
+    private InputOpener inputOpener = InputOpener.FILES;
+    private ParserEngine parserEngine = ParserEngine.GSON;
+    private long mmapThresholdBytes = DEFAULT_MMAP_THRESHOLD_BYTES;
+    private InputFormat inputFormat = InputFormat.AUTO;
+    private Map<String, ValueDelimiter> delimiters = Map.of();
+    private int shardIndex;
+    private int shardCount = 1;
+
+    private ProcessingOptions() {
+    }
+
+    private ProcessingOptions(ProcessingOptions other) {
+        this.splitThresholdBytes = other.splitThresholdBytes;
+        this.splitChunkBytes = other.splitChunkBytes;
+        this.aggregationMode = other.aggregationMode;
+        this.countingBackend = other.countingBackend;
+        this.sketchEpsilon = other.sketchEpsilon;
+        this.sketchDelta = other.sketchDelta;
+        this.heavyHitters = other.heavyHitters;
+        this.offHeapMemoryBytes = other.offHeapMemoryBytes;
+        this.spillDirectory = other.spillDirectory;
+        this.cacheDirectory = other.cacheDirectory;
+        this.metrics = other.metrics;
+        this.progress = other.progress;
+        this.checkpointFile = other.checkpointFile;
+        this.resume = other.resume;
+        this.recursive = other.recursive;
+        this.includeGlobs = other.includeGlobs;
+        this.excludeGlobs = other.excludeGlobs;
+        this.maxPendingFiles = other.maxPendingFiles;
+        this.fileOrder = other.fileOrder;
+        this.readExecutor = other.readExecutor;
+        this.maxBufferedReads = other.maxBufferedReads;
+        this.inputOpener = other.inputOpener;
+        this.parserEngine = other.parserEngine;
+        this.mmapThresholdBytes = other.mmapThresholdBytes;
+        this.inputFormat = other.inputFormat;
+        this.delimiters = other.delimiters;
+        this.shardIndex = other.shardIndex;
+        this.shardCount = other.shardCount;
+    }
+
+    /**
+     * Creates options with the default settings.
+     *
+     * @return The default processing options
+     */
+    public static ProcessingOptions defaults() {
+        return new ProcessingOptions();
+    }
+
+    /**
+     * Retrieves the file size from which a single JSON file is split into byte ranges parsed in parallel.
+     *
+     * @return The split threshold in bytes
+     */
+    public long getSplitThresholdBytes() {
+        return splitThresholdBytes;
+    }
+
+    /**
+     * Retrieves the approximate size of a single byte range of a split file.
+     *
+     * @return The chunk size in bytes
+     */
+    public long getSplitChunkBytes() {
+        return splitChunkBytes;
+    }
+
+    /**
+     * Retrieves the way matched attribute values are counted.
+     *
+     * @return The aggregation mode
+     */
+    public AggregationMode getAggregationMode() {
+        return aggregationMode;
+    }
+
+    /**
+     * Retrieves the backend keeping the counts of attribute values.
+     *
+     * @return The counting backend
+     */
+    public CountingBackend getCountingBackend() {
+        return countingBackend;
+    }
+
+    /**
+     * Retrieves the relative additive error of the sketches of the approximate counting backend.
+     *
+     * @return The sketch error as a fraction of all counted values
+     */
+    public double getSketchEpsilon() {
+        return sketchEpsilon;
+    }
+
+    /**
+     * Retrieves the probability that an approximate count exceeds the sketch error.
+     *
+     * @return The sketch failure probability
+     */
+    public double getSketchDelta() {
+        return sketchDelta;
+    }
+
+    /**
+     * Retrieves the number of most frequent values tracked per attribute by the approximate counting backend.
+     *
+     * @return The number of heavy hitters
+     */
+    public int getHeavyHitters() {
+        return heavyHitters;
+    }
+
+    /**
+     * Retrieves the direct memory the off-heap counting backend may use before it spills counts to disk.
+     *
+     * @return The memory limit in bytes
+     */
+    public long getOffHeapMemoryBytes() {
+        return offHeapMemoryBytes;
+    }
+
+    /**
+     * Retrieves the directory the off-heap counting backend spills sorted runs of counts to.
+     *
+     * @return The spill directory, or null for the temporary directory
+     */
+    public Path getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Retrieves the progress tracker of the parse stage.
+     *
+     * @return The progress tracker, or null if progress is not tracked
+     */
+    public ProcessingProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Retrieves the file the counts of completed files are checkpointed to.
+     *
+     * @return The checkpoint file, or null if checkpointing is disabled
+     */
+    public Path getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * Checks whether the run continues from its checkpoint file instead of starting a new one.
+     *
+     * @return true if the counts of the checkpoint are restored and its completed files skipped
+     */
+    public boolean isResume() {
+        return resume;
+    }
+
+    /**
+     * Retrieves the directory of the per-file count cache.
+     *
+     * @return The cache directory, or null if caching is disabled
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Retrieves the metrics recording the parse stage.
+     *
+     * @return The metrics, or null if metrics are disabled
+     */
+    public ProcessingMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retrieves whether subdirectories of the input directory are processed as well.
+     *
+     * @return true if the input directory is walked recursively
+     */
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    /**
+     * Retrieves the glob patterns of the processed files.
+     *
+     * @return The include patterns; empty if all plain and compressed JSON and NDJSON files are processed
+     */
+    public List<String> getIncludeGlobs() {
+        return includeGlobs;
+    }
+
+    /**
+     * Retrieves the glob patterns of the skipped files and directories.
+     *
+     * @return The exclude patterns
+     */
+    public List<String> getExcludeGlobs() {
+        return excludeGlobs;
+    }
+
+    /**
+     * Retrieves the maximum number of files queued or being parsed at the same time while the input directory
+     * is walked.
+     *
+     * @return The maximum number of pending files
+     */
+    public int getMaxPendingFiles() {
+        return maxPendingFiles;
+    }
+
+    /**
+     * Retrieves the order in which the files of the input directory are submitted for parsing.
+     *
+     * @return The file order
+     */
+    public FileOrder getFileOrder() {
+        return fileOrder;
+    }
+
+    /**
+     * Retrieves the executor reading input files into memory before they are parsed.
+     *
+     * @return The read executor, or null if files are read while they are parsed
+     */
+    public ExecutorService getReadExecutor() {
+        return readExecutor;
+    }
+
+    /**
+     * Retrieves the maximum number of files or byte ranges read into memory by the read executor
+     * and not parsed yet.
+     *
+     * @return The maximum number of buffered reads
+     */
+    public int getMaxBufferedReads() {
+        return maxBufferedReads;
+    }
+
+    /**
+     * Retrieves the way input files are opened.
+     *
+     * @return The input opener
+     */
+    InputOpener getInputOpener() {
+        return inputOpener;
+    }
+
+    /**
+     * Retrieves the engine parsing JSON files.
+     *
+     * @return The parser engine
+     */
+    public ParserEngine getParserEngine() {
+        return parserEngine;
+    }
+
+    /**
+     * Retrieves the file size from which JSON files are read from memory-mapped windows instead of buffered reads.
+     *
+     * @return The mapping threshold in bytes
+     */
+    public long getMmapThresholdBytes() {
+        return mmapThresholdBytes;
+    }
+
+    /**
+     * Retrieves the layout of the records in the input files.
+     *
+     * @return The input format
+     */
+    public InputFormat getInputFormat() {
+        return inputFormat;
+    }
+
+    /**
+     * Retrieves the delimiter splitting the values of an attribute into several values.
+     *
+     * @param attributeName The attribute name
+     * @return The delimiter of the attribute, {@link ValueDelimiter#COMMA} unless configured otherwise
+     */
+    public ValueDelimiter getDelimiter(String attributeName) {
+        return delimiters.getOrDefault(attributeName, ValueDelimiter.COMMA);
+    }
+
+    /**
+     * Retrieves the delimiters configured for individual attributes.
+     *
+     * @return The map of attribute names to delimiters
+     */
+    public Map<String, ValueDelimiter> getDelimiters() {
+        return delimiters;
+    }
+
+    /**
+     * Retrieves the shard of the input files processed by this run.
+     *
+     * @return The index of the shard, from 0 to {@link #getShardCount()} - 1
+     */
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * Retrieves the number of shards the input files are partitioned into.
+     *
+     * @return The number of shards; 1 processes all files
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Returns a copy of these options with the given split threshold.
+     * Use {@link Long#MAX_VALUE} to disable splitting.
+     *
+     * @param splitThresholdBytes The file size in bytes from which files are split
+     * @return The modified copy
+     */
+    public ProcessingOptions withSplitThresholdBytes(long splitThresholdBytes) {
+        if (splitThresholdBytes <= 0) {
+            throw new IllegalArgumentException("Split threshold must be positive.");
+        }
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.splitThresholdBytes = splitThresholdBytes;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given split chunk size.
+     *
+     * @param splitChunkBytes The approximate size in bytes of one byte range
+     * @return The modified copy
+     */
+    public ProcessingOptions withSplitChunkBytes(long splitChunkBytes) {
+        if (splitChunkBytes <= 0) {
+            throw new IllegalArgumentException("Split chunk size must be positive.");
+        }
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.splitChunkBytes = splitChunkBytes;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given aggregation mode.
+     *
+     * @param aggregationMode The way matched attribute values are counted
+     * @return The modified copy
+     */
+    public ProcessingOptions withAggregationMode(AggregationMode aggregationMode) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.aggregationMode = aggregationMode;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given counting backend.
+     *
+     * @param countingBackend The backend keeping the counts of attribute values
+     * @return The modified copy
+     */
+    public ProcessingOptions withCountingBackend(CountingBackend countingBackend) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.countingBackend = countingBackend;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given sketch error bounds.
+     *
+     * @param sketchEpsilon The relative additive error, between 0 and 1
+     * @param sketchDelta   The probability of exceeding the error, between 0 and 1
+     * @return The modified copy
+     */
+    public ProcessingOptions withSketchErrorBounds(double sketchEpsilon, double sketchDelta) {
+        if (!(sketchEpsilon > 0 && sketchEpsilon < 1) || !(sketchDelta > 0 && sketchDelta < 1)) {
+            throw new IllegalArgumentException("Sketch error bounds must be between 0 and 1.");
+        }
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.sketchEpsilon = sketchEpsilon;
+        copy.sketchDelta = sketchDelta;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given number of tracked heavy hitters.
+     *
+     * @param heavyHitters The number of most frequent values tracked per attribute
+     * @return The modified copy
+     */
+    public ProcessingOptions withHeavyHitters(int heavyHitters) {
+        if (heavyHitters <= 0) {
+            throw new IllegalArgumentException("Number of heavy hitters must be positive.");
+        }
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.heavyHitters = heavyHitters;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given memory limit of the off-heap counting backend.
+     *
+     * @param offHeapMemoryBytes The direct memory in bytes all count tables may use together
+     * @return The modified copy
+     */
+    public ProcessingOptions withOffHeapMemoryBytes(long offHeapMemoryBytes) {
+        if (offHeapMemoryBytes <= 0) {
+            throw new IllegalArgumentException("Off-heap memory must be positive.");
+        }
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.offHeapMemoryBytes = offHeapMemoryBytes;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options spilling the runs of the off-heap counting backend to the given directory.
+     * The directory is created if it does not exist.
+     *
+     * @param spillDirectory The spill directory, or null for the temporary directory
+     * @return The modified copy
+     */
+    public ProcessingOptions withSpillDirectory(Path spillDirectory) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.spillDirectory = spillDirectory;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options tracking the completed files and bytes in the given progress tracker.
+     *
+     * @param progress The progress tracker, or null to disable progress tracking
+     * @return The modified copy
+     */
+    public ProcessingOptions withProgress(ProcessingProgress progress) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.progress = progress;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options recording the counts of every completed file in a checkpoint file.
+     * With resume, the counts and completed files of the checkpoint file are restored and those files are
+     * not processed again; otherwise the checkpoint file is replaced.
+     *
+     * @param checkpointFile The checkpoint file, or null to disable checkpointing
+     * @param resume         true to continue from the checkpoint file if it exists
+     * @return The modified copy
+     */
+    public ProcessingOptions withCheckpoint(Path checkpointFile, boolean resume) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.checkpointFile = checkpointFile;
+        copy.resume = resume;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options caching the counts of every file in the given directory.
+     * Files whose path, size and modification time match a cache entry are not parsed again.
+     *
+     * @param cacheDirectory The cache directory, or null to disable caching
+     * @return The modified copy
+     */
+    public ProcessingOptions withCacheDirectory(Path cacheDirectory) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.cacheDirectory = cacheDirectory;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options recording the parse stage in the given metrics.
+     *
+     * @param metrics The metrics, or null to disable metrics
+     * @return The modified copy
+     */
+    public ProcessingOptions withMetrics(ProcessingMetrics metrics) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.metrics = metrics;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options walking the input directory recursively or not.
+     *
+     * @param recursive true to process subdirectories of the input directory as well
+     * @return The modified copy
+     */
+    public ProcessingOptions withRecursive(boolean recursive) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.recursive = recursive;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given include and exclude glob patterns.
+     * Patterns containing a '/' are matched against the path relative to the input directory,
+     * other patterns against the file name.
+     *
+     * @param includeGlobs The patterns of processed files; empty to process all plain and compressed JSON
+     *                     and NDJSON files
+     * @param excludeGlobs The patterns of skipped files and directories
+     * @return The modified copy
+     */
+    public ProcessingOptions withFileGlobs(List<String> includeGlobs, List<String> excludeGlobs) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.includeGlobs = List.copyOf(includeGlobs);
+        copy.excludeGlobs = List.copyOf(excludeGlobs);
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given bound of pending files.
+     * The directory walk pauses while this many files are queued or being parsed.
+     *
+     * @param maxPendingFiles The maximum number of pending files
+     * @return The modified copy
+     */
+    public ProcessingOptions withMaxPendingFiles(int maxPendingFiles) {
+        if (maxPendingFiles <= 0) {
+            throw new IllegalArgumentException("Maximum number of pending files must be positive.");
+        }
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.maxPendingFiles = maxPendingFiles;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options submitting the files of the input directory in the given order.
+     *
+     * @param fileOrder The file order
+     * @return The modified copy
+     */
+    public ProcessingOptions withFileOrder(FileOrder fileOrder) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.fileOrder = fileOrder;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options reading input files on a separate executor.
+     * Every file, or every byte range of a split file, is read into memory on the read executor
+     * and then parsed on the executor of the {@link JsonProcessor}, at most
+     * {@link #getMaxBufferedReads()} of them at a time. Compressed files and files at the mapping threshold
+     * that are not split are streamed on the executor of the {@link JsonProcessor} instead.
+     *
+     * @param readExecutor The read executor, or null to read files while they are parsed
+     * @return The modified copy
+     * @see ExecutorStrategy#SPLIT
+     */
+    public ProcessingOptions withReadExecutor(ExecutorService readExecutor) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.readExecutor = readExecutor;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given bound of buffered reads.
+     * The read executor waits while this many files or byte ranges are read into memory and not parsed yet,
+     * so reads run ahead of the parse executor without holding a whole split file in memory.
+     *
+     * @param maxBufferedReads The maximum number of buffered reads
+     * @return The modified copy
+     */
+    public ProcessingOptions withMaxBufferedReads(int maxBufferedReads) {
+        if (maxBufferedReads <= 0) {
+            throw new IllegalArgumentException("Maximum number of buffered reads must be positive.");
+        }
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.maxBufferedReads = maxBufferedReads;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options opening input files with the given opener.
+     *
+     * @param inputOpener The input opener
+     * @return The modified copy
+     */
+    ProcessingOptions withInputOpener(InputOpener inputOpener) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.inputOpener = inputOpener;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options parsing JSON files with the given engine.
+     *
+     * @param parserEngine The parser engine
+     * @return The modified copy
+     */
+    public ProcessingOptions withParserEngine(ParserEngine parserEngine) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.parserEngine = parserEngine;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options with the given mapping threshold.
+     * Use {@link Long#MAX_VALUE} to always read files through buffered reads.
+     *
+     * @param mmapThresholdBytes The file size in bytes from which files are memory-mapped
+     * @return The modified copy
+     */
+    public ProcessingOptions withMmapThresholdBytes(long mmapThresholdBytes) {
+        if (mmapThresholdBytes <= 0) {
+            throw new IllegalArgumentException("Mapping threshold must be positive.");
+        }
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.mmapThresholdBytes = mmapThresholdBytes;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options reading input files in the given format.
+     *
+     * @param inputFormat The input format
+     * @return The modified copy
+     */
+    public ProcessingOptions withInputFormat(InputFormat inputFormat) {
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.inputFormat = inputFormat;
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options splitting the values of an attribute at the given delimiter.
+     *
+     * @param attributeName The attribute name
+     * @param delimiter     The delimiter, or {@link ValueDelimiter#NONE} to count whole values
+     * @return The modified copy
+     */
+    public ProcessingOptions withDelimiter(String attributeName, ValueDelimiter delimiter) {
+        Map<String, ValueDelimiter> modified = new HashMap<>(delimiters);
+        modified.put(attributeName, delimiter);
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.delimiters = Map.copyOf(modified);
+        return copy;
+    }
+
+    /**
+     * Returns a copy of these options processing only one shard of the input files.
+     * A file belongs to the shard given by a hash of its path relative to the input directory modulo the number
+     * of shards, so runs over copies of the same directory tree on different machines partition it the same way.
+     *
+     * @param shardIndex The index of the processed shard, from 0 to shardCount - 1
+     * @param shardCount The number of shards
+     * @return The modified copy
+     */
+    public ProcessingOptions withShard(int shardIndex, int shardCount) {
+        if (shardCount <= 0 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard: " + shardIndex + "/" + shardCount);
+        }
+        ProcessingOptions copy = new ProcessingOptions(this);
+        copy.shardIndex = shardIndex;
+        copy.shardCount = shardCount;
+        return copy;
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ProcessingProgress class tracks how many input files and bytes a run has completed, for a periodic
+ * progress line with throughput and the estimated remaining time. The totals are found by a separate scan
+ * of the input, which may still be running while files complete; until it is done, no estimate is given.
+ */
+public class ProcessingProgress {
+    private static final double BYTES_PER_MB = 1024.0 * 1024;
+
+    private final long startNanos = System.nanoTime();
+    private final LongAdder filesCompleted = new LongAdder();
+    private final LongAdder bytesCompleted = new LongAdder();
+    private final LongAdder filesFound = new LongAdder();
+    private final LongAdder bytesFound = new LongAdder();
+    private volatile boolean scanComplete;
+
+    /**
+     * Records a file found by the scan of the input.
+     *
+     * @param bytes The size of the file
+     */
+    public void recordFileFound(long bytes) {
+        filesFound.increment();
+        bytesFound.add(bytes);
+    }
+
+    /**
+     * Records that the scan of the input has found every file, so the totals are known.
+     */
+    public void recordScanComplete() {
+        scanComplete = true;
+    }
+
+    /**
+     * Records a processed file, whether it was parsed successfully or not.
+     *
+     * @param bytes The size of the file
+     */
+    public void recordFileCompleted(long bytes) {
+        filesCompleted.increment();
+        bytesCompleted.add(bytes);
+    }
+
+    /**
+     * Retrieves the number of processed files.
+     *
+     * @return The number of files
+     */
+    public long getFilesCompleted() {
+        return filesCompleted.sum();
+    }
+
+    /**
+     * Retrieves the estimated time until all files are processed, from the throughput in bytes so far.
+     *
+     * @return The remaining seconds, or -1 if the totals are not known yet or nothing was processed
+     */
+    public long getEtaSeconds() {
+        return etaSeconds(bytesCompleted.sum(), elapsedSeconds());
+    }
+
+    /**
+     * Formats a progress line such as
+     * {@code "Progress: 120/1000 files, 1.2 GB/9.8 GB, 35.2 files/s, 48.1 MB/s, ETA 0:12:34"}.
+     *
+     * @return The progress line
+     */
+    public String format() {
+        double seconds = elapsedSeconds();
+        long files = filesCompleted.sum();
+        long bytes = bytesCompleted.sum();
+        long eta = etaSeconds(bytes, seconds);
+        return String.format(Locale.ROOT, "Progress: %d/%s files, %s/%s, %.1f files/s, %.1f MB/s, ETA %s",
+                files,
+                scanComplete ? String.valueOf(filesFound.sum()) : "?",
+                formatBytes(bytes),
+                scanComplete ? formatBytes(bytesFound.sum()) : "?",
+                seconds > 0 ? files / seconds : 0,
+                seconds > 0 ? bytes / BYTES_PER_MB / seconds : 0,
+                eta < 0 ? "?" : String.format(Locale.ROOT, "%d:%02d:%02d", eta / 3600, eta / 60 % 60, eta % 60));
+    }
+
+    private long etaSeconds(long bytes, double seconds) {
+        if (!scanComplete || bytes == 0 || seconds <= 0) {
+            return -1;
+        }
+        long remainingBytes = Math.max(0, bytesFound.sum() - bytes);
+        return (long) Math.ceil(remainingBytes / (bytes / seconds));
+    }
+
+    private double elapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1024L * 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1f GB", bytes / (BYTES_PER_MB * 1024));
+        }
+        return String.format(Locale.ROOT, "%.1f MB", bytes / BYTES_PER_MB);
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The ShardPool class hands out the private shards of the sharded counting backends.
+ * A thread borrows a shard when it first counts and keeps it until {@link #release()} at the end of its task,
+ * so a shard is only used by one thread at a time. Released shards are reused by the next thread that counts,
+ * so the number of shards is bounded by the number of tasks counting at the same time, not by the number
+ * of threads that ever counted, which is unbounded for an executor starting a virtual thread per task.
+ *
+ * @param <S> The type of the shards
+ */
+final class ShardPool<S> implements Iterable<S> {
+    private final Supplier<S> factory;
+    private final Queue<S> shards = new ConcurrentLinkedQueue<>();
+    private final Queue<S> idleShards = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ThreadLocal<S> localShard = new ThreadLocal<>();
+
+    /**
+     * Constructs an empty ShardPool.
+     *
+     * @param factory The supplier of new shards
+     */
+    ShardPool(Supplier<S> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Retrieves the shard of the current thread, borrowing an idle shard or creating one if it has none.
+     *
+     * @return The shard
+     */
+    S get() {
+        S shard = localShard.get();
+        if (shard == null) {
+            shard = idleShards.poll();
+            if (shard == null) {
+                shard = factory.get();
+                shards.add(shard);
+                size.incrementAndGet();
+            }
+            localShard.set(shard);
+        }
+        return shard;
+    }
+
+    /**
+     * Returns the shard of the current thread to the pool, if it has one.
+     */
+    void release() {
+        S shard = localShard.get();
+        if (shard != null) {
+            localShard.remove();
+            idleShards.add(shard);
+        }
+    }
+
+    /**
+     * Retrieves the number of shards created so far.
+     *
+     * @return The number of shards
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Iterates over all shards, whether borrowed or idle.
+     *
+     * @return The iterator
+     */
+    @Override
+    public Iterator<S> iterator() {
+        return shards.iterator();
+    }
+}
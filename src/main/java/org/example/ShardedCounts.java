@@ -0,0 +1,102 @@
+package org.example;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The ShardedCounts class keeps a private, unsynchronized map of attribute value counts for every thread
+ * that counts values, so worker threads never contend with each other. Shards are borrowed from a
+ * {@link ShardPool} and returned by {@link #endTask()}, so their number stays bounded by the number of tasks
+ * counting at the same time. The shards are combined by {@link #complete()} once all workers are done.
+ */
+class ShardedCounts implements ValueCounter {
+    private final Map<String, Map<String, Long>> attributeValueCounts;
+    private final ShardPool<Map<String, Map<String, LongCounter>>> shards = new ShardPool<>(HashMap::new);
+
+    /**
+     * Constructs a ShardedCounts object merging its shards into the specified map.
+     *
+     * @param attributeValueCounts The map to store counts of attribute values
+     */
+    ShardedCounts(Map<String, Map<String, Long>> attributeValueCounts) {
+        this.attributeValueCounts = attributeValueCounts;
+    }
+
+    /**
+     * Increments the count of the value of the attribute in the shard of the current thread.
+     *
+     * @param attributeName The attribute name
+     * @param value         The attribute value
+     */
+    @Override
+    public void increment(String attributeName, String value) {
+        shards.get()
+                .computeIfAbsent(attributeName, k -> new HashMap<>())
+                .computeIfAbsent(value, k -> new LongCounter())
+                .value++;
+    }
+
+    @Override
+    public void add(String attributeName, String value, long count) {
+        shards.get()
+                .computeIfAbsent(attributeName, k -> new HashMap<>())
+                .computeIfAbsent(value, k -> new LongCounter())
+                .value += count;
+    }
+
+    @Override
+    public void endTask() {
+        shards.release();
+    }
+
+    /**
+     * Retrieves the number of shards created so far.
+     *
+     * @return The number of shards
+     */
+    int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Adds the counts of all shards to the map of attribute value counts and empties the shards.
+     * Must only be called when no thread is counting into this object.
+     */
+    @Override
+    public void complete() {
+        for (Map<String, Map<String, LongCounter>> shard : shards) {
+            shard.forEach((attributeName, counts) -> {
+                Map<String, Long> targetCounts = attributeValueCounts.computeIfAbsent(attributeName, k -> new ConcurrentHashMap<>());
+                counts.forEach((value, counter) -> targetCounts.merge(value, counter.value, Long::sum));
+            });
+            shard.clear();
+        }
+    }
+
+    /**
+     * Adds the counts of one attribute of all shards to the map of attribute value counts
+     * and empties them in the shards. Attributes may be completed concurrently,
+     * since every call only reads the shard maps and modifies the counts of its own attribute.
+     *
+     * @param attributeName The attribute name
+     */
+    @Override
+    public void complete(String attributeName) {
+        Map<String, Long> targetCounts = attributeValueCounts.computeIfAbsent(attributeName, k -> new ConcurrentHashMap<>());
+        for (Map<String, Map<String, LongCounter>> shard : shards) {
+            Map<String, LongCounter> counts = shard.get(attributeName);
+            if (counts != null) {
+                counts.forEach((value, counter) -> targetCounts.merge(value, counter.value, Long::sum));
+                counts.clear();
+            }
+        }
+    }
+
+    /**
+     * A mutable primitive counter, allocated once per distinct value of a shard.
+     */
+    private static final class LongCounter {
+        private long value;
+    }
+}
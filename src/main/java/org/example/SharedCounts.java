@@ -0,0 +1,32 @@
+package org.example;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SharedCounts class counts every matched value directly in the shared concurrent map of attribute value counts.
+ */
+class SharedCounts implements ValueCounter {
+    private final Map<String, Map<String, Long>> attributeValueCounts;
+
+    /**
+     * Constructs a SharedCounts object counting into the specified map.
+     *
+     * @param attributeValueCounts The map to store counts of attribute values
+     */
+    SharedCounts(Map<String, Map<String, Long>> attributeValueCounts) {
+        this.attributeValueCounts = attributeValueCounts;
+    }
+
+    @Override
+    public void increment(String attributeName, String value) {
+        attributeValueCounts.computeIfAbsent(attributeName, k -> new ConcurrentHashMap<>())
+                .merge(value, 1L, Long::sum);
+    }
+
+    @Override
+    public void add(String attributeName, String value, long count) {
+        attributeValueCounts.computeIfAbsent(attributeName, k -> new ConcurrentHashMap<>())
+                .merge(value, count, Long::sum);
+    }
+}
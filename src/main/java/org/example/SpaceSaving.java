@@ -0,0 +1,170 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SpaceSaving class tracks the most frequent values of a stream with a fixed number of counters.
+ * Every tracked count overestimates the true count by at most its error.
+ * Counters are kept in a min-heap so the least frequent one is replaced in O(log capacity).
+ * Instances are not thread-safe.
+ */
+class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private final Counter[] heap;
+    private int size;
+
+    /**
+     * Constructs a summary with the specified number of counters.
+     *
+     * @param capacity The maximum number of tracked values
+     */
+    SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(Math.min(capacity, 1 << 16) * 2);
+        this.heap = new Counter[capacity];
+    }
+
+    /**
+     * Counts occurrences of the value.
+     *
+     * @param value The value
+     * @param count The number of occurrences
+     */
+    void add(String value, long count) {
+        add(value, count, 0);
+    }
+
+    /**
+     * Adds the counters of another summary to this summary.
+     * Values missing from a full summary are assumed to have up to its minimum count.
+     *
+     * @param other The summary to merge
+     */
+    void merge(SpaceSaving other) {
+        long thisMin = minCount();
+        long otherMin = other.minCount();
+        Map<String, long[]> merged = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            Counter counter = heap[i];
+            Counter otherCounter = other.counters.get(counter.value);
+            long addedCount = otherCounter != null ? otherCounter.count : otherMin;
+            long addedError = otherCounter != null ? otherCounter.error : otherMin;
+            merged.put(counter.value, new long[]{counter.count + addedCount, counter.error + addedError});
+        }
+        for (int i = 0; i < other.size; i++) {
+            Counter otherCounter = other.heap[i];
+            if (!counters.containsKey(otherCounter.value)) {
+                merged.put(otherCounter.value,
+                        new long[]{otherCounter.count + thisMin, otherCounter.error + thisMin});
+            }
+        }
+
+        counters.clear();
+        size = 0;
+        merged.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+                .limit(capacity)
+                .forEach(entry -> add(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+    }
+
+    /**
+     * Retrieves the tracked values with their counts.
+     *
+     * @return The tracked values in no particular order
+     */
+    List<EstimatedCount> estimates() {
+        List<EstimatedCount> estimates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            estimates.add(new EstimatedCount(heap[i].value, heap[i].count, heap[i].error));
+        }
+        return estimates;
+    }
+
+    /**
+     * Retrieves the smallest count a value must exceed to be tracked.
+     *
+     * @return The minimum count of a full summary, or 0 if the summary is not full
+     */
+    long minCount() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    private void add(String value, long count, long error) {
+        Counter counter = counters.get(value);
+        if (counter != null) {
+            counter.count += count;
+            counter.error += error;
+            siftDown(counter.heapIndex);
+        } else if (size < capacity) {
+            counter = new Counter(value, count, error);
+            counters.put(value, counter);
+            heap[size] = counter;
+            counter.heapIndex = size++;
+            siftUp(counter.heapIndex);
+        } else {
+            counter = heap[0];
+            counters.remove(counter.value);
+            counter.error = counter.count + error;
+            counter.count += count;
+            counter.value = value;
+            counters.put(value, counter);
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.heapIndex = index;
+    }
+
+    private static final class Counter {
+        private String value;
+        private long count;
+        private long error;
+        private int heapIndex;
+
+        private Counter(String value, long count, long error) {
+            this.value = value;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
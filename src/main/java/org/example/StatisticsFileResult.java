@@ -0,0 +1,15 @@
+package org.example;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of writing the statistics file of one attribute.
+ *
+ * @param attributeName The attribute name
+ * @param file          The written statistics file
+ * @param entries       The number of value entries written, not counting the summary of omitted values
+ * @param bytes         The size of the file in bytes
+ * @param elapsedNanos  The time spent sorting and writing the file
+ */
+public record StatisticsFileResult(String attributeName, Path file, long entries, long bytes, long elapsedNanos) {
+}
@@ -0,0 +1,247 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The StatisticsOutputBuffer class appends the fragments of a statistics file into a reusable byte buffer
+ * and writes the buffer to a FileChannel whenever it fills up.
+ * Text values are encoded as UTF-8, optionally XML-escaped, and numbers are formatted in place,
+ * without intermediate Strings.
+ */
+class StatisticsOutputBuffer implements Closeable {
+    private static final byte[] AMP = "&amp;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LT = "&lt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GT = "&gt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel channel;
+    private final byte[] buffer;
+    private final ByteBuffer byteBuffer;
+    private int position;
+    private long bytesWritten;
+
+    /**
+     * Creates or truncates the file and allocates a buffer of the specified size.
+     *
+     * @param filePath   The path to the output file
+     * @param bufferSize The buffer size in bytes, at least 32
+     * @throws IOException If the file cannot be opened
+     */
+    StatisticsOutputBuffer(Path filePath, int bufferSize) throws IOException {
+        this.buffer = new byte[bufferSize];
+        this.byteBuffer = ByteBuffer.wrap(buffer);
+        this.channel = FileChannel.open(filePath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Appends raw bytes, typically a precomputed markup fragment.
+     *
+     * @param bytes The bytes to append
+     * @return This buffer
+     * @throws IOException If an I/O error occurs while flushing the buffer
+     */
+    StatisticsOutputBuffer append(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flush();
+            if (bytes.length > buffer.length) {
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+                bytesWritten += bytes.length;
+                return this;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+        return this;
+    }
+
+    /**
+     * Appends a text value encoded as UTF-8, escaping {@code &}, {@code <} and {@code >}.
+     *
+     * @param text The text to append
+     * @return This buffer
+     * @throws IOException If an I/O error occurs while flushing the buffer
+     */
+    StatisticsOutputBuffer appendEscaped(String text) throws IOException {
+        return appendText(text, true);
+    }
+
+    /**
+     * Appends a text value encoded as UTF-8 without escaping. Unpaired surrogates are encoded as '?'.
+     *
+     * @param text The text to append
+     * @return This buffer
+     * @throws IOException If an I/O error occurs while flushing the buffer
+     */
+    StatisticsOutputBuffer appendUtf8(String text) throws IOException {
+        return appendText(text, false);
+    }
+
+    private StatisticsOutputBuffer appendText(String text, boolean escapeXml) throws IOException {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (buffer.length - position < 4) {
+                flush();
+            }
+            if (c < 0x80 && !escapeXml) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x80) {
+                switch (c) {
+                    case '&' -> append(AMP);
+                    case '<' -> append(LT);
+                    case '>' -> append(GT);
+                    default -> buffer[position++] = (byte) c;
+                }
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends the decimal representation of a number.
+     *
+     * @param number The number to append
+     * @return This buffer
+     * @throws IOException If an I/O error occurs while flushing the buffer
+     */
+    StatisticsOutputBuffer append(long number) throws IOException {
+        if (number == Long.MIN_VALUE) {
+            return append(MIN_LONG);
+        }
+        if (buffer.length - position < 20) {
+            flush();
+        }
+        if (number < 0) {
+            buffer[position++] = '-';
+            number = -number;
+        }
+        int digits = 1;
+        for (long rest = number / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + number % 10);
+            number /= 10;
+        }
+        position += digits;
+        return this;
+    }
+
+    /**
+     * Appends a number as 4 bytes in big-endian order.
+     *
+     * @param number The number to append
+     * @return This buffer
+     * @throws IOException If an I/O error occurs while flushing the buffer
+     */
+    StatisticsOutputBuffer appendBinary(int number) throws IOException {
+        if (buffer.length - position < Integer.BYTES) {
+            flush();
+        }
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (number >>> shift);
+        }
+        return this;
+    }
+
+    /**
+     * Appends a number as 8 bytes in big-endian order.
+     *
+     * @param number The number to append
+     * @return This buffer
+     * @throws IOException If an I/O error occurs while flushing the buffer
+     */
+    StatisticsOutputBuffer appendBinary(long number) throws IOException {
+        if (buffer.length - position < Long.BYTES) {
+            flush();
+        }
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (number >>> shift);
+        }
+        return this;
+    }
+
+    /**
+     * Computes the number of bytes {@link #appendUtf8(String)} appends for a text value.
+     *
+     * @param text The text value
+     * @return The length of the UTF-8 encoding
+     */
+    static int utf8Length(String text) {
+        int length = text.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Retrieves the number of bytes appended so far.
+     *
+     * @return The number of bytes appended
+     */
+    long size() {
+        return bytesWritten + position;
+    }
+
+    /**
+     * Writes the buffered bytes to the file channel.
+     *
+     * @throws IOException If an I/O error occurs while writing
+     */
+    void flush() throws IOException {
+        byteBuffer.clear().limit(position);
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        bytesWritten += position;
+        position = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
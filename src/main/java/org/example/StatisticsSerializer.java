@@ -0,0 +1,123 @@
+package org.example;
+
+import org.example.TopEntriesSelector.TopEntries;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * The StatisticsSerializer interface writes the statistics file of one attribute in a particular format.
+ * {@link XMLWriter} sorts the counts and calls the serializer of its output options for every attribute,
+ * so serializers may be called concurrently for different files.
+ *
+ * <p>The built-in serializers are {@code xml}, {@code csv}, {@code json}, {@code binary} and
+ * {@code binary-sorted}. Further serializers are found by {@link #forName(String)} with a {@link ServiceLoader},
+ * when their implementation is listed in {@code META-INF/services/org.example.StatisticsSerializer}.
+ */
+public interface StatisticsSerializer {
+
+    /**
+     * Retrieves the name selecting this serializer, for example on the command line.
+     *
+     * @return The name
+     */
+    String name();
+
+    /**
+     * Retrieves the extension of the statistics files, without the leading dot.
+     *
+     * @return The file extension
+     */
+    String fileExtension();
+
+    /**
+     * Writes the counts of one attribute to a file, creating or truncating it.
+     *
+     * @param file            The file to write
+     * @param sortedData      The entries ordered by count in descending order and the summary of omitted entries
+     * @param bufferSizeBytes The suggested output buffer size in bytes
+     * @return The number of bytes written
+     * @throws IOException If an I/O error occurs while writing the file
+     */
+    long writeCounts(Path file, TopEntries sortedData, int bufferSizeBytes) throws IOException;
+
+    /**
+     * Writes the counts of one attribute that are streamed in output order, creating or truncating the file.
+     * {@link XMLWriter} uses this for attributes sorted by an external merge sort, whose entries do not fit
+     * in memory at once. By default the entries are collected and written by {@link #writeCounts(Path, TopEntries, int)}.
+     *
+     * @param file            The file to write
+     * @param entries         The entries ordered by count in descending order; iterating them may throw
+     *                        {@link java.io.UncheckedIOException}
+     * @param entryCount      The number of entries
+     * @param bufferSizeBytes The suggested output buffer size in bytes
+     * @return The number of bytes written
+     * @throws IOException If an I/O error occurs while writing the file
+     */
+    default long writeCounts(Path file, Iterator<Map.Entry<String, Long>> entries, long entryCount,
+                             int bufferSizeBytes) throws IOException {
+        List<Map.Entry<String, Long>> collected = new ArrayList<>();
+        entries.forEachRemaining(collected::add);
+        return writeCounts(file, new TopEntries(collected, 0, 0), bufferSizeBytes);
+    }
+
+    /**
+     * Writes the estimated counts of one attribute with their error bounds to a file, creating or truncating it.
+     * By default the error bounds are dropped and the counts are written by {@link #writeCounts}.
+     *
+     * @param file            The file to write
+     * @param estimates       The estimated counts in output order
+     * @param bufferSizeBytes The suggested output buffer size in bytes
+     * @return The number of bytes written
+     * @throws IOException If an I/O error occurs while writing the file
+     */
+    default long writeEstimates(Path file, List<EstimatedCount> estimates, int bufferSizeBytes) throws IOException {
+        List<Map.Entry<String, Long>> entries = estimates.stream()
+                .map(estimate -> Map.entry(estimate.value(), estimate.count()))
+                .toList();
+        return writeCounts(file, new TopEntries(entries, 0, 0), bufferSizeBytes);
+    }
+
+    /**
+     * Retrieves the default serializer, which writes XML.
+     *
+     * @return The XML serializer
+     */
+    static StatisticsSerializer xml() {
+        return XmlStatisticsSerializer.INSTANCE;
+    }
+
+    /**
+     * Retrieves a built-in serializer or a serializer provided through the {@link ServiceLoader} by its name.
+     *
+     * @param name The name of the serializer, ignoring case
+     * @return The serializer
+     * @throws IllegalArgumentException If no serializer has that name
+     */
+    static StatisticsSerializer forName(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        StatisticsSerializer builtIn = switch (normalized) {
+            case "xml" -> XmlStatisticsSerializer.INSTANCE;
+            case "csv" -> CsvStatisticsSerializer.INSTANCE;
+            case "json" -> JsonStatisticsSerializer.INSTANCE;
+            case "binary" -> BinaryStatisticsSerializer.BY_COUNT;
+            case "binary-sorted" -> BinaryStatisticsSerializer.BY_VALUE;
+            default -> null;
+        };
+        if (builtIn != null) {
+            return builtIn;
+        }
+        for (StatisticsSerializer serializer : ServiceLoader.load(StatisticsSerializer.class)) {
+            if (serializer.name().equalsIgnoreCase(normalized)) {
+                return serializer;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format: " + name);
+    }
+}
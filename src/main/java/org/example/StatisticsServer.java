@@ -0,0 +1,374 @@
+package org.example;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The StatisticsServer class keeps a warm JVM that runs aggregation jobs submitted over HTTP on the loopback interface.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *     <li>{@code POST /jobs} submits a job given as {@code {"directory": ..., "attributes": [...], "options": {...}}},
+ *     where options are the command-line flags without the leading dashes. Add {@code ?wait=true} to respond
+ *     once the job has finished.</li>
+ *     <li>{@code GET /jobs} lists all jobs, {@code GET /jobs/<id>} returns a single job
+ *     with the size and write time of every statistics file.</li>
+ *     <li>{@code POST /shutdown} finishes the running and queued jobs and stops the server.</li>
+ * </ul>
+ * Every job counts into its own maps. Jobs without an "output" option write to {@code jobs/<id>},
+ * so concurrent jobs never overwrite each other's statistics files.
+ *
+ * <p>Queued and running jobs are always listed. Of the finished jobs, only the most recent ones are kept
+ * (1000 by default), so a long-running server does not grow with every job it has run; the statistics files
+ * of forgotten jobs stay on disk.
+ */
+public class StatisticsServer {
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 3600;
+    private static final int DEFAULT_MAX_FINISHED_JOBS = 1000;
+
+    private final HttpServer httpServer;
+    private final ExecutorService jobExecutor;
+    private final ExecutorService requestExecutor = Executors.newCachedThreadPool();
+    private final JobRunner jobRunner;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Deque<String> finishedJobIds = new ArrayDeque<>();
+    private final int maxFinishedJobs;
+    private final AtomicLong nextJobId = new AtomicLong(1);
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean accepting = true;
+
+    /**
+     * Constructs a StatisticsServer object bound to the specified port of the loopback interface.
+     *
+     * @param port              The port, or 0 to pick a free port
+     * @param maxConcurrentJobs The number of jobs running at the same time; further jobs are queued
+     * @param jobRunner         The runner executing a single job
+     * @throws IOException If the port cannot be bound
+     */
+    public StatisticsServer(int port, int maxConcurrentJobs, JobRunner jobRunner) throws IOException {
+        this(port, maxConcurrentJobs, DEFAULT_MAX_FINISHED_JOBS, jobRunner);
+    }
+
+    /**
+     * Constructs a StatisticsServer object bound to the specified port of the loopback interface,
+     * keeping the specified number of finished jobs.
+     *
+     * @param port              The port, or 0 to pick a free port
+     * @param maxConcurrentJobs The number of jobs running at the same time; further jobs are queued
+     * @param maxFinishedJobs   The number of finished jobs kept; older finished jobs are forgotten
+     * @param jobRunner         The runner executing a single job
+     * @throws IOException If the port cannot be bound
+     */
+    public StatisticsServer(int port, int maxConcurrentJobs, int maxFinishedJobs, JobRunner jobRunner)
+            throws IOException {
+        if (maxConcurrentJobs <= 0) {
+            throw new IllegalArgumentException("Number of concurrent jobs must be positive.");
+        }
+        if (maxFinishedJobs <= 0) {
+            throw new IllegalArgumentException("Number of finished jobs must be positive.");
+        }
+        this.maxFinishedJobs = maxFinishedJobs;
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.jobExecutor = Executors.newFixedThreadPool(maxConcurrentJobs);
+        this.jobRunner = jobRunner;
+        httpServer.createContext("/jobs", this::handleJobs);
+        httpServer.createContext("/shutdown", this::handleShutdown);
+        httpServer.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * Retrieves the port the server is bound to.
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting jobs, waits for the running and queued jobs to finish and stops the server.
+     *
+     * @throws InterruptedException If interrupted while waiting for the jobs
+     */
+    public void stop() throws InterruptedException {
+        accepting = false;
+        jobExecutor.shutdown();
+        try {
+            jobExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } finally {
+            httpServer.stop(0);
+            requestExecutor.shutdown();
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Blocks until the server is stopped, either by {@link #stop()} or by a shutdown request.
+     *
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void awaitShutdown() throws InterruptedException {
+        stopped.await();
+    }
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals("/jobs") || path.equals("/jobs/")) {
+                switch (method) {
+                    case "POST" -> submitJob(exchange);
+                    case "GET" -> respond(exchange, 200, jobs.values().stream()
+                            .sorted(Comparator.comparingLong(job -> job.number))
+                            .map(Job::toStatus)
+                            .toList());
+                    default -> respondError(exchange, 405, "Method not allowed.");
+                }
+                return;
+            }
+            Job job = jobs.get(path.substring("/jobs/".length()));
+            if (job == null) {
+                respondError(exchange, 404, "Unknown job.");
+            } else if (!method.equals("GET")) {
+                respondError(exchange, 405, "Method not allowed.");
+            } else {
+                respond(exchange, 200, job.toStatus());
+            }
+        }
+    }
+
+    private void submitJob(HttpExchange exchange) throws IOException {
+        JobRequest request;
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            request = GSON.fromJson(reader, JobRequest.class);
+        } catch (JsonParseException e) {
+            respondError(exchange, 400, "Invalid job request: " + e.getMessage());
+            return;
+        }
+        if (request == null || request.directory == null || request.attributes == null || request.attributes.isEmpty()
+                || request.attributes.contains(null)) {
+            respondError(exchange, 400, "A job needs a directory and at least one attribute.");
+            return;
+        }
+        Path directory;
+        try {
+            directory = Path.of(request.directory);
+        } catch (InvalidPathException e) {
+            respondError(exchange, 400, "Invalid directory: " + e.getMessage());
+            return;
+        }
+        Map<String, String> options = request.options == null ? new HashMap<>() : new HashMap<>(request.options);
+        if (options.containsKey(null) || options.containsValue(null)) {
+            respondError(exchange, 400, "Every option needs a value.");
+            return;
+        }
+        if (options.containsKey("executor") || options.containsKey("serve")) {
+            respondError(exchange, 400, "The executor is configured when the server starts.");
+            return;
+        }
+
+        long number = nextJobId.getAndIncrement();
+        String id = String.valueOf(number);
+        options.putIfAbsent("output", Path.of("jobs", id).toString());
+        Job job = new Job(number, id, directory, List.copyOf(request.attributes), Map.copyOf(options));
+        try {
+            if (!accepting) {
+                throw new RejectedExecutionException();
+            }
+            jobs.put(id, job);
+            jobExecutor.execute(() -> {
+                job.run(jobRunner);
+                retire(job);
+            });
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            respondError(exchange, 503, "The server is shutting down.");
+            return;
+        }
+
+        if ("wait=true".equals(exchange.getRequestURI().getQuery())) {
+            job.completion.join();
+            respond(exchange, 200, job.toStatus());
+        } else {
+            respond(exchange, 202, job.toStatus());
+        }
+    }
+
+    /**
+     * Records a finished job and forgets the oldest finished jobs beyond the limit.
+     *
+     * @param job The finished job
+     */
+    private synchronized void retire(Job job) {
+        finishedJobIds.addLast(job.id);
+        while (finishedJobIds.size() > maxFinishedJobs) {
+            jobs.remove(finishedJobIds.removeFirst());
+        }
+    }
+
+    private void handleShutdown(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respondError(exchange, 405, "Method not allowed.");
+                return;
+            }
+            accepting = false;
+            respond(exchange, 202, Map.of("status", "SHUTTING_DOWN"));
+        }
+        Thread stopper = new Thread(() -> {
+            try {
+                stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "statistics-server-shutdown");
+        stopper.start();
+    }
+
+    private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, Map.of("error", message));
+    }
+
+    private static void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = GSON.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    /**
+     * Runs a single aggregation job.
+     */
+    @FunctionalInterface
+    public interface JobRunner {
+
+        /**
+         * Counts the attribute values of the directory and writes the statistics files.
+         *
+         * @param directoryPath  The directory containing JSON files
+         * @param attributeNames The attribute names to count
+         * @param options        The command-line flags of the job, without the leading dashes
+         * @return The results of the written statistics files
+         * @throws IOException If the job fails
+         */
+        List<StatisticsFileResult> run(Path directoryPath, List<String> attributeNames, Map<String, String> options)
+                throws IOException;
+    }
+
+    /**
+     * The body of a job submission.
+     */
+    private static final class JobRequest {
+        private String directory;
+        private List<String> attributes;
+        private Map<String, String> options;
+    }
+
+    /**
+     * The state of a job as returned by the API.
+     */
+    private record JobStatus(String id, String status, String directory, List<String> attributes,
+                             Map<String, String> options, String submittedAt, String startedAt,
+                             String finishedAt, Long elapsedMillis, List<OutputFile> outputFiles, String error) {
+    }
+
+    /**
+     * A statistics file written by a job.
+     */
+    private record OutputFile(String attribute, String file, long entries, long bytes, long elapsedMillis) {
+
+        private static OutputFile of(StatisticsFileResult result) {
+            return new OutputFile(result.attributeName(), result.file().toString(), result.entries(),
+                    result.bytes(), TimeUnit.NANOSECONDS.toMillis(result.elapsedNanos()));
+        }
+    }
+
+    /**
+     * A submitted job and its progress.
+     */
+    private static final class Job {
+        private final long number;
+        private final String id;
+        private final Path directory;
+        private final List<String> attributes;
+        private final Map<String, String> options;
+        private final Instant submittedAt = Instant.now();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private volatile String status = "QUEUED";
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile List<OutputFile> outputFiles = List.of();
+        private volatile String error;
+
+        private Job(long number, String id, Path directory, List<String> attributes, Map<String, String> options) {
+            this.number = number;
+            this.id = id;
+            this.directory = directory;
+            this.attributes = attributes;
+            this.options = options;
+        }
+
+        private void run(JobRunner jobRunner) {
+            startedAt = Instant.now();
+            status = "RUNNING";
+            try {
+                outputFiles = jobRunner.run(directory, attributes, options).stream().map(OutputFile::of).toList();
+                status = "SUCCEEDED";
+            } catch (IOException | RuntimeException e) {
+                error = e.getMessage();
+                status = "FAILED";
+            } finally {
+                finishedAt = Instant.now();
+                completion.complete(null);
+            }
+        }
+
+        private JobStatus toStatus() {
+            Instant started = startedAt;
+            Instant finished = finishedAt;
+            return new JobStatus(id, status, directory.toString(), attributes, options, submittedAt.toString(),
+                    started == null ? null : started.toString(),
+                    finished == null ? null : finished.toString(),
+                    started == null || finished == null ? null : Duration.between(started, finished).toMillis(),
+                    outputFiles, error);
+        }
+    }
+}
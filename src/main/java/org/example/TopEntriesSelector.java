@@ -0,0 +1,106 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The TopEntriesSelector class selects the entries with the highest counts from a map of value counts
+ * using a heap bounded by the number of requested entries.
+ */
+public final class TopEntriesSelector {
+    /**
+     * Orders entries by count in descending order; entries with equal counts are ordered by value.
+     */
+    public static final Comparator<Map.Entry<String, Long>> BY_COUNT_DESCENDING =
+            Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey());
+
+    private TopEntriesSelector() {
+    }
+
+    /**
+     * Selects the {@code limit} entries with the highest counts in O(n log limit) time.
+     *
+     * @param valueCounts The map of value counts
+     * @param limit       The maximum number of entries to select
+     * @return The selected entries ordered by {@link #BY_COUNT_DESCENDING} and the summed count of the rest
+     */
+    public static TopEntries select(Map<String, Long> valueCounts, int limit) {
+        Selection selection = new Selection(limit);
+        for (Map.Entry<String, Long> entry : valueCounts.entrySet()) {
+            selection.add(entry.getKey(), entry.getValue());
+        }
+        return selection.result();
+    }
+
+    /**
+     * Selects the entries with the highest counts from counts passed one at a time,
+     * for counts that are not held in a map.
+     */
+    static final class Selection {
+        private static final Comparator<Map.Entry<String, Long>> HEAP_ORDER = BY_COUNT_DESCENDING.reversed();
+
+        private final int limit;
+        private final PriorityQueue<Map.Entry<String, Long>> heap;
+        private long othersCount;
+        private long othersValues;
+
+        /**
+         * Constructs an empty Selection.
+         *
+         * @param limit The maximum number of entries to select
+         */
+        Selection(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit must not be negative.");
+            }
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, HEAP_ORDER);
+        }
+
+        /**
+         * Adds the count of a value; every value must be added once.
+         *
+         * @param value The value
+         * @param count The count of the value
+         */
+        void add(String value, long count) {
+            Map.Entry<String, Long> entry = Map.entry(value, count);
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (limit > 0 && HEAP_ORDER.compare(entry, heap.peek()) > 0) {
+                Map.Entry<String, Long> evicted = heap.poll();
+                othersCount += evicted.getValue();
+                othersValues++;
+                heap.add(entry);
+            } else {
+                othersCount += count;
+                othersValues++;
+            }
+        }
+
+        /**
+         * Retrieves the selected entries.
+         *
+         * @return The selected entries ordered by {@link #BY_COUNT_DESCENDING} and the summed count of the rest
+         */
+        TopEntries result() {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(heap);
+            entries.sort(BY_COUNT_DESCENDING);
+            return new TopEntries(entries, othersValues, othersCount);
+        }
+    }
+
+    /**
+     * The result of a top entries selection.
+     *
+     * @param entries      The selected entries, ordered by count in descending order
+     * @param othersValues The number of values that were not selected
+     * @param othersCount  The summed count of the values that were not selected
+     */
+    public record TopEntries(List<Map.Entry<String, Long>> entries, long othersValues, long othersCount) {
+    }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The ValueCounter interface is the counting backend used by {@link JsonProcessor} for matched attribute values.
+ * Implementations must accept increments from many threads at once.
+ */
+interface ValueCounter {
+
+    /**
+     * Counts one occurrence of the value of the attribute.
+     *
+     * @param attributeName The attribute name
+     * @param value         The attribute value
+     */
+    void increment(String attributeName, String value);
+
+    /**
+     * Counts several occurrences of the value of the attribute at once.
+     *
+     * @param attributeName The attribute name
+     * @param value         The attribute value
+     * @param count         The number of occurrences
+     */
+    void add(String attributeName, String value, long count);
+
+    /**
+     * Counts one occurrence of the part of a String between two indexes.
+     * By default the part is passed on as a substring, or as the String itself if it spans all of it.
+     *
+     * @param attributeName The attribute name
+     * @param value         The String holding the value
+     * @param start         The index of the first character of the value
+     * @param end           The index after the last character of the value
+     */
+    default void increment(String attributeName, String value, int start, int end) {
+        increment(attributeName, start == 0 && end == value.length() ? value : value.substring(start, end));
+    }
+
+    /**
+     * Counts one occurrence of a value given as UTF-8 bytes, for example straight from a read buffer.
+     * The bytes are only read during the call; by default they are decoded to a String.
+     *
+     * @param attributeName The attribute name
+     * @param utf8          The array holding the UTF-8 encoded value
+     * @param start         The offset of the first byte of the value
+     * @param length        The number of bytes of the value
+     */
+    default void increment(String attributeName, byte[] utf8, int start, int length) {
+        increment(attributeName, new String(utf8, start, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ends the counting of the current thread at the end of a parse task. Backends with per-thread state,
+     * such as a shard, hand it back here, so the next task of any thread reuses it.
+     * Counting may continue afterwards; the thread then borrows state again.
+     */
+    default void endTask() {
+    }
+
+    /**
+     * Publishes the counts once no thread increments anymore, e.g. by merging per-thread state.
+     */
+    default void complete() {
+    }
+
+    /**
+     * Publishes the counts of one attribute once no thread increments anymore.
+     * Calls for different attributes may run concurrently, but not together with {@link #complete()}.
+     *
+     * @param attributeName The attribute name
+     */
+    default void complete(String attributeName) {
+    }
+}
@@ -0,0 +1,42 @@
+package org.example;
+
+/**
+ * The ValueDelimiter enum defines the separator between several values within one attribute value,
+ * such as {@code "Dystopian, Political Fiction"}. Every part is trimmed of surrounding whitespace.
+ */
+public enum ValueDelimiter {
+    /**
+     * Parts are separated by ','.
+     */
+    COMMA(','),
+
+    /**
+     * Parts are separated by ';'.
+     */
+    SEMICOLON(';'),
+
+    /**
+     * Parts are separated by '|'.
+     */
+    PIPE('|'),
+
+    /**
+     * The whole value is a single part.
+     */
+    NONE('\0');
+
+    private final char separator;
+
+    ValueDelimiter(char separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * Retrieves the separator character.
+     *
+     * @return The separator; not used for {@link #NONE}
+     */
+    char separator() {
+        return separator;
+    }
+}
@@ -0,0 +1,160 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The ValueDictionary class assigns compact integer IDs, starting at 0, to distinct values given as UTF-8 bytes.
+ *
+ * <p>Values are looked up directly in a byte range, for example in a read buffer, with open addressing
+ * over an array of IDs. The bytes of every distinct value are copied once into a shared arena,
+ * so a lookup of a known value allocates nothing. Values are only decoded to Strings by {@link #value(int)}.
+ *
+ * <p>A dictionary is not thread-safe.
+ */
+final class ValueDictionary {
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] slots;
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] offsets = new int[INITIAL_CAPACITY + 1];
+    private byte[] arena = new byte[INITIAL_CAPACITY * 16];
+    private int size;
+
+    /**
+     * Constructs an empty ValueDictionary.
+     */
+    ValueDictionary() {
+        slots = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * Retrieves the ID of a value, adding the value if it is not in the dictionary yet.
+     *
+     * @param bytes  The array holding the UTF-8 encoded value
+     * @param start  The offset of the first byte of the value
+     * @param length The number of bytes of the value
+     * @return The ID of the value
+     */
+    int intern(byte[] bytes, int start, int length) {
+        int hash = hash(bytes, start, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (id == EMPTY) {
+                id = add(bytes, start, length, hash);
+                slots[slot] = id;
+                if (size * 4 > slots.length * 3) {
+                    rehash();
+                }
+                return id;
+            }
+            if (hashes[id] == hash && Arrays.equals(arena, offsets[id], offsets[id + 1], bytes, start, start + length)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of distinct values.
+     *
+     * @return The number of values, which is one more than the highest ID
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Decodes a value.
+     *
+     * @param id The ID of the value
+     * @return The value
+     */
+    String value(int id) {
+        return new String(arena, offsets[id], offsets[id + 1] - offsets[id], StandardCharsets.UTF_8);
+    }
+
+    private int add(byte[] bytes, int start, int length, int hash) {
+        int id = size++;
+        if (id == hashes.length) {
+            hashes = Arrays.copyOf(hashes, id * 2);
+            offsets = Arrays.copyOf(offsets, id * 2 + 1);
+        }
+        int offset = offsets[id];
+        if (offset + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, offset + length));
+        }
+        System.arraycopy(bytes, start, arena, offset, length);
+        offsets[id + 1] = offset + length;
+        hashes[id] = hash;
+        return id;
+    }
+
+    private void rehash() {
+        int[] newSlots = new int[slots.length * 2];
+        Arrays.fill(newSlots, EMPTY);
+        int mask = newSlots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (newSlots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            newSlots[slot] = id;
+        }
+        slots = newSlots;
+    }
+
+    /**
+     * Hashes a byte range; equal ranges have equal hashes.
+     *
+     * @param bytes  The array holding the bytes
+     * @param start  The offset of the first byte
+     * @param length The number of bytes
+     * @return The hash
+     */
+    static int hash(byte[] bytes, int start, int length) {
+        int hash = 1;
+        for (int i = start, end = start + length; i < end; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Encodes the part of a String between two indexes as UTF-8. Unpaired surrogates are encoded as '?'.
+     *
+     * @param value  The String holding the value
+     * @param start  The index of the first character of the value
+     * @param end    The index after the last character of the value
+     * @param target The array receiving the bytes, at least three times as long as the part
+     * @return The number of bytes written
+     */
+    static int encode(String value, int start, int end, byte[] target) {
+        int position = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                target[position++] = (byte) c;
+            } else if (c < 0x800) {
+                target[position++] = (byte) (0xC0 | (c >> 6));
+                target[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                target[position++] = (byte) (0xF0 | (codePoint >> 18));
+                target[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                target[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                target[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                target[position++] = '?';
+            } else {
+                target[position++] = (byte) (0xE0 | (c >> 12));
+                target[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                target[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,105 @@
+package org.example;
+
+/**
+ * The ValueSplitter class splits attribute values at their delimiter and trims every part by index,
+ * passing the parts straight to a {@link ValueCounter} without intermediate arrays, Streams or Strings.
+ *
+ * <p>Parts are the same as those of {@code String.split} followed by {@code String.trim}: empty parts are counted,
+ * except trailing ones. The delimiters and the trimmed whitespace are single bytes in UTF-8,
+ * so byte ranges are split the same way as Strings, without decoding.
+ */
+final class ValueSplitter {
+
+    private ValueSplitter() {
+    }
+
+    /**
+     * Counts the parts of a value.
+     *
+     * @param attributeName The attribute name
+     * @param value         The value
+     * @param delimiter     The delimiter separating the parts
+     * @param counter       The counter receiving the parts
+     */
+    static void split(String attributeName, String value, ValueDelimiter delimiter, ValueCounter counter) {
+        int end = value.length();
+        if (delimiter == ValueDelimiter.NONE) {
+            countTrimmed(attributeName, value, 0, end, counter);
+            return;
+        }
+        char separator = delimiter.separator();
+        // empty parts are only counted once a non-empty part follows, since trailing empty parts are dropped
+        int pendingEmptyParts = 0;
+        int partStart = 0;
+        for (int i = 0; i <= end; i++) {
+            if (i < end && value.charAt(i) != separator) {
+                continue;
+            }
+            if (i == partStart) {
+                pendingEmptyParts++;
+            } else {
+                for (; pendingEmptyParts > 0; pendingEmptyParts--) {
+                    counter.increment(attributeName, value, partStart, partStart);
+                }
+                countTrimmed(attributeName, value, partStart, i, counter);
+            }
+            partStart = i + 1;
+        }
+    }
+
+    /**
+     * Counts the parts of a value given as UTF-8 bytes.
+     *
+     * @param attributeName The attribute name
+     * @param utf8          The array holding the value
+     * @param start         The offset of the first byte of the value
+     * @param length        The number of bytes of the value
+     * @param delimiter     The delimiter separating the parts
+     * @param counter       The counter receiving the parts
+     */
+    static void split(String attributeName, byte[] utf8, int start, int length, ValueDelimiter delimiter,
+                      ValueCounter counter) {
+        int end = start + length;
+        if (delimiter == ValueDelimiter.NONE) {
+            countTrimmed(attributeName, utf8, start, end, counter);
+            return;
+        }
+        byte separator = (byte) delimiter.separator();
+        int pendingEmptyParts = 0;
+        int partStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i < end && utf8[i] != separator) {
+                continue;
+            }
+            if (i == partStart) {
+                pendingEmptyParts++;
+            } else {
+                for (; pendingEmptyParts > 0; pendingEmptyParts--) {
+                    counter.increment(attributeName, utf8, partStart, 0);
+                }
+                countTrimmed(attributeName, utf8, partStart, i, counter);
+            }
+            partStart = i + 1;
+        }
+    }
+
+    private static void countTrimmed(String attributeName, String value, int start, int end, ValueCounter counter) {
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        counter.increment(attributeName, value, start, end);
+    }
+
+    private static void countTrimmed(String attributeName, byte[] utf8, int start, int end, ValueCounter counter) {
+        while (start < end && (utf8[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (utf8[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        counter.increment(attributeName, utf8, start, end - start);
+    }
+}
@@ -1,19 +1,25 @@
 package org.example;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import org.example.TopEntriesSelector.TopEntries;
+
 import java.io.IOException;
-import java.util.Comparator;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 
 /**
- * The XMLWriter class is responsible for generating XML statistics files based on attribute value counts.
+ * The XMLWriter class is responsible for generating statistics files based on attribute value counts.
+ * It sorts the counts of every attribute and writes them with the {@link StatisticsSerializer} of its output options,
+ * XML by default.
  */
 public class XMLWriter {
-    private static final int BUFFER_SIZE_IN_CHARS = 125;
     private final ExecutorService executorService;
+    private final OutputOptions options;
 
     /**
      * Constructs an XMLWriter object with the specified ExecutorService.
@@ -21,52 +27,258 @@ public class XMLWriter {
      * @param executorService The ExecutorService for concurrent writing operations
      */
     public XMLWriter(ExecutorService executorService) {
+        this(executorService, OutputOptions.defaults());
+    }
+
+    /**
+     * Constructs an XMLWriter object with the specified ExecutorService and output options.
+     *
+     * @param executorService The ExecutorService for concurrent writing operations
+     * @param options         The output options
+     */
+    public XMLWriter(ExecutorService executorService, OutputOptions options) {
         this.executorService = executorService;
+        this.options = options;
+    }
+
+    /**
+     * Generates a statistics file for each attribute based on the provided attribute value counts.
+     * The number of entries per file is limited by the top N setting of the output options.
+     *
+     * @param attributeValueCounts The map containing attribute value counts
+     * @return A CompletableFuture with one result per written file, completed exceptionally if any file fails
+     */
+    public CompletableFuture<List<StatisticsFileResult>> generateStatisticsFile(
+            Map<String, Map<String, Long>> attributeValueCounts) {
+        return generateStatisticsFile(attributeValueCounts, options.getTopN());
     }
 
     /**
-     * Generates an XML statistics file for each attribute based on the provided attribute value counts.
+     * Generates a statistics file for each attribute with only the entries with the highest counts.
+     * The remaining entries are summarized, in XML by a trailing {@code <others count="..."/>} element.
      *
      * @param attributeValueCounts The map containing attribute value counts
+     * @param topN                 The number of entries to write per attribute, or 0 to write all entries
+     * @return A CompletableFuture with one result per written file, completed exceptionally if any file fails
+     */
+    public CompletableFuture<List<StatisticsFileResult>> generateStatisticsFile(
+            Map<String, Map<String, Long>> attributeValueCounts, int topN) {
+        List<CompletableFuture<StatisticsFileResult>> writes = new ArrayList<>();
+        attributeValueCounts.forEach((key, value) -> writes.add(
+                CompletableFuture.supplyAsync(() -> writeStatistics(key, value, topN), executorService)));
+        return allOf(writes);
+    }
+
+    /**
+     * Generates a statistics file for each attribute as soon as the counts of that attribute are final,
+     * so sorting and writing one attribute overlaps with the aggregation of the others.
+     * The number of entries per file is limited by the top N setting of the output options.
+     *
+     * @param pendingCounts The map of attribute names to their counts once they are final
+     * @return A CompletableFuture with one result per written file, completed exceptionally if any file fails
      */
-    public void generateStatisticsFile(Map<String, Map<String, Integer>> attributeValueCounts) {
-        attributeValueCounts.forEach((key, value) -> executorService.submit(() -> {
-            String fileName = "statistics_by_" + key + ".xml";
+    public CompletableFuture<List<StatisticsFileResult>> generateStatisticsFileWhenReady(
+            Map<String, CompletableFuture<Map<String, Long>>> pendingCounts) {
+        int topN = options.getTopN();
+        List<CompletableFuture<StatisticsFileResult>> writes = new ArrayList<>();
+        pendingCounts.forEach((key, counts) -> writes.add(
+                counts.thenApplyAsync(value -> writeStatistics(key, value, topN), executorService)));
+        return allOf(writes);
+    }
+
+    /**
+     * Generates a statistics file for each attribute as soon as the stream of its final counts is ready.
+     * The streamed counts are sorted by an external merge sort, or reduced to the top N entries,
+     * without being collected in a map first.
+     *
+     * @param pendingStreams The map of attribute names to the streams of their counts once they are final
+     * @return A CompletableFuture with one result per written file, completed exceptionally if any file fails
+     */
+    CompletableFuture<List<StatisticsFileResult>> generateStatisticsFileFromStreams(
+            Map<String, CompletableFuture<CountStream>> pendingStreams) {
+        int topN = options.getTopN();
+        List<CompletableFuture<StatisticsFileResult>> writes = new ArrayList<>();
+        pendingStreams.forEach((key, stream) -> writes.add(
+                stream.thenApplyAsync(value -> writeStatistics(key, value, topN), executorService)));
+        return allOf(writes);
+    }
+
+    /**
+     * Generates a statistics file for each attribute based on the provided estimated counts.
+     * Every item carries the maximum overestimation of its count, in XML as an {@code <error>} element.
+     * The number of entries per file is limited by the top N setting of the output options.
+     *
+     * @param estimatedCounts The map of attribute names to estimated counts, ordered by count in descending order
+     * @return A CompletableFuture with one result per written file, completed exceptionally if any file fails
+     */
+    public CompletableFuture<List<StatisticsFileResult>> generateEstimatedStatisticsFile(
+            Map<String, List<EstimatedCount>> estimatedCounts) {
+        int topN = options.getTopN();
+        List<CompletableFuture<StatisticsFileResult>> writes = new ArrayList<>();
+        estimatedCounts.forEach((key, value) -> writes.add(CompletableFuture.supplyAsync(() -> {
+            long startNanos = System.nanoTime();
+            List<EstimatedCount> estimates = topN > 0 && value.size() > topN ? value.subList(0, topN) : value;
             try {
-                List<Map.Entry<String, Integer>> sortedData = value.entrySet().stream()
-                        .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                        .toList();
-                writeStatisticsToXMLFile(fileName, sortedData);
+                Path file = resolveOutputFile(fileName(key));
+                long bytes = options.getSerializer().writeEstimates(file, estimates, options.getBufferSizeBytes());
+                return recordWrite(key, file, estimates.size(), bytes, startNanos);
             } catch (IOException e) {
-                throw new RuntimeException("An error occurred while generating statistics file: " + e.getMessage());
+                throw writeFailure(key, e);
             }
-        }));
+        }, executorService)));
+        return allOf(writes);
     }
 
     /**
-     * Writes the XML statistics data to a file.
+     * Sorts the counts of one attribute and writes them to its statistics file.
+     * All entries of an attribute with more distinct values than the sort chunk size are sorted externally.
      *
-     * @param fileName   The name of the XML file to write
-     * @param sortedData The sorted list of attribute value counts
-     * @throws IOException If an I/O error occurs while writing to the file
+     * @param attributeName The attribute name
+     * @param counts        The counts of the attribute values
+     * @param topN          The number of entries to write, or 0 to write all entries
+     * @return The result of the write
      */
-    private void writeStatisticsToXMLFile(
-            String fileName,
-            List<Map.Entry<String, Integer>> sortedData
-    ) throws IOException {
-        try (FileWriter fileWriter = new FileWriter(fileName);
-             BufferedWriter writer = new BufferedWriter(fileWriter, BUFFER_SIZE_IN_CHARS)) {
-            writer.write("<statistics>\n");
-            for (Map.Entry<String, Integer> entry : sortedData) {
-                String itemXML = """
-                          <item>
-                           <value>%s</value>
-                           <count>%s</count>
-                          </item>
-                        """.formatted(entry.getKey(), entry.getValue());
-                writer.write(itemXML);
-            }
-            writer.write("</statistics>");
+    private StatisticsFileResult writeStatistics(String attributeName, Map<String, Long> counts, int topN) {
+        long startNanos = System.nanoTime();
+        if (topN == 0 && counts.size() > options.getSortChunkEntries()) {
+            return writeSortedExternally(attributeName, consumer -> {
+                for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                    consumer.accept(entry.getKey(), entry.getValue());
+                }
+            }, startNanos);
+        }
+        try {
+            TopEntries sortedData = topN > 0
+                    ? TopEntriesSelector.select(counts, topN)
+                    : new TopEntries(counts.entrySet().stream()
+                            .sorted(TopEntriesSelector.BY_COUNT_DESCENDING)
+                            .toList(), 0, 0);
+            Path file = resolveOutputFile(fileName(attributeName));
+            long bytes = options.getSerializer().writeCounts(file, sortedData, options.getBufferSizeBytes());
+            return recordWrite(attributeName, file, sortedData.entries().size(), bytes, startNanos);
+        } catch (IOException e) {
+            throw writeFailure(attributeName, e);
+        }
+    }
+
+    /**
+     * Writes the streamed counts of one attribute to its statistics file: all entries sorted externally,
+     * or the top N entries selected with a bounded heap.
+     *
+     * @param attributeName The attribute name
+     * @param counts        The stream of the counts of the attribute values
+     * @param topN          The number of entries to write, or 0 to write all entries
+     * @return The result of the write
+     */
+    private StatisticsFileResult writeStatistics(String attributeName, CountStream counts, int topN) {
+        long startNanos = System.nanoTime();
+        if (topN == 0) {
+            return writeSortedExternally(attributeName, counts, startNanos);
+        }
+        try {
+            TopEntriesSelector.Selection selection = new TopEntriesSelector.Selection(topN);
+            counts.forEach(selection::add);
+            TopEntries sortedData = selection.result();
+            Path file = resolveOutputFile(fileName(attributeName));
+            long bytes = options.getSerializer().writeCounts(file, sortedData, options.getBufferSizeBytes());
+            return recordWrite(attributeName, file, sortedData.entries().size(), bytes, startNanos);
+        } catch (IOException e) {
+            throw writeFailure(attributeName, e);
+        } catch (UncheckedIOException e) {
+            throw writeFailure(attributeName, e.getCause());
+        }
+    }
+
+    /**
+     * Sorts the counts of one attribute with an external merge sort and streams the merged runs
+     * into its statistics file, so only one chunk of sorted entries is held in memory.
+     *
+     * @param attributeName The attribute name
+     * @param counts        The stream of the counts of the attribute values
+     * @param startNanos    The time sorting and writing started
+     * @return The result of the write
+     */
+    private StatisticsFileResult writeSortedExternally(String attributeName, CountStream counts, long startNanos) {
+        try (ExternalCountSorter sorter = new ExternalCountSorter(options.getSortChunkEntries(),
+                options.getSpillDirectory())) {
+            counts.forEach(sorter::add);
+            Path file = resolveOutputFile(fileName(attributeName));
+            long bytes = options.getSerializer().writeCounts(file, sorter.sorted(), sorter.size(),
+                    options.getBufferSizeBytes());
+            return recordWrite(attributeName, file, sorter.size(), bytes, startNanos);
+        } catch (IOException e) {
+            throw writeFailure(attributeName, e);
+        } catch (UncheckedIOException e) {
+            throw writeFailure(attributeName, e.getCause());
+        }
+    }
+
+    /**
+     * Combines the writes of all attributes into one CompletableFuture, in the order the writes were started.
+     *
+     * @param writes The writes of the statistics files
+     * @return A CompletableFuture with the results of all writes
+     */
+    private static CompletableFuture<List<StatisticsFileResult>> allOf(
+            List<CompletableFuture<StatisticsFileResult>> writes) {
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> writes.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Wraps a failed write, keeping the IOException as the cause.
+     *
+     * @param attributeName The attribute name
+     * @param e             The IOException
+     * @return The exception to throw
+     */
+    private UncheckedIOException writeFailure(String attributeName, IOException e) {
+        return new UncheckedIOException("An error occurred while generating statistics file "
+                + fileName(attributeName) + ": " + e.getMessage(), e);
+    }
+
+    /**
+     * Retrieves the name of the statistics file of an attribute. Characters of selectors that are not allowed
+     * in file names are percent-encoded; the file itself keeps the original attribute name.
+     *
+     * @param attributeName The attribute name
+     * @return The file name
+     */
+    private String fileName(String attributeName) {
+        return "statistics_by_" + PathMatcher.escapeName(attributeName) + "." + options.getSerializer().fileExtension();
+    }
+
+    /**
+     * Records a written statistics file in the metrics, if metrics are enabled.
+     *
+     * @param attributeName The attribute name
+     * @param file          The written file
+     * @param entries       The number of value entries written
+     * @param bytes         The number of bytes written
+     * @param startNanos    The time sorting and writing started
+     * @return The result of the write
+     */
+    private StatisticsFileResult recordWrite(String attributeName, Path file, long entries, long bytes,
+                                             long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (options.getMetrics() != null) {
+            options.getMetrics().recordStatisticsWritten(file.getFileName().toString(), bytes, elapsedNanos);
+        }
+        return new StatisticsFileResult(attributeName, file, entries, bytes, elapsedNanos);
+    }
+
+    /**
+     * Resolves a statistics file in the output directory, creating the directory if needed.
+     *
+     * @param fileName The name of the statistics file
+     * @return The path to the statistics file
+     * @throws IOException If the output directory cannot be created
+     */
+    private Path resolveOutputFile(String fileName) throws IOException {
+        Path outputDirectory = options.getOutputDirectory();
+        if (!outputDirectory.toString().isEmpty()) {
+            Files.createDirectories(outputDirectory);
         }
+        return outputDirectory.resolve(fileName);
     }
 }
@@ -0,0 +1,98 @@
+package org.example;
+
+import org.example.TopEntriesSelector.TopEntries;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The XmlStatisticsSerializer class writes a statistics file as a {@code <statistics>} element with one
+ * {@code <item>} per value. Element fragments are appended straight into a reusable byte buffer;
+ * values are escaped on the fly.
+ */
+final class XmlStatisticsSerializer implements StatisticsSerializer {
+    static final XmlStatisticsSerializer INSTANCE = new XmlStatisticsSerializer();
+
+    private static final byte[] STATISTICS_START = "<statistics>\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STATISTICS_END = "</statistics>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ITEM_START = "  <item>\n   <value>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VALUE_END_COUNT_START = "</value>\n   <count>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COUNT_END_ITEM_END = "</count>\n  </item>\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COUNT_END_ERROR_START = "</count>\n   <error>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ERROR_END_ITEM_END = "</error>\n  </item>\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OTHERS_START = "  <others count=\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OTHERS_END = "\"/>\n".getBytes(StandardCharsets.US_ASCII);
+
+    private XmlStatisticsSerializer() {
+    }
+
+    @Override
+    public String name() {
+        return "xml";
+    }
+
+    @Override
+    public String fileExtension() {
+        return "xml";
+    }
+
+    /**
+     * Writes the counts, followed by an {@code <others count="..."/>} element if entries were omitted.
+     */
+    @Override
+    public long writeCounts(Path file, TopEntries sortedData, int bufferSizeBytes) throws IOException {
+        return writeCounts(file, sortedData.entries().iterator(), sortedData.othersValues(), sortedData.othersCount(),
+                bufferSizeBytes);
+    }
+
+    @Override
+    public long writeCounts(Path file, Iterator<Map.Entry<String, Long>> entries, long entryCount,
+                            int bufferSizeBytes) throws IOException {
+        return writeCounts(file, entries, 0, 0, bufferSizeBytes);
+    }
+
+    private static long writeCounts(Path file, Iterator<Map.Entry<String, Long>> entries, long othersValues,
+                                    long othersCount, int bufferSizeBytes) throws IOException {
+        try (StatisticsOutputBuffer output = new StatisticsOutputBuffer(file, bufferSizeBytes)) {
+            output.append(STATISTICS_START);
+            while (entries.hasNext()) {
+                Map.Entry<String, Long> entry = entries.next();
+                output.append(ITEM_START)
+                        .appendEscaped(entry.getKey())
+                        .append(VALUE_END_COUNT_START)
+                        .append(entry.getValue())
+                        .append(COUNT_END_ITEM_END);
+            }
+            if (othersValues > 0) {
+                output.append(OTHERS_START).append(othersCount).append(OTHERS_END);
+            }
+            output.append(STATISTICS_END);
+            return output.size();
+        }
+    }
+
+    /**
+     * Writes the estimated counts, every item with an {@code <error>} element.
+     */
+    @Override
+    public long writeEstimates(Path file, List<EstimatedCount> estimates, int bufferSizeBytes) throws IOException {
+        try (StatisticsOutputBuffer output = new StatisticsOutputBuffer(file, bufferSizeBytes)) {
+            output.append(STATISTICS_START);
+            for (EstimatedCount estimate : estimates) {
+                output.append(ITEM_START)
+                        .appendEscaped(estimate.value())
+                        .append(VALUE_END_COUNT_START)
+                        .append(estimate.count())
+                        .append(COUNT_END_ERROR_START)
+                        .append(estimate.error())
+                        .append(ERROR_END_ITEM_END);
+            }
+            output.append(STATISTICS_END);
+            return output.size();
+        }
+    }
+}
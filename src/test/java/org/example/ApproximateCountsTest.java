@@ -0,0 +1,63 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApproximateCountsTest {
+
+    @Test
+    void complete_WhenValuesAreSkewed_ReportsHeavyHittersWithinBounds() {
+        ApproximateCounts counts = new ApproximateCounts(0.001, 0.01, 50);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        CompletableFuture<?>[] futures = new CompletableFuture[4];
+        for (int thread = 0; thread < futures.length; thread++) {
+            int offset = thread * 10_000;
+            futures[thread] = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counts.increment("id", "unique-" + (offset + i));
+                    if (i % 2 == 0) {
+                        counts.increment("id", "hot");
+                    }
+                    if (i % 10 == 0) {
+                        counts.increment("id", "warm");
+                    }
+                }
+            }, executorService);
+        }
+        CompletableFuture.allOf(futures).join();
+        executorService.shutdown();
+
+        counts.complete();
+
+        List<EstimatedCount> estimates = counts.getEstimatedCounts().get("id");
+        assertEquals("hot", estimates.get(0).value());
+        assertEquals("warm", estimates.get(1).value());
+        assertBounds(20_000, estimates.get(0));
+        assertBounds(4_000, estimates.get(1));
+    }
+
+    @Test
+    void complete_WhenFewDistinctValues_ReportsExactCounts() {
+        ApproximateCounts counts = new ApproximateCounts(0.01, 0.01, 10);
+        counts.increment("genre", "Romance");
+        counts.increment("genre", "Romance");
+        counts.increment("genre", "Tragedy");
+
+        counts.complete();
+
+        assertEquals(List.of(new EstimatedCount("Romance", 2, 0), new EstimatedCount("Tragedy", 1, 0)),
+                counts.getEstimatedCounts().get("genre"));
+    }
+
+    private static void assertBounds(long trueCount, EstimatedCount estimate) {
+        assertTrue(estimate.count() >= trueCount, "Estimate must not underestimate");
+        assertTrue(estimate.count() - estimate.error() <= trueCount, "Lower bound must not exceed true count");
+    }
+}
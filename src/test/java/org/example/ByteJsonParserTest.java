@@ -0,0 +1,111 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ByteJsonParserTest {
+    private static final String JSON = "\uFEFF[\n"
+            + "  {\"title\": \"Café \\\"Noir\\\"\", \"genre\": \"Mystery, Crime\", \"year\": -1.5e3,\n"
+            + "   \"skipped\": [\"genre\", {\"genre\": \"Nested\"}], \"flags\": [true, false, null],\n"
+            + "   \"tags\": [\"a\\u00e9\", 42, [\"inner\"], {\"title\": \"In \\\\ array\"}]},\n"
+            + "  {\"ti\\u0074le\": \"Escaped key\", \"details\": {\"year\": 2024, \"genre\": \"\"}},\n"
+            + "  {}\n"
+            + "]";
+
+    @Test
+    void parse_WhenValuesMatch_ReportsThemLikeGson() throws IOException {
+        ByteJsonParser parser = new ByteJsonParser(List.of("title", "genre", "year", "tags"));
+        List<String> values = new ArrayList<>();
+
+        long records = parser.parse(stream(JSON), (name, value) -> values.add(name + "=" + value));
+
+        assertEquals(3, records);
+        assertEquals(List.of("title=Café \"Noir\"", "genre=Mystery, Crime", "year=-1.5e3", "genre=Nested",
+                "tags=aé", "tags=42", "title=In \\ array", "title=Escaped key", "year=2024", "genre="), values);
+    }
+
+    @Test
+    void parse_WhenTokensCrossBufferBoundaries_ReportsSameValues() throws IOException {
+        List<String> attributes = List.of("title", "genre", "year", "tags");
+        List<String> expected = new ArrayList<>();
+        new ByteJsonParser(attributes).parse(stream(JSON), (name, value) -> expected.add(name + "=" + value));
+
+        for (int bufferSize = 1; bufferSize <= 8; bufferSize++) {
+            List<String> values = new ArrayList<>();
+            new ByteJsonParser(attributes, bufferSize).parse(stream(JSON), (name, value) -> values.add(name + "=" + value));
+            assertEquals(expected, values, "Buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    void parse_WhenEngineIsBytes_CountsSameAsGson() throws IOException {
+        Path path = Path.of("src", "test", "resources", "performance");
+
+        assertEquals(countWith(ParserEngine.GSON, path), countWith(ParserEngine.BYTES, path));
+    }
+
+    @Test
+    void parse_WhenRootIsNotArray_ThrowIOException() {
+        ByteJsonParser parser = new ByteJsonParser(List.of("title"));
+
+        IOException e = assertThrows(IOException.class, () -> parser.parse(stream("{\"title\": \"x\"}"), (n, v) -> { }));
+        assertEquals("Invalid JSON format: Expecting array at the root level.", e.getMessage());
+    }
+
+    @Test
+    void parse_WhenElementIsNotObject_ThrowIOException() {
+        ByteJsonParser parser = new ByteJsonParser(List.of("title"));
+
+        IOException e = assertThrows(IOException.class, () -> parser.parse(stream("[{}, 1]"), (n, v) -> { }));
+        assertEquals("Invalid JSON format: Expecting beginning of the object - {.", e.getMessage());
+    }
+
+    @Test
+    void parse_WhenJsonIsTruncatedOrMalformed_ThrowIOException() {
+        ByteJsonParser parser = new ByteJsonParser(List.of("title"));
+
+        assertThrows(IOException.class, () -> parser.parse(stream("[{\"title\": \"x"), (n, v) -> { }));
+        assertThrows(IOException.class, () -> parser.parse(stream("[{\"title\" \"x\"}]"), (n, v) -> { }));
+        assertThrows(IOException.class, () -> parser.parse(stream("[{\"title\": tru}]"), (n, v) -> { }));
+    }
+
+    @Test
+    void parse_WhenUnicodeEscapeIsMalformed_ThrowIOException() {
+        ByteJsonParser parser = new ByteJsonParser(List.of("title"));
+
+        IOException e = assertThrows(IOException.class,
+                () -> parser.parse(stream("[{\"title\": \"a\\u12G4\"}]"), (n, v) -> { }));
+        assertEquals("Invalid JSON format: Invalid escape sequence at byte 13.", e.getMessage());
+        assertThrows(IOException.class, () -> parser.parse(stream("[{\"title\": \"\\u-123\"}]"), (n, v) -> { }));
+        assertThrows(IOException.class, () -> parser.parse(stream("[{\"ti\\u+074le\": 1}]"), (n, v) -> { }));
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Map<String, Long>> countWith(ParserEngine engine, Path path) throws IOException {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        JsonProcessor jsonProcessor = new JsonProcessor(executorService, List.of("name"), attributeValueCounts,
+                ProcessingOptions.defaults().withParserEngine(engine));
+        CompletableFuture.allOf(jsonProcessor.processJsonFiles(path)).join();
+        executorService.shutdown();
+        return attributeValueCounts;
+    }
+}
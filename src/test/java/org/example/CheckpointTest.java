@@ -0,0 +1,135 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckpointTest {
+
+    @Test
+    void resume_RestoresCountsAndCompletedFilesOfAllBatches(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("run.checkpoint");
+        try (Checkpoint checkpoint = Checkpoint.create(file, "key")) {
+            checkpoint.fileCompleted(tempDir.resolve("a.json"), Map.of("genre", Map.of("Romance", 2L)));
+            checkpoint.fileCompleted(tempDir.resolve("b.json"), Map.of("genre", Map.of("Romance", 1L, "Satire", 1L)));
+            assertEquals(2, checkpoint.write());
+            checkpoint.fileCompleted(tempDir.resolve("c.json"), Map.of("author", Map.of("Jürgen", 3L)));
+        }
+
+        try (Checkpoint resumed = Checkpoint.resume(file, "key")) {
+            assertEquals(3, resumed.getResumedFileCount());
+            assertTrue(resumed.isCompleted(tempDir.resolve("nested").resolve("..").resolve("a.json")));
+            assertFalse(resumed.isCompleted(tempDir.resolve("d.json")));
+            assertEquals(Map.of("genre", Map.of("Romance", 3L, "Satire", 1L), "author", Map.of("Jürgen", 3L)),
+                    replay(resumed));
+        }
+    }
+
+    @Test
+    void resume_WhenLastBatchIsIncomplete_DropsIt(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("run.checkpoint");
+        try (Checkpoint checkpoint = Checkpoint.create(file, "key")) {
+            checkpoint.fileCompleted(tempDir.resolve("a.json"), Map.of("genre", Map.of("Romance", 2L)));
+        }
+        long completeSize = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (Checkpoint resumed = Checkpoint.resume(file, "key")) {
+            assertEquals(1, resumed.getResumedFileCount());
+            assertEquals(completeSize, Files.size(file));
+            resumed.fileCompleted(tempDir.resolve("b.json"), Map.of("genre", Map.of("Romance", 1L)));
+        }
+        try (Checkpoint resumed = Checkpoint.resume(file, "key")) {
+            assertEquals(2, resumed.getResumedFileCount());
+            assertEquals(Map.of("genre", Map.of("Romance", 3L)), replay(resumed));
+        }
+    }
+
+    @Test
+    void resume_WhenSettingsDiffer_ThrowIOException(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("run.checkpoint");
+        Checkpoint.create(file, "attributes=genre").close();
+
+        IOException e = assertThrows(IOException.class, () -> Checkpoint.resume(file, "attributes=author"));
+        assertTrue(e.getMessage().contains("was written with other settings"));
+    }
+
+    @Test
+    void start_WhenResumedCheckpointIsCorrupt_ReportsItAndShutsDownExecutors(@TempDir Path tempDir)
+            throws IOException, ReflectiveOperationException {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Field field = ConsoleInterface.class.getDeclaredField("executorService");
+        field.setAccessible(true);
+        field.set(null, executorService);
+        Path checkpointFile = Files.writeString(tempDir.resolve("corrupt.checkpoint"), "not a checkpoint");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream systemOut = System.out;
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            ConsoleInterface.start(new String[]{Path.of("src", "test", "resources").toString(), "genre",
+                    "--checkpoint", checkpointFile.toString(), "--resume"});
+        } finally {
+            System.setOut(systemOut);
+        }
+
+        assertTrue(output.toString(StandardCharsets.UTF_8).startsWith("Cannot open checkpoint " + checkpointFile));
+        assertTrue(executorService.isShutdown());
+    }
+
+    @Test
+    void processDirectory_WhenResumed_SkipsCompletedFiles(@TempDir Path tempDir) throws IOException {
+        Path input = Files.createDirectories(tempDir.resolve("input"));
+        Files.writeString(input.resolve("a.json"), "[{\"genre\": \"Romance\"}, {\"genre\": \"Satire\"}]");
+        Files.writeString(input.resolve("b.json"), "[{\"genre\": \"Romance\"}]");
+        Path file = tempDir.resolve("run.checkpoint");
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        ProcessingOptions options = ProcessingOptions.defaults().withCheckpoint(file, false);
+        JsonProcessor firstRun = new JsonProcessor(executorService, List.of("genre"), new ConcurrentHashMap<>(),
+                options);
+        firstRun.processDirectory(input).join();
+        firstRun.getCheckpoint().close();
+
+        Files.writeString(input.resolve("a.json"), "[{\"genre\": \"Changed after the checkpoint\"}]");
+        Files.writeString(input.resolve("c.json"), "[{\"genre\": \"Tragedy\"}]");
+        Map<String, Map<String, Long>> counts = new ConcurrentHashMap<>();
+        ProcessingProgress progress = new ProcessingProgress();
+        JsonProcessor resumedRun = new JsonProcessor(executorService, List.of("genre"), counts,
+                options.withCheckpoint(file, true).withProgress(progress));
+        resumedRun.processDirectory(input).join();
+        resumedRun.mergeShards();
+        resumedRun.getCheckpoint().close();
+        executorService.shutdown();
+
+        assertEquals(Map.of("Romance", 2L, "Satire", 1L, "Tragedy", 1L), counts.get("genre"));
+        assertEquals(1, progress.getFilesCompleted());
+        try (Checkpoint checkpoint = Checkpoint.resume(file, resumedRun.countingKey())) {
+            assertEquals(3, checkpoint.getResumedFileCount());
+        }
+    }
+
+    private static Map<String, Map<String, Long>> replay(Checkpoint checkpoint) throws IOException {
+        Map<String, Map<String, Long>> counts = new HashMap<>();
+        checkpoint.replay((attributeName, value, count) ->
+                counts.computeIfAbsent(attributeName, k -> new HashMap<>()).merge(value, count, Long::sum));
+        return counts;
+    }
+}
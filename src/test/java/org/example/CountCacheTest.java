@@ -0,0 +1,108 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CountCacheTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void load_WhenFileIsUnchanged_ReturnsStoredCounts() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "[]");
+        CountCache cache = new CountCache(tempDir.resolve("cache"), "attributes=genre");
+        Map<String, Map<String, Long>> counts = Map.of("genre", Map.of("Romance", 2L, "Tragédie", 5_000_000_000L));
+
+        cache.store(file, cache.fingerprint(file), counts);
+
+        assertEquals(counts, cache.load(file));
+    }
+
+    @Test
+    void load_WhenFileIsModified_ReturnsNull() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "[]");
+        CountCache cache = new CountCache(tempDir.resolve("cache"), "attributes=genre");
+        cache.store(file, cache.fingerprint(file), Map.of("genre", Map.of("Romance", 2L)));
+
+        Files.writeString(file, "[{}]");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+
+        assertNull(cache.load(file));
+    }
+
+    @Test
+    void store_WhenFileChangesWhileParsing_StoresNothing() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "[]");
+        CountCache cache = new CountCache(tempDir.resolve("cache"), "attributes=genre");
+        CountCache.Fingerprint beforeParsing = cache.fingerprint(file);
+
+        Files.writeString(file, "[{\"genre\": \"Romance\"}]");
+        cache.store(file, beforeParsing, Map.of("genre", Map.of()));
+
+        assertNull(cache.load(file));
+        try (Stream<Path> entries = Files.list(tempDir.resolve("cache"))) {
+            assertEquals(0, entries.count());
+        }
+    }
+
+    @Test
+    void load_WhenCountingKeyDiffers_ReturnsNull() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "[]");
+        CountCache cache = new CountCache(tempDir.resolve("cache"), "attributes=genre");
+        cache.store(file, cache.fingerprint(file), Map.of());
+
+        assertNull(new CountCache(tempDir.resolve("cache"), "attributes=author").load(file));
+    }
+
+    @Test
+    void processJsonFiles_WhenCacheIsWarm_SkipsParsing() throws IOException {
+        Path file = tempDir.resolve("books.json");
+        Files.copy(Path.of("src", "test", "resources", "test.json"), file);
+        ProcessingOptions options = ProcessingOptions.defaults().withCacheDirectory(tempDir.resolve("cache"));
+
+        Map<String, Map<String, Long>> firstRun = process(options);
+        FileTime lastModified = Files.getLastModifiedTime(file);
+        Files.writeString(file, Files.readString(file).replace("Romance", "Fantasy"));
+        Files.setLastModifiedTime(file, lastModified);
+        Map<String, Map<String, Long>> secondRun = process(options);
+
+        assertEquals(2, firstRun.get("genre").get("Romance"));
+        assertEquals(firstRun, secondRun);
+    }
+
+    @Test
+    void processJsonFiles_WhenFormatChanges_ParsesAgain() throws IOException {
+        Files.writeString(tempDir.resolve("records.json"), "{\"genre\": \"Romance\"}\n{\"genre\": \"Satire\"}\n");
+        ProcessingOptions options = ProcessingOptions.defaults().withCacheDirectory(tempDir.resolve("cache"));
+
+        Map<String, Map<String, Long>> ndjsonRun = process(options.withInputFormat(InputFormat.NDJSON));
+
+        assertEquals(Map.of("Romance", 1L, "Satire", 1L), ndjsonRun.get("genre"));
+        // parsed as an array, the file is rejected instead of reusing the NDJSON counts
+        assertEquals(Map.of(), process(options).getOrDefault("genre", Map.of()));
+        assertEquals(Map.of(), process(options.withInputFormat(InputFormat.ARRAY)).getOrDefault("genre", Map.of()));
+    }
+
+    private Map<String, Map<String, Long>> process(ProcessingOptions options) throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        JsonProcessor jsonProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                List.of("genre"), attributeValueCounts, options);
+        CompletableFuture.allOf(jsonProcessor.processJsonFiles(tempDir)).join();
+        jsonProcessor.mergeShards();
+        return attributeValueCounts;
+    }
+}
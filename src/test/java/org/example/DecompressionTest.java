@@ -0,0 +1,188 @@
+package org.example;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecompressionTest {
+    private static final Path TEST_JSON = Path.of("src", "test", "resources", "test.json");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void decompress_WhenInputIsPlain_ReturnsSameBytes() throws IOException {
+        byte[] json = Files.readAllBytes(TEST_JSON);
+
+        assertArrayEquals(json, readDecompressed(json));
+    }
+
+    @Test
+    void decompress_WhenGzipHasSeveralMembers_ReturnsAllMembers() throws IOException {
+        byte[] json = Files.readAllBytes(TEST_JSON);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressed.write(gzip(json, 0, 100));
+        compressed.write(gzip(json, 100, json.length - 100));
+
+        assertArrayEquals(json, readDecompressed(compressed.toByteArray()));
+    }
+
+    @Test
+    void decompress_WhenGzipIsBgzf_InflatesBlocksInParallel() throws IOException {
+        byte[] json = "[{\"genre\": \"Romance\"}, {\"genre\": \"Satire\"}]".repeat(5000).getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(json, readDecompressed(bgzf(json, 1000)));
+    }
+
+    @Test
+    void decompress_WhenBgzfBlockIsCorrupt_ThrowIOException() throws IOException {
+        byte[] compressed = bgzf(Files.readAllBytes(TEST_JSON), 64);
+        compressed[compressed.length - 40] ^= 0x55;
+
+        assertThrows(IOException.class, () -> readDecompressed(compressed));
+    }
+
+    @Test
+    void decompress_WhenInputIsZstd_ReturnsSameBytes() throws IOException {
+        byte[] json = Files.readAllBytes(TEST_JSON);
+
+        assertArrayEquals(json, readDecompressed(zstd(json)));
+    }
+
+    @Test
+    void processJsonFiles_WhenFilesAreCompressed_CountsThemInPlace() throws IOException {
+        byte[] json = Files.readAllBytes(TEST_JSON);
+        Files.write(tempDir.resolve("a.json.gz"), gzip(json, 0, json.length));
+        Files.write(tempDir.resolve("b.json.gz"), bgzf(json, 50));
+        Files.write(tempDir.resolve("c.JSON.ZST"), zstd(json));
+        Files.write(tempDir.resolve("d.json"), gzip(json, 0, json.length));
+        Files.write(tempDir.resolve("e.gz"), gzip(json, 0, json.length));
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        JsonProcessor jsonProcessor = new JsonProcessor(executorService, List.of("genre"), attributeValueCounts,
+                ProcessingOptions.defaults().withSplitThresholdBytes(1).withParserEngine(ParserEngine.BYTES));
+
+        jsonProcessor.processDirectory(tempDir).join();
+        executorService.shutdown();
+
+        assertEquals(8, attributeValueCounts.get("genre").get("Romance"));
+        assertEquals(4, attributeValueCounts.get("genre").get("Tragedy"));
+    }
+
+    @Test
+    void processDirectory_WhenReadExecutorIsSet_StreamsCompressedAndLargeFiles() throws IOException {
+        byte[] json = Files.readAllBytes(TEST_JSON);
+        Files.write(tempDir.resolve("a.json.gz"), gzip(json, 0, json.length));
+        Files.write(tempDir.resolve("b.json.zst"), zstd(json));
+        Files.write(tempDir.resolve("c.json"), json);
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        AtomicInteger reads = new AtomicInteger();
+        ExecutorService readExecutor = Executors.newCachedThreadPool(runnable -> {
+            reads.incrementAndGet();
+            return new Thread(runnable);
+        });
+        JsonProcessor jsonProcessor = new JsonProcessor(executorService, List.of("genre"), attributeValueCounts,
+                ProcessingOptions.defaults().withReadExecutor(readExecutor).withMmapThresholdBytes(json.length));
+
+        jsonProcessor.processDirectory(tempDir).join();
+        executorService.shutdown();
+        readExecutor.shutdown();
+
+        assertEquals(0, reads.get());
+        assertEquals(6, attributeValueCounts.get("genre").get("Romance"));
+    }
+
+    @Test
+    void isCompressed_DetectsMagicBytes() throws IOException {
+        byte[] json = Files.readAllBytes(TEST_JSON);
+
+        assertTrue(Decompression.isCompressed(Files.write(tempDir.resolve("a.bin"), gzip(json, 0, json.length))));
+        assertTrue(Decompression.isCompressed(Files.write(tempDir.resolve("b.bin"), zstd(json))));
+        assertFalse(Decompression.isCompressed(TEST_JSON));
+    }
+
+    private static byte[] readDecompressed(byte[] bytes) throws IOException {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try (InputStream inputStream = Decompression.decompress(new ByteArrayInputStream(bytes), executorService)) {
+            return inputStream.readAllBytes();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes, int offset, int length) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(bytes, offset, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] zstd(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream outputStream = new ZstdOutputStream(compressed)) {
+            outputStream.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Writes BGZF blocks of the given uncompressed size, followed by the empty end-of-file block.
+     */
+    private static byte[] bgzf(byte[] bytes, int blockSize) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        for (int offset = 0; offset < bytes.length; offset += blockSize) {
+            writeBgzfBlock(compressed, bytes, offset, Math.min(blockSize, bytes.length - offset));
+        }
+        writeBgzfBlock(compressed, bytes, 0, 0);
+        return compressed.toByteArray();
+    }
+
+    private static void writeBgzfBlock(ByteArrayOutputStream out, byte[] bytes, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(bytes, offset, length);
+        deflater.finish();
+        byte[] deflated = new byte[length + 64];
+        int deflatedLength = deflater.deflate(deflated);
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        int blockSize = 18 + deflatedLength + 8;
+        out.writeBytes(new byte[]{0x1F, (byte) 0x8B, 8, 4, 0, 0, 0, 0, 0, (byte) 0xFF, 6, 0, 'B', 'C', 2, 0,
+                (byte) (blockSize - 1), (byte) ((blockSize - 1) >> 8)});
+        out.write(deflated, 0, deflatedLength);
+        writeInt(out, crc.getValue());
+        writeInt(out, length);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 4; i++) {
+            out.write((int) (value >> (8 * i)));
+        }
+    }
+}
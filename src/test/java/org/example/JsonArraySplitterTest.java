@@ -0,0 +1,102 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonArraySplitterTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void split_WhenChunkSizeIsSmall_ReturnsOneRangePerObject() throws IOException {
+        String json = "[ {\"a\": \"}{\"}, {\"b\": [1, {\"c\": 2}]} ,{\"d\": \"\\\"]\"} ]";
+        Path file = Files.writeString(tempDir.resolve("test.json"), json);
+
+        List<FileRange> ranges = new ArrayList<>();
+        new JsonArraySplitter(1).split(file, ranges::add);
+
+        assertEquals(3, ranges.size());
+        assertEquals("{\"a\": \"}{\"}", substring(json, ranges.get(0)));
+        assertEquals("{\"b\": [1, {\"c\": 2}]}", substring(json, ranges.get(1)));
+        assertEquals("{\"d\": \"\\\"]\"}", substring(json, ranges.get(2)));
+    }
+
+    @Test
+    void split_WhenChunkSizeIsLarge_ReturnsSingleRange() throws IOException {
+        String json = "[{\"a\": 1},\n{\"b\": 2}]";
+        Path file = Files.writeString(tempDir.resolve("test.json"), json);
+
+        List<FileRange> ranges = new ArrayList<>();
+        new JsonArraySplitter(1024).split(file, ranges::add);
+
+        assertEquals(1, ranges.size());
+        assertEquals("{\"a\": 1},\n{\"b\": 2}", substring(json, ranges.get(0)));
+    }
+
+    @Test
+    void split_WhenRootIsNotArray_ThrowIOException() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "{\"a\": 1}");
+
+        assertThrows(IOException.class, () -> new JsonArraySplitter(1).split(file, range -> { }));
+    }
+
+    @Test
+    void split_WhenArrayHoldsPrimitive_ThrowIOException() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "[{\"a\": 1}, 2]");
+
+        assertThrows(IOException.class, () -> new JsonArraySplitter(1).split(file, range -> { }));
+    }
+
+    @Test
+    void split_WhenCommaIsMissingAtRangeCut_ThrowIOException() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "[{\"a\": 1} {\"b\": 2}]");
+
+        IOException e = assertThrows(IOException.class, () -> new JsonArraySplitter(1).split(file, range -> { }));
+        assertEquals("Invalid JSON format: Expecting , or ] after an object.", e.getMessage());
+    }
+
+    @Test
+    void split_WhenCommaIsMissingInsideRange_ThrowIOException() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "[{\"a\": 1}{\"b\": 2}]");
+
+        assertThrows(IOException.class, () -> new JsonArraySplitter(1024).split(file, range -> { }));
+    }
+
+    @Test
+    void split_WhenCommaIsTrailing_ThrowIOException() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "[{\"a\": 1},]");
+
+        assertThrows(IOException.class, () -> new JsonArraySplitter(1).split(file, range -> { }));
+    }
+
+    @Test
+    void split_WhenSecondArrayFollowsRoot_ThrowIOException() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), "[{\"a\": 1}]\n[{\"b\": 2}]");
+
+        IOException e = assertThrows(IOException.class, () -> new JsonArraySplitter(1).split(file, range -> { }));
+        assertEquals("Invalid JSON format: Unexpected content after the root array.", e.getMessage());
+    }
+
+    @Test
+    void split_WhenArrayIsEmptyAndFollowedByWhitespace_ReturnsNoRange() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("test.json"), " [ ] \n");
+
+        List<FileRange> ranges = new ArrayList<>();
+        new JsonArraySplitter(1).split(file, ranges::add);
+
+        assertEquals(List.of(), ranges);
+    }
+
+    private static String substring(String json, FileRange range) {
+        return json.substring((int) range.start(), (int) range.end());
+    }
+}
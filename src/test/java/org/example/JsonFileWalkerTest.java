@@ -0,0 +1,69 @@
+package org.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonFileWalkerTest {
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(tempDir.resolve("2024-01/01"));
+        Files.createDirectories(tempDir.resolve("archive"));
+        Files.writeString(tempDir.resolve("top.json"), "[]");
+        Files.writeString(tempDir.resolve("notes.txt"), "");
+        Files.writeString(tempDir.resolve("2024-01/01/day.JSON"), "[]");
+        Files.writeString(tempDir.resolve("2024-01/01/day.tmp.json"), "[]");
+        Files.writeString(tempDir.resolve("archive/old.json"), "[]");
+    }
+
+    @Test
+    void walk_WhenNotRecursive_VisitsTopLevelJsonFilesOnly() throws IOException {
+        assertEquals(List.of("top.json"), walk(new JsonFileWalker(false, List.of(), List.of())));
+    }
+
+    @Test
+    void walk_WhenRecursive_VisitsNestedJsonFiles() throws IOException {
+        assertEquals(List.of("2024-01/01/day.JSON", "2024-01/01/day.tmp.json", "archive/old.json", "top.json"),
+                walk(new JsonFileWalker(true, List.of(), List.of())));
+    }
+
+    @Test
+    void walk_WhenGlobsGiven_FiltersFilesAndSkipsExcludedDirectories() throws IOException {
+        JsonFileWalker walker = new JsonFileWalker(true, List.of("*.json", "*.JSON"), List.of("archive", "*.tmp.json"));
+
+        assertEquals(List.of("2024-01/01/day.JSON", "top.json"), walk(walker));
+    }
+
+    @Test
+    void walk_WhenIncludeGlobHasPath_MatchesRelativePath() throws IOException {
+        JsonFileWalker walker = new JsonFileWalker(true, List.of("2024-*/**"), List.of());
+
+        assertEquals(List.of("2024-01/01/day.JSON", "2024-01/01/day.tmp.json"), walk(walker));
+    }
+
+    @Test
+    void walk_WhenDirectoryNotExist_ThrowIOException() {
+        JsonFileWalker walker = new JsonFileWalker(true, List.of(), List.of());
+
+        assertThrows(IOException.class, () -> walker.walk(tempDir.resolve("notExist"), file -> { }));
+    }
+
+    private List<String> walk(JsonFileWalker walker) throws IOException {
+        List<String> files = new ArrayList<>();
+        walker.walk(tempDir, file -> files.add(tempDir.relativize(file).toString().replace('\\', '/')));
+        files.sort(null);
+        return files;
+    }
+}
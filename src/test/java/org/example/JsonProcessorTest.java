@@ -5,18 +5,29 @@ import com.google.gson.stream.JsonToken;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -35,7 +46,7 @@ class JsonProcessorTest {
     void setUp() {
         executorService = Executors.newSingleThreadExecutor();
         List<String> attributeNames = Arrays.asList("genre", "author");
-        Map<String, Map<String, Integer>> attributeValueCounts = new ConcurrentHashMap<>();
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
         jsonProcessor = new JsonProcessor(executorService, attributeNames, attributeValueCounts);
     }
 
@@ -48,18 +59,18 @@ class JsonProcessorTest {
 
     @Test
     void processJsonFiles() throws IOException, InterruptedException {
-        String path = "src\\test\\resources";
+        Path path = Path.of("src", "test", "resources");
 
-        CompletableFuture<Void>[] completableFutures = jsonProcessor.processJsonFiles(Path.of(path));
+        CompletableFuture<Void>[] completableFutures = jsonProcessor.processJsonFiles(path);
         CompletableFuture<Void> allOf = CompletableFuture.allOf(completableFutures);
         allOf.join();
 
-        Map<String, Map<String, Integer>> result = jsonProcessor.getAttributeValueCounts();
+        Map<String, Map<String, Long>> result = jsonProcessor.getAttributeValueCounts();
         assertEquals(2, result.size());
         assertTrue(result.containsKey("genre"));
         assertTrue(result.containsKey("author"));
 
-        Map<String, Integer> genreCounts = result.get("genre");
+        Map<String, Long> genreCounts = result.get("genre");
         assertEquals(5, genreCounts.size());
         assertEquals(2, genreCounts.get("Romance"));
         assertEquals(1, genreCounts.get("Political Fiction"));
@@ -68,13 +79,503 @@ class JsonProcessorTest {
         assertEquals(1, genreCounts.get("Tragedy"));
 
 
-        Map<String, Integer> authorCounts = result.get("author");
+        Map<String, Long> authorCounts = result.get("author");
         assertEquals(3, authorCounts.size());
         assertEquals(1, authorCounts.get("George Orwell"));
         assertEquals(1, authorCounts.get("Jane Austen"));
         assertEquals(1, authorCounts.get("William Shakespeare"));
     }
 
+    @Test
+    void processJsonFiles_WhenFileIsSplitIntoRanges() throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withSplitThresholdBytes(1)
+                .withSplitChunkBytes(1);
+        JsonProcessor splittingProcessor = new JsonProcessor(Executors.newFixedThreadPool(4),
+                Arrays.asList("genre", "author"), attributeValueCounts, options);
+
+        CompletableFuture<Void>[] completableFutures =
+                splittingProcessor.processJsonFiles(Path.of("src", "test", "resources"));
+        CompletableFuture.allOf(completableFutures).join();
+
+        assertEquals(2, attributeValueCounts.get("genre").get("Romance"));
+        assertEquals(5, attributeValueCounts.get("genre").size());
+        assertEquals(3, attributeValueCounts.get("author").size());
+    }
+
+    @Test
+    void processJsonFiles_WhenAggregationIsSharded() throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withAggregationMode(AggregationMode.SHARDED)
+                .withSplitThresholdBytes(1)
+                .withSplitChunkBytes(1);
+        JsonProcessor shardedProcessor = new JsonProcessor(Executors.newFixedThreadPool(4),
+                Arrays.asList("genre", "author"), attributeValueCounts, options);
+
+        CompletableFuture<Void>[] completableFutures =
+                shardedProcessor.processJsonFiles(Path.of("src", "test", "resources"));
+        CompletableFuture.allOf(completableFutures).join();
+        assertTrue(attributeValueCounts.isEmpty(), "Counts should stay in shards until merged");
+
+        shardedProcessor.mergeShards();
+
+        assertEquals(2, attributeValueCounts.get("genre").get("Romance"));
+        assertEquals(5, attributeValueCounts.get("genre").size());
+        assertEquals(3, attributeValueCounts.get("author").size());
+    }
+
+    @Test
+    void mergeShardsWhenDone_CompletesEveryAttributeSeparately() throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        JsonProcessor shardedProcessor = new JsonProcessor(Executors.newFixedThreadPool(4),
+                Arrays.asList("genre", "author", "missing"), attributeValueCounts,
+                ProcessingOptions.defaults().withAggregationMode(AggregationMode.SHARDED));
+
+        Map<String, CompletableFuture<Map<String, Long>>> mergedCounts =
+                shardedProcessor.mergeShardsWhenDone(shardedProcessor.processDirectory(Path.of("src", "test", "resources")));
+
+        assertEquals(List.of("genre", "author", "missing"), List.copyOf(mergedCounts.keySet()));
+        assertEquals(2, mergedCounts.get("genre").join().get("Romance"));
+        assertEquals(3, mergedCounts.get("author").join().size());
+        assertTrue(mergedCounts.get("missing").join().isEmpty());
+    }
+
+    @Test
+    void processDirectory_WhenRecursive_CountsNestedFilesWithBoundedQueue(@TempDir Path tempDir) throws IOException {
+        Path source = Path.of("src", "test", "resources", "test.json");
+        for (int i = 0; i < 5; i++) {
+            Path dir = Files.createDirectories(tempDir.resolve("part-" + i).resolve("nested"));
+            Files.copy(source, dir.resolve("test.json"));
+        }
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withRecursive(true)
+                .withMaxPendingFiles(1);
+        JsonProcessor walkingProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                Arrays.asList("genre", "author"), attributeValueCounts, options);
+
+        walkingProcessor.processDirectory(tempDir).join();
+
+        assertEquals(10, attributeValueCounts.get("genre").get("Romance"));
+        assertEquals(5, attributeValueCounts.get("author").get("Jane Austen"));
+    }
+
+    @Test
+    void processDirectory_WhenDirectoryIsEmpty_CompletesImmediately(@TempDir Path tempDir) throws IOException {
+        CompletableFuture<Void> completion = jsonProcessor.processDirectory(tempDir);
+
+        assertTrue(completion.isDone());
+        assertTrue(jsonProcessor.getAttributeValueCounts().isEmpty());
+    }
+
+    @Test
+    void processDirectory_WhenFilesAreReadOnReadExecutor() throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        ExecutorService readExecutor = ExecutorStrategy.SPLIT.createReadExecutor();
+        ProcessingOptions options = ProcessingOptions.defaults().withReadExecutor(readExecutor);
+        JsonProcessor splitProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                Arrays.asList("genre", "author"), attributeValueCounts, options);
+        JsonProcessor splitRangesProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                Arrays.asList("genre", "author"), attributeValueCounts,
+                options.withSplitThresholdBytes(1).withSplitChunkBytes(1));
+
+        splitProcessor.processDirectory(Path.of("src", "test", "resources")).join();
+        splitRangesProcessor.processDirectory(Path.of("src", "test", "resources")).join();
+        readExecutor.shutdown();
+
+        assertEquals(4, attributeValueCounts.get("genre").get("Romance"));
+        assertEquals(2, attributeValueCounts.get("author").get("Jane Austen"));
+        assertEquals(5, attributeValueCounts.get("genre").size());
+    }
+
+    @Test
+    void processDirectory_WhenThreadPerTask_KeepsShardCountBounded(@TempDir Path tempDir) throws IOException {
+        for (int i = 0; i < 200; i++) {
+            Files.writeString(tempDir.resolve("file-" + i + ".json"), "[{\"genre\": \"Genre " + i % 50 + "\"}]");
+        }
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        // a new thread per task, like the virtual thread executor, also before Java 21
+        ExecutorService threadPerTaskExecutor = new AbstractExecutorService() {
+            private volatile boolean shutdown;
+
+            @Override
+            public void execute(Runnable command) {
+                new Thread(command).start();
+            }
+
+            @Override
+            public void shutdown() {
+                shutdown = true;
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                shutdown = true;
+                return List.of();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return shutdown;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return shutdown;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return true;
+            }
+        };
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withAggregationMode(AggregationMode.SHARDED)
+                .withMaxPendingFiles(4);
+        JsonProcessor threadPerTaskProcessor = new JsonProcessor(threadPerTaskExecutor, List.of("genre"),
+                attributeValueCounts, options);
+
+        threadPerTaskProcessor.processDirectory(tempDir).join();
+        threadPerTaskProcessor.mergeShards();
+
+        assertEquals(50, attributeValueCounts.get("genre").size());
+        assertEquals(4, attributeValueCounts.get("genre").get("Genre 7"));
+        assertTrue(((ShardedCounts) threadPerTaskProcessor.getValueCounter()).getShardCount() <= 4);
+    }
+
+    @Test
+    void processDirectory_WhenReadExecutorRunsAhead_BuffersBoundedNumberOfRanges(@TempDir Path tempDir)
+            throws IOException, InterruptedException {
+        Files.writeString(tempDir.resolve("large.json"),
+                "[" + String.join(",", Collections.nCopies(100, "{\"genre\": \"Romance\"}")) + "]");
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        // parse tasks wait in this queue until the test runs them
+        BlockingQueue<Runnable> parseTasks = new LinkedBlockingQueue<>();
+        ExecutorService queueingExecutor = new AbstractExecutorService() {
+            @Override
+            public void execute(Runnable command) {
+                parseTasks.add(command);
+            }
+
+            @Override
+            public void shutdown() {
+            }
+
+            @Override
+            public List<Runnable> shutdownNow() {
+                return List.of();
+            }
+
+            @Override
+            public boolean isShutdown() {
+                return false;
+            }
+
+            @Override
+            public boolean isTerminated() {
+                return false;
+            }
+
+            @Override
+            public boolean awaitTermination(long timeout, TimeUnit unit) {
+                return true;
+            }
+        };
+        ExecutorService readExecutor = Executors.newCachedThreadPool();
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withSplitThresholdBytes(1)
+                .withSplitChunkBytes(1)
+                .withReadExecutor(readExecutor)
+                .withMaxBufferedReads(3);
+        JsonProcessor splitProcessor = new JsonProcessor(queueingExecutor, List.of("genre"),
+                attributeValueCounts, options);
+
+        CompletableFuture<Void> parsing = splitProcessor.processDirectory(tempDir);
+        while (parseTasks.size() < 3) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertEquals(3, parseTasks.size());
+        while (!parsing.isDone()) {
+            Runnable task = parseTasks.poll(100, TimeUnit.MILLISECONDS);
+            if (task != null) {
+                task.run();
+            }
+        }
+        parsing.join();
+        readExecutor.shutdown();
+
+        assertEquals(Map.of("Romance", 100L), attributeValueCounts.get("genre"));
+    }
+
+    @Test
+    void processDirectory_WhenLargestFirst_SubmitsFilesBySizeDescending(@TempDir Path tempDir) throws IOException {
+        for (int records : new int[]{2, 5, 1, 4, 3}) {
+            Files.writeString(tempDir.resolve("records-" + records + ".json"),
+                    "[" + String.join(",", Collections.nCopies(records, "{\"genre\": \"Romance\"}")) + "]");
+        }
+        List<String> openedFiles = Collections.synchronizedList(new ArrayList<>());
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withFileOrder(FileOrder.LARGEST_FIRST)
+                .withMaxPendingFiles(1)
+                .withInputOpener(filePath -> {
+                    openedFiles.add(filePath.getFileName().toString());
+                    return Files.newInputStream(filePath);
+                });
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        JsonProcessor orderingProcessor = new JsonProcessor(Executors.newSingleThreadExecutor(),
+                List.of("genre"), attributeValueCounts, options);
+
+        orderingProcessor.processDirectory(tempDir).join();
+
+        assertEquals(List.of("records-5.json", "records-4.json", "records-3.json", "records-2.json",
+                "records-1.json"), openedFiles);
+        assertEquals(15, attributeValueCounts.get("genre").get("Romance"));
+    }
+
+    @Test
+    void processDirectory_WhenWorkStealing_MatchesFixedPoolCounts() throws IOException {
+        Map<String, Map<String, Long>> fixedCounts = new ConcurrentHashMap<>();
+        Map<String, Map<String, Long>> workStealingCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withFileOrder(FileOrder.LARGEST_FIRST)
+                .withSplitThresholdBytes(1)
+                .withSplitChunkBytes(1);
+        ExecutorService workStealingPool = ExecutorStrategy.WORK_STEALING.createParseExecutor(2);
+        JsonProcessor fixedProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                Arrays.asList("genre", "author"), fixedCounts, ProcessingOptions.defaults());
+        JsonProcessor workStealingProcessor = new JsonProcessor(workStealingPool,
+                Arrays.asList("genre", "author"), workStealingCounts, options);
+
+        fixedProcessor.processDirectory(Path.of("src", "test", "resources")).join();
+        workStealingProcessor.processDirectory(Path.of("src", "test", "resources")).join();
+        workStealingPool.shutdown();
+
+        assertEquals(fixedCounts, workStealingCounts);
+        assertEquals(2, workStealingCounts.get("genre").get("Romance"));
+    }
+
+    @Test
+    void processJsonFiles_WhenFilesAreMemoryMapped() throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults().withMmapThresholdBytes(1);
+        JsonProcessor mappingProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                Arrays.asList("genre", "author"), attributeValueCounts, options);
+        JsonProcessor mappingRangesProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                Arrays.asList("genre", "author"), attributeValueCounts,
+                options.withSplitThresholdBytes(1).withSplitChunkBytes(1).withParserEngine(ParserEngine.BYTES));
+
+        CompletableFuture.allOf(mappingProcessor.processJsonFiles(Path.of("src", "test", "resources"))).join();
+        CompletableFuture.allOf(mappingRangesProcessor.processJsonFiles(Path.of("src", "test", "resources"))).join();
+
+        assertEquals(4, attributeValueCounts.get("genre").get("Romance"));
+        assertEquals(2, attributeValueCounts.get("author").get("William Shakespeare"));
+        assertEquals(5, attributeValueCounts.get("genre").size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParserEngine.class)
+    void processDirectory_WhenCountsAreInterned_MatchesExactCounts(ParserEngine parserEngine, @TempDir Path tempDir)
+            throws IOException {
+        Files.writeString(tempDir.resolve("values.json"), """
+                [
+                  {"genre": "Romance, Satire", "author": "Jane Austen", "year": 1813},
+                  {"genre": ",Romance,, Tragedy ,,", "author": "J\u00fcrgen", "year": 1597},
+                  {"genre": " ", "author": "Jürgen", "tags": ["a", "b,c"]},
+                  {"genre": ",,,", "author": "\uD83D\uDE00, 😀"}
+                ]
+                """);
+        List<String> attributeNames = List.of("genre", "author", "year", "tags");
+        Map<String, Map<String, Long>> exactCounts = new ConcurrentHashMap<>();
+        Map<String, Map<String, Long>> internedCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults().withParserEngine(parserEngine);
+        JsonProcessor exactProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                attributeNames, exactCounts, options);
+        JsonProcessor internedProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                attributeNames, internedCounts, options.withCountingBackend(CountingBackend.INTERNED));
+
+        exactProcessor.processDirectory(tempDir).join();
+        exactProcessor.mergeShards();
+        internedProcessor.processDirectory(tempDir).join();
+        internedProcessor.mergeShards();
+
+        assertEquals(exactCounts, internedCounts);
+        assertEquals(Map.of("", 3L, "Romance", 2L, "Satire", 1L, "Tragedy", 1L), internedCounts.get("genre"));
+        assertEquals(2, internedCounts.get("author").get("Jürgen"));
+        assertEquals(2, internedCounts.get("author").get("😀"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParserEngine.class)
+    void processDirectory_WhenCountsAreOffHeap_MatchesExactCounts(ParserEngine parserEngine, @TempDir Path tempDir)
+            throws IOException {
+        Path input = Files.createDirectories(tempDir.resolve("input"));
+        Path spill = tempDir.resolve("spill");
+        for (int file = 0; file < 4; file++) {
+            StringBuilder records = new StringBuilder("[");
+            for (int i = 0; i < 2_000; i++) {
+                records.append(i == 0 ? "" : ",").append("{\"id\": \"id-").append((i * 31 + file) % 3_000)
+                        .append("\", \"genre\": \"Romance, Jürgen\"}");
+            }
+            Files.writeString(input.resolve("values" + file + ".json"), records.append(']'));
+        }
+        List<String> attributeNames = List.of("id", "genre", "missing");
+        Map<String, Map<String, Long>> exactCounts = new ConcurrentHashMap<>();
+        Map<String, Map<String, Long>> offHeapCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults().withParserEngine(parserEngine);
+        JsonProcessor exactProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                attributeNames, exactCounts, options);
+        JsonProcessor offHeapProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                attributeNames, offHeapCounts, options.withCountingBackend(CountingBackend.OFF_HEAP)
+                .withOffHeapMemoryBytes(32 * 1024)
+                .withSpillDirectory(spill));
+
+        exactProcessor.processDirectory(input).join();
+        exactProcessor.mergeShards();
+        Map<String, CompletableFuture<Map<String, Long>>> merged =
+                offHeapProcessor.mergeShardsWhenDone(offHeapProcessor.processDirectory(input));
+
+        assertEquals(exactCounts.get("id"), merged.get("id").join());
+        assertEquals(Map.of("Romance", 8_000L, "Jürgen", 8_000L), merged.get("genre").join());
+        assertEquals(Map.of(), merged.get("missing").join());
+        try (Stream<Path> runs = Files.list(spill)) {
+            assertEquals(0, runs.count());
+        }
+    }
+
+    @Test
+    void streamCountsWhenDone_WhenCountsAreOffHeap_WritesTheSameFilesAsExactCounts(@TempDir Path tempDir)
+            throws IOException {
+        Path input = Files.createDirectories(tempDir.resolve("input"));
+        for (int file = 0; file < 4; file++) {
+            StringBuilder records = new StringBuilder("[");
+            for (int i = 0; i < 2_000; i++) {
+                records.append(i == 0 ? "" : ",").append("{\"id\": \"id-").append((i * 31 + file) % 3_000)
+                        .append("\", \"genre\": \"genre-").append(i % (file + 3)).append("\"}");
+            }
+            Files.writeString(input.resolve("values" + file + ".json"), records.append(']'));
+        }
+        List<String> attributeNames = List.of("id", "genre");
+        Map<String, Map<String, Long>> exactCounts = new ConcurrentHashMap<>();
+        Map<String, Map<String, Long>> offHeapCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults().withSpillDirectory(tempDir.resolve("spill"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        JsonProcessor exactProcessor = new JsonProcessor(executor, attributeNames, exactCounts, options);
+        exactProcessor.processDirectory(input).join();
+        exactProcessor.mergeShards();
+
+        for (int topN : new int[]{0, 2}) {
+            OutputOptions output = OutputOptions.defaults().withTopN(topN).withSortChunkEntries(500)
+                    .withSpillDirectory(tempDir.resolve("sort"));
+            Path exactOutput = tempDir.resolve("exact-" + topN);
+            Path offHeapOutput = tempDir.resolve("off-heap-" + topN);
+            new XMLWriter(executor, output.withOutputDirectory(exactOutput))
+                    .generateStatisticsFile(exactCounts).join();
+            JsonProcessor offHeapProcessor = new JsonProcessor(executor, attributeNames, offHeapCounts,
+                    options.withCountingBackend(CountingBackend.OFF_HEAP).withOffHeapMemoryBytes(32 * 1024));
+            new XMLWriter(executor, output.withOutputDirectory(offHeapOutput)).generateStatisticsFileFromStreams(
+                    offHeapProcessor.streamCountsWhenDone(offHeapProcessor.processDirectory(input))).join();
+
+            for (String attributeName : attributeNames) {
+                String fileName = "statistics_by_" + attributeName + ".xml";
+                assertEquals(Files.readString(exactOutput.resolve(fileName)),
+                        Files.readString(offHeapOutput.resolve(fileName)));
+            }
+        }
+        assertTrue(offHeapCounts.values().stream().allMatch(Map::isEmpty));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParserEngine.class)
+    void processDirectory_WhenDelimitersAreConfigured(ParserEngine parserEngine, @TempDir Path tempDir)
+            throws IOException {
+        Files.writeString(tempDir.resolve("values.json"), """
+                [
+                  {"genre": "Romance; Satire", "author": "Austen, Jane", "tags": "a, b"},
+                  {"genre": "Romance", "author": "Orwell, George", "tags": "b"}
+                ]
+                """);
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withParserEngine(parserEngine)
+                .withDelimiter("genre", ValueDelimiter.SEMICOLON)
+                .withDelimiter("author", ValueDelimiter.NONE);
+        JsonProcessor delimitedProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                List.of("genre", "author", "tags"), attributeValueCounts, options);
+
+        delimitedProcessor.processDirectory(tempDir).join();
+
+        assertEquals(Map.of("Romance", 2L, "Satire", 1L), attributeValueCounts.get("genre"));
+        assertEquals(Map.of("Austen, Jane", 1L, "Orwell, George", 1L), attributeValueCounts.get("author"));
+        assertEquals(Map.of("a", 1L, "b", 2L), attributeValueCounts.get("tags"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParserEngine.class)
+    void processDirectory_WhenAttributesAreSelectors(ParserEngine parserEngine, @TempDir Path tempDir)
+            throws IOException {
+        Files.writeString(tempDir.resolve("books.json"), """
+                [
+                  {"author": {"name": "Austen", "id": 1}, "publisher": {"name": "Penguin", "id": 2},
+                   "tags": ["Romance", "Satire"], "items": [{"sku": "A1"}, {"sku": "B2"}]},
+                  {"author": {"name": "Orwell"}, "tags": ["Dystopian"], "items": [{"sku": "A1"}]}
+                ]
+                """);
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        JsonProcessor selectorProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                List.of("author.name", "tags[*]", "**.id", "items[*].sku", "name"), attributeValueCounts,
+                ProcessingOptions.defaults().withParserEngine(parserEngine));
+
+        selectorProcessor.processDirectory(tempDir).join();
+
+        assertEquals(Map.of("Austen", 1L, "Orwell", 1L), attributeValueCounts.get("author.name"));
+        assertEquals(Map.of("Romance", 1L, "Satire", 1L, "Dystopian", 1L), attributeValueCounts.get("tags[*]"));
+        assertEquals(Map.of("1", 1L, "2", 1L), attributeValueCounts.get("**.id"));
+        assertEquals(Map.of("A1", 2L, "B2", 1L), attributeValueCounts.get("items[*].sku"));
+        assertEquals(Map.of("Austen", 1L, "Orwell", 1L, "Penguin", 1L), attributeValueCounts.get("name"));
+    }
+
+    @Test
+    void constructor_WhenSelectorIsMalformed_ThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new JsonProcessor(executorService, List.of("author..name"), new ConcurrentHashMap<>()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParserEngine.class)
+    void processDirectory_WhenFilesAreNdjson(ParserEngine parserEngine, @TempDir Path tempDir) throws IOException {
+        String lines = """
+                {"title": "1984", "genre": "Dystopian, Political Fiction", "author": "George Orwell"}
+                {"title": "Pride and Prejudice", "genre": "Romance, Satire", "author": "Jane Austen"}
+
+                {"title": "Romeo and Juliet", "details": {"genre": ["Romance", "Tragedy"]}}
+                """;
+        Files.writeString(tempDir.resolve("events.ndjson"), lines);
+        Files.writeString(tempDir.resolve("events.json"), lines);
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        ProcessingOptions options = ProcessingOptions.defaults()
+                .withParserEngine(parserEngine)
+                .withSplitThresholdBytes(1)
+                .withSplitChunkBytes(1);
+        JsonProcessor autoProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                Arrays.asList("genre", "author"), attributeValueCounts, options.withFileGlobs(List.of("*.ndjson"), List.of()));
+        JsonProcessor ndjsonProcessor = new JsonProcessor(Executors.newFixedThreadPool(2),
+                Arrays.asList("genre", "author"), attributeValueCounts,
+                options.withInputFormat(InputFormat.NDJSON).withSplitThresholdBytes(Long.MAX_VALUE)
+                        .withFileGlobs(List.of("*.json"), List.of()));
+
+        autoProcessor.processDirectory(tempDir).join();
+        ndjsonProcessor.processDirectory(tempDir).join();
+
+        assertEquals(4, attributeValueCounts.get("genre").get("Romance"));
+        assertEquals(2, attributeValueCounts.get("genre").get("Tragedy"));
+        assertEquals(2, attributeValueCounts.get("author").get("Jane Austen"));
+        assertEquals(5, attributeValueCounts.get("genre").size());
+        assertEquals(2, attributeValueCounts.get("author").size());
+    }
+
     @Test
     void processJsonFiles_WhenDirPathNotExist_ThrowIOException() {
         String dirPath = "notExist";
@@ -93,19 +594,19 @@ class JsonProcessorTest {
         when(reader.nextString()).thenReturn("George Orwell");
         when(reader.peek()).thenReturn(JsonToken.BEGIN_ARRAY).thenReturn(JsonToken.BEGIN_OBJECT).thenReturn(JsonToken.STRING);
 
-        Method method = JsonProcessor.class.getDeclaredMethod("processJsonElement", JsonReader.class);
+        Method method = JsonProcessor.class.getDeclaredMethod("processJsonElement", JsonReader.class, ValueCounter.class);
         method.setAccessible(true);
 
-        method.invoke(jsonProcessor, reader);
+        method.invoke(jsonProcessor, reader, jsonProcessor.getValueCounter());
 
-        Map<String, Map<String, Integer>> result = jsonProcessor.getAttributeValueCounts();
+        Map<String, Map<String, Long>> result = jsonProcessor.getAttributeValueCounts();
         assertEquals(1, result.size());
         assertEquals(1, result.get("author").size());
     }
 
     @Test
     void processJsonElement_WhenNoArrayStart_ThrowIOException() throws NoSuchMethodException, IOException {
-        Method method = JsonProcessor.class.getDeclaredMethod("processJsonElement", JsonReader.class);
+        Method method = JsonProcessor.class.getDeclaredMethod("processJsonElement", JsonReader.class, ValueCounter.class);
         method.setAccessible(true);
         JsonReader mockReader = mock(JsonReader.class);
 
@@ -113,7 +614,7 @@ class JsonProcessorTest {
 
         assertThrows(IOException.class, () -> {
             try {
-                method.invoke(jsonProcessor, mockReader);
+                method.invoke(jsonProcessor, mockReader, jsonProcessor.getValueCounter());
             } catch (InvocationTargetException e) {
                 throw e.getTargetException();
             }
@@ -132,45 +633,45 @@ class JsonProcessorTest {
         when(reader.peek()).thenReturn(JsonToken.BEGIN_ARRAY).thenReturn(JsonToken.BEGIN_OBJECT).thenReturn(JsonToken.BEGIN_ARRAY)
                 .thenReturn(JsonToken.STRING).thenReturn(JsonToken.STRING);
 
-        Method method = JsonProcessor.class.getDeclaredMethod("processJsonElement", JsonReader.class);
+        Method method = JsonProcessor.class.getDeclaredMethod("processJsonElement", JsonReader.class, ValueCounter.class);
         method.setAccessible(true);
 
-        method.invoke(jsonProcessor, reader);
+        method.invoke(jsonProcessor, reader, jsonProcessor.getValueCounter());
 
-        Map<String, Map<String, Integer>> result = jsonProcessor.getAttributeValueCounts();
+        Map<String, Map<String, Long>> result = jsonProcessor.getAttributeValueCounts();
         assertEquals(1, result.size());
         assertEquals(2, result.get("genre").size());
     }
 
     @Test
     public void processValue_WhenKeyNotPresent() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Method method = JsonProcessor.class.getDeclaredMethod("processValue", String.class, String.class);
+        Method method = JsonProcessor.class.getDeclaredMethod("processValue", String.class, String.class, ValueCounter.class);
         method.setAccessible(true);
 
-        method.invoke(jsonProcessor, "nonexistentKey", "value");
+        method.invoke(jsonProcessor, "nonexistentKey", "value", jsonProcessor.getValueCounter());
 
-        Map<String, Map<String, Integer>> result = jsonProcessor.getAttributeValueCounts();
+        Map<String, Map<String, Long>> result = jsonProcessor.getAttributeValueCounts();
         assertTrue(result.isEmpty(), "Counts should remain empty if key is not present");
     }
 
     @Test
     public void processValue_WhenValueIsEmpty() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Method method = JsonProcessor.class.getDeclaredMethod("processValue", String.class, String.class);
+        Method method = JsonProcessor.class.getDeclaredMethod("processValue", String.class, String.class, ValueCounter.class);
         method.setAccessible(true);
 
-        method.invoke(jsonProcessor, "genre", "");
+        method.invoke(jsonProcessor, "genre", "", jsonProcessor.getValueCounter());
 
-        Map<String, Map<String, Integer>> result = jsonProcessor.getAttributeValueCounts();
+        Map<String, Map<String, Long>> result = jsonProcessor.getAttributeValueCounts();
         assertTrue(result.isEmpty(), "Counts should remain empty if value is empty");
     }
 
     @Test
     public void processValue_WhenKeyPresentAndValueNotEmpty() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        Method method = JsonProcessor.class.getDeclaredMethod("processValue", String.class, String.class);
+        Method method = JsonProcessor.class.getDeclaredMethod("processValue", String.class, String.class, ValueCounter.class);
         method.setAccessible(true);
 
-        method.invoke(jsonProcessor, "genre", "value1, value2, value1");
-        Map<String, Map<String, Integer>> result = jsonProcessor.getAttributeValueCounts();
+        method.invoke(jsonProcessor, "genre", "value1, value2, value1", jsonProcessor.getValueCounter());
+        Map<String, Map<String, Long>> result = jsonProcessor.getAttributeValueCounts();
 
         assertEquals(2, result.get("genre").get("value1"), "Value1 count should be 2");
         assertEquals(1, result.get("genre").get("value2"), "Value2 count should be 1");
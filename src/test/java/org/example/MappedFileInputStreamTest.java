@@ -0,0 +1,50 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedFileInputStreamTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_WhenRangeSpansSeveralWindows_ReadsAllBytes() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("data.json"), "0123456789abcdefghij");
+
+        try (InputStream inputStream = new MappedFileInputStream(new FileRange(file, 3, 17), 4)) {
+            assertEquals("3456789abcdefg", new String(inputStream.readAllBytes(), StandardCharsets.US_ASCII));
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    void read_WhenReadBytewise_MatchesBulkRead() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("data.json"), "[{\"a\": \"é\"}]");
+        byte[] expected = Files.readAllBytes(file);
+
+        try (InputStream inputStream = new MappedFileInputStream(new FileRange(file, 0, expected.length), 3)) {
+            for (byte b : expected) {
+                assertEquals(b & 0xFF, inputStream.read());
+            }
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    void read_WhenRangeIsEmpty_ReturnsEndOfStream() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("empty.json"), "");
+
+        try (InputStream inputStream = new MappedFileInputStream(new FileRange(file, 0, 0))) {
+            assertEquals(-1, inputStream.read());
+            assertEquals(-1, inputStream.read(new byte[4], 0, 4));
+        }
+    }
+}
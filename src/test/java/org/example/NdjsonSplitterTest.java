@@ -0,0 +1,65 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonSplitterTest {
+    private static final String NDJSON = """
+            {"genre": "Romance"}
+            {"genre": "Satire, Tragedy"}
+
+            {"genre": "Dystopian", "note": "a\\nb"}
+            {"genre": "Romance"}""";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void split_WhenChunkIsSmall_CutsAfterEveryLine() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("events.ndjson"), NDJSON);
+
+        assertEquals(List.of(
+                "{\"genre\": \"Romance\"}\n",
+                "{\"genre\": \"Satire, Tragedy\"}\n",
+                "\n",
+                "{\"genre\": \"Dystopian\", \"note\": \"a\\nb\"}\n",
+                "{\"genre\": \"Romance\"}"), split(file, 1));
+    }
+
+    @Test
+    void split_WhenChunkIsLarge_ReturnsWholeFile() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("events.ndjson"), NDJSON);
+
+        assertEquals(List.of(NDJSON), split(file, 1024));
+    }
+
+    @Test
+    void split_RangesEndOnLineBoundariesAndCoverFile() throws IOException {
+        Path file = Files.writeString(tempDir.resolve("events.ndjson"), NDJSON);
+
+        List<String> ranges = split(file, 30);
+
+        assertEquals(NDJSON, String.join("", ranges));
+        for (int i = 0; i < ranges.size() - 1; i++) {
+            assertTrue(ranges.get(i).endsWith("\n") && ranges.get(i).length() >= 30);
+        }
+    }
+
+    private static List<String> split(Path file, long chunkSize) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        List<String> ranges = new ArrayList<>();
+        new NdjsonSplitter(chunkSize).split(file, range -> ranges.add(
+                new String(bytes, (int) range.start(), (int) range.length(), StandardCharsets.UTF_8)));
+        return ranges;
+    }
+}
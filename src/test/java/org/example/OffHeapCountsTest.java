@@ -0,0 +1,120 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapCountsTest {
+
+    @Test
+    void complete_WhenTablesAreSpilled_MatchesExactCounts(@TempDir Path tempDir) throws IOException {
+        Map<String, Map<String, Long>> offHeapCounts = new ConcurrentHashMap<>();
+        Map<String, Map<String, Long>> exactCounts = new ConcurrentHashMap<>();
+        OffHeapCounts counts = new OffHeapCounts(offHeapCounts, 64 * 1024, tempDir);
+        SharedCounts expected = new SharedCounts(exactCounts);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        CompletableFuture<?>[] futures = new CompletableFuture[4];
+        for (int thread = 0; thread < futures.length; thread++) {
+            int seed = thread;
+            futures[thread] = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    String id = "id-" + ((i * 7919L + seed) % 15_000);
+                    counts.increment("id", id);
+                    expected.increment("id", id);
+                    String genre = i % 3 == 0 ? "Jürgen 😀" : "genre-" + (i % 5);
+                    counts.increment("genre", genre);
+                    expected.increment("genre", genre);
+                }
+            }, executorService);
+        }
+        CompletableFuture.allOf(futures).join();
+        executorService.shutdown();
+
+        boolean spilled;
+        try (Stream<Path> runs = Files.list(tempDir)) {
+            spilled = runs.findAny().isPresent();
+        }
+        counts.complete();
+
+        assertTrue(spilled, "The memory limit must force spills");
+        assertEquals(exactCounts, offHeapCounts);
+        assertEquals(0, counts.getReservedBytes());
+        try (Stream<Path> runs = Files.list(tempDir)) {
+            assertEquals(0, runs.count(), "Runs must be deleted once merged");
+        }
+    }
+
+    @Test
+    void increment_WhenOneThreadHoldsMostOfTheLimit_OtherThreadsSpillLargeRuns(@TempDir Path tempDir) {
+        Map<String, Map<String, Long>> offHeapCounts = new ConcurrentHashMap<>();
+        OffHeapCounts counts = new OffHeapCounts(offHeapCounts, 896 * 1024, tempDir);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        CountDownLatch filled = new CountDownLatch(1);
+        CompletableFuture<?>[] futures = new CompletableFuture[4];
+        futures[0] = CompletableFuture.runAsync(() -> {
+            // 19,000 values fill tables of 768 KiB, which do not grow anymore
+            for (int i = 0; i < 19_000; i++) {
+                counts.increment("id", "held-" + i);
+            }
+            filled.countDown();
+        }, executorService);
+        for (int thread = 1; thread < futures.length; thread++) {
+            int seed = thread;
+            futures[thread] = CompletableFuture.runAsync(() -> {
+                awaitUninterruptibly(filled);
+                for (int i = 0; i < 50_000; i++) {
+                    counts.increment("id", "id-" + seed + "-" + i);
+                }
+            }, executorService);
+        }
+        CompletableFuture.allOf(futures).join();
+        executorService.shutdown();
+        int spilledRuns = counts.getSpilledRunCount();
+        counts.complete();
+
+        // the other threads keep a share of the limit and spill thousands of ids per run
+        assertTrue(spilledRuns > 0 && spilledRuns <= 40, "Spilled runs: " + spilledRuns);
+        assertEquals(169_000, offHeapCounts.get("id").size());
+        assertEquals(1L, offHeapCounts.get("id").get("id-2-49999"));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void mergeSorted_PassesValuesInByteOrder(@TempDir Path tempDir) throws IOException {
+        OffHeapCounts counts = new OffHeapCounts(new HashMap<>(), 1, tempDir);
+        for (String value : List.of("b", "ä", "a", "b", "ab", "a")) {
+            counts.increment("genre", value);
+        }
+        List<String> merged = new ArrayList<>();
+
+        counts.mergeSorted("genre", (utf8, length, count) ->
+                merged.add(new String(utf8, 0, length, StandardCharsets.UTF_8) + "=" + count));
+
+        assertEquals(List.of("a=2", "ab=1", "b=2", "ä=1"), merged);
+    }
+}
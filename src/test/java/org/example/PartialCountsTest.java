@@ -0,0 +1,163 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartialCountsTest {
+    private static final List<String> ATTRIBUTES = List.of("genre", "author", "missing");
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() throws NoSuchFieldException, IllegalAccessException {
+        Field field = ConsoleInterface.class.getDeclaredField("executorService");
+        field.setAccessible(true);
+        executorService = Executors.newFixedThreadPool(2);
+        field.set(null, executorService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Test
+    void mergeEach_WhenShardsAreMappedSeparately_MatchesSingleRun(@TempDir Path tempDir) throws IOException {
+        Path input = writeCorpus(tempDir.resolve("input"));
+        Path partials = Files.createDirectories(tempDir.resolve("partials"));
+        for (int shard = 0; shard < 3; shard++) {
+            ConsoleInterface.runMap(input, ATTRIBUTES, partials.resolve("shard" + shard + ".partial"),
+                    Map.of("recursive", "true", "shard", shard + "/3"));
+        }
+
+        Map<String, Map<String, Long>> merged = new HashMap<>();
+        try (PartialCounts.Merger merger = PartialCounts.open(List.of(partials.resolve("shard2.partial"),
+                partials.resolve("shard0.partial"), partials.resolve("shard1.partial")))) {
+            assertEquals(List.of("author", "genre", "missing"), merger.getAttributeNames());
+            assertTrue(merger.getMissingShards().isEmpty());
+            merger.mergeEach(merged::put);
+        }
+
+        assertEquals(countDirectly(input), merged);
+        assertEquals(Map.of(), merged.get("missing"));
+    }
+
+    @Test
+    void runReduce_WritesStatisticsOfAllPartials(@TempDir Path tempDir) throws IOException {
+        Path input = writeCorpus(tempDir.resolve("input"));
+        Path partials = Files.createDirectories(tempDir.resolve("partials"));
+        ConsoleInterface.runMap(input, ATTRIBUTES, partials.resolve("a.partial"),
+                Map.of("recursive", "true", "shard", "0/2"));
+        ConsoleInterface.runMap(input, ATTRIBUTES, partials.resolve("b.partial"),
+                Map.of("recursive", "true", "shard", "1/2"));
+
+        List<StatisticsFileResult> results = ConsoleInterface.runReduce(
+                List.of(partials.resolve("a.partial"), partials.resolve("b.partial")),
+                Map.of("output", tempDir.resolve("out").toString(), "output-format", "csv"));
+
+        assertEquals(3, results.size());
+        String genre = Files.readString(tempDir.resolve("out").resolve("statistics_by_genre.csv"));
+        assertTrue(genre.startsWith("value,count\nRomance,16\n"), genre);
+    }
+
+    @Test
+    void mapAndReduce_WhenRunInSeparateProcesses(@TempDir Path tempDir) throws IOException, InterruptedException {
+        Path input = writeCorpus(tempDir.resolve("input"));
+        Path partials = Files.createDirectories(tempDir.resolve("partials"));
+        List<Process> mappers = new ArrayList<>();
+        for (int shard = 0; shard < 2; shard++) {
+            mappers.add(java("--map", input.toString(), "genre,author",
+                    partials.resolve("shard" + shard + ".partial").toString(), "--shard", shard + "/2", "--recursive"));
+        }
+        for (Process mapper : mappers) {
+            assertTrue(mapper.waitFor(60, TimeUnit.SECONDS));
+            assertEquals(0, mapper.exitValue());
+        }
+
+        Process reducer = java("--reduce", partials.toString(), "--output", tempDir.resolve("out").toString());
+        assertTrue(reducer.waitFor(60, TimeUnit.SECONDS));
+
+        String genre = Files.readString(tempDir.resolve("out").resolve("statistics_by_genre.xml"));
+        assertTrue(genre.contains("<value>Romance</value>\n   <count>16</count>"), genre);
+    }
+
+    @Test
+    void open_WhenShardOccursTwice_ThrowIOException(@TempDir Path tempDir) throws IOException {
+        Path first = tempDir.resolve("first.partial");
+        Path second = tempDir.resolve("second.partial");
+        PartialCounts.write(first, "key", 1, 2, List.of("genre"), Map.of("genre", Map.of("a", 1L)));
+        PartialCounts.write(second, "key", 1, 2, List.of("genre"), Map.of("genre", Map.of("b", 1L)));
+
+        IOException e = assertThrows(IOException.class, () -> PartialCounts.open(List.of(first, second)));
+        assertTrue(e.getMessage().contains("Shard 1/2 occurs more than once"));
+    }
+
+    @Test
+    void open_WhenSettingsDiffer_ThrowIOException(@TempDir Path tempDir) throws IOException {
+        Path first = tempDir.resolve("first.partial");
+        Path second = tempDir.resolve("second.partial");
+        PartialCounts.write(first, "attributes=genre", 0, 2, List.of("genre"), Map.of());
+        PartialCounts.write(second, "attributes=genre;genre=SEMICOLON", 1, 2, List.of("genre"), Map.of());
+
+        IOException e = assertThrows(IOException.class, () -> PartialCounts.open(List.of(first, second)));
+        assertTrue(e.getMessage().contains("were counted with other settings"));
+    }
+
+    @Test
+    void open_WhenFileIsNotPartialCounts_ThrowIOException(@TempDir Path tempDir) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("other.partial"), "not partial counts");
+
+        assertThrows(IOException.class, () -> PartialCounts.open(List.of(file)));
+    }
+
+    /**
+     * Writes eight copies of the test file, some of them in a subdirectory.
+     */
+    private static Path writeCorpus(Path directory) throws IOException {
+        Path source = Path.of("src", "test", "resources", "test.json");
+        Files.createDirectories(directory.resolve("nested"));
+        for (int i = 0; i < 8; i++) {
+            Files.copy(source, (i % 2 == 0 ? directory : directory.resolve("nested")).resolve("books" + i + ".json"));
+        }
+        return directory;
+    }
+
+    private Map<String, Map<String, Long>> countDirectly(Path input) throws IOException {
+        Map<String, Map<String, Long>> counts = new ConcurrentHashMap<>();
+        JsonProcessor processor = new JsonProcessor(executorService, ATTRIBUTES, counts,
+                ProcessingOptions.defaults().withRecursive(true));
+        processor.processDirectory(input).join();
+        processor.mergeShards();
+        Map<String, Map<String, Long>> copy = new HashMap<>();
+        ATTRIBUTES.forEach(name -> copy.put(name, new HashMap<>(counts.getOrDefault(name, Map.of()))));
+        return copy;
+    }
+
+    private static Process java(String... args) throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), Main.class.getName()));
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+}
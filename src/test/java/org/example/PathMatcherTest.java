@@ -0,0 +1,94 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PathMatcherTest {
+    private static final String JSON = """
+            [
+              {"id": 1, "author": {"name": "Austen", "id": 7}, "publisher": {"name": "Penguin"},
+               "tags": ["a", ["nested"], {"name": "tag"}], "name": "Book",
+               "items": [{"sku": "X1", "meta": {"id": 3}}, {"sku": 42}, [{"sku": "deep"}]]}
+            ]
+            """;
+
+    @Test
+    void key_WhenSelectorIsDotted_MatchesOnlyThatPath() throws IOException {
+        assertEquals(List.of("author.name=Austen"), parse("author.name"));
+        assertEquals(List.of("author.*=Austen", "author.*=7"), parse("author.*"));
+    }
+
+    @Test
+    void element_WhenSelectorHasWildcardIndex_MatchesArrayElements() throws IOException {
+        assertEquals(List.of("tags[*]=a"), parse("tags[*]"));
+        assertEquals(List.of("items[*].sku=X1", "items[*].sku=42"), parse("items[*].sku"));
+    }
+
+    @Test
+    void key_WhenSelectorHasDescendants_MatchesAtAnyDepth() throws IOException {
+        assertEquals(List.of("**.id=1", "**.id=7", "**.id=3"), parse("**.id"));
+        assertEquals(List.of("items.**.sku=X1", "items.**.sku=42", "items.**.sku=deep"), parse("items.**.sku"));
+    }
+
+    @Test
+    void key_WhenNameIsPlain_MatchesLikeBeforeSelectors() throws IOException {
+        assertEquals(List.of("name=Austen", "name=Penguin", "name=tag", "name=Book"), parse("name"));
+        assertEquals(List.of("tags=a"), parse("tags"));
+        assertEquals(List.of("sku=X1", "sku=42"), parse("sku"));
+    }
+
+    @Test
+    void key_WhenSelectorsOverlap_ReportsValueForEach() throws IOException {
+        assertEquals(List.of("name=Austen", "author.name=Austen", "name=Penguin", "name=tag", "name=Book"),
+                parse("name", "author.name"));
+    }
+
+    @Test
+    void key_WhenNoSelectorCanMatch_StateIsDead() {
+        PathMatcher matcher = PathMatcher.compile(List.of("author.name"));
+        PathMatcher.State publisher = matcher.start().key("publisher");
+        PathMatcher.State author = matcher.start().key("author");
+
+        assertTrue(publisher.isDead());
+        assertFalse(author.isDead());
+        assertSame(publisher, author.key("id"));
+        assertSame(author.key("name"), author.key("name".getBytes(StandardCharsets.UTF_8), 0, 4));
+        assertEquals(1, author.key("name").accepted().length);
+    }
+
+    @Test
+    void compile_WhenSelectorIsMalformed_ThrowIllegalArgumentException() {
+        for (String selector : List.of("author.", ".name", "a..b", "tags[0]", "tags[*", "na*me", "[*]")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> PathMatcher.compile(List.of(selector)), selector);
+            assertEquals("Invalid selector: " + selector, e.getMessage());
+        }
+    }
+
+    @Test
+    void escapeName_EncodesOnlyCharactersNotAllowedInFileNames() {
+        String plain = "genre";
+        assertSame(plain, PathMatcher.escapeName(plain));
+        assertEquals("author.name", PathMatcher.escapeName("author.name"));
+        assertEquals("items%5B%2A%5D.sku", PathMatcher.escapeName("items[*].sku"));
+        assertEquals("a%3Ab%2Fc%25d%3Be%3Df", PathMatcher.escapeName("a:b/c%d;e=f"));
+    }
+
+    private static List<String> parse(String... attributeNames) throws IOException {
+        List<String> values = new ArrayList<>();
+        new ByteJsonParser(List.of(attributeNames)).parse(new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8)),
+                (name, value) -> values.add(name + "=" + value));
+        return values;
+    }
+}
@@ -17,7 +17,7 @@ class PerformanceTest {
     public void performanceWithDifferentThreadPoolSizes(int threadCount) throws NoSuchFieldException, IllegalAccessException {
         long startTime = System.currentTimeMillis();
 
-        String[] args = {"src\\test\\resources\\performance", "name"};
+        String[] args = {Path.of("src", "test", "resources", "performance").toString(), "name"};
 
         Field field = ConsoleInterface.class.getDeclaredField("executorService");
         field.setAccessible(true);
@@ -0,0 +1,97 @@
+package org.example;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessingMetricsTest {
+
+    @Test
+    void processJsonFiles_RecordsFilesRecordsAndMatchedValues() throws IOException {
+        ProcessingMetrics metrics = new ProcessingMetrics();
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        metrics.monitorExecutor(executorService);
+        JsonProcessor jsonProcessor = new JsonProcessor(executorService, List.of("genre", "author"),
+                new ConcurrentHashMap<>(), ProcessingOptions.defaults().withMetrics(metrics));
+
+        CompletableFuture.allOf(jsonProcessor.processJsonFiles(Path.of("src", "test", "resources"))).join();
+        executorService.shutdown();
+
+        assertEquals(1, metrics.getFilesProcessed());
+        assertEquals(0, metrics.getFilesFailed());
+        assertEquals(3, metrics.getRecordsParsed());
+        assertEquals(Map.of("author", 3L, "genre", 6L), metrics.getMatchedValues());
+        assertEquals(1, metrics.getParseLatencyHistogram().values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void toJson_IncludesWriteThroughput() {
+        ProcessingMetrics metrics = new ProcessingMetrics();
+        metrics.recordStatisticsWritten("statistics_by_genre.xml", 2_000, 1_000_000);
+
+        JsonObject summary = metrics.toJson();
+
+        JsonObject write = summary.getAsJsonArray("statisticsFiles").get(0).getAsJsonObject();
+        assertEquals(2_000, write.get("bytes").getAsLong());
+        assertEquals(2_000_000, write.get("bytesPerSecond").getAsLong());
+        assertEquals(0, summary.get("filesProcessed").getAsLong());
+    }
+
+    @Test
+    void registerMBean_WhenRunsOverlap_RegistersEachUnderItsOwnName() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ProcessingMetrics first = new ProcessingMetrics();
+        ProcessingMetrics second = new ProcessingMetrics();
+
+        ObjectName firstName = first.registerMBean();
+        ObjectName secondName = second.registerMBean();
+
+        assertNotEquals(firstName, secondName);
+        assertTrue(server.isRegistered(firstName));
+        assertTrue(server.isRegistered(secondName));
+        first.unregisterMBean();
+        assertFalse(server.isRegistered(firstName));
+        assertTrue(server.isRegistered(secondName));
+        second.unregisterMBean();
+        assertFalse(server.isRegistered(secondName));
+    }
+
+    @Test
+    void runAggregation_UnregistersMetricsAtTheEndOfTheRun(@TempDir Path tempDir)
+            throws IOException, JMException, ReflectiveOperationException {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Field field = ConsoleInterface.class.getDeclaredField("executorService");
+        field.setAccessible(true);
+        field.set(null, executorService);
+
+        ConsoleInterface.runAggregation(Path.of("src", "test", "resources"), List.of("genre"), Map.of(
+                "metrics", tempDir.resolve("metrics.json").toString(),
+                "output", tempDir.resolve("out").toString()));
+        executorService.shutdown();
+
+        assertTrue(Files.exists(tempDir.resolve("metrics.json")));
+        assertEquals(Set.of(), ManagementFactory.getPlatformMBeanServer()
+                .queryNames(new ObjectName("org.example:type=ProcessingMetrics,*"), null));
+    }
+}
@@ -0,0 +1,35 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProcessingProgressTest {
+
+    @Test
+    void format_WhenTotalsAreUnknown_HasNoEstimate() {
+        ProcessingProgress progress = new ProcessingProgress();
+        progress.recordFileFound(1024 * 1024);
+        progress.recordFileCompleted(1024 * 1024);
+
+        assertTrue(progress.format().startsWith("Progress: 1/? files, 1.0 MB/?, "), progress.format());
+        assertTrue(progress.format().endsWith("ETA ?"), progress.format());
+        assertEquals(-1, progress.getEtaSeconds());
+    }
+
+    @Test
+    void format_WhenScanIsComplete_EstimatesRemainingTime() throws InterruptedException {
+        ProcessingProgress progress = new ProcessingProgress();
+        for (int i = 0; i < 4; i++) {
+            progress.recordFileFound(1024L * 1024 * 1024);
+        }
+        progress.recordScanComplete();
+        Thread.sleep(20);
+        progress.recordFileCompleted(1024L * 1024 * 1024);
+
+        assertTrue(progress.format().startsWith("Progress: 1/4 files, 1.0 GB/4.0 GB, "), progress.format());
+        assertTrue(progress.getEtaSeconds() >= 0);
+        assertTrue(progress.format().matches(".*ETA \\d+:\\d{2}:\\d{2}"), progress.format());
+    }
+}
@@ -0,0 +1,163 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ExecutorService executorService;
+    private StatisticsServer server;
+
+    @TempDir
+    Path outputDirectory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executorService = Executors.newFixedThreadPool(2);
+        server = new StatisticsServer(0, 1, (directoryPath, attributeNames, options) -> {
+            JsonProcessor jsonProcessor = new JsonProcessor(executorService, attributeNames, new ConcurrentHashMap<>());
+            jsonProcessor.processDirectory(directoryPath).join();
+            jsonProcessor.mergeShards();
+            OutputOptions outputOptions = OutputOptions.defaults()
+                    .withOutputDirectory(outputDirectory.resolve(options.get("output")));
+            return new XMLWriter(executorService, outputOptions)
+                    .generateStatisticsFile(jsonProcessor.getAttributeValueCounts()).join();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        server.stop();
+        executorService.shutdown();
+    }
+
+    @Test
+    void submitJobAndWait() throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/jobs?wait=true",
+                "{\"directory\": \"src/test/resources\", \"attributes\": [\"genre\"]}");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"status\": \"SUCCEEDED\""));
+        Path statisticsFile = outputDirectory.resolve(Path.of("jobs", "1", "statistics_by_genre.xml"));
+        assertTrue(Files.readString(statisticsFile).contains("<value>Romance</value>"));
+
+        HttpResponse<String> status = get("/jobs/1");
+        assertEquals(200, status.statusCode());
+        assertTrue(status.body().contains("\"elapsedMillis\""));
+        assertTrue(status.body().contains("\"entries\""));
+    }
+
+    @Test
+    void submitJobWithExplicitOutput() throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/jobs?wait=true",
+                "{\"directory\": \"src/test/resources\", \"attributes\": [\"author\"], \"options\": {\"output\": \"run\"}}");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(Files.exists(outputDirectory.resolve(Path.of("run", "statistics_by_author.xml"))));
+    }
+
+    @Test
+    void rejectInvalidRequests() throws IOException, InterruptedException {
+        assertEquals(400, post("/jobs", "{\"directory\": \"src/test/resources\"}").statusCode());
+        assertEquals(400, post("/jobs", "not json").statusCode());
+        assertEquals(400, post("/jobs",
+                "{\"directory\": \"src/test/resources\", \"attributes\": [\"genre\"], \"options\": {\"executor\": \"virtual\"}}")
+                .statusCode());
+        assertEquals(400, post("/jobs", "{\"directory\": \"src\\u0000test\", \"attributes\": [\"genre\"]}").statusCode());
+        assertEquals(400, post("/jobs", "{\"directory\": \"src/test/resources\", \"attributes\": [\"genre\", null]}")
+                .statusCode());
+        assertEquals(400, post("/jobs",
+                "{\"directory\": \"src/test/resources\", \"attributes\": [\"genre\"], \"options\": {\"top\": null}}")
+                .statusCode());
+        assertEquals(404, get("/jobs/42").statusCode());
+    }
+
+    @Test
+    void shutdownFinishesServer() throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/shutdown", "");
+
+        assertEquals(202, response.statusCode());
+        server.awaitShutdown();
+    }
+
+    @Test
+    void failedJobReportsError() throws IOException, InterruptedException {
+        StatisticsServer failingServer = new StatisticsServer(0, 1, (directoryPath, attributeNames, options) -> {
+            throw new IOException("disk full");
+        });
+        failingServer.start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://127.0.0.1:" + failingServer.getPort() + "/jobs?wait=true"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"directory\": \"x\", \"attributes\": [\"a\"]}"))
+                    .build();
+            String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+
+            assertTrue(body.contains("\"status\": \"FAILED\""));
+            assertTrue(body.contains("disk full"));
+        } finally {
+            failingServer.stop();
+        }
+    }
+
+    @Test
+    void finishedJobsBeyondLimitAreForgotten() throws IOException, InterruptedException {
+        StatisticsServer smallServer = new StatisticsServer(0, 1, 2, (directoryPath, attributeNames, options) -> List.of());
+        smallServer.start();
+        try {
+            for (int i = 0; i < 3; i++) {
+                HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://127.0.0.1:" + smallServer.getPort() + "/jobs?wait=true"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"directory\": \"x\", \"attributes\": [\"a\"]}"))
+                        .build();
+                assertEquals(200, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+            }
+            // the last job is retired right after its response is sent
+            HttpRequest list = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + smallServer.getPort() + "/jobs"))
+                    .GET()
+                    .build();
+            String body = client.send(list, HttpResponse.BodyHandlers.ofString()).body();
+            for (int attempt = 0; attempt < 100 && body.contains("\"id\": \"1\""); attempt++) {
+                Thread.sleep(10);
+                body = client.send(list, HttpResponse.BodyHandlers.ofString()).body();
+            }
+
+            assertFalse(body.contains("\"id\": \"1\""));
+            assertTrue(body.contains("\"id\": \"2\""));
+            assertTrue(body.contains("\"id\": \"3\""));
+        } finally {
+            smallServer.stop();
+        }
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
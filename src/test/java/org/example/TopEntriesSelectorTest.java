@@ -0,0 +1,66 @@
+package org.example;
+
+import org.example.TopEntriesSelector.TopEntries;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopEntriesSelectorTest {
+
+    @Test
+    void select_ReturnsHighestCountsAndSummarizesOthers() {
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("a", 5L);
+        counts.put("b", 9L);
+        counts.put("c", 1L);
+        counts.put("d", 7L);
+        counts.put("e", 2L);
+
+        TopEntries top = TopEntriesSelector.select(counts, 2);
+
+        assertEquals(List.of(Map.entry("b", 9L), Map.entry("d", 7L)), top.entries());
+        assertEquals(3, top.othersValues());
+        assertEquals(8, top.othersCount());
+    }
+
+    @Test
+    void select_WhenCountsAreTied_OrdersByValue() {
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("zeta", 3L);
+        counts.put("alpha", 3L);
+        counts.put("mid", 3L);
+        counts.put("low", 1L);
+
+        TopEntries top = TopEntriesSelector.select(counts, 2);
+
+        assertEquals(List.of(Map.entry("alpha", 3L), Map.entry("mid", 3L)), top.entries());
+        assertEquals(4, top.othersCount());
+    }
+
+    @Test
+    void select_WhenLimitExceedsSize_ReturnsAllEntries() {
+        TopEntries top = TopEntriesSelector.select(Map.of("a", 1L, "b", 2L), 10);
+
+        assertEquals(List.of(Map.entry("b", 2L), Map.entry("a", 1L)), top.entries());
+        assertEquals(0, top.othersValues());
+    }
+
+    @Test
+    void select_WhenLimitIsZero_SummarizesEverything() {
+        TopEntries top = TopEntriesSelector.select(Map.of("a", 1L, "b", 2L), 0);
+
+        assertTrue(top.entries().isEmpty());
+        assertEquals(3, top.othersCount());
+    }
+
+    @Test
+    void select_WhenLimitIsNegative_ThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> TopEntriesSelector.select(Map.of(), -1));
+    }
+}
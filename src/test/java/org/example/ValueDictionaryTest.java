@@ -0,0 +1,55 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ValueDictionaryTest {
+
+    @Test
+    void intern_WhenValueIsKnown_ReturnsSameId() {
+        ValueDictionary dictionary = new ValueDictionary();
+        byte[] buffer = "xxRomancexxSatire".getBytes(StandardCharsets.UTF_8);
+
+        int romance = dictionary.intern(buffer, 2, 7);
+        int satire = dictionary.intern(buffer, 11, 6);
+
+        assertEquals(0, romance);
+        assertEquals(1, satire);
+        assertEquals(romance, dictionary.intern("Romance".getBytes(StandardCharsets.UTF_8), 0, 7));
+        assertEquals(2, dictionary.size());
+        assertEquals("Romance", dictionary.value(romance));
+        assertEquals("Satire", dictionary.value(satire));
+    }
+
+    @Test
+    void intern_WhenManyValuesAreAdded_KeepsIdsAndValues() {
+        ValueDictionary dictionary = new ValueDictionary();
+        for (int i = 0; i < 10_000; i++) {
+            byte[] value = ("value-ü-" + i).getBytes(StandardCharsets.UTF_8);
+            assertEquals(i, dictionary.intern(value, 0, value.length));
+        }
+
+        assertEquals(10_000, dictionary.size());
+        for (int i = 0; i < 10_000; i++) {
+            byte[] value = ("value-ü-" + i).getBytes(StandardCharsets.UTF_8);
+            assertEquals(i, dictionary.intern(value, 0, value.length));
+            assertEquals("value-ü-" + i, dictionary.value(i));
+        }
+    }
+
+    @Test
+    void intern_WhenValueIsEmpty_AssignsOwnId() {
+        ValueDictionary dictionary = new ValueDictionary();
+        byte[] buffer = "a".getBytes(StandardCharsets.UTF_8);
+
+        int empty = dictionary.intern(buffer, 0, 0);
+
+        assertNotEquals(empty, dictionary.intern(buffer, 0, 1));
+        assertEquals(empty, dictionary.intern(buffer, 1, 0));
+        assertEquals("", dictionary.value(empty));
+    }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ValueSplitterTest {
+    private static final List<String> VALUES = List.of(
+            "Romance", " Romance ", "Dystopian, Political Fiction", ",Romance,, Tragedy ,,", ",,,", " ",
+            "a,", ",a", "a, ,b", "Jürgen, 😀", "\tTab\t,\nNewline", "a;b|c", " ; | ");
+
+    @Test
+    void split_ProducesSamePartsAsSplitAndTrim() {
+        for (ValueDelimiter delimiter : List.of(ValueDelimiter.COMMA, ValueDelimiter.SEMICOLON, ValueDelimiter.PIPE)) {
+            for (String value : VALUES) {
+                List<String> expected = Arrays.stream(value.split(Pattern.quote(String.valueOf(delimiter.separator()))))
+                        .map(String::trim)
+                        .toList();
+                assertEquals(expected, splitString(value, delimiter), value);
+                assertEquals(expected, splitBytes(value, delimiter), value);
+            }
+        }
+    }
+
+    @Test
+    void split_WhenDelimiterIsNone_CountsWholeTrimmedValue() {
+        assertEquals(List.of("a, b"), splitString(" a, b ", ValueDelimiter.NONE));
+        assertEquals(List.of("a, b"), splitBytes(" a, b ", ValueDelimiter.NONE));
+        assertEquals(List.of(""), splitString(" ", ValueDelimiter.NONE));
+    }
+
+    @Test
+    void split_WhenValueHasNoDelimiterOrWhitespace_PassesSameString() {
+        String value = "Romance";
+        List<String> parts = new ArrayList<>();
+
+        ValueSplitter.split("genre", value, ValueDelimiter.COMMA, collector(parts));
+
+        assertEquals(1, parts.size());
+        assertSame(value, parts.get(0));
+    }
+
+    private static List<String> splitString(String value, ValueDelimiter delimiter) {
+        List<String> parts = new ArrayList<>();
+        ValueSplitter.split("attribute", value, delimiter, collector(parts));
+        return parts;
+    }
+
+    private static List<String> splitBytes(String value, ValueDelimiter delimiter) {
+        List<String> parts = new ArrayList<>();
+        byte[] utf8 = ("[" + value + "]").getBytes(StandardCharsets.UTF_8);
+        ValueSplitter.split("attribute", utf8, 1, utf8.length - 2, delimiter, collector(parts));
+        return parts;
+    }
+
+    private static ValueCounter collector(List<String> parts) {
+        return new ValueCounter() {
+            @Override
+            public void increment(String attributeName, String value) {
+                parts.add(value);
+            }
+
+            @Override
+            public void add(String attributeName, String value, long count) {
+                parts.add(value);
+            }
+        };
+    }
+}
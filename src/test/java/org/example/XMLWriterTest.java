@@ -3,20 +3,29 @@ package org.example;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -32,10 +41,10 @@ class XMLWriterTest {
         xmlWriter = new XMLWriter(executorService);    }
     @Test
     void generateStatisticsFile() throws IOException, InterruptedException {
-        Map<String, Map<String, Integer>> attributeValueCounts = new ConcurrentHashMap<>();
-        Map<String, Integer> data = new ConcurrentHashMap<>();
-        data.put("value1", 10);
-        data.put("value2", 5);
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        Map<String, Long> data = new ConcurrentHashMap<>();
+        data.put("value1", 10L);
+        data.put("value2", 5L);
         attributeValueCounts.put("attribute1", data);
 
         xmlWriter.generateStatisticsFile(attributeValueCounts);
@@ -57,8 +66,272 @@ class XMLWriterTest {
         }
     }
 
+    @Test
+    void generateStatisticsFile_WhenValuesNeedEscapingAndBufferIsSmall() throws IOException, InterruptedException {
+        XMLWriter smallBufferWriter = new XMLWriter(executorService, OutputOptions.defaults().withBufferSizeBytes(32));
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        Map<String, Long> data = new ConcurrentHashMap<>();
+        data.put("Tom & Jerry <Ünïcödé> \uD83D\uDE00", 3_000_000_000L);
+        data.put("plain", 1L);
+        attributeValueCounts.put("attribute2", data);
+
+        smallBufferWriter.generateStatisticsFile(attributeValueCounts);
+
+        executorService.shutdown();
+        executorService.awaitTermination(5, TimeUnit.SECONDS);
+
+        String content = Files.readString(Path.of("statistics_by_attribute2.xml"));
+        assertEquals("""
+                <statistics>
+                  <item>
+                   <value>Tom &amp; Jerry &lt;Ünïcödé&gt; \uD83D\uDE00</value>
+                   <count>3000000000</count>
+                  </item>
+                  <item>
+                   <value>plain</value>
+                   <count>1</count>
+                  </item>
+                </statistics>""", content);
+    }
+
+    @Test
+    void generateStatisticsFile_WhenTopNIsSet_WritesOthersElement() throws IOException, InterruptedException {
+        Map<String, Map<String, Long>> attributeValueCounts = new ConcurrentHashMap<>();
+        Map<String, Long> data = new ConcurrentHashMap<>();
+        data.put("value1", 10L);
+        data.put("value2", 5L);
+        data.put("value3", 2L);
+        attributeValueCounts.put("attribute3", data);
+
+        xmlWriter.generateStatisticsFile(attributeValueCounts, 1);
+
+        executorService.shutdown();
+        executorService.awaitTermination(5, TimeUnit.SECONDS);
+
+        String content = Files.readString(Path.of("statistics_by_attribute3.xml"));
+        assertTrue(content.contains("<value>value1</value>"));
+        assertFalse(content.contains("<value>value2</value>"));
+        assertTrue(content.contains("<others count=\"7\"/>"));
+    }
+
+    @Test
+    void generateStatisticsFile_ReturnsResultPerFile(@TempDir Path outputDirectory) {
+        XMLWriter directoryWriter = new XMLWriter(executorService,
+                OutputOptions.defaults().withOutputDirectory(outputDirectory.resolve("out")));
+        Map<String, Map<String, Long>> attributeValueCounts = Map.of(
+                "first", Map.of("a", 1L, "b", 2L),
+                "second", Map.of("c", 3L));
+
+        List<StatisticsFileResult> results = directoryWriter.generateStatisticsFile(attributeValueCounts).join();
+
+        assertEquals(2, results.size());
+        for (StatisticsFileResult result : results) {
+            assertEquals(outputDirectory.resolve("out").resolve("statistics_by_" + result.attributeName() + ".xml"),
+                    result.file());
+            assertTrue(Files.exists(result.file()));
+            assertEquals(result.attributeName().equals("first") ? 2 : 1, result.entries());
+        }
+    }
+
+    @Test
+    void generateStatisticsFile_WhenAttributeIsWildcardSelector_EscapesFileName(@TempDir Path outputDirectory)
+            throws IOException {
+        XMLWriter directoryWriter = new XMLWriter(executorService,
+                OutputOptions.defaults().withOutputDirectory(outputDirectory));
+
+        List<StatisticsFileResult> results = directoryWriter.generateStatisticsFile(Map.of(
+                "tags[*]", Map.of("a", 2L),
+                "**.id", Map.of("1", 1L),
+                "author.name", Map.of("Austen", 1L))).join();
+
+        Map<String, Path> files = new HashMap<>();
+        results.forEach(result -> files.put(result.attributeName(), result.file()));
+        assertEquals(outputDirectory.resolve("statistics_by_tags%5B%2A%5D.xml"), files.get("tags[*]"));
+        assertEquals(outputDirectory.resolve("statistics_by_%2A%2A.id.xml"), files.get("**.id"));
+        assertEquals(outputDirectory.resolve("statistics_by_author.name.xml"), files.get("author.name"));
+        assertTrue(Files.readString(files.get("tags[*]")).contains("<value>a</value>"));
+    }
+
+    @Test
+    void generateStatisticsFileWhenReady_WritesEachAttributeOnceItsCountsComplete(@TempDir Path outputDirectory) {
+        XMLWriter directoryWriter = new XMLWriter(executorService,
+                OutputOptions.defaults().withOutputDirectory(outputDirectory));
+        CompletableFuture<Map<String, Long>> first = new CompletableFuture<>();
+        CompletableFuture<Map<String, Long>> second = new CompletableFuture<>();
+        Map<String, CompletableFuture<Map<String, Long>>> pendingCounts = new LinkedHashMap<>();
+        pendingCounts.put("first", first);
+        pendingCounts.put("second", second);
+
+        CompletableFuture<List<StatisticsFileResult>> writes = directoryWriter.generateStatisticsFileWhenReady(pendingCounts);
+        first.complete(Map.of("a", 1L));
+        CompletableFuture.runAsync(() -> { }, executorService).join();
+
+        assertTrue(Files.exists(outputDirectory.resolve("statistics_by_first.xml")));
+        assertFalse(writes.isDone());
+
+        second.complete(Map.of("b", 2L));
+        assertEquals(List.of("first", "second"),
+                writes.join().stream().map(StatisticsFileResult::attributeName).toList());
+    }
+
+    @Test
+    void generateStatisticsFile_WhenFileCannotBeWritten_CompletesExceptionally(@TempDir Path outputDirectory)
+            throws IOException {
+        Path notADirectory = Files.createFile(outputDirectory.resolve("file"));
+        XMLWriter failingWriter = new XMLWriter(executorService,
+                OutputOptions.defaults().withOutputDirectory(notADirectory));
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> failingWriter.generateStatisticsFile(Map.of("attribute", Map.of("a", 1L))).join());
+
+        assertInstanceOf(UncheckedIOException.class, exception.getCause());
+        assertInstanceOf(IOException.class, exception.getCause().getCause());
+    }
+
+    @Test
+    void generateStatisticsFile_WhenFormatIsCsvOrJson(@TempDir Path outputDirectory) throws IOException {
+        Map<String, Map<String, Long>> attributeValueCounts = Map.of(
+                "title", Map.of("Tom \"Cat\", Jerry", 3L, "plain", 2L, "rare", 1L));
+        OutputOptions options = OutputOptions.defaults().withOutputDirectory(outputDirectory).withTopN(2);
+
+        new XMLWriter(executorService, options.withSerializer(StatisticsSerializer.forName("csv")))
+                .generateStatisticsFile(attributeValueCounts).join();
+        new XMLWriter(executorService, options.withSerializer(StatisticsSerializer.forName("JSON")))
+                .generateStatisticsFile(attributeValueCounts).join();
+
+        assertEquals("""
+                value,count
+                "Tom ""Cat"", Jerry",3
+                plain,2
+                """, Files.readString(outputDirectory.resolve("statistics_by_title.csv")));
+        assertEquals("""
+                {
+                  "statistics": [
+                    {"value": "Tom \\"Cat\\", Jerry", "count": 3},
+                    {"value": "plain", "count": 2}
+                  ],
+                  "others": {"values": 1, "count": 1}
+                }
+                """, Files.readString(outputDirectory.resolve("statistics_by_title.json")));
+    }
+
+    @Test
+    void generateStatisticsFile_WhenFormatIsBinarySorted_FindsValuesByBinarySearch(@TempDir Path outputDirectory)
+            throws IOException {
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            counts.put("value" + i, (long) i % 7 + 1);
+        }
+        counts.put("Ünïcödé \uD83D\uDE00", 9L);
+        XMLWriter binaryWriter = new XMLWriter(executorService, OutputOptions.defaults()
+                .withOutputDirectory(outputDirectory)
+                .withBufferSizeBytes(32)
+                .withSerializer(StatisticsSerializer.forName("binary-sorted")));
+
+        StatisticsFileResult result = binaryWriter.generateStatisticsFile(Map.of("attribute", counts)).join().get(0);
+
+        assertEquals(outputDirectory.resolve("statistics_by_attribute.bin"), result.file());
+        assertEquals(Files.size(result.file()), result.bytes());
+        BinaryStatisticsFile file = BinaryStatisticsFile.open(result.file());
+        assertTrue(file.isSortedByValue());
+        assertEquals(counts.size(), file.size());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            int index = file.indexOf(entry.getKey());
+            assertEquals(entry.getKey(), file.value(index));
+            assertEquals(entry.getValue(), file.count(index));
+        }
+        assertEquals(-1, file.indexOf("missing"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"xml", "csv", "json", "binary", "binary-sorted"})
+    void generateStatisticsFile_WhenSortedExternally_MatchesInMemorySort(String format, @TempDir Path tempDir)
+            throws IOException {
+        Map<String, Long> counts = new ConcurrentHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            counts.put("value & <" + i + ">", (long) i % 13 + 1);
+        }
+        counts.put("Ünïcödé 😀", 7L);
+        OutputOptions options = OutputOptions.defaults().withSerializer(StatisticsSerializer.forName(format));
+        Path spillDirectory = tempDir.resolve("spill");
+
+        StatisticsFileResult inMemory = new XMLWriter(executorService, options
+                .withOutputDirectory(tempDir.resolve("memory")))
+                .generateStatisticsFile(Map.of("attribute", counts)).join().get(0);
+        StatisticsFileResult external = new XMLWriter(executorService, options
+                .withOutputDirectory(tempDir.resolve("external"))
+                .withSortChunkEntries(64)
+                .withSpillDirectory(spillDirectory))
+                .generateStatisticsFile(Map.of("attribute", counts)).join().get(0);
+
+        assertEquals(counts.size(), external.entries());
+        assertArrayEquals(Files.readAllBytes(inMemory.file()), Files.readAllBytes(external.file()));
+        if (!format.equals("binary-sorted")) {
+            try (Stream<Path> runs = Files.list(spillDirectory)) {
+                assertEquals(0, runs.count(), "Runs must be deleted once merged");
+            }
+        }
+    }
+
+    @Test
+    void generateEstimatedStatisticsFile_WhenFormatIsBinary_KeepsCountOrderAndErrors(@TempDir Path outputDirectory)
+            throws IOException {
+        XMLWriter binaryWriter = new XMLWriter(executorService, OutputOptions.defaults()
+                .withOutputDirectory(outputDirectory)
+                .withSerializer(StatisticsSerializer.forName("binary")));
+
+        binaryWriter.generateEstimatedStatisticsFile(Map.of("attribute",
+                List.of(new EstimatedCount("b", 5, 1), new EstimatedCount("a", 3, 0)))).join();
+
+        BinaryStatisticsFile file = BinaryStatisticsFile.open(outputDirectory.resolve("statistics_by_attribute.bin"));
+        assertFalse(file.isSortedByValue());
+        assertTrue(file.hasErrors());
+        assertEquals(List.of("b", "a"), List.of(file.value(0), file.value(1)));
+        assertEquals(5, file.count(0));
+        assertEquals(1, file.error(0));
+        assertEquals(1, file.indexOf("a"));
+    }
+
+    @Test
+    void generateStatisticsFile_WhenSerializerIsCustom_UsesItsExtension(@TempDir Path outputDirectory) {
+        StatisticsSerializer lines = new StatisticsSerializer() {
+            @Override
+            public String name() {
+                return "lines";
+            }
+
+            @Override
+            public String fileExtension() {
+                return "txt";
+            }
+
+            @Override
+            public long writeCounts(Path file, TopEntriesSelector.TopEntries sortedData, int bufferSizeBytes)
+                    throws IOException {
+                Files.write(file, sortedData.entries().stream().map(e -> e.getKey() + " " + e.getValue()).toList());
+                return Files.size(file);
+            }
+        };
+        XMLWriter customWriter = new XMLWriter(executorService,
+                OutputOptions.defaults().withOutputDirectory(outputDirectory).withSerializer(lines));
+
+        customWriter.generateEstimatedStatisticsFile(Map.of("attribute", List.of(new EstimatedCount("a", 3, 1)))).join();
+
+        assertEquals(List.of("a 3"), assertDoesNotThrow(
+                () -> Files.readAllLines(outputDirectory.resolve("statistics_by_attribute.txt"))));
+    }
+
+    @Test
+    void forName_WhenFormatIsUnknown_ThrowIllegalArgumentException() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> StatisticsSerializer.forName("yaml"));
+        assertEquals("Unknown output format: yaml", e.getMessage());
+    }
+
     @AfterAll
     public static void deleteTestFile() throws IOException {
         Files.delete(Path.of("statistics_by_attribute1.xml"));
+        Files.delete(Path.of("statistics_by_attribute2.xml"));
+        Files.delete(Path.of("statistics_by_attribute3.xml"));
     }
 }